@@ -36,6 +36,7 @@ public class CacheConfig {
      * Define cache names as constants for reuse and consistency
      */
     public static final String IGDB_GAME_SEARCH_CACHE = "igdbGameSearchCache";
+    public static final String IGDB_GAME_DETAILS_CACHE = "igdbGameDetailsCache";
 
     /**
      * Creates and configures the Caffeine cache builder
@@ -55,15 +56,18 @@ public class CacheConfig {
 
     /**
      * Creates the cache manager bean using the Caffeine configuration
+     * Caches run in async mode and store one future per key, so concurrent misses
+     * for the same key can wait on a single load instead of each starting their own
      *
      * @param caffeine the configured Caffeine builder
      * @return the configured CacheManager
      */
     @Bean
     public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager(IGDB_GAME_SEARCH_CACHE);
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(IGDB_GAME_SEARCH_CACHE, IGDB_GAME_DETAILS_CACHE);
         cacheManager.setCaffeine(caffeine);
-        logger.info("CaffeineCacheManager initialized with cache: {}", IGDB_GAME_SEARCH_CACHE);
+        cacheManager.setAsyncCacheMode(true);
+        logger.info("CaffeineCacheManager initialized with caches: {}, {}", IGDB_GAME_SEARCH_CACHE, IGDB_GAME_DETAILS_CACHE);
         return cacheManager;
     }
 } 
@@ -40,16 +40,12 @@ public class HerokuDatabaseConfig {
         config.setLeakDetectionThreshold(30000); // 30 seconds
         config.setPoolName("HikariPool-GameRecs");
         
-        // Performance optimizations
-        config.addDataSourceProperty("cachePrepStmts", "true");
-        config.addDataSourceProperty("prepStmtCacheSize", "100");
-        config.addDataSourceProperty("prepStmtCacheSqlLimit", "1024");
-        config.addDataSourceProperty("useServerPrepStmts", "true");
-        
-        // Additional optimizations
-        config.addDataSourceProperty("useLocalSessionState", "true");
-        config.addDataSourceProperty("rewriteBatchedStatements", "true");
-        config.addDataSourceProperty("maintainTimeStats", "false");
+        // Performance optimizations, as pgjdbc options
+        // Statements are prepared on the server from their first execution and kept per connection
+        config.addDataSourceProperty("prepareThreshold", "1");
+        config.addDataSourceProperty("preparedStatementCacheQueries", "256");
+        // pgjdbc rewrites a JDBC batch of inserts into multi-row inserts
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
         
         return new HikariDataSource(config);
     }
@@ -0,0 +1,117 @@
+package com.gamerecs.back.config;
+
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Outbound HTTP clients, one per upstream service
+ *
+ * Each upstream gets its own Reactor Netty connection pool with a connection cap, keep-alive
+ * and idle eviction, gzip negotiation, HTTP/2 where the server offers it, and explicit connect
+ * and response timeouts. The pool publishes reactor.netty.connection.provider metrics and the
+ * client reactor.netty.http.client metrics, both tagged with the upstream name; the RestTemplates
+ * and WebClients built on them also record http.client.requests through Spring's observations.
+ */
+@Configuration
+public class HttpClientConfig {
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientConfig.class);
+
+    public static final String IGDB = "igdb";
+    public static final String GOOGLE = "google";
+
+    @Bean("igdbHttpClient")
+    public HttpClient igdbHttpClient(
+            @Value("${http.client.igdb.max-connections:8}") int maxConnections,
+            @Value("${http.client.igdb.connect-timeout:PT5S}") Duration connectTimeout,
+            @Value("${http.client.igdb.response-timeout:PT30S}") Duration responseTimeout,
+            @Value("${http.client.igdb.max-idle-time:PT30S}") Duration maxIdleTime,
+            @Value("${http.client.igdb.http2:true}") boolean http2) {
+        return createHttpClient(IGDB, maxConnections, connectTimeout, responseTimeout, maxIdleTime, http2);
+    }
+
+    @Bean("googleHttpClient")
+    public HttpClient googleHttpClient(
+            @Value("${http.client.google.max-connections:4}") int maxConnections,
+            @Value("${http.client.google.connect-timeout:PT5S}") Duration connectTimeout,
+            @Value("${http.client.google.response-timeout:PT10S}") Duration responseTimeout,
+            @Value("${http.client.google.max-idle-time:PT30S}") Duration maxIdleTime,
+            @Value("${http.client.google.http2:true}") boolean http2) {
+        return createHttpClient(GOOGLE, maxConnections, connectTimeout, responseTimeout, maxIdleTime, http2);
+    }
+
+    /**
+     * RestTemplate used by the blocking IGDB calls: catalog sync, backfill and delta sync
+     */
+    @Bean("igdbRestTemplate")
+    public RestTemplate igdbRestTemplate(RestTemplateBuilder builder, @Qualifier("igdbHttpClient") HttpClient httpClient) {
+        return builder.requestFactory(() -> new ReactorClientHttpRequestFactory(httpClient)).build();
+    }
+
+    /**
+     * Connector for the non-blocking IGDB client, sharing the IGDB connection pool
+     */
+    @Bean("igdbHttpConnector")
+    public ClientHttpConnector igdbHttpConnector(@Qualifier("igdbHttpClient") HttpClient httpClient) {
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    /**
+     * RestTemplate used for the Google OAuth2 token exchange and user info calls
+     */
+    @Bean("googleRestTemplate")
+    public RestTemplate googleRestTemplate(RestTemplateBuilder builder, @Qualifier("googleHttpClient") HttpClient httpClient) {
+        return builder.requestFactory(() -> new ReactorClientHttpRequestFactory(httpClient)).build();
+    }
+
+    /**
+     * Creates a pooled HTTP client for one upstream
+     *
+     * @param upstream name of the upstream, used for the pool name and metric tags
+     * @param maxConnections most connections kept open to the upstream at once
+     * @param connectTimeout time allowed to open a connection
+     * @param responseTimeout time allowed for the response, also the longest wait for a pooled connection
+     * @param maxIdleTime time an unused connection is kept alive before it is closed
+     * @param http2 whether to offer HTTP/2 over TLS, falling back to HTTP/1.1
+     * @return the configured client
+     */
+    static HttpClient createHttpClient(String upstream, int maxConnections, Duration connectTimeout,
+            Duration responseTimeout, Duration maxIdleTime, boolean http2) {
+        logger.info("Initializing {} HTTP client with {} connections, connect timeout {}, response timeout {}",
+            upstream, maxConnections, connectTimeout, responseTimeout);
+
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(upstream)
+            .maxConnections(maxConnections)
+            .pendingAcquireTimeout(responseTimeout)
+            .maxIdleTime(maxIdleTime)
+            .evictInBackground(maxIdleTime)
+            .metrics(true)
+            .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .compress(true)
+            .keepAlive(true)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .responseTimeout(responseTimeout)
+            // Query strings may carry tokens and unbounded values, so only the path is used as a tag
+            .metrics(true, uri -> {
+                int query = uri.indexOf('?');
+                return query < 0 ? uri : uri.substring(0, query);
+            });
+        return http2 ? httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11) : httpClient;
+    }
+} 
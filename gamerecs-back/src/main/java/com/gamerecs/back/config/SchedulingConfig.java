@@ -0,0 +1,13 @@
+package com.gamerecs.back.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration for scheduled background jobs
+ * Enables @Scheduled methods such as the IGDB delta sync
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+} 
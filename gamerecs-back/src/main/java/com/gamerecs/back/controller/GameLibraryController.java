@@ -1,5 +1,6 @@
 package com.gamerecs.back.controller;
 
+import com.gamerecs.back.dto.LibraryEntryPage;
 import com.gamerecs.back.model.GameLibrary;
 import com.gamerecs.back.model.PaginatedGameLibraryResponse;
 import com.gamerecs.back.security.CustomUserDetails;
@@ -48,7 +49,10 @@ public class GameLibraryController {
                description = "Returns a paginated game library associated with the authenticated user. "
                            + "Requires valid authentication. Returns HTTP 404 if no library exists. "
                            + "Supports sorting by 'title' or 'releaseDate', filtering by genre name, "
-                           + "and pagination parameters (page, size).")
+                           + "and pagination parameters (page, size). "
+                           + "Pass a cursor, empty for the first page, to page by keyset instead of page number: "
+                           + "the returned nextCursor reads the next page, and the total is only counted "
+                           + "when includeTotal is set.")
     @GetMapping("/game-library/paginated")
     public ResponseEntity<PaginatedGameLibraryResponse> getPaginatedGameLibrary(
             @AuthenticationPrincipal CustomUserDetails userDetails,
@@ -60,17 +64,83 @@ public class GameLibraryController {
             @Parameter(description = "Page number (0-indexed)", example = "0")
             @RequestParam(required = false, defaultValue = "0") int page,
             @Parameter(description = "Page size", example = "10")
-            @RequestParam(required = false, defaultValue = "10") int size) {
+            @RequestParam(required = false, defaultValue = "10") int size,
+            @Parameter(description = "nextCursor of the previous page, empty for the first page; replaces page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Whether to count the games when paging by cursor", example = "false")
+            @RequestParam(required = false, defaultValue = "false") boolean includeTotal) {
         
         // Validate page and size (must be non-negative and positive where appropriate)
         if (page < 0 || size <= 0) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid pagination parameters");
         }
         
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(gameLibraryService.getLibraryPageAfter(
+                    userDetails.getUserId(), sortBy, filterByGenre, cursor, size, includeTotal));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        }
+        
         // The authenticated user's id is provided by CustomUserDetails
         PaginatedGameLibraryResponse response = gameLibraryService.getPaginatedLibraryForUser(
             userDetails.getUserId(), sortBy, filterByGenre, page, size);
         
         return ResponseEntity.ok(response);
     }
+
+    @Operation(summary = "Get a page of the authenticated user's game library list view",
+               description = "Returns the title, release date, cover and genre and platform ids of the games "
+                           + "of the authenticated user's library, read from the library list read model. "
+                           + "Requires valid authentication. Returns HTTP 404 if no library exists. "
+                           + "Supports sorting by 'title' or 'releaseDate' and filtering by genre name; "
+                           + "pages by keyset: pass the returned nextCursor to read the next page.")
+    @GetMapping("/game-library/entries")
+    public ResponseEntity<LibraryEntryPage> getGameLibraryEntries(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(description = "Field to sort games by (title or releaseDate)", example = "title")
+            @RequestParam(required = false, defaultValue = "title") String sortBy,
+            @Parameter(description = "Genre name to filter games by (empty for no filtering)", example = "Action")
+            @RequestParam(required = false, defaultValue = "") String filterByGenre,
+            @Parameter(description = "nextCursor of the previous page, empty for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size", example = "10")
+            @RequestParam(required = false, defaultValue = "10") int size) {
+
+        if (size <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid pagination parameters");
+        }
+        try {
+            return ResponseEntity.ok(gameLibraryService.getLibraryEntries(
+                userDetails.getUserId(), sortBy, filterByGenre, cursor, size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Add a game to the authenticated user's game library",
+               description = "Adds a game to the authenticated user's library; adding a game already in it "
+                           + "changes nothing. Returns HTTP 404 if no library or no such game exists.")
+    @PostMapping("/game-library/games/{gameId}")
+    public ResponseEntity<Void> addGameToLibrary(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(description = "Id of the game to add", example = "1")
+            @PathVariable Long gameId) {
+        gameLibraryService.addGameToLibrary(userDetails.getUserId(), gameId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Remove a game from the authenticated user's game library",
+               description = "Removes a game from the authenticated user's library; removing a game not in it "
+                           + "changes nothing. Returns HTTP 404 if no library exists.")
+    @DeleteMapping("/game-library/games/{gameId}")
+    public ResponseEntity<Void> removeGameFromLibrary(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(description = "Id of the game to remove", example = "1")
+            @PathVariable Long gameId) {
+        gameLibraryService.removeGameFromLibrary(userDetails.getUserId(), gameId);
+        return ResponseEntity.noContent().build();
+    }
 } 
@@ -0,0 +1,75 @@
+package com.gamerecs.back.controller;
+
+import com.gamerecs.back.dto.GameCompletion;
+import com.gamerecs.back.dto.GameSearchPage;
+import com.gamerecs.back.service.GameSearchService;
+import com.gamerecs.back.service.GameTitleIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@Tag(name = "Game Search", description = "Endpoints for searching the game catalog")
+@RestController
+@RequestMapping("/api/games")
+public class GameSearchController {
+
+    private final GameSearchService gameSearchService;
+    private final GameTitleIndex gameTitleIndex;
+
+    @Autowired
+    public GameSearchController(GameSearchService gameSearchService, GameTitleIndex gameTitleIndex) {
+        this.gameSearchService = gameSearchService;
+        this.gameTitleIndex = gameTitleIndex;
+    }
+
+    @Operation(summary = "Search games",
+               description = "Returns games matching the query from the local catalog, best match first. "
+                           + "IGDB is only asked for the first page when the catalog has too few matches "
+                           + "or is out of date. Requires valid authentication. "
+                           + "Pass the returned nextCursor to get the next page.")
+    @GetMapping("/search")
+    public ResponseEntity<GameSearchPage> searchGames(
+            @Parameter(description = "Search query", example = "zelda")
+            @RequestParam String query,
+            @Parameter(description = "nextCursor of the previous page, empty for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, at most " + GameSearchService.MAX_PAGE_SIZE, example = "20")
+            @RequestParam(required = false, defaultValue = "20") int size) {
+
+        if (size <= 0 || size > GameSearchService.MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page size");
+        }
+
+        try {
+            return ResponseEntity.ok(gameSearchService.search(query, cursor, size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Autocomplete game titles",
+               description = "Returns the most popular games whose title matches every word typed so far, "
+                           + "from an in-memory index of the catalog. Requires valid authentication.")
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<GameCompletion>> completeTitle(
+            @Parameter(description = "What the user typed so far", example = "zel bre")
+            @RequestParam String prefix,
+            @Parameter(description = "Number of completions, at most " + GameTitleIndex.MAX_COMPLETIONS, example = "10")
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+
+        if (limit <= 0 || limit > GameTitleIndex.MAX_COMPLETIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit");
+        }
+        return ResponseEntity.ok(gameTitleIndex.complete(prefix, limit));
+    }
+}
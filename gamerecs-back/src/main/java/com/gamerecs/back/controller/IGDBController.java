@@ -2,6 +2,7 @@ package com.gamerecs.back.controller;
 
 import com.gamerecs.back.service.IGDBClientService;
 import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.dto.IGDBSearchResult;
 import com.gamerecs.back.security.CustomUserDetails;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -10,9 +11,13 @@ import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import java.nio.file.Path;
 import java.util.List;
 import com.gamerecs.back.service.GameSyncService;
-import com.gamerecs.back.model.Game;
+import com.gamerecs.back.service.IGDBBackfillService;
+import com.gamerecs.back.service.IGDBDumpImportService;
+import com.gamerecs.back.service.IGDBGameDetailsService;
+import com.gamerecs.back.dto.GameSyncResult;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 @RestController
@@ -21,10 +26,18 @@ public class IGDBController {
     private static final Logger logger = LoggerFactory.getLogger(IGDBController.class);
     private final IGDBClientService igdbClientService;
     private final GameSyncService gameSyncService;
+    private final IGDBBackfillService igdbBackfillService;
+    private final IGDBGameDetailsService igdbGameDetailsService;
+    private final IGDBDumpImportService igdbDumpImportService;
 
-    public IGDBController(IGDBClientService igdbClientService, GameSyncService gameSyncService) {
+    public IGDBController(IGDBClientService igdbClientService, GameSyncService gameSyncService,
+            IGDBBackfillService igdbBackfillService, IGDBGameDetailsService igdbGameDetailsService,
+            IGDBDumpImportService igdbDumpImportService) {
         this.igdbClientService = igdbClientService;
         this.gameSyncService = gameSyncService;
+        this.igdbBackfillService = igdbBackfillService;
+        this.igdbGameDetailsService = igdbGameDetailsService;
+        this.igdbDumpImportService = igdbDumpImportService;
     }
 
     /**
@@ -46,12 +59,26 @@ public class IGDBController {
         logger.debug("User {} requesting IGDB update", userDetails.getUsername());
         
         try {
-            // Trigger the IGDB search and sync to database
-            List<IGDBGameDTO> igdbResponse = igdbClientService.searchGames(query);
-            List<Game> savedGames = gameSyncService.syncGamesFromSearch(igdbResponse);
+            // Trigger the IGDB search and sync to database, with full records in two-phase search mode
+            IGDBSearchResult searchResult = igdbClientService.searchGamesWithStatus(query);
+            if (searchResult.degraded()) {
+                // Fallback results are old or come from our own catalog, so there is nothing new to persist
+                logger.warn("IGDB unavailable for update requested by user {}, served {} results from {}",
+                    userDetails.getUsername(), searchResult.games().size(), searchResult.source());
+                return unavailable(searchResult.games());
+            }
+            List<IGDBGameDTO> igdbResponse;
+            try {
+                igdbResponse = igdbGameDetailsService.withDetails(searchResult.games());
+            } catch (IllegalStateException e) {
+                // Listing records lack the fields a sync writes, so nothing is persisted without their details
+                logger.warn("IGDB details unavailable for update requested by user {}", userDetails.getUsername(), e);
+                return unavailable(searchResult.games());
+            }
+            GameSyncResult syncResult = gameSyncService.syncGamesInBatches(igdbResponse);
             
             logger.debug("IGDB search and sync completed successfully for user {}, found and processed {} games", 
-                userDetails.getUsername(), savedGames.size());
+                userDetails.getUsername(), syncResult.getProcessed());
             
             return ResponseEntity.ok().body(
                 new ApiResponse("IGDB update completed and data persisted.", igdbResponse)
@@ -62,6 +89,37 @@ public class IGDBController {
                 .body(new ApiResponse("Error during IGDB update process", List.of()));
         }
     }
+
+    private static ResponseEntity<ApiResponse> unavailable(List<IGDBGameDTO> games) {
+        return ResponseEntity.ok().body(
+            new ApiResponse("IGDB is unavailable, showing saved results. Nothing was persisted.", games, true)
+        );
+    }
+    
+    /**
+     * Returns the full IGDB records of the given games, for the games a user opens or adds
+     * after a two-phase search returned only their listing fields.
+     * Requires authentication to access this endpoint.
+     *
+     * @param ids the IGDB ids of the games
+     * @return ResponseEntity with the games found, in the order of the ids
+     */
+    @GetMapping("/games")
+    public ResponseEntity<ApiResponse> getGameDetails(@RequestParam("ids") List<Long> ids) {
+        if (ids.size() > IGDBClientService.MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                .body(new ApiResponse("At most " + IGDBClientService.MAX_PAGE_SIZE + " games per request", List.of()));
+        }
+        List<IGDBGameDTO> games;
+        try {
+            games = igdbGameDetailsService.getGames(ids);
+        } catch (IllegalStateException e) {
+            logger.warn("IGDB details unavailable for {} games", ids.size(), e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ApiResponse("IGDB is unavailable, try again later.", List.of(), true));
+        }
+        return ResponseEntity.ok(new ApiResponse("Found " + games.size() + " games", games));
+    }
     
     /**
      * Endpoint to manually clear the IGDB game search cache.
@@ -87,13 +145,66 @@ public class IGDBController {
         }
     }
     
+    /**
+     * Starts a background backfill of the whole IGDB catalog, resuming from the last checkpoint.
+     * Requires ADMIN role to perform this operation.
+     * 
+     * @return 202 if the backfill was started, 409 if one is already running
+     */
+    @PostMapping("/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> startBackfill() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        
+        logger.info("Admin user {} requesting an IGDB catalog backfill", userDetails.getUsername());
+        
+        if (!igdbBackfillService.startBackfill()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("IGDB backfill is already running");
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body("IGDB backfill started");
+    }
+    
+    /**
+     * Starts a background import of a local IGDB dump file from the configured dump directory.
+     * Requires ADMIN role to perform this operation.
+     * 
+     * @param file the name of the dump, NDJSON or JSON array, optionally gzip-compressed
+     * @return 202 if the import was started, 400 for an unknown file, 409 if one is already running
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> startDumpImport(@RequestParam("file") String file) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        
+        logger.info("Admin user {} requesting an import of IGDB dump {}", userDetails.getUsername(), file);
+        
+        Path dump;
+        try {
+            dump = igdbDumpImportService.resolveDump(file);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (!igdbDumpImportService.startImport(dump)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("IGDB dump import is already running");
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body("IGDB dump import started");
+    }
+    
     public static class ApiResponse {
         private final String message;
         private final List<IGDBGameDTO> data;
+        private final boolean degraded;
 
         public ApiResponse(String message, List<IGDBGameDTO> data) {
+            this(message, data, false);
+        }
+
+        public ApiResponse(String message, List<IGDBGameDTO> data, boolean degraded) {
             this.message = message;
             this.data = data;
+            this.degraded = degraded;
         }
         
         public String getMessage() {
@@ -103,5 +214,12 @@ public class IGDBController {
         public List<IGDBGameDTO> getData() {
             return data;
         }
+
+        /**
+         * True when IGDB could not answer and the data comes from a fallback
+         */
+        public boolean isDegraded() {
+            return degraded;
+        }
     }
 } 
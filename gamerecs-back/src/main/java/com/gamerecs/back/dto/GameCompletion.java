@@ -0,0 +1,10 @@
+package com.gamerecs.back.dto;
+
+/**
+ * A title suggested by the autocomplete
+ *
+ * @param igdbId the IGDB id of the game
+ * @param title the title of the game
+ */
+public record GameCompletion(long igdbId, String title) {
+} 
@@ -0,0 +1,18 @@
+package com.gamerecs.back.dto;
+
+import java.util.List;
+
+/**
+ * A page of games found by the local catalog search
+ *
+ * @param games the games found, best match first
+ * @param nextCursor the cursor of the next page, or null on the last page
+ * @param source whether IGDB was asked to complete the local results
+ */
+public record GameSearchPage(List<IGDBGameDTO> games, String nextCursor, Source source) {
+
+    public enum Source {
+        LOCAL,
+        LOCAL_AND_IGDB
+    }
+} 
@@ -0,0 +1,43 @@
+package com.gamerecs.back.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of a batch synchronization run from IGDB into the local catalog.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameSyncResult {
+    private int processed;
+    private int inserted;
+    private int updated;
+    private int skipped;
+    private long elapsedMillis;
+
+    /**
+     * Adds the counters of another result to this one.
+     *
+     * @param other the result to merge into this one
+     */
+    public void add(GameSyncResult other) {
+        processed += other.processed;
+        inserted += other.inserted;
+        updated += other.updated;
+        skipped += other.skipped;
+        elapsedMillis += other.elapsedMillis;
+    }
+
+    /**
+     * Throughput of the run in games per second.
+     *
+     * @return processed games per second, or 0 if nothing was timed
+     */
+    public double getGamesPerSecond() {
+        return elapsedMillis > 0 ? processed * 1000.0 / elapsedMillis : 0.0;
+    }
+} 
@@ -0,0 +1,14 @@
+package com.gamerecs.back.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One named result of an IGDB /multiquery request
+ */
+@Data
+public class IGDBMultiQueryResultDTO {
+    private String name;
+    private List<IGDBGameDTO> result;
+} 
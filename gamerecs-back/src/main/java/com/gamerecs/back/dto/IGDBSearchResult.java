@@ -0,0 +1,26 @@
+package com.gamerecs.back.dto;
+
+import java.util.List;
+
+/**
+ * Games found by an IGDB search, with where they came from
+ *
+ * @param games the games found
+ * @param source IGDB or its caches for a regular result, otherwise the fallback that answered
+ */
+public record IGDBSearchResult(List<IGDBGameDTO> games, Source source) {
+
+    public enum Source {
+        IGDB,
+        STALE_CACHE,
+        LOCAL_CATALOG,
+        NONE
+    }
+
+    /**
+     * @return true if IGDB could not answer and the games come from a fallback, possibly outdated or incomplete
+     */
+    public boolean degraded() {
+        return source != Source.IGDB;
+    }
+} 
@@ -0,0 +1,16 @@
+package com.gamerecs.back.dto;
+
+import com.gamerecs.back.model.LibraryEntry;
+
+import java.util.List;
+
+/**
+ * A page of the library list view, read from the library_entries read model
+ *
+ * @param libraryId the library read
+ * @param entries the entries of the page, in the requested order
+ * @param pageSize the requested page size
+ * @param nextCursor the cursor of the next page, or null on the last page
+ */
+public record LibraryEntryPage(Long libraryId, List<LibraryEntry> entries, int pageSize, String nextCursor) {
+} 
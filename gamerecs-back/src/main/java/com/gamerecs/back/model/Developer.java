@@ -16,7 +16,8 @@ import java.util.Set;
 @ToString(exclude = "games")
 public class Developer {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "developers_developer_id_seq")
+    @SequenceGenerator(name = "developers_developer_id_seq", sequenceName = "developers_developer_id_seq", allocationSize = 1)
     @Column(name = "developer_id")
     private Long developerId;
 
@@ -18,7 +18,8 @@ import java.util.Set;
 @ToString(exclude = {"genres", "platforms", "publishers", "developers"})
 public class Game {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "games_game_id_seq")
+    @SequenceGenerator(name = "games_game_id_seq", sequenceName = "games_game_id_seq", allocationSize = 1)
     @Column(name = "game_id")
     private Long gameId;
 
@@ -20,7 +20,8 @@ import java.util.Set;
 public class GameLibrary {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_libraries_library_id_seq")
+    @SequenceGenerator(name = "game_libraries_library_id_seq", sequenceName = "game_libraries_library_id_seq", allocationSize = 50)
     @Column(name = "library_id")
     private Long libraryId;
 
@@ -16,7 +16,8 @@ import java.util.Set;
 @ToString(exclude = "games")
 public class Genre {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "genres_genre_id_seq")
+    @SequenceGenerator(name = "genres_genre_id_seq", sequenceName = "genres_genre_id_seq", allocationSize = 1)
     @Column(name = "genre_id")
     private Long genreId;
 
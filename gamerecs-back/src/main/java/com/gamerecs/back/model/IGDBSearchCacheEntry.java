@@ -0,0 +1,54 @@
+package com.gamerecs.back.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing one IGDB search result kept in the persistent cache tier.
+ * Maps to the 'igdb_search_cache' table in the database.
+ */
+@Entity
+@Table(name = "igdb_search_cache")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IGDBSearchCacheEntry {
+
+    /**
+     * Canonical form of the search query
+     */
+    @Id
+    @Column(name = "search_query", length = 255)
+    private String searchQuery;
+
+    /**
+     * GZIP-compressed JSON array of the games found
+     */
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(name = "result", nullable = false, length = 1048576)
+    private byte[] result;
+
+    @Column(name = "result_count", nullable = false)
+    private Integer resultCount;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Number of times the entry was served from this tier, used to pick the entries to pre-load
+     */
+    @Builder.Default
+    @Column(name = "hit_count", nullable = false)
+    private Long hitCount = 0L;
+} 
@@ -0,0 +1,67 @@
+package com.gamerecs.back.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read model of one game in one library, holding what the library list view shows.
+ * Maps to the 'library_entries' table, which is written by LibraryEntryBatchRepository
+ * in the transactions that change a library or sync a game, and only ever read through this entity.
+ */
+@Entity
+@Table(name = "library_entries")
+@IdClass(LibraryEntry.Key.class)
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LibraryEntry {
+
+    @Id
+    @Column(name = "library_id")
+    private Long libraryId;
+
+    @Id
+    @Column(name = "game_id")
+    private Long gameId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(name = "release_date")
+    private LocalDate releaseDate;
+
+    @Column(name = "cover_image_url")
+    private String coverImageUrl;
+
+    /**
+     * Ids of the genres of the game, in ascending order
+     */
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "genre_ids", nullable = false)
+    private List<Long> genreIds;
+
+    /**
+     * Ids of the platforms of the game, in ascending order
+     */
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "platform_ids", nullable = false)
+    private List<Long> platformIds;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long libraryId;
+        private Long gameId;
+    }
+} 
@@ -12,6 +12,7 @@ public class PaginatedGameLibraryResponse {
     private int totalPages;
     private long totalElements;
     private int pageSize;
+    private String nextCursor;
 
     // Getters and setters
     public Long getLibraryId() {
@@ -61,4 +62,12 @@ public class PaginatedGameLibraryResponse {
     public void setPageSize(int pageSize) {
         this.pageSize = pageSize;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 } 
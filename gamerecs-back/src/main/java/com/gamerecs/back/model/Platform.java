@@ -16,7 +16,8 @@ import java.util.Set;
 @ToString(exclude = "games")
 public class Platform {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "platforms_platform_id_seq")
+    @SequenceGenerator(name = "platforms_platform_id_seq", sequenceName = "platforms_platform_id_seq", allocationSize = 1)
     @Column(name = "platform_id")
     private Long platformId;
 
@@ -16,7 +16,8 @@ import java.util.Set;
 @ToString(exclude = "games")
 public class Publisher {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "publishers_publisher_id_seq")
+    @SequenceGenerator(name = "publishers_publisher_id_seq", sequenceName = "publishers_publisher_id_seq", allocationSize = 1)
     @Column(name = "publisher_id")
     private Long publisherId;
 
@@ -0,0 +1,32 @@
+package com.gamerecs.back.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing a running instance sharing the IGDB rate limit.
+ * Maps to the 'igdb_rate_limiter_members' table in the database.
+ */
+@Entity
+@Table(name = "igdb_rate_limiter_members")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimiterMember {
+
+    @Id
+    @Column(name = "instance_id", length = 100)
+    private String instanceId;
+
+    /**
+     * Time of the last heartbeat of the instance
+     */
+    @Column(name = "last_seen", nullable = false)
+    private LocalDateTime lastSeen;
+} 
@@ -0,0 +1,35 @@
+package com.gamerecs.back.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing the last committed position of a resumable sync job.
+ * Maps to the 'sync_checkpoints' table in the database.
+ */
+@Entity
+@Table(name = "sync_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncCheckpoint {
+
+    @Id
+    @Column(name = "job_name", length = 50)
+    private String jobName;
+
+    /**
+     * Job-specific position, e.g. the last processed IGDB id
+     */
+    @Column(name = "checkpoint_value", nullable = false)
+    private Long checkpointValue;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+} 
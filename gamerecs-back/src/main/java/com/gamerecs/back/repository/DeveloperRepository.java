@@ -4,10 +4,13 @@ import com.gamerecs.back.model.Developer;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DeveloperRepository extends JpaRepository<Developer, Long> {
     Optional<Developer> findByIgdbCompanyId(Long igdbCompanyId);
     boolean existsByIgdbCompanyId(Long igdbCompanyId);
+    List<Developer> findAllByIgdbCompanyIdIn(Collection<Long> igdbCompanyIds);
 } 
@@ -0,0 +1,392 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.dto.IGDBCompanyDTO;
+import com.gamerecs.back.model.Game;
+import com.google.common.collect.Lists;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * JDBC batch write path for the game catalog.
+ * Used by the batch sync mode of GameSyncService to write games, dimension rows
+ * and join-table rows in a handful of batched statements instead of one
+ * Hibernate round trip per row.
+ *
+ * On Postgres every write is conflict tolerant: games are upserted with
+ * INSERT ... ON CONFLICT (igdb_id) DO UPDATE, dimension and join rows are inserted
+ * with ON CONFLICT DO NOTHING, so two syncs writing the same rows at the same time
+ * both succeed instead of one of them rolling back on a unique violation.
+ * Rows are written in key order, so overlapping syncs take their row locks in the
+ * same order and cannot deadlock. Other databases, such as the embedded test
+ * database, get plain statements with the same results when there is no contention.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class GameBatchRepository {
+
+    private static final String GAME_COLUMNS = "igdb_id, title, description, release_date, cover_image_url, updated_at";
+
+    private static final String UPDATE_GAME_SQL =
+        "UPDATE games SET title = ?, description = ?, release_date = ?, cover_image_url = ?, updated_at = ? " +
+        "WHERE game_id = ? AND (updated_at IS NULL OR updated_at < ?)";
+
+    private static final String UPSERT_GAMES_SQL =
+        "INSERT INTO games (" + GAME_COLUMNS + ") VALUES %s " +
+        "ON CONFLICT (igdb_id) DO UPDATE SET title = EXCLUDED.title, description = EXCLUDED.description, " +
+        "release_date = EXCLUDED.release_date, cover_image_url = EXCLUDED.cover_image_url, " +
+        "updated_at = EXCLUDED.updated_at " +
+        "WHERE games.updated_at IS NULL OR EXCLUDED.updated_at > games.updated_at " +
+        "RETURNING game_id, igdb_id, (xmax = 0) AS inserted";
+
+    /**
+     * Rows per multi-row upsert statement, well below the bind parameter limit of the driver
+     */
+    private static final int UPSERT_ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Whether the database supports ON CONFLICT, detected on first use
+     */
+    private volatile Boolean postgres;
+
+    /**
+     * A game row written by upsertGames
+     *
+     * @param gameId the surrogate key of the game
+     * @param inserted true if the row was created, false if an older copy was updated
+     */
+    public record WrittenGame(Long gameId, boolean inserted) {
+    }
+
+    /**
+     * Join tables linking a game to one of its dimensions.
+     */
+    public enum GameRelation {
+        GENRES("game_genres", "genre_id"),
+        PLATFORMS("game_platforms", "platform_id"),
+        PUBLISHERS("game_publishers", "publisher_id"),
+        DEVELOPERS("game_developers", "developer_id");
+
+        private final String table;
+        private final String targetColumn;
+
+        GameRelation(String table, String targetColumn) {
+            this.table = table;
+            this.targetColumn = targetColumn;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String getTargetColumn() {
+            return targetColumn;
+        }
+    }
+
+    /**
+     * Inserts or updates games by IGDB ID, writing a stored game only when the incoming copy is newer.
+     * Safe to call from concurrent syncs that write the same games: on Postgres the check and the
+     * write are one statement, so a game inserted by another transaction is updated instead of
+     * failing the batch, and an older copy never overwrites a newer one.
+     *
+     * @param games the games to write; their game IDs are ignored
+     * @return the written games keyed by IGDB ID; games whose stored copy is as new or newer are absent
+     */
+    public Map<Long, WrittenGame> upsertGames(Collection<Game> games) {
+        if (games.isEmpty()) {
+            return new HashMap<>();
+        }
+        // One row per IGDB ID keeping the latest copy, in key order so concurrent upserts lock rows in the same order
+        Map<Long, Game> rows = new TreeMap<>();
+        for (Game game : games) {
+            rows.merge(game.getIgdbId(), game, (current, incoming) ->
+                Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())
+                    .compare(incoming.getUpdatedAt(), current.getUpdatedAt()) > 0 ? incoming : current);
+        }
+        Map<Long, WrittenGame> written = isPostgres()
+            ? upsertGamesOnConflict(rows.values())
+            : upsertGamesPortable(rows);
+        log.debug("Upserted {} of {} games", written.size(), rows.size());
+        return written;
+    }
+
+    private Map<Long, WrittenGame> upsertGamesOnConflict(Collection<Game> games) {
+        Map<Long, WrittenGame> written = new LinkedHashMap<>();
+        for (List<Game> statement : Lists.partition(List.copyOf(games), UPSERT_ROWS_PER_STATEMENT)) {
+            List<Object> args = new ArrayList<>(statement.size() * 6);
+            for (Game game : statement) {
+                args.add(game.getIgdbId());
+                args.add(game.getTitle());
+                args.add(game.getDescription());
+                args.add(game.getReleaseDate());
+                args.add(game.getCoverImageUrl());
+                args.add(game.getUpdatedAt());
+            }
+            String values = String.join(", ", Collections.nCopies(statement.size(), "(?, ?, ?, ?, ?, ?)"));
+            jdbcTemplate.query(UPSERT_GAMES_SQL.formatted(values), rs -> {
+                written.put(rs.getLong("igdb_id"), new WrittenGame(rs.getLong("game_id"), rs.getBoolean("inserted")));
+            }, args.toArray());
+        }
+        return written;
+    }
+
+    /**
+     * Check-then-write fallback for databases without ON CONFLICT
+     */
+    private Map<Long, WrittenGame> upsertGamesPortable(Map<Long, Game> rows) {
+        Map<Long, Long> existing = findGameIdsByIgdbIds(rows.keySet());
+        List<Game> inserts = new ArrayList<>();
+        List<Object[]> updateArgs = new ArrayList<>();
+        List<Long> updateIds = new ArrayList<>();
+        for (Game game : rows.values()) {
+            Long gameId = existing.get(game.getIgdbId());
+            if (gameId == null) {
+                inserts.add(game);
+                continue;
+            }
+            updateArgs.add(new Object[] {
+                game.getTitle(),
+                game.getDescription(),
+                game.getReleaseDate(),
+                game.getCoverImageUrl(),
+                game.getUpdatedAt(),
+                gameId,
+                game.getUpdatedAt()
+            });
+            updateIds.add(game.getIgdbId());
+        }
+
+        Map<Long, WrittenGame> written = new LinkedHashMap<>();
+        if (!updateArgs.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_GAME_SQL, updateArgs);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    written.put(updateIds.get(i), new WrittenGame(existing.get(updateIds.get(i)), false));
+                }
+            }
+        }
+        if (!inserts.isEmpty()) {
+            List<Object[]> insertArgs = new ArrayList<>(inserts.size());
+            for (Game game : inserts) {
+                insertArgs.add(new Object[] {
+                    game.getIgdbId(),
+                    game.getTitle(),
+                    game.getDescription(),
+                    game.getReleaseDate(),
+                    game.getCoverImageUrl(),
+                    game.getUpdatedAt()
+                });
+            }
+            jdbcTemplate.batchUpdate(insertSql("games", "game_id", GAME_COLUMNS, "?, ?, ?, ?, ?, ?"), insertArgs);
+            findGameIdsByIgdbIds(inserts.stream().map(Game::getIgdbId).toList())
+                .forEach((igdbId, gameId) -> written.put(igdbId, new WrittenGame(gameId, true)));
+        }
+        return written;
+    }
+
+    /**
+     * Resolves the surrogate keys of games from their IGDB IDs in one query.
+     *
+     * @param igdbIds the IGDB IDs to resolve
+     * @return map of IGDB ID to game ID for the games that exist
+     */
+    public Map<Long, Long> findGameIdsByIgdbIds(Collection<Long> igdbIds) {
+        Map<Long, Long> ids = new HashMap<>();
+        if (igdbIds.isEmpty()) {
+            return ids;
+        }
+        namedParameterJdbcTemplate.query(
+            "SELECT igdb_id, game_id FROM games WHERE igdb_id IN (:igdbIds)",
+            Map.of("igdbIds", igdbIds),
+            rs -> {
+                ids.put(rs.getLong("igdb_id"), rs.getLong("game_id"));
+            }
+        );
+        return ids;
+    }
+
+    /**
+     * Inserts new publishers in a single JDBC batch.
+     *
+     * @param companies the companies to insert as publishers
+     */
+    public void insertPublishers(Collection<IGDBCompanyDTO> companies) {
+        insertCompanies("publishers", "publisher_id", companies);
+    }
+
+    /**
+     * Inserts new developers in a single JDBC batch.
+     *
+     * @param companies the companies to insert as developers
+     */
+    public void insertDevelopers(Collection<IGDBCompanyDTO> companies) {
+        insertCompanies("developers", "developer_id", companies);
+    }
+
+    /**
+     * Inserts new genres in a single JDBC batch.
+     *
+     * @param names the genre names to insert
+     */
+    public void insertGenres(Collection<String> names) {
+        insertNames("genres", "genre_id", names);
+    }
+
+    /**
+     * Inserts new platforms in a single JDBC batch.
+     *
+     * @param names the platform names to insert
+     */
+    public void insertPlatforms(Collection<String> names) {
+        insertNames("platforms", "platform_id", names);
+    }
+
+    /**
+     * Loads the current join rows of a relation for the given games in one query.
+     *
+     * @param relation the join table to read
+     * @param gameIds the games whose rows are loaded
+     * @return the dimension IDs linked to each game, keyed by game ID; games without rows are absent
+     */
+    public Map<Long, Set<Long>> findRelations(GameRelation relation, Collection<Long> gameIds) {
+        Map<Long, Set<Long>> rows = new HashMap<>();
+        if (gameIds.isEmpty()) {
+            return rows;
+        }
+        namedParameterJdbcTemplate.query(
+            "SELECT game_id, " + relation.getTargetColumn() + " FROM " + relation.getTable()
+                + " WHERE game_id IN (:gameIds)",
+            Map.of("gameIds", gameIds),
+            rs -> {
+                rows.computeIfAbsent(rs.getLong(1), id -> new HashSet<>()).add(rs.getLong(2));
+            }
+        );
+        return rows;
+    }
+
+    /**
+     * Deletes individual join rows of a relation in a single JDBC batch.
+     *
+     * @param relation the join table to write
+     * @param targetsByGameId the dimension IDs to unlink, keyed by game ID
+     * @return the number of rows deleted
+     */
+    public int deleteRelationRows(GameRelation relation, Map<Long, Set<Long>> targetsByGameId) {
+        List<Object[]> args = pairs(targetsByGameId);
+        if (args.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(
+            "DELETE FROM " + relation.getTable() + " WHERE game_id = ? AND " + relation.getTargetColumn() + " = ?",
+            args
+        );
+        return args.size();
+    }
+
+    /**
+     * Inserts join rows of a relation in a single JDBC batch.
+     *
+     * @param relation the join table to write
+     * @param targetsByGameId the dimension IDs to link, keyed by game ID
+     * @return the number of rows written; on Postgres rows a concurrent sync linked first are counted too
+     */
+    public int insertRelations(GameRelation relation, Map<Long, Set<Long>> targetsByGameId) {
+        List<Object[]> args = pairs(targetsByGameId);
+        if (args.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO " + relation.getTable() + " (game_id, " + relation.getTargetColumn() + ") VALUES (?, ?)"
+                + onConflictDoNothing(),
+            args
+        );
+        return args.size();
+    }
+
+    private static List<Object[]> pairs(Map<Long, Set<Long>> targetsByGameId) {
+        List<Object[]> args = new ArrayList<>();
+        targetsByGameId.forEach((gameId, targetIds) -> {
+            for (Long targetId : targetIds) {
+                args.add(new Object[] {gameId, targetId});
+            }
+        });
+        args.sort(Comparator.<Object[], Long>comparing(row -> (Long) row[0]).thenComparing(row -> (Long) row[1]));
+        return args;
+    }
+
+    private void insertCompanies(String table, String idColumn, Collection<IGDBCompanyDTO> companies) {
+        if (companies.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = companies.stream()
+            .sorted(Comparator.comparing(IGDBCompanyDTO::getIgdbCompanyId))
+            .map(company -> new Object[] {company.getIgdbCompanyId(), company.getName()})
+            .toList();
+        jdbcTemplate.batchUpdate(
+            insertSql(table, idColumn, "igdb_company_id, name", "?, ?") + onConflictDoNothing(), args);
+        log.debug("Batch inserted {} rows into {}", args.size(), table);
+    }
+
+    private void insertNames(String table, String idColumn, Collection<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = names.stream()
+            .sorted()
+            .map(name -> new Object[] {name})
+            .toList();
+        jdbcTemplate.batchUpdate(insertSql(table, idColumn, "name", "?") + onConflictDoNothing(), args);
+        log.debug("Batch inserted {} rows into {}", args.size(), table);
+    }
+
+    /**
+     * Builds an insert into a table whose id is drawn from the entity's sequence.
+     * Postgres fills the id from the serial column default; on other databases the tables are
+     * created from the entity mappings without a default, so the sequence is named explicitly.
+     */
+    private String insertSql(String table, String idColumn, String columns, String placeholders) {
+        if (isPostgres()) {
+            return "INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")";
+        }
+        return "INSERT INTO " + table + " (" + idColumn + ", " + columns + ") VALUES (NEXT VALUE FOR "
+            + table + "_" + idColumn + "_seq, " + placeholders + ")";
+    }
+
+    /**
+     * Suffix that makes an insert skip rows whose key a concurrent transaction already wrote
+     */
+    private String onConflictDoNothing() {
+        return isPostgres() ? " ON CONFLICT DO NOTHING" : "";
+    }
+
+    private boolean isPostgres() {
+        Boolean detected = postgres;
+        if (detected == null) {
+            detected = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            postgres = detected;
+        }
+        return Boolean.TRUE.equals(detected);
+    }
+}
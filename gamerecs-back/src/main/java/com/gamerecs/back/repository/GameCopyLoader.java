@@ -0,0 +1,382 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.dto.GameSyncResult;
+import com.gamerecs.back.dto.IGDBCompanyDTO;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.repository.GameBatchRepository.GameRelation;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Postgres bulk-load path for the game catalog, for backfills and large sync batches.
+ *
+ * Games are streamed from an iterator into the unlogged game_load_staging table with COPY,
+ * one row per game with its relations as arrays, and then moved into the real tables by a
+ * handful of set-based statements: missing dimensions are added with INSERT ... ON CONFLICT DO
+ * NOTHING, games are upserted with ON CONFLICT (igdb_id) DO UPDATE when the incoming copy is
+ * newer, and only the join rows that were added or removed are written for them. The input is
+ * loaded in segments of {@code igdb.sync.bulk-load.segment-size} games, each committed in its
+ * own transaction, so neither memory nor transaction size grows with the input.
+ *
+ * Only works against Postgres; the path is disabled unless igdb.sync.bulk-load.enabled is set.
+ */
+@Repository
+@Slf4j
+public class GameCopyLoader {
+    private static final String LOAD_DURATION_METRIC = "gamerecs.sync.bulk-load.duration";
+    private static final String LOAD_ROWS_METRIC = "gamerecs.sync.bulk-load.rows";
+
+    private static final String STAGING_TABLE = "game_load_staging";
+
+    private static final String NULL = "\\N";
+
+    private static final String COPY_SQL = "COPY " + STAGING_TABLE + " (igdb_id, title, description, release_date, "
+        + "cover_image_url, updated_at, genre_names, platform_names, publisher_ids, publisher_names, "
+        + "developer_ids, developer_names) FROM STDIN";
+
+    // Keeps the latest copy of a game that appears more than once in a segment, ON CONFLICT cannot touch a row twice
+    private static final String DEDUPLICATE_SQL =
+        "DELETE FROM game_load_staging s USING game_load_staging d "
+        + "WHERE s.igdb_id = d.igdb_id AND (d.updated_at > s.updated_at OR (d.updated_at = s.updated_at AND d.ctid > s.ctid))";
+
+    private static final String MERGE_GAMES_SQL =
+        "WITH written AS ("
+        + " INSERT INTO games (igdb_id, title, description, release_date, cover_image_url, updated_at)"
+        + " SELECT igdb_id, title, description, release_date, cover_image_url, updated_at FROM game_load_staging"
+        + " ON CONFLICT (igdb_id) DO UPDATE SET title = EXCLUDED.title, description = EXCLUDED.description,"
+        + " release_date = EXCLUDED.release_date, cover_image_url = EXCLUDED.cover_image_url,"
+        + " updated_at = EXCLUDED.updated_at"
+        + " WHERE games.updated_at IS NULL OR EXCLUDED.updated_at > games.updated_at"
+        + " RETURNING game_id, igdb_id, (xmax = 0) AS inserted) "
+        + "INSERT INTO game_load_merged (game_id, igdb_id, inserted) SELECT game_id, igdb_id, inserted FROM written";
+
+    private static final String WRITTEN_TITLES_SQL =
+        "SELECT g.game_id, g.igdb_id, g.title FROM game_load_merged m JOIN games g ON g.game_id = m.game_id";
+
+    /**
+     * The staging columns and dimension table behind each join table
+     */
+    private enum StagedRelation {
+        GENRES(GameRelation.GENRES, "genres", "name", "genre_names", null),
+        PLATFORMS(GameRelation.PLATFORMS, "platforms", "name", "platform_names", null),
+        PUBLISHERS(GameRelation.PUBLISHERS, "publishers", "igdb_company_id", "publisher_ids", "publisher_names"),
+        DEVELOPERS(GameRelation.DEVELOPERS, "developers", "igdb_company_id", "developer_ids", "developer_names");
+
+        private final GameRelation relation;
+        private final String dimensionTable;
+        private final String naturalKey;
+        private final String keyColumn;
+        private final String nameColumn;
+
+        StagedRelation(GameRelation relation, String dimensionTable, String naturalKey, String keyColumn,
+                String nameColumn) {
+            this.relation = relation;
+            this.dimensionTable = dimensionTable;
+            this.naturalKey = naturalKey;
+            this.keyColumn = keyColumn;
+            this.nameColumn = nameColumn;
+        }
+
+        String insertDimensionsSql() {
+            if (nameColumn == null) {
+                return "INSERT INTO " + dimensionTable + " (name)"
+                    + " SELECT DISTINCT v.key FROM game_load_staging s CROSS JOIN LATERAL unnest(s." + keyColumn + ") AS v(key)"
+                    + " WHERE v.key IS NOT NULL ON CONFLICT (name) DO NOTHING";
+            }
+            return "INSERT INTO " + dimensionTable + " (igdb_company_id, name)"
+                + " SELECT DISTINCT ON (v.key) v.key, v.name FROM game_load_staging s"
+                + " CROSS JOIN LATERAL unnest(s." + keyColumn + ", s." + nameColumn + ") AS v(key, name)"
+                + " WHERE v.key IS NOT NULL ORDER BY v.key ON CONFLICT (igdb_company_id) DO NOTHING";
+        }
+
+        // Only links missing from the incoming list are deleted; the insert skips the ones that already exist
+        String deleteRemovedSql() {
+            return "DELETE FROM " + relation.getTable() + " r USING game_load_merged m"
+                + " JOIN game_load_staging s ON s.igdb_id = m.igdb_id"
+                + " WHERE r.game_id = m.game_id AND NOT m.inserted AND s." + keyColumn + " IS NOT NULL"
+                + " AND NOT EXISTS (SELECT 1 FROM unnest(s." + keyColumn + ") AS v(key)"
+                + " JOIN " + dimensionTable + " d ON d." + naturalKey + " = v.key"
+                + " WHERE d." + relation.getTargetColumn() + " = r." + relation.getTargetColumn() + ")";
+        }
+
+        String insertRelationsSql() {
+            return "INSERT INTO " + relation.getTable() + " (game_id, " + relation.getTargetColumn() + ")"
+                + " SELECT DISTINCT m.game_id, d." + relation.getTargetColumn() + " FROM game_load_merged m"
+                + " JOIN game_load_staging s ON s.igdb_id = m.igdb_id"
+                + " CROSS JOIN LATERAL unnest(s." + keyColumn + ") AS v(key)"
+                + " JOIN " + dimensionTable + " d ON d." + naturalKey + " = v.key"
+                + " ON CONFLICT DO NOTHING";
+        }
+    }
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int minGames;
+    private final int segmentSize;
+
+    public GameCopyLoader(
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${igdb.sync.bulk-load.enabled:false}") boolean enabled,
+            @Value("${igdb.sync.bulk-load.min-games:500}") int minGames,
+            @Value("${igdb.sync.bulk-load.segment-size:100000}") int segmentSize) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minGames = minGames;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Tells whether a sync of the given size should go through the bulk-load path
+     *
+     * @param games the number of games to write
+     * @return true if bulk loading is enabled and the batch is large enough to pay off
+     */
+    public boolean accepts(int games) {
+        return enabled && games >= minGames;
+    }
+
+    /**
+     * Loads games through the staging table, one committed segment at a time
+     *
+     * @param games the games to load, consumed lazily; each needs an IGDB id, a title and an update time
+     * @param onWritten receives the game id, IGDB id and title of the games each segment wrote, inside its transaction
+     * @return summary of the inserted, updated and skipped games
+     */
+    public GameSyncResult load(Iterator<IGDBGameDTO> games, Consumer<List<Game>> onWritten) {
+        long start = System.nanoTime();
+        Map<String, TableLoad> tables = new LinkedHashMap<>();
+        GameSyncResult total = new GameSyncResult();
+        while (games.hasNext()) {
+            total.add(transactionTemplate.execute(status -> loadSegment(games, onWritten, tables)));
+        }
+        total.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        tables.values().forEach(table -> log.info("Bulk load of {}: {} rows in {} ms ({} rows/s)",
+            table.table, table.rows, TimeUnit.NANOSECONDS.toMillis(table.nanos),
+            String.format("%.1f", table.rowsPerSecond())));
+        log.info("Bulk load processed {} games ({} inserted, {} updated, {} skipped) in {} ms ({} games/s)",
+            total.getProcessed(), total.getInserted(), total.getUpdated(), total.getSkipped(),
+            total.getElapsedMillis(), String.format("%.1f", total.getGamesPerSecond()));
+        return total;
+    }
+
+    private GameSyncResult loadSegment(Iterator<IGDBGameDTO> games, Consumer<List<Game>> onWritten,
+            Map<String, TableLoad> tables) {
+        // TRUNCATE holds an exclusive lock on the staging tables until commit, so concurrent loads take turns
+        jdbcTemplate.execute("TRUNCATE " + STAGING_TABLE + ", game_load_merged");
+
+        long start = System.nanoTime();
+        int staged = copySegment(games);
+        record(tables, STAGING_TABLE, staged, System.nanoTime() - start);
+
+        int duplicates = jdbcTemplate.update(DEDUPLICATE_SQL);
+        if (duplicates > 0) {
+            log.debug("Dropped {} older copies of games staged twice in one segment", duplicates);
+        }
+        for (StagedRelation relation : StagedRelation.values()) {
+            run(tables, relation.dimensionTable, relation.insertDimensionsSql());
+        }
+        run(tables, "games", MERGE_GAMES_SQL);
+        for (StagedRelation relation : StagedRelation.values()) {
+            start = System.nanoTime();
+            int rows = jdbcTemplate.update(relation.deleteRemovedSql()) + jdbcTemplate.update(relation.insertRelationsSql());
+            record(tables, relation.relation.getTable(), rows, System.nanoTime() - start);
+        }
+
+        int[] written = {0, 0};
+        jdbcTemplate.query("SELECT inserted, count(*) FROM game_load_merged GROUP BY inserted",
+            rs -> {
+                written[rs.getBoolean(1) ? 0 : 1] = rs.getInt(2);
+            });
+        List<Game> titles = new ArrayList<>();
+        jdbcTemplate.query(WRITTEN_TITLES_SQL, rs -> {
+            Game game = new Game();
+            game.setGameId(rs.getLong(1));
+            game.setIgdbId(rs.getLong(2));
+            game.setTitle(rs.getString(3));
+            titles.add(game);
+        });
+        onWritten.accept(titles);
+
+        return GameSyncResult.builder()
+            .processed(staged)
+            .inserted(written[0])
+            .updated(written[1])
+            .skipped(staged - written[0] - written[1])
+            .build();
+    }
+
+    /**
+     * Streams up to one segment of games into the staging table on the transaction's connection
+     *
+     * @return the number of rows copied
+     */
+    private int copySegment(Iterator<IGDBGameDTO> games) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            PGCopyOutputStream copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_SQL, 1 << 16);
+            int rows = 0;
+            // A failed copy is rolled back with the segment transaction
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), 1 << 16)) {
+                while (rows < segmentSize && games.hasNext()) {
+                    writeRow(out, games.next());
+                    rows++;
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to copy games into " + STAGING_TABLE, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to copy games into " + STAGING_TABLE, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void run(Map<String, TableLoad> tables, String table, String sql) {
+        long start = System.nanoTime();
+        int rows = jdbcTemplate.update(sql);
+        record(tables, table, rows, System.nanoTime() - start);
+    }
+
+    private void record(Map<String, TableLoad> tables, String table, int rows, long nanos) {
+        TableLoad load = tables.computeIfAbsent(table, TableLoad::new);
+        load.rows += rows;
+        load.nanos += nanos;
+        meterRegistry.timer(LOAD_DURATION_METRIC, "table", table).record(nanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter(LOAD_ROWS_METRIC, "table", table).increment(rows);
+    }
+
+    /**
+     * Writes one game as a line of COPY text format
+     */
+    static void writeRow(Writer out, IGDBGameDTO game) throws IOException {
+        out.write(String.valueOf(game.getIgdbId()));
+        out.write('\t');
+        out.write(text(game.getTitle()));
+        out.write('\t');
+        out.write(text(game.getDescription()));
+        out.write('\t');
+        out.write(game.getReleaseDate() == null ? NULL : game.getReleaseDate().toString());
+        out.write('\t');
+        out.write(text(game.getCoverImageUrl()));
+        out.write('\t');
+        out.write(Instant.ofEpochSecond(game.getUpdatedAt()).atZone(ZoneId.systemDefault()).toLocalDateTime().toString());
+        out.write('\t');
+        out.write(array(game.getGenres(), genre -> quote(genre.getName())));
+        out.write('\t');
+        out.write(array(game.getPlatforms(), platform -> quote(platform.getName())));
+        out.write('\t');
+        out.write(array(game.getPublishers(), GameCopyLoader::companyId));
+        out.write('\t');
+        out.write(array(game.getPublishers(), company -> quote(company.getName())));
+        out.write('\t');
+        out.write(array(game.getDevelopers(), GameCopyLoader::companyId));
+        out.write('\t');
+        out.write(array(game.getDevelopers(), company -> quote(company.getName())));
+        out.write('\n');
+    }
+
+    /**
+     * Escapes a value for COPY text format, where backslash, tab and line breaks are special
+     */
+    static String text(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\t' -> escaped.append("\\t");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Builds an array literal, escaped for COPY text format; a missing list stays NULL so the relation is left alone
+     */
+    static <T> String array(List<T> values, Function<T, String> element) {
+        if (values == null) {
+            return NULL;
+        }
+        StringBuilder literal = new StringBuilder("{");
+        for (T value : values) {
+            if (literal.length() > 1) {
+                literal.append(',');
+            }
+            literal.append(element.apply(value));
+        }
+        return text(literal.append('}').toString());
+    }
+
+    private static String quote(String element) {
+        if (element == null) {
+            return "NULL";
+        }
+        return '"' + element.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static String companyId(IGDBCompanyDTO company) {
+        return company.getIgdbCompanyId() == null ? "NULL" : company.getIgdbCompanyId().toString();
+    }
+
+    /**
+     * Rows and time spent on one table over a whole load
+     */
+    private static final class TableLoad {
+        private final String table;
+        private long rows;
+        private long nanos;
+
+        TableLoad(String table) {
+            this.table = table;
+        }
+
+        double rowsPerSecond() {
+            return nanos > 0 ? rows * (double) TimeUnit.SECONDS.toNanos(1) / nanos : 0.0;
+        }
+    }
+} 
@@ -3,6 +3,7 @@ package com.gamerecs.back.repository;
 import com.gamerecs.back.model.Game;
 import com.gamerecs.back.model.GameLibrary;
 import com.gamerecs.back.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
@@ -11,6 +12,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -28,6 +31,15 @@ public interface GameLibraryRepository extends JpaRepository<GameLibrary, Long>
      */
     Optional<GameLibrary> findByUser(User user);
     
+    /**
+     * Find the id of a user's game library, without loading the library or the user.
+     *
+     * @param userId the id of the user whose library to find
+     * @return an Optional containing the library id if found
+     */
+    @Query("SELECT gl.libraryId FROM GameLibrary gl WHERE gl.user.userId = :userId")
+    Optional<Long> findLibraryIdByUserId(@Param("userId") Long userId);
+    
     /**
      * Find a game library by its associated user and eagerly fetch its games.
      *
@@ -37,22 +49,6 @@ public interface GameLibraryRepository extends JpaRepository<GameLibrary, Long>
     @Query("SELECT gl FROM GameLibrary gl LEFT JOIN FETCH gl.games g WHERE gl.user = :user")
     Optional<GameLibrary> findByUserWithGames(@Param("user") User user);
     
-    /**
-     * Find a game library by its associated user and eagerly fetch its games and all game-related collections.
-     * This solves lazy loading exceptions when serializing the response.
-     *
-     * @param user the user whose library to find
-     * @return an Optional containing the library with games and all related collections if found
-     */
-    @Query("SELECT DISTINCT gl FROM GameLibrary gl " +
-           "LEFT JOIN FETCH gl.games g " +
-           "LEFT JOIN FETCH g.genres " +
-           "LEFT JOIN FETCH g.platforms " +
-           "LEFT JOIN FETCH g.publishers " +
-           "LEFT JOIN FETCH g.developers " +
-           "WHERE gl.user = :user")
-    Optional<GameLibrary> findByUserWithGamesAndCollections(@Param("user") User user);
-    
     /**
      * Check if a game library exists for the given user.
      *
@@ -104,4 +100,179 @@ public interface GameLibraryRepository extends JpaRepository<GameLibrary, Long>
     @Query("SELECT g FROM GameLibrary gl JOIN gl.games g JOIN g.genres gr " +
            "WHERE gl.user = :user AND lower(gr.name) = lower(:genre) ORDER BY g.releaseDate ASC")
     Page<Game> findGamesByUserAndGenreOrderByReleaseDate(@Param("user") User user, @Param("genre") String genre, Pageable pageable);
+
+    /**
+     * Every game of a user's library by title, ignoring case, ties broken by game id.
+     * The collections of the games are left to load separately, see GameRepository.findGenresByGameIds.
+     *
+     * @param user the user whose library to read
+     * @return the games of the library by title
+     */
+    @Query(LIBRARY_GAMES + BY_TITLE_IGNORE_CASE)
+    List<Game> findAllGamesByUserOrderByTitleIgnoreCase(@Param("user") User user);
+
+    /**
+     * Same as findAllGamesByUserOrderByTitleIgnoreCase, for the games of a genre
+     */
+    @Query(LIBRARY_GAMES_OF_GENRE + BY_TITLE_IGNORE_CASE)
+    List<Game> findAllGamesByUserAndGenreOrderByTitleIgnoreCase(@Param("user") User user, @Param("genre") String genre);
+
+    /**
+     * First page of a user's library in keyset order by title, ties broken by game id.
+     * Unlike the OFFSET queries above, the next pages are read with findGamesByUserAfterTitle
+     * and no count query is run.
+     *
+     * @param user the user whose library to read
+     * @param limit the page size
+     * @return the first games of the library by title then game id
+     */
+    @Query(LIBRARY_GAMES + BY_TITLE)
+    List<Game> findGamesByUserOrderByTitle(@Param("user") User user, Limit limit);
+
+    /**
+     * Next page of findGamesByUserOrderByTitle, after the last game of the previous page
+     *
+     * @param afterTitle the title of the last game returned
+     * @param afterGameId the game id of the last game returned
+     */
+    @Query(LIBRARY_GAMES + AFTER_TITLE + BY_TITLE)
+    List<Game> findGamesByUserAfterTitle(
+            @Param("user") User user,
+            @Param("afterTitle") String afterTitle,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    /**
+     * First page of a user's library in keyset order by release date, undated games last,
+     * ties broken by game id
+     *
+     * @param user the user whose library to read
+     * @param limit the page size
+     * @return the first games of the library by release date then game id
+     */
+    @Query(LIBRARY_GAMES + BY_RELEASE_DATE)
+    List<Game> findGamesByUserOrderByReleaseDate(@Param("user") User user, Limit limit);
+
+    /**
+     * Next page of findGamesByUserOrderByReleaseDate, after a game with a release date.
+     * The undated games sort after every dated one, so they all follow.
+     *
+     * @param afterReleaseDate the release date of the last game returned
+     * @param afterGameId the game id of the last game returned
+     */
+    @Query(LIBRARY_GAMES + AFTER_RELEASE_DATE + BY_RELEASE_DATE)
+    List<Game> findGamesByUserAfterReleaseDate(
+            @Param("user") User user,
+            @Param("afterReleaseDate") LocalDate afterReleaseDate,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    /**
+     * Next page of findGamesByUserOrderByReleaseDate, after a game without a release date
+     *
+     * @param afterGameId the game id of the last game returned
+     */
+    @Query(LIBRARY_GAMES + AFTER_UNDATED + BY_RELEASE_DATE)
+    List<Game> findGamesByUserAfterUndated(
+            @Param("user") User user,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    /**
+     * Same as findGamesByUserOrderByTitle, for the games of a genre
+     */
+    @Query(LIBRARY_GAMES_OF_GENRE + BY_TITLE)
+    List<Game> findGamesByUserAndGenreOrderByTitle(
+            @Param("user") User user,
+            @Param("genre") String genre,
+            Limit limit);
+
+    /**
+     * Same as findGamesByUserAfterTitle, for the games of a genre
+     */
+    @Query(LIBRARY_GAMES_OF_GENRE + AFTER_TITLE + BY_TITLE)
+    List<Game> findGamesByUserAndGenreAfterTitle(
+            @Param("user") User user,
+            @Param("genre") String genre,
+            @Param("afterTitle") String afterTitle,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    /**
+     * Same as findGamesByUserOrderByReleaseDate, for the games of a genre
+     */
+    @Query(LIBRARY_GAMES_OF_GENRE + BY_RELEASE_DATE)
+    List<Game> findGamesByUserAndGenreOrderByReleaseDate(
+            @Param("user") User user,
+            @Param("genre") String genre,
+            Limit limit);
+
+    /**
+     * Same as findGamesByUserAfterReleaseDate, for the games of a genre
+     */
+    @Query(LIBRARY_GAMES_OF_GENRE + AFTER_RELEASE_DATE + BY_RELEASE_DATE)
+    List<Game> findGamesByUserAndGenreAfterReleaseDate(
+            @Param("user") User user,
+            @Param("genre") String genre,
+            @Param("afterReleaseDate") LocalDate afterReleaseDate,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    /**
+     * Same as findGamesByUserAfterUndated, for the games of a genre
+     */
+    @Query(LIBRARY_GAMES_OF_GENRE + AFTER_UNDATED + BY_RELEASE_DATE)
+    List<Game> findGamesByUserAndGenreAfterUndated(
+            @Param("user") User user,
+            @Param("genre") String genre,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    /**
+     * Counts the games in a user's library, for the keyset pages that ask for a total
+     *
+     * @param user the user whose library to count
+     * @return the number of games in the library
+     */
+    @Query("SELECT COUNT(g) FROM GameLibrary gl JOIN gl.games g WHERE gl.user = :user")
+    long countGamesByUser(@Param("user") User user);
+
+    /**
+     * Counts the games of a genre in a user's library
+     *
+     * @param user the user whose library to count
+     * @param genre the genre to filter by
+     * @return the number of games of the genre in the library
+     */
+    @Query("SELECT COUNT(g) FROM GameLibrary gl JOIN gl.games g JOIN g.genres gr "
+           + "WHERE gl.user = :user AND lower(gr.name) = lower(:genre)")
+    long countGamesByUserAndGenre(@Param("user") User user, @Param("genre") String genre);
+
+    /**
+     * Counts the libraries holding each game, as the popularity of the game
+     *
+     * @return pairs of game id and library count, for the games in at least one library
+     */
+    @Query("SELECT g.gameId, COUNT(gl) FROM GameLibrary gl JOIN gl.games g GROUP BY g.gameId")
+    List<Object[]> countLibrariesPerGame();
+
+    String LIBRARY_GAMES = "SELECT g FROM GameLibrary gl JOIN gl.games g WHERE gl.user = :user";
+
+    String LIBRARY_GAMES_OF_GENRE = "SELECT g FROM GameLibrary gl JOIN gl.games g JOIN g.genres gr "
+        + "WHERE gl.user = :user AND lower(gr.name) = lower(:genre)";
+
+    // Order of the whole library, which is read at once
+    String BY_TITLE_IGNORE_CASE = " ORDER BY lower(g.title) ASC, g.gameId ASC";
+
+    // The keyset orders; the list view reads them from library_entries, see LibraryEntryRepository
+    String BY_TITLE = " ORDER BY g.title ASC, g.gameId ASC";
+
+    String BY_RELEASE_DATE = " ORDER BY g.releaseDate ASC NULLS LAST, g.gameId ASC";
+
+    String AFTER_TITLE = " AND (g.title, g.gameId) > (:afterTitle, :afterGameId)";
+
+    String AFTER_RELEASE_DATE =
+        " AND ((g.releaseDate, g.gameId) > (:afterReleaseDate, :afterGameId) OR g.releaseDate IS NULL)";
+
+    String AFTER_UNDATED = " AND g.releaseDate IS NULL AND g.gameId > :afterGameId";
 } 
@@ -1,13 +1,131 @@
 package com.gamerecs.back.repository;
 
 import com.gamerecs.back.model.Game;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface GameRepository extends JpaRepository<Game, Long> {
     Optional<Game> findByIgdbId(Long igdbId);
     boolean existsByIgdbId(Long igdbId);
+    List<Game> findAllByIgdbIdIn(Collection<Long> igdbIds);
+    List<Game> findByTitleContainingIgnoreCase(String title, Pageable pageable);
+
+    @Query("SELECT MAX(g.updatedAt) FROM Game g")
+    Optional<LocalDateTime> findMaxUpdatedAt();
+
+    /**
+     * Reads the genres of the given games as (game id, genre) pairs, one narrow row per pair.
+     * With the three queries below it loads the collections of many games in four queries,
+     * where fetch joining all of them at once would return their cartesian product.
+     *
+     * @param gameIds the ids of the games
+     * @return pairs of game id and genre
+     */
+    @Query("SELECT g.gameId, gr FROM Game g JOIN g.genres gr WHERE g.gameId IN :gameIds")
+    List<Object[]> findGenresByGameIds(@Param("gameIds") Collection<Long> gameIds);
+
+    /**
+     * Same as findGenresByGameIds, for the platforms
+     */
+    @Query("SELECT g.gameId, p FROM Game g JOIN g.platforms p WHERE g.gameId IN :gameIds")
+    List<Object[]> findPlatformsByGameIds(@Param("gameIds") Collection<Long> gameIds);
+
+    /**
+     * Same as findGenresByGameIds, for the publishers
+     */
+    @Query("SELECT g.gameId, p FROM Game g JOIN g.publishers p WHERE g.gameId IN :gameIds")
+    List<Object[]> findPublishersByGameIds(@Param("gameIds") Collection<Long> gameIds);
+
+    /**
+     * Same as findGenresByGameIds, for the developers
+     */
+    @Query("SELECT g.gameId, d FROM Game g JOIN g.developers d WHERE g.gameId IN :gameIds")
+    List<Object[]> findDevelopersByGameIds(@Param("gameIds") Collection<Long> gameIds);
+
+    /**
+     * Title of a game, read by streamAllTitles
+     */
+    interface GameTitle {
+        Long getGameId();
+        Long getIgdbId();
+        String getTitle();
+    }
+
+    /**
+     * Streams the title of every game without loading the entities, for building GameTitleIndex
+     * Must be consumed and closed inside a transaction so the rows are fetched in chunks
+     *
+     * @return a stream of every game title
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT g.gameId AS gameId, g.igdbId AS igdbId, g.title AS title FROM Game g")
+    Stream<GameTitle> streamAllTitles();
+
+    /**
+     * Ranked match of the local catalog, read by the ranked search queries below
+     */
+    interface RankedGame {
+        Long getGameId();
+        Long getIgdbId();
+        String getTitle();
+        LocalDate getReleaseDate();
+        String getCoverImageUrl();
+        Float getRank();
+    }
+
+    /**
+     * Games matched by full-text search or title similarity, best first
+     * Requires the Postgres search_vector column and the pg_trgm extension, see V10
+     *
+     * @param tsQuery the text search query, see GameSearchService.toPrefixQuery
+     * @param query the raw query the titles are compared with
+     * @param limit the page size
+     * @return the first page of matches, ordered by rank then game id
+     */
+    @Query(value = RANKED_SEARCH + " ORDER BY rank DESC, \"gameId\" LIMIT :limit", nativeQuery = true)
+    List<RankedGame> searchRanked(
+            @Param("tsQuery") String tsQuery,
+            @Param("query") String query,
+            @Param("limit") int limit);
+
+    /**
+     * Next page of searchRanked, after the last match of the previous page
+     *
+     * @param afterRank the rank of the last match returned
+     * @param afterGameId the game id of the last match returned
+     */
+    @Query(value = RANKED_SEARCH
+            + " WHERE rank < :afterRank OR (rank = :afterRank AND \"gameId\" > :afterGameId)"
+            + " ORDER BY rank DESC, \"gameId\" LIMIT :limit", nativeQuery = true)
+    List<RankedGame> searchRankedAfter(
+            @Param("tsQuery") String tsQuery,
+            @Param("query") String query,
+            @Param("afterRank") float afterRank,
+            @Param("afterGameId") long afterGameId,
+            @Param("limit") int limit);
+
+    /**
+     * Both indexes of V10 serve the inner filter; the rank is the text rank plus the title similarity
+     */
+    String RANKED_SEARCH = "SELECT * FROM ("
+        + "SELECT g.game_id AS \"gameId\", g.igdb_id AS \"igdbId\", g.title AS \"title\", "
+        + "g.release_date AS \"releaseDate\", g.cover_image_url AS \"coverImageUrl\", "
+        + "ts_rank_cd(g.search_vector, q.query) + similarity(g.title, :query) AS rank "
+        + "FROM games g, to_tsquery('english', :tsQuery) AS q(query) "
+        + "WHERE g.search_vector @@ q.query OR g.title % :query"
+        + ") ranked";
 } 
@@ -2,12 +2,24 @@ package com.gamerecs.back.repository;
 
 import com.gamerecs.back.model.Genre;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface GenreRepository extends JpaRepository<Genre, Long> {
     Optional<Genre> findByName(String name);
     boolean existsByName(String name);
+    List<Genre> findAllByNameIn(Collection<String> names);
+
+    /**
+     * Ids of the genres named as given, ignoring case, the way the library views filter by genre.
+     * Names are only unique case-sensitively, so "RPG" and "rpg" are both returned.
+     */
+    @Query("SELECT g.genreId FROM Genre g WHERE lower(g.name) = lower(:name) ORDER BY g.genreId")
+    List<Long> findGenreIdsByNameIgnoreCase(@Param("name") String name);
 } 
@@ -0,0 +1,53 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.IGDBSearchCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for the persistent IGDB search cache tier.
+ */
+@Repository
+public interface IGDBSearchCacheRepository extends JpaRepository<IGDBSearchCacheEntry, String> {
+
+    /**
+     * Finds the most used entries that are still valid
+     *
+     * @param now the current time
+     * @param pageable the number of entries to return
+     * @return unexpired entries, most used first
+     */
+    @Query("SELECT e FROM IGDBSearchCacheEntry e WHERE e.expiresAt > :now ORDER BY e.hitCount DESC")
+    List<IGDBSearchCacheEntry> findMostUsed(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Records that an entry was served a number of times
+     *
+     * @param searchQuery the canonical query of the entry
+     * @param hits the number of times it was served
+     * @return the number of entries updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IGDBSearchCacheEntry e SET e.hitCount = e.hitCount + :hits WHERE e.searchQuery = :searchQuery")
+    int addHitCount(@Param("searchQuery") String searchQuery, @Param("hits") long hits);
+
+    /**
+     * Deletes the entries whose TTL has passed
+     *
+     * @param now the current time
+     * @return the number of entries deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IGDBSearchCacheEntry e WHERE e.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+} 
@@ -0,0 +1,76 @@
+package com.gamerecs.back.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Cluster-wide mutual exclusion for scheduled jobs every instance runs.
+ *
+ * On Postgres a job runs under a session advisory lock keyed by its name, taken with
+ * pg_try_advisory_lock on a connection held for the whole run, so an instance finding the
+ * lock taken skips the run instead of waiting for it. The lock goes away with the connection,
+ * so a crashed instance never leaves it behind. Other databases, such as the embedded test
+ * database, serve a single instance and always run the job.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JobLockRepository {
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_lock(hashtext(?))";
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(hashtext(?))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    /**
+     * Runs a job unless another instance is running it
+     *
+     * @param jobName the name of the job, the key of its lock
+     * @param job the job to run
+     * @return true if the job ran, false if another instance held its lock
+     */
+    public boolean runExclusively(String jobName, Runnable job) {
+        if (!isPostgres()) {
+            job.run();
+            return true;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!query(connection, TRY_LOCK_SQL, jobName)) {
+                return false;
+            }
+            try {
+                job.run();
+            } finally {
+                query(connection, UNLOCK_SQL, jobName);
+            }
+            return true;
+        }));
+    }
+
+    private static boolean query(Connection connection, String sql, String jobName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, jobName);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean isPostgres() {
+        Boolean detected = postgres;
+        if (detected == null) {
+            detected = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            postgres = detected;
+        }
+        return Boolean.TRUE.equals(detected);
+    }
+} 
@@ -0,0 +1,166 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.model.Genre;
+import com.gamerecs.back.model.Platform;
+import com.google.common.collect.Lists;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * JDBC write path for the library_entries read model.
+ * Called inside the transaction that changes the source rows, so an entry never shows
+ * a library or a game as it was before a committed change.
+ * Library games are added and removed here together with their entries; game syncs
+ * refresh the entries of the games they wrote in every library holding them.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class LibraryEntryBatchRepository {
+
+    private static final String ENTRY_COLUMNS =
+        "library_id, game_id, title, release_date, cover_image_url, genre_ids, platform_ids";
+
+    private static final String GENRE_IDS =
+        "ARRAY(SELECT gg.genre_id FROM game_genres gg WHERE gg.game_id = g.game_id ORDER BY gg.genre_id)";
+
+    private static final String PLATFORM_IDS =
+        "ARRAY(SELECT gp.platform_id FROM game_platforms gp WHERE gp.game_id = g.game_id ORDER BY gp.platform_id)";
+
+    private static final String INSERT_LIBRARY_GAMES_SQL =
+        "INSERT INTO library_games (library_id, game_id) SELECT :libraryId, g.game_id FROM games g " +
+        "WHERE g.game_id IN (:gameIds) AND NOT EXISTS " +
+        "(SELECT 1 FROM library_games lg WHERE lg.library_id = :libraryId AND lg.game_id = g.game_id)";
+
+    private static final String INSERT_ENTRIES_SQL =
+        "INSERT INTO library_entries (" + ENTRY_COLUMNS + ") " +
+        "SELECT :libraryId, g.game_id, g.title, g.release_date, g.cover_image_url, " + GENRE_IDS + ", " + PLATFORM_IDS +
+        " FROM games g WHERE g.game_id IN (:gameIds) AND NOT EXISTS " +
+        "(SELECT 1 FROM library_entries e WHERE e.library_id = :libraryId AND e.game_id = g.game_id)";
+
+    private static final String REFRESH_ENTRIES_SQL =
+        "UPDATE library_entries SET (title, release_date, cover_image_url, genre_ids, platform_ids) = " +
+        "(SELECT g.title, g.release_date, g.cover_image_url, " + GENRE_IDS + ", " + PLATFORM_IDS +
+        " FROM games g WHERE g.game_id = library_entries.game_id) WHERE game_id IN (:gameIds)";
+
+    private static final String UPDATE_ENTRIES_SQL =
+        "UPDATE library_entries SET title = ?, release_date = ?, cover_image_url = ?, genre_ids = ?, platform_ids = ? " +
+        "WHERE game_id = ?";
+
+    /**
+     * Game ids bound per statement, well below the bind parameter limit of the driver
+     */
+    private static final int IDS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Whether the database supports ON CONFLICT, detected on first use
+     */
+    private volatile Boolean postgres;
+
+    /**
+     * Adds games to a library with their entries. Games already in the library and ids
+     * without a game are skipped.
+     *
+     * @param libraryId the library to add to
+     * @param gameIds the games to add
+     * @return the number of games added
+     */
+    public int addGames(Long libraryId, Collection<Long> gameIds) {
+        int added = 0;
+        for (List<Long> chunk : Lists.partition(List.copyOf(gameIds), IDS_PER_STATEMENT)) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("libraryId", libraryId)
+                .addValue("gameIds", chunk);
+            added += namedParameterJdbcTemplate.update(INSERT_LIBRARY_GAMES_SQL + onConflictDoNothing(), params);
+            namedParameterJdbcTemplate.update(INSERT_ENTRIES_SQL + onConflictDoNothing(), params);
+        }
+        log.debug("Added {} games to library {}", added, libraryId);
+        return added;
+    }
+
+    /**
+     * Removes games from a library with their entries
+     *
+     * @param libraryId the library to remove from
+     * @param gameIds the games to remove
+     * @return the number of games removed
+     */
+    public int removeGames(Long libraryId, Collection<Long> gameIds) {
+        int removed = 0;
+        for (List<Long> chunk : Lists.partition(List.copyOf(gameIds), IDS_PER_STATEMENT)) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("libraryId", libraryId)
+                .addValue("gameIds", chunk);
+            namedParameterJdbcTemplate.update(
+                "DELETE FROM library_entries WHERE library_id = :libraryId AND game_id IN (:gameIds)", params);
+            removed += namedParameterJdbcTemplate.update(
+                "DELETE FROM library_games WHERE library_id = :libraryId AND game_id IN (:gameIds)", params);
+        }
+        log.debug("Removed {} games from library {}", removed, libraryId);
+        return removed;
+    }
+
+    /**
+     * Copies the current columns and genre and platform links of games into their entries,
+     * after they were written with plain SQL in the current transaction
+     *
+     * @param gameIds the games written
+     * @return the number of entries refreshed, one per library holding a game
+     */
+    public int refreshGames(Collection<Long> gameIds) {
+        int refreshed = 0;
+        for (List<Long> chunk : Lists.partition(List.copyOf(gameIds), IDS_PER_STATEMENT)) {
+            refreshed += namedParameterJdbcTemplate.update(REFRESH_ENTRIES_SQL,
+                new MapSqlParameterSource("gameIds", chunk));
+        }
+        log.debug("Refreshed {} library entries of {} games", refreshed, gameIds.size());
+        return refreshed;
+    }
+
+    /**
+     * Copies a managed game into its entries. Its collections are read from the entity, as
+     * changes to them are only flushed to the join tables when the transaction commits.
+     *
+     * @param game the game written, with its genres and platforms
+     * @return the number of entries refreshed, one per library holding the game
+     */
+    public int refreshGame(Game game) {
+        return jdbcTemplate.update(UPDATE_ENTRIES_SQL,
+            game.getTitle(),
+            game.getReleaseDate(),
+            game.getCoverImageUrl(),
+            game.getGenres().stream().map(Genre::getGenreId).filter(Objects::nonNull).sorted().toArray(Long[]::new),
+            game.getPlatforms().stream().map(Platform::getPlatformId).filter(Objects::nonNull).sorted().toArray(Long[]::new),
+            game.getGameId());
+    }
+
+    /**
+     * Suffix that makes an insert skip rows whose key a concurrent transaction already wrote
+     */
+    private String onConflictDoNothing() {
+        return isPostgres() ? " ON CONFLICT DO NOTHING" : "";
+    }
+
+    private boolean isPostgres() {
+        Boolean detected = postgres;
+        if (detected == null) {
+            detected = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            postgres = detected;
+        }
+        return Boolean.TRUE.equals(detected);
+    }
+} 
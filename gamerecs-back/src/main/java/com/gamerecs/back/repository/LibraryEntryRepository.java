@@ -0,0 +1,149 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.LibraryEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for the library_entries read model.
+ * Every query reads one library from this table, in the keyset orders of GameLibraryRepository,
+ * each served by an index of V14; genre filters only add primary key lookups of the given genre ids.
+ * The rows are written by LibraryEntryBatchRepository.
+ */
+@Repository
+public interface LibraryEntryRepository extends JpaRepository<LibraryEntry, LibraryEntry.Key> {
+
+    /**
+     * First page of a library's entries by title, ties broken by game id
+     *
+     * @param libraryId the library to read
+     * @param limit the page size
+     * @return the first entries of the library by title then game id
+     */
+    @Query(ENTRIES + BY_TITLE)
+    List<LibraryEntry> findByLibraryOrderByTitle(@Param("libraryId") Long libraryId, Limit limit);
+
+    /**
+     * Next page of findByLibraryOrderByTitle, after the last entry of the previous page
+     *
+     * @param afterTitle the title of the last entry returned
+     * @param afterGameId the game id of the last entry returned
+     */
+    @Query(ENTRIES + AFTER_TITLE + BY_TITLE)
+    List<LibraryEntry> findByLibraryAfterTitle(
+            @Param("libraryId") Long libraryId,
+            @Param("afterTitle") String afterTitle,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    /**
+     * First page of a library's entries by release date, undated games last, ties broken by game id
+     *
+     * @param libraryId the library to read
+     * @param limit the page size
+     * @return the first entries of the library by release date then game id
+     */
+    @Query(ENTRIES + BY_RELEASE_DATE)
+    List<LibraryEntry> findByLibraryOrderByReleaseDate(@Param("libraryId") Long libraryId, Limit limit);
+
+    /**
+     * Next page of findByLibraryOrderByReleaseDate, after an entry with a release date
+     *
+     * @param afterReleaseDate the release date of the last entry returned
+     * @param afterGameId the game id of the last entry returned
+     */
+    @Query(ENTRIES + AFTER_RELEASE_DATE + BY_RELEASE_DATE)
+    List<LibraryEntry> findByLibraryAfterReleaseDate(
+            @Param("libraryId") Long libraryId,
+            @Param("afterReleaseDate") LocalDate afterReleaseDate,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    /**
+     * Next page of findByLibraryOrderByReleaseDate, after an entry without a release date
+     *
+     * @param afterGameId the game id of the last entry returned
+     */
+    @Query(ENTRIES + AFTER_UNDATED + BY_RELEASE_DATE)
+    List<LibraryEntry> findByLibraryAfterUndated(
+            @Param("libraryId") Long libraryId,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    /**
+     * Same as findByLibraryOrderByTitle, for the entries of any of the given genres
+     */
+    @Query(ENTRIES + OF_GENRE + BY_TITLE)
+    List<LibraryEntry> findByLibraryAndGenreOrderByTitle(
+            @Param("libraryId") Long libraryId,
+            @Param("genreIds") Collection<Long> genreIds,
+            Limit limit);
+
+    /**
+     * Same as findByLibraryAfterTitle, for the entries of any of the given genres
+     */
+    @Query(ENTRIES + OF_GENRE + AFTER_TITLE + BY_TITLE)
+    List<LibraryEntry> findByLibraryAndGenreAfterTitle(
+            @Param("libraryId") Long libraryId,
+            @Param("genreIds") Collection<Long> genreIds,
+            @Param("afterTitle") String afterTitle,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    /**
+     * Same as findByLibraryOrderByReleaseDate, for the entries of any of the given genres
+     */
+    @Query(ENTRIES + OF_GENRE + BY_RELEASE_DATE)
+    List<LibraryEntry> findByLibraryAndGenreOrderByReleaseDate(
+            @Param("libraryId") Long libraryId,
+            @Param("genreIds") Collection<Long> genreIds,
+            Limit limit);
+
+    /**
+     * Same as findByLibraryAfterReleaseDate, for the entries of any of the given genres
+     */
+    @Query(ENTRIES + OF_GENRE + AFTER_RELEASE_DATE + BY_RELEASE_DATE)
+    List<LibraryEntry> findByLibraryAndGenreAfterReleaseDate(
+            @Param("libraryId") Long libraryId,
+            @Param("genreIds") Collection<Long> genreIds,
+            @Param("afterReleaseDate") LocalDate afterReleaseDate,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    /**
+     * Same as findByLibraryAfterUndated, for the entries of any of the given genres
+     */
+    @Query(ENTRIES + OF_GENRE + AFTER_UNDATED + BY_RELEASE_DATE)
+    List<LibraryEntry> findByLibraryAndGenreAfterUndated(
+            @Param("libraryId") Long libraryId,
+            @Param("genreIds") Collection<Long> genreIds,
+            @Param("afterGameId") Long afterGameId,
+            Limit limit);
+
+    String ENTRIES = "SELECT e FROM LibraryEntry e WHERE e.libraryId = :libraryId";
+
+    /**
+     * Entries holding any of the given genres. The ids are bound as a list rather than an array,
+     * which the embedded test database cannot type inside array functions.
+     */
+    String OF_GENRE =
+        " AND EXISTS (SELECT 1 FROM Genre g WHERE g.genreId IN :genreIds AND array_contains(e.genreIds, g.genreId))";
+
+    String BY_TITLE = " ORDER BY e.title ASC, e.gameId ASC";
+
+    String BY_RELEASE_DATE = " ORDER BY e.releaseDate ASC NULLS LAST, e.gameId ASC";
+
+    String AFTER_TITLE = " AND (e.title, e.gameId) > (:afterTitle, :afterGameId)";
+
+    String AFTER_RELEASE_DATE =
+        " AND ((e.releaseDate, e.gameId) > (:afterReleaseDate, :afterGameId) OR e.releaseDate IS NULL)";
+
+    String AFTER_UNDATED = " AND e.releaseDate IS NULL AND e.gameId > :afterGameId";
+} 
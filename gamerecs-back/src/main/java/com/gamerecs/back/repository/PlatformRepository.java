@@ -4,10 +4,13 @@ import com.gamerecs.back.model.Platform;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PlatformRepository extends JpaRepository<Platform, Long> {
     Optional<Platform> findByName(String name);
     boolean existsByName(String name);
+    List<Platform> findAllByNameIn(Collection<String> names);
 } 
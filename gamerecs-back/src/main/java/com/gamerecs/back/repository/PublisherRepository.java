@@ -4,10 +4,13 @@ import com.gamerecs.back.model.Publisher;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PublisherRepository extends JpaRepository<Publisher, Long> {
     Optional<Publisher> findByIgdbCompanyId(Long igdbCompanyId);
     boolean existsByIgdbCompanyId(Long igdbCompanyId);
+    List<Publisher> findAllByIgdbCompanyIdIn(Collection<Long> igdbCompanyIds);
 } 
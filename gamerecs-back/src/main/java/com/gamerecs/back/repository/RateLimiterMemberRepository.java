@@ -0,0 +1,34 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.RateLimiterMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository interface for the instances sharing the IGDB rate limit.
+ */
+@Repository
+public interface RateLimiterMemberRepository extends JpaRepository<RateLimiterMember, String> {
+
+    /**
+     * Counts the instances that sent a heartbeat since the given time
+     */
+    long countByLastSeenAfter(LocalDateTime since);
+
+    /**
+     * Deletes the instances that stopped sending heartbeats
+     *
+     * @param before the time before which an instance is considered gone
+     * @return the number of instances deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RateLimiterMember m WHERE m.lastSeen < :before")
+    int deleteStale(@Param("before") LocalDateTime before);
+} 
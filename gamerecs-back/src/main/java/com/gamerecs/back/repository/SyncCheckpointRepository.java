@@ -0,0 +1,12 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.SyncCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for SyncCheckpoint entity operations.
+ */
+@Repository
+public interface SyncCheckpointRepository extends JpaRepository<SyncCheckpoint, String> {
+} 
@@ -0,0 +1,302 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.IGDBCompanyDTO;
+import com.gamerecs.back.model.Developer;
+import com.gamerecs.back.model.Genre;
+import com.gamerecs.back.model.Platform;
+import com.gamerecs.back.model.Publisher;
+import com.gamerecs.back.repository.DeveloperRepository;
+import com.gamerecs.back.repository.GameBatchRepository;
+import com.gamerecs.back.repository.GenreRepository;
+import com.gamerecs.back.repository.PlatformRepository;
+import com.gamerecs.back.repository.PublisherRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory dictionary of the catalog dimensions: genres and platforms by name,
+ * publishers and developers by IGDB company id, each mapped to its surrogate key.
+ *
+ * The tables are small and append-only, so they are loaded once at startup and kept
+ * in concurrent maps. Entries are only published once the transaction that inserted
+ * them has committed, so a rolled-back sync never leaves an id behind that does not exist.
+ * Missing entries are inserted one dimension at a time under a lock, which keeps
+ * concurrent syncs in this instance from inserting the same row twice.
+ */
+@Service
+@Slf4j
+public class DimensionDictionary {
+    /**
+     * Attempts to insert missing entries before giving up on a unique-key race with another instance
+     */
+    private static final int MAX_INSERT_ATTEMPTS = 2;
+
+    private static final String LOOKUP_METRIC = "gamerecs.dimension.lookups";
+
+    private final PublisherRepository publisherRepository;
+    private final DeveloperRepository developerRepository;
+    private final GenreRepository genreRepository;
+    private final PlatformRepository platformRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Dimension<Long, IGDBCompanyDTO> publishers;
+    private final Dimension<Long, IGDBCompanyDTO> developers;
+    private final Dimension<String, String> genres;
+    private final Dimension<String, String> platforms;
+
+    public DimensionDictionary(
+            PublisherRepository publisherRepository,
+            DeveloperRepository developerRepository,
+            GenreRepository genreRepository,
+            PlatformRepository platformRepository,
+            GameBatchRepository gameBatchRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.publisherRepository = publisherRepository;
+        this.developerRepository = developerRepository;
+        this.genreRepository = genreRepository;
+        this.platformRepository = platformRepository;
+        this.transactionTemplate = transactionTemplate;
+
+        this.publishers = new Dimension<>("publisher", meterRegistry,
+            keys -> publisherRepository.findAllByIgdbCompanyIdIn(keys).stream()
+                .collect(Collectors.toMap(Publisher::getIgdbCompanyId, Publisher::getPublisherId)),
+            gameBatchRepository::insertPublishers);
+        this.developers = new Dimension<>("developer", meterRegistry,
+            keys -> developerRepository.findAllByIgdbCompanyIdIn(keys).stream()
+                .collect(Collectors.toMap(Developer::getIgdbCompanyId, Developer::getDeveloperId)),
+            gameBatchRepository::insertDevelopers);
+        this.genres = new Dimension<>("genre", meterRegistry,
+            keys -> genreRepository.findAllByNameIn(keys).stream()
+                .collect(Collectors.toMap(Genre::getName, Genre::getGenreId)),
+            gameBatchRepository::insertGenres);
+        this.platforms = new Dimension<>("platform", meterRegistry,
+            keys -> platformRepository.findAllByNameIn(keys).stream()
+                .collect(Collectors.toMap(Platform::getName, Platform::getPlatformId)),
+            gameBatchRepository::insertPlatforms);
+    }
+
+    /**
+     * Loads every dimension row into memory once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        publisherRepository.findAll().forEach(p -> publishers.put(p.getIgdbCompanyId(), p.getPublisherId()));
+        developerRepository.findAll().forEach(d -> developers.put(d.getIgdbCompanyId(), d.getDeveloperId()));
+        genreRepository.findAll().forEach(g -> genres.put(g.getName(), g.getGenreId()));
+        platformRepository.findAll().forEach(p -> platforms.put(p.getName(), p.getPlatformId()));
+        log.info("Dimension dictionary loaded {} publishers, {} developers, {} genres and {} platforms",
+            publishers.size(), developers.size(), genres.size(), platforms.size());
+    }
+
+    /**
+     * Resolves the surrogate keys of publishers, inserting the ones that do not exist yet
+     *
+     * @param companies the publishers to resolve
+     * @return map of IGDB company ID to publisher ID
+     */
+    public Map<Long, Long> resolvePublisherIds(Collection<IGDBCompanyDTO> companies) {
+        return publishers.resolve(byCompanyId(companies));
+    }
+
+    /**
+     * Resolves the surrogate keys of developers, inserting the ones that do not exist yet
+     *
+     * @param companies the developers to resolve
+     * @return map of IGDB company ID to developer ID
+     */
+    public Map<Long, Long> resolveDeveloperIds(Collection<IGDBCompanyDTO> companies) {
+        return developers.resolve(byCompanyId(companies));
+    }
+
+    /**
+     * Resolves the surrogate keys of genres, inserting the ones that do not exist yet
+     *
+     * @param names the genre names to resolve
+     * @return map of genre name to genre ID
+     */
+    public Map<String, Long> resolveGenreIds(Collection<String> names) {
+        return genres.resolve(byName(names));
+    }
+
+    /**
+     * Resolves the surrogate keys of platforms, inserting the ones that do not exist yet
+     *
+     * @param names the platform names to resolve
+     * @return map of platform name to platform ID
+     */
+    public Map<String, Long> resolvePlatformIds(Collection<String> names) {
+        return platforms.resolve(byName(names));
+    }
+
+    /**
+     * Looks up a dimension key in memory only, counting the hit or miss
+     *
+     * @return the surrogate key, or empty if the entry is not known yet
+     */
+    public Optional<Long> findPublisherId(Long igdbCompanyId) {
+        return Optional.ofNullable(publishers.find(igdbCompanyId));
+    }
+
+    public Optional<Long> findDeveloperId(Long igdbCompanyId) {
+        return Optional.ofNullable(developers.find(igdbCompanyId));
+    }
+
+    public Optional<Long> findGenreId(String name) {
+        return Optional.ofNullable(genres.find(name));
+    }
+
+    public Optional<Long> findPlatformId(String name) {
+        return Optional.ofNullable(platforms.find(name));
+    }
+
+    private static Map<Long, IGDBCompanyDTO> byCompanyId(Collection<IGDBCompanyDTO> companies) {
+        Map<Long, IGDBCompanyDTO> wanted = new LinkedHashMap<>();
+        for (IGDBCompanyDTO company : companies) {
+            if (company.getIgdbCompanyId() != null) {
+                wanted.putIfAbsent(company.getIgdbCompanyId(), company);
+            }
+        }
+        return wanted;
+    }
+
+    private static Map<String, String> byName(Collection<String> names) {
+        Map<String, String> wanted = new LinkedHashMap<>();
+        for (String name : names) {
+            if (name != null) {
+                wanted.putIfAbsent(name, name);
+            }
+        }
+        return wanted;
+    }
+
+    /**
+     * Runs an action after the current transaction commits, or right away outside a transaction
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * One dimension table: its key-to-id map, insert lock and lookup counters
+     *
+     * @param <K> the natural key, IGDB company id or name
+     * @param <V> the value inserted for a missing key
+     */
+    private final class Dimension<K, V> {
+        private final String name;
+        private final Map<K, Long> ids = new ConcurrentHashMap<>();
+        private final Object insertLock = new Object();
+        private final Function<Collection<K>, Map<K, Long>> loader;
+        private final Consumer<Collection<V>> inserter;
+        private final Counter hits;
+        private final Counter misses;
+
+        Dimension(String name, MeterRegistry meterRegistry,
+                Function<Collection<K>, Map<K, Long>> loader, Consumer<Collection<V>> inserter) {
+            this.name = name;
+            this.loader = loader;
+            this.inserter = inserter;
+            this.hits = meterRegistry.counter(LOOKUP_METRIC, "dimension", name, "result", "hit");
+            this.misses = meterRegistry.counter(LOOKUP_METRIC, "dimension", name, "result", "miss");
+        }
+
+        Long find(K key) {
+            Long id = key == null ? null : ids.get(key);
+            (id != null ? hits : misses).increment();
+            return id;
+        }
+
+        void put(K key, Long id) {
+            if (key != null && id != null) {
+                ids.put(key, id);
+            }
+        }
+
+        int size() {
+            return ids.size();
+        }
+
+        Map<K, Long> resolve(Map<K, V> wanted) {
+            Map<K, Long> resolved = new HashMap<>();
+            Map<K, V> missing = new LinkedHashMap<>();
+            wanted.forEach((key, value) -> {
+                Long id = ids.get(key);
+                if (id != null) {
+                    resolved.put(key, id);
+                } else {
+                    missing.put(key, value);
+                }
+            });
+            hits.increment(resolved.size());
+            misses.increment(missing.size());
+            if (!missing.isEmpty()) {
+                resolved.putAll(insertMissing(missing));
+            }
+            return resolved;
+        }
+
+        /**
+         * Looks up, and if needed inserts, the missing keys in a transaction of their own.
+         * Only one thread per dimension does this at a time, and it re-reads the table first,
+         * so a row inserted by a concurrent sync is picked up instead of inserted again.
+         */
+        private Map<K, Long> insertMissing(Map<K, V> missing) {
+            synchronized (insertLock) {
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        return transactionTemplate.execute(status -> {
+                            Map<K, Long> found = new HashMap<>(loader.apply(missing.keySet()));
+                            List<K> absent = missing.keySet().stream()
+                                .filter(key -> !found.containsKey(key))
+                                .toList();
+                            if (!absent.isEmpty()) {
+                                inserter.accept(absent.stream().map(missing::get).toList());
+                                found.putAll(loader.apply(absent));
+                                log.debug("Inserted {} new {} rows", absent.size(), name);
+                            }
+                            afterCommit(() -> found.forEach(this::put));
+                            return found;
+                        });
+                    } catch (DataIntegrityViolationException e) {
+                        // Another instance inserted the same key first; its row is visible on retry.
+                        // Inside a caller's transaction there is nothing left to retry with.
+                        // Postgres skips such rows with ON CONFLICT DO NOTHING, so this is for other databases.
+                        if (attempt >= MAX_INSERT_ATTEMPTS || TransactionSynchronizationManager.isActualTransactionActive()) {
+                            throw e;
+                        }
+                        log.debug("Concurrent insert of {} rows detected, retrying", name);
+                    }
+                }
+            }
+        }
+    }
+} 
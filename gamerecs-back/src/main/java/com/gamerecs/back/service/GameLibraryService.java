@@ -1,12 +1,25 @@
 package com.gamerecs.back.service;
 
+import com.gamerecs.back.dto.LibraryEntryPage;
+import com.gamerecs.back.model.Developer;
 import com.gamerecs.back.model.Game;
 import com.gamerecs.back.model.GameLibrary;
+import com.gamerecs.back.model.Genre;
+import com.gamerecs.back.model.LibraryEntry;
 import com.gamerecs.back.model.PaginatedGameLibraryResponse;
+import com.gamerecs.back.model.Platform;
+import com.gamerecs.back.model.Publisher;
 import com.gamerecs.back.model.User;
 import com.gamerecs.back.repository.GameLibraryRepository;
+import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.repository.GenreRepository;
+import com.gamerecs.back.repository.LibraryEntryBatchRepository;
+import com.gamerecs.back.repository.LibraryEntryRepository;
 import com.gamerecs.back.repository.UserRepository;
+import com.google.common.collect.Lists;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -16,26 +29,44 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Comparator;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 @Service
 public class GameLibraryService {
 
+    // Game ids bound per collection query, well under the bind parameter limit of Postgres
+    private static final int LOAD_BATCH_SIZE = 1000;
+
     private final GameLibraryRepository gameLibraryRepository;
     private final UserRepository userRepository;
+    private final GameRepository gameRepository;
+    private final GenreRepository genreRepository;
+    private final LibraryEntryRepository libraryEntryRepository;
+    private final LibraryEntryBatchRepository libraryEntryBatchRepository;
 
     @Autowired
-    public GameLibraryService(GameLibraryRepository gameLibraryRepository, UserRepository userRepository) {
+    public GameLibraryService(GameLibraryRepository gameLibraryRepository, UserRepository userRepository,
+            GameRepository gameRepository, GenreRepository genreRepository,
+            LibraryEntryRepository libraryEntryRepository, LibraryEntryBatchRepository libraryEntryBatchRepository) {
         this.gameLibraryRepository = gameLibraryRepository;
         this.userRepository = userRepository;
+        this.gameRepository = gameRepository;
+        this.genreRepository = genreRepository;
+        this.libraryEntryRepository = libraryEntryRepository;
+        this.libraryEntryBatchRepository = libraryEntryBatchRepository;
     }
 
     /**
-     * Retrieve the game library for a given user ID.
+     * Retrieve the game library for a given user ID, its games sorted by title.
      *
      * @param userId the authenticated user's ID
      * @return the GameLibrary object associated with the user
@@ -43,17 +74,13 @@ public class GameLibraryService {
      */
     @Transactional(readOnly = true)
     public GameLibrary getLibraryForUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() ->
-                    new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
-        
-        return gameLibraryRepository.findByUserWithGamesAndCollections(user)
-                .orElseThrow(() ->
-                    new ResponseStatusException(HttpStatus.NOT_FOUND, "Game library not found"));
+        return getLibraryForUser(userId, "title", "");
     }
     
     /**
      * Retrieve the game library for a given user ID with sorting and filtering options.
+     * The database filters and sorts the games, then their collections are read in one narrow query
+     * per collection rather than fetch joined with the games.
      *
      * @param userId the authenticated user's ID
      * @param sortBy the field to sort games by (e.g., "title", "releaseDate")
@@ -63,43 +90,29 @@ public class GameLibraryService {
      */
     @Transactional(readOnly = true)
     public GameLibrary getLibraryForUser(Long userId, String sortBy, String filterByGenre) {
-        // First get the basic library
-        GameLibrary library = getLibraryForUser(userId);
-        
-        // Apply filtering if a genre is specified
-        Set<Game> filteredGames = library.getGames();
-        if (filterByGenre != null && !filterByGenre.isEmpty()) {
-            filteredGames = library.getGames().stream()
-                .filter(game -> game.getGenres().stream()
-                    .anyMatch(genre -> genre.getName().equalsIgnoreCase(filterByGenre)))
-                .collect(java.util.stream.Collectors.toSet());
-        }
+        Long libraryId = findLibraryId(userId);
+        User user = userRepository.getReferenceById(userId);
         
-        // Apply sorting based on the sortBy parameter
-        List<Game> sortedGames;
-        switch (sortBy.toLowerCase()) {
-            case "releasedate":
-                sortedGames = filteredGames.stream()
-                    .sorted(Comparator.comparing(Game::getReleaseDate, 
-                        Comparator.nullsLast(Comparator.naturalOrder())))
-                    .collect(java.util.stream.Collectors.toList());
-                break;
-            case "title":
-            default:
-                sortedGames = filteredGames.stream()
-                    .sorted(Comparator.comparing(
-                        game -> game.getTitle().toLowerCase()))
-                    .collect(java.util.stream.Collectors.toList());
-                break;
+        boolean isReleaseDate = "releasedate".equalsIgnoreCase(sortBy);
+        String genre = filterByGenre != null && !filterByGenre.trim().isEmpty() ? filterByGenre : null;
+        List<Game> games;
+        if (isReleaseDate) {
+            games = genre == null
+                ? gameLibraryRepository.findGamesByUserOrderByReleaseDate(user, Limit.unlimited())
+                : gameLibraryRepository.findGamesByUserAndGenreOrderByReleaseDate(user, genre, Limit.unlimited());
+        } else {
+            games = genre == null
+                ? gameLibraryRepository.findAllGamesByUserOrderByTitleIgnoreCase(user)
+                : gameLibraryRepository.findAllGamesByUserAndGenreOrderByTitleIgnoreCase(user, genre);
         }
+        games = withCollections(games);
         
-        // Create a new GameLibrary with the sorted and filtered games
-        GameLibrary sortedAndFilteredLibrary = new GameLibrary();
-        sortedAndFilteredLibrary.setLibraryId(library.getLibraryId());
-        sortedAndFilteredLibrary.setUser(library.getUser());
-        sortedAndFilteredLibrary.setGames(new LinkedHashSet<>(sortedGames));
+        GameLibrary library = new GameLibrary();
+        library.setLibraryId(libraryId);
+        library.setUser(user);
+        library.setGames(new LinkedHashSet<>(games));
         
-        return sortedAndFilteredLibrary;
+        return library;
     }
 
     /**
@@ -117,16 +130,16 @@ public class GameLibraryService {
     public PaginatedGameLibraryResponse getPaginatedLibraryForUser(Long userId,
             String sortBy, String filterByGenre, int page, int size) {
         
-        // Get the user
-        User user = userRepository.findById(userId)
-                .orElseThrow(() ->
-                    new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
+        // The library id doubles as the existence check; the user itself is never loaded
+        Long libraryId = findLibraryId(userId);
+        User user = userRepository.getReferenceById(userId);
         
         // Create pageable without sort as we're using explicit sort in the query methods
         Pageable pageable = PageRequest.of(page, size);
         
         // Get games page based on sort and filter criteria
         Page<Game> gamesPage;
+        List<Game> games;
         try {
             // Determine which repository method to call based on sort and filter criteria
             boolean isReleaseDate = "releasedate".equalsIgnoreCase(sortBy);
@@ -145,13 +158,7 @@ public class GameLibraryService {
                 }
             }
             
-            // Trigger loading of lazy collections for each game
-            for (Game game : gamesPage.getContent()) {
-                game.getGenres().size(); // Force initialization
-                game.getPlatforms().size(); // Force initialization
-                game.getPublishers().size(); // Force initialization
-                game.getDevelopers().size(); // Force initialization
-            }
+            games = withCollections(gamesPage.getContent());
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, 
                 "Error retrieving paginated game library: " + e.getMessage(), e);
@@ -159,11 +166,8 @@ public class GameLibraryService {
         
         PaginatedGameLibraryResponse response = new PaginatedGameLibraryResponse();
         // Set metadata
-        response.setLibraryId(gameLibraryRepository.findByUser(user)
-                                              .orElseThrow(() ->
-                                                    new ResponseStatusException(HttpStatus.NOT_FOUND, "Game library not found"))
-                                              .getLibraryId());
-        response.setGames(gamesPage.getContent());
+        response.setLibraryId(libraryId);
+        response.setGames(games);
         response.setCurrentPage(gamesPage.getNumber());
         response.setTotalPages(gamesPage.getTotalPages());
         response.setTotalElements(gamesPage.getTotalElements());
@@ -171,4 +175,286 @@ public class GameLibraryService {
         
         return response;
     }
+
+    /**
+     * Retrieve a page of the game library for a given user ID, after a keyset cursor.
+     * Deep pages cost the same as the first one, as no rows are skipped with OFFSET,
+     * and the total is only counted when asked for.
+     *
+     * @param userId the authenticated user's ID
+     * @param sortBy the field to sort games by (e.g., "title", "releaseDate")
+     * @param filterByGenre the genre name to filter games by (empty string means no filtering)
+     * @param cursor the nextCursor of the previous page, or null or empty for the first page
+     * @param size the page size
+     * @param includeTotal whether to count the games, otherwise totalElements and totalPages are -1
+     * @return a PaginatedGameLibraryResponse containing the games and the cursor of the next page
+     * @throws ResponseStatusException with HTTP 404 if library not found and 401 if the user is missing.
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    @Transactional(readOnly = true)
+    public PaginatedGameLibraryResponse getLibraryPageAfter(Long userId, String sortBy, String filterByGenre,
+            String cursor, int size, boolean includeTotal) {
+
+        Long libraryId = findLibraryId(userId);
+        User user = userRepository.getReferenceById(userId);
+
+        boolean isReleaseDate = "releasedate".equalsIgnoreCase(sortBy);
+        Cursor after = cursor == null || cursor.isEmpty() ? null : Cursor.decode(cursor);
+        if (after != null && after.byReleaseDate() != isReleaseDate) {
+            throw new IllegalArgumentException("Invalid library cursor");
+        }
+        String genre = filterByGenre != null && !filterByGenre.trim().isEmpty() ? filterByGenre : null;
+        Limit limit = Limit.of(size);
+
+        List<Game> games;
+        long totalElements = -1;
+        try {
+            if (isReleaseDate) {
+                games = findByReleaseDate(user, genre, after, limit);
+            } else {
+                games = findByTitle(user, genre, after, limit);
+            }
+            games = withCollections(games);
+            if (includeTotal) {
+                totalElements = genre == null
+                    ? gameLibraryRepository.countGamesByUser(user)
+                    : gameLibraryRepository.countGamesByUserAndGenre(user, genre);
+            }
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                "Error retrieving paginated game library: " + e.getMessage(), e);
+        }
+
+        PaginatedGameLibraryResponse response = new PaginatedGameLibraryResponse();
+        response.setLibraryId(libraryId);
+        response.setGames(games);
+        response.setTotalElements(totalElements);
+        response.setTotalPages(includeTotal ? (int) ((totalElements + size - 1) / size) : -1);
+        response.setPageSize(size);
+        response.setNextCursor(games.size() == size
+            ? Cursor.of(games.get(games.size() - 1), isReleaseDate).encode()
+            : null);
+
+        return response;
+    }
+
+    /**
+     * Retrieve a page of the library list view for a given user ID, after a keyset cursor.
+     * The page is read from the library_entries read model alone, without joining the games
+     * or their collections; a genre filter is first resolved to the ids of the genres of that name.
+     *
+     * @param userId the authenticated user's ID
+     * @param sortBy the field to sort games by (e.g., "title", "releaseDate")
+     * @param filterByGenre the genre name to filter games by (empty string means no filtering)
+     * @param cursor the nextCursor of the previous page, or null or empty for the first page
+     * @param size the page size
+     * @return a LibraryEntryPage containing the entries and the cursor of the next page
+     * @throws ResponseStatusException with HTTP 404 if library not found and 401 if the user is missing.
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    @Transactional(readOnly = true)
+    public LibraryEntryPage getLibraryEntries(Long userId, String sortBy, String filterByGenre, String cursor, int size) {
+        Long libraryId = findLibraryId(userId);
+
+        boolean isReleaseDate = "releasedate".equalsIgnoreCase(sortBy);
+        Cursor after = cursor == null || cursor.isEmpty() ? null : Cursor.decode(cursor);
+        if (after != null && after.byReleaseDate() != isReleaseDate) {
+            throw new IllegalArgumentException("Invalid library cursor");
+        }
+        List<Long> genreIds = null;
+        if (filterByGenre != null && !filterByGenre.trim().isEmpty()) {
+            // Every genre of that name in any case, as the joined library queries match genres
+            genreIds = genreRepository.findGenreIdsByNameIgnoreCase(filterByGenre);
+            if (genreIds.isEmpty()) {
+                return new LibraryEntryPage(libraryId, List.of(), size, null);
+            }
+        }
+        Limit limit = Limit.of(size);
+
+        List<LibraryEntry> entries = isReleaseDate
+            ? findEntriesByReleaseDate(libraryId, genreIds, after, limit)
+            : findEntriesByTitle(libraryId, genreIds, after, limit);
+        String nextCursor = entries.size() == size
+            ? Cursor.of(entries.get(entries.size() - 1), isReleaseDate).encode()
+            : null;
+        return new LibraryEntryPage(libraryId, entries, size, nextCursor);
+    }
+
+    /**
+     * Add a game to the authenticated user's library, together with its library entry
+     *
+     * @param userId the authenticated user's ID
+     * @param gameId the game to add
+     * @return true if the game was added, false if it already was in the library
+     * @throws ResponseStatusException with HTTP 404 if the library or the game is not found
+     *         and 401 if the user is missing.
+     */
+    @Transactional
+    public boolean addGameToLibrary(Long userId, Long gameId) {
+        Long libraryId = findLibraryId(userId);
+        if (!gameRepository.existsById(gameId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+        }
+        return libraryEntryBatchRepository.addGames(libraryId, List.of(gameId)) > 0;
+    }
+
+    /**
+     * Remove a game from the authenticated user's library, together with its library entry
+     *
+     * @param userId the authenticated user's ID
+     * @param gameId the game to remove
+     * @return true if the game was removed, false if it was not in the library
+     * @throws ResponseStatusException with HTTP 404 if library not found and 401 if the user is missing.
+     */
+    @Transactional
+    public boolean removeGameFromLibrary(Long userId, Long gameId) {
+        Long libraryId = findLibraryId(userId);
+        return libraryEntryBatchRepository.removeGames(libraryId, List.of(gameId)) > 0;
+    }
+
+    private List<LibraryEntry> findEntriesByTitle(Long libraryId, List<Long> genreIds, Cursor after, Limit limit) {
+        if (after == null) {
+            return genreIds == null
+                ? libraryEntryRepository.findByLibraryOrderByTitle(libraryId, limit)
+                : libraryEntryRepository.findByLibraryAndGenreOrderByTitle(libraryId, genreIds, limit);
+        }
+        return genreIds == null
+            ? libraryEntryRepository.findByLibraryAfterTitle(libraryId, after.key(), after.gameId(), limit)
+            : libraryEntryRepository.findByLibraryAndGenreAfterTitle(
+                libraryId, genreIds, after.key(), after.gameId(), limit);
+    }
+
+    private List<LibraryEntry> findEntriesByReleaseDate(Long libraryId, List<Long> genreIds, Cursor after, Limit limit) {
+        if (after == null) {
+            return genreIds == null
+                ? libraryEntryRepository.findByLibraryOrderByReleaseDate(libraryId, limit)
+                : libraryEntryRepository.findByLibraryAndGenreOrderByReleaseDate(libraryId, genreIds, limit);
+        }
+        if (after.key() == null) {
+            return genreIds == null
+                ? libraryEntryRepository.findByLibraryAfterUndated(libraryId, after.gameId(), limit)
+                : libraryEntryRepository.findByLibraryAndGenreAfterUndated(libraryId, genreIds, after.gameId(), limit);
+        }
+        LocalDate releaseDate = LocalDate.parse(after.key());
+        return genreIds == null
+            ? libraryEntryRepository.findByLibraryAfterReleaseDate(libraryId, releaseDate, after.gameId(), limit)
+            : libraryEntryRepository.findByLibraryAndGenreAfterReleaseDate(
+                libraryId, genreIds, releaseDate, after.gameId(), limit);
+    }
+
+    private List<Game> findByTitle(User user, String genre, Cursor after, Limit limit) {
+        if (after == null) {
+            return genre == null
+                ? gameLibraryRepository.findGamesByUserOrderByTitle(user, limit)
+                : gameLibraryRepository.findGamesByUserAndGenreOrderByTitle(user, genre, limit);
+        }
+        return genre == null
+            ? gameLibraryRepository.findGamesByUserAfterTitle(user, after.key(), after.gameId(), limit)
+            : gameLibraryRepository.findGamesByUserAndGenreAfterTitle(user, genre, after.key(), after.gameId(), limit);
+    }
+
+    private List<Game> findByReleaseDate(User user, String genre, Cursor after, Limit limit) {
+        if (after == null) {
+            return genre == null
+                ? gameLibraryRepository.findGamesByUserOrderByReleaseDate(user, limit)
+                : gameLibraryRepository.findGamesByUserAndGenreOrderByReleaseDate(user, genre, limit);
+        }
+        if (after.key() == null) {
+            return genre == null
+                ? gameLibraryRepository.findGamesByUserAfterUndated(user, after.gameId(), limit)
+                : gameLibraryRepository.findGamesByUserAndGenreAfterUndated(user, genre, after.gameId(), limit);
+        }
+        LocalDate releaseDate = LocalDate.parse(after.key());
+        return genre == null
+            ? gameLibraryRepository.findGamesByUserAfterReleaseDate(user, releaseDate, after.gameId(), limit)
+            : gameLibraryRepository.findGamesByUserAndGenreAfterReleaseDate(user, genre, releaseDate, after.gameId(), limit);
+    }
+
+    private Long findLibraryId(Long userId) {
+        return gameLibraryRepository.findLibraryIdByUserId(userId)
+                .orElseThrow(() -> userRepository.existsById(userId)
+                    ? new ResponseStatusException(HttpStatus.NOT_FOUND, "Game library not found")
+                    : new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
+    }
+
+    /**
+     * Copies the games with their collections loaded, so they can be serialized: one query per collection
+     * and per LOAD_BATCH_SIZE games, each row a narrow (game id, element) pair. A fetch join of
+     * the four collections would return the product of their sizes for every game instead.
+     * The copies are not managed, so the collections filled here are never flushed as changes.
+     */
+    private List<Game> withCollections(List<Game> games) {
+        List<Game> copies = new ArrayList<>(games.size());
+        Map<Long, Game> copiesById = new HashMap<>();
+        for (Game game : games) {
+            Game copy = copiesById.computeIfAbsent(game.getGameId(), gameId -> {
+                Game newCopy = new Game();
+                BeanUtils.copyProperties(game, newCopy, "genres", "platforms", "publishers", "developers");
+                return newCopy;
+            });
+            copies.add(copy);
+        }
+        for (List<Long> gameIds : Lists.partition(List.copyOf(copiesById.keySet()), LOAD_BATCH_SIZE)) {
+            for (Object[] row : gameRepository.findGenresByGameIds(gameIds)) {
+                copiesById.get((Long) row[0]).getGenres().add((Genre) row[1]);
+            }
+            for (Object[] row : gameRepository.findPlatformsByGameIds(gameIds)) {
+                copiesById.get((Long) row[0]).getPlatforms().add((Platform) row[1]);
+            }
+            for (Object[] row : gameRepository.findPublishersByGameIds(gameIds)) {
+                copiesById.get((Long) row[0]).getPublishers().add((Publisher) row[1]);
+            }
+            for (Object[] row : gameRepository.findDevelopersByGameIds(gameIds)) {
+                copiesById.get((Long) row[0]).getDevelopers().add((Developer) row[1]);
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Position after the last game of a page: its sort key (the title, or the ISO release date,
+     * null for an undated game) and, to break ties, its game id
+     */
+    record Cursor(boolean byReleaseDate, String key, long gameId) {
+
+        static Cursor of(Game game, boolean byReleaseDate) {
+            return of(game.getTitle(), game.getReleaseDate(), game.getGameId(), byReleaseDate);
+        }
+
+        static Cursor of(LibraryEntry entry, boolean byReleaseDate) {
+            return of(entry.getTitle(), entry.getReleaseDate(), entry.getGameId(), byReleaseDate);
+        }
+
+        private static Cursor of(String title, LocalDate releaseDate, long gameId, boolean byReleaseDate) {
+            String key = byReleaseDate
+                ? (releaseDate == null ? null : releaseDate.toString())
+                : title;
+            return new Cursor(byReleaseDate, key, gameId);
+        }
+
+        String encode() {
+            String raw = (byReleaseDate ? "r" : "t") + ":" + gameId + (key == null ? "" : ":" + key);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+                boolean byReleaseDate = switch (parts[0]) {
+                    case "r" -> true;
+                    case "t" -> false;
+                    default -> throw new IllegalArgumentException("Unknown sort " + parts[0]);
+                };
+                String key = parts.length == 3 ? parts[2] : null;
+                if (byReleaseDate && key != null) {
+                    LocalDate.parse(key);
+                } else if (!byReleaseDate && key == null) {
+                    throw new IllegalArgumentException("Missing title");
+                }
+                return new Cursor(byReleaseDate, key, Long.parseLong(parts[1]));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid library cursor", e);
+            }
+        }
+    }
 } 
@@ -0,0 +1,210 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.GameSearchPage;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.dto.IGDBSearchResult;
+import com.gamerecs.back.model.SyncCheckpoint;
+import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.repository.SyncCheckpointRepository;
+import com.gamerecs.back.util.SearchQueryNormalizer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Game search answered from the local catalog.
+ *
+ * The games table holds every game ever synced, so searches are matched there first with
+ * Postgres full-text search and title trigrams, ranked, and paged with a keyset cursor.
+ * IGDB is only asked on a first page that holds every local match, when the catalog has too
+ * few matches or the delta sync has not run recently enough to trust it; its games missing
+ * locally are appended up to the page size.
+ */
+@Service
+@Slf4j
+public class GameSearchService {
+    private static final String SEARCH_METRIC = "gamerecs.games.search";
+
+    /**
+     * Largest page the search returns
+     */
+    public static final int MAX_PAGE_SIZE = 50;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final GameRepository gameRepository;
+    private final SyncCheckpointRepository checkpointRepository;
+    private final IGDBClientService igdbClientService;
+    private final int minLocalResults;
+    private final Duration maxCatalogAge;
+    private final Timer localSearches;
+    private final Timer igdbSearches;
+
+    public GameSearchService(
+            GameRepository gameRepository,
+            SyncCheckpointRepository checkpointRepository,
+            IGDBClientService igdbClientService,
+            MeterRegistry meterRegistry,
+            @Value("${games.search.min-local-results:5}") int minLocalResults,
+            @Value("${games.search.max-catalog-age:PT1H}") Duration maxCatalogAge) {
+        this.gameRepository = gameRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.igdbClientService = igdbClientService;
+        this.minLocalResults = minLocalResults;
+        this.maxCatalogAge = maxCatalogAge;
+        this.localSearches = Timer.builder(SEARCH_METRIC)
+            .description("Duration of game searches, by whether IGDB had to be asked")
+            .tag("source", "local")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.igdbSearches = Timer.builder(SEARCH_METRIC)
+            .description("Duration of game searches, by whether IGDB had to be asked")
+            .tag("source", "local_and_igdb")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Searches the local catalog, completing the first page from IGDB if needed
+     *
+     * @param query the search query
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     * @param size the page size, at most MAX_PAGE_SIZE
+     * @return the page of games found
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public GameSearchPage search(String query, String cursor, int size) {
+        long start = System.nanoTime();
+        String canonicalQuery = SearchQueryNormalizer.normalize(query);
+        String tsQuery = toPrefixQuery(canonicalQuery);
+        if (tsQuery.isEmpty()) {
+            return new GameSearchPage(List.of(), null, GameSearchPage.Source.LOCAL);
+        }
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        List<GameRepository.RankedGame> ranked;
+        if (cursor == null) {
+            ranked = gameRepository.searchRanked(tsQuery, canonicalQuery, limit);
+        } else {
+            Cursor after = Cursor.decode(cursor);
+            ranked = gameRepository.searchRankedAfter(tsQuery, canonicalQuery, after.rank(), after.gameId(), limit);
+        }
+        List<IGDBGameDTO> games = new ArrayList<>(ranked.stream().map(GameSearchService::toDto).toList());
+        String nextCursor = ranked.size() == limit
+            ? Cursor.of(ranked.get(ranked.size() - 1)).encode()
+            : null;
+
+        // Only a first page holding every local match can take IGDB games without overflowing
+        // or repeating a game of a later page
+        if (cursor != null || nextCursor != null || !needsIgdb(games.size())) {
+            localSearches.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new GameSearchPage(games, nextCursor, GameSearchPage.Source.LOCAL);
+        }
+
+        IGDBSearchResult igdbResult = igdbClientService.searchGamesWithStatus(query);
+        if (!igdbResult.degraded()) {
+            Set<Long> localIds = games.stream().map(IGDBGameDTO::getIgdbId).collect(Collectors.toCollection(HashSet::new));
+            for (IGDBGameDTO game : igdbResult.games()) {
+                if (games.size() == limit) {
+                    break;
+                }
+                if (localIds.add(game.getIgdbId())) {
+                    games.add(game);
+                }
+            }
+        }
+        igdbSearches.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new GameSearchPage(games, nextCursor, GameSearchPage.Source.LOCAL_AND_IGDB);
+    }
+
+    /**
+     * Turns a canonical query into a Postgres text search query matching every word as a prefix,
+     * so "zelda brea" finds "The Legend of Zelda: Breath of the Wild" while the user is typing
+     *
+     * @param canonicalQuery a query already passed through SearchQueryNormalizer.normalize
+     * @return the words of the query as "word:*" terms joined by "&amp;", empty if there are none
+     */
+    static String toPrefixQuery(String canonicalQuery) {
+        if (canonicalQuery == null) {
+            return "";
+        }
+        StringBuilder tsQuery = new StringBuilder();
+        for (String word : NON_WORD.split(canonicalQuery)) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (!tsQuery.isEmpty()) {
+                tsQuery.append(" & ");
+            }
+            tsQuery.append(word).append(":*");
+        }
+        return tsQuery.toString();
+    }
+
+    private boolean needsIgdb(int localResults) {
+        if (localResults < minLocalResults) {
+            return true;
+        }
+        try {
+            LocalDateTime lastDeltaSync = checkpointRepository.findById(IGDBDeltaSyncService.JOB_NAME)
+                .map(SyncCheckpoint::getUpdatedAt)
+                .orElse(null);
+            // Without a checkpoint the delta sync is off or has never run; enough local matches are trusted then
+            return lastDeltaSync != null && lastDeltaSync.isBefore(LocalDateTime.now().minus(maxCatalogAge));
+        } catch (DataAccessException e) {
+            log.warn("Could not read the delta sync checkpoint, treating the catalog as fresh", e);
+            return false;
+        }
+    }
+
+    private static IGDBGameDTO toDto(GameRepository.RankedGame game) {
+        IGDBGameDTO dto = new IGDBGameDTO();
+        dto.setIgdbId(game.getIgdbId());
+        dto.setTitle(game.getTitle());
+        dto.setReleaseDate(game.getReleaseDate());
+        dto.setCoverImageUrl(game.getCoverImageUrl());
+        return dto;
+    }
+
+    /**
+     * Position after the last match of a page: its rank and, to break ties, its game id
+     */
+    record Cursor(float rank, long gameId) {
+
+        static Cursor of(GameRepository.RankedGame game) {
+            return new Cursor(game.getRank(), game.getGameId());
+        }
+
+        String encode() {
+            String raw = Integer.toHexString(Float.floatToIntBits(rank)) + ":" + gameId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+                int separator = raw.indexOf(':');
+                return new Cursor(
+                    Float.intBitsToFloat(Integer.parseUnsignedInt(raw.substring(0, separator), 16)),
+                    Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid search cursor", e);
+            }
+        }
+    }
+} 
@@ -3,31 +3,74 @@ package com.gamerecs.back.service;
 import com.gamerecs.back.dto.*;
 import com.gamerecs.back.model.*;
 import com.gamerecs.back.repository.*;
+import com.gamerecs.back.repository.GameBatchRepository.GameRelation;
+import com.gamerecs.back.repository.GameBatchRepository.WrittenGame;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class GameSyncService {
+    /**
+     * Default number of games written per transaction in batch sync mode
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 100;
+
+    private static final String SYNC_DURATION_METRIC = "gamerecs.sync.duration";
+    private static final String SYNC_GAMES_METRIC = "gamerecs.sync.games";
+    private static final String RELATION_ROWS_METRIC = "gamerecs.sync.relation.rows";
+
     private final GameRepository gameRepository;
     private final PublisherRepository publisherRepository;
     private final DeveloperRepository developerRepository;
     private final GenreRepository genreRepository;
     private final PlatformRepository platformRepository;
     private final IGDBClientService igdbClientService;
+    private final GameBatchRepository gameBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final DimensionDictionary dimensionDictionary;
+    private final IGDBGameDetailsService gameDetailsService;
+    private final GameTitleIndex gameTitleIndex;
+    private final GameCopyLoader gameCopyLoader;
+    private final LibraryEntryBatchRepository libraryEntryBatchRepository;
+
+    /**
+     * Number of games committed per transaction in batch sync mode
+     */
+    @Value("${igdb.sync.chunk-size:100}")
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
 
     /**
      * Syncs games from IGDB based on a search query
      * Leverages the caching mechanism in IGDBClientService
+     * In two-phase search mode the full records of the games found are loaded before syncing
+     * Nothing is synced when IGDB is unavailable and the search is served by a fallback,
+     * or when the full records cannot be loaded
      * 
      * @param searchQuery the search query to use
      * @return list of synchronized Game entities
@@ -35,7 +78,20 @@ public class GameSyncService {
     @Transactional
     public List<Game> syncGamesFromSearch(String searchQuery) {
         log.debug("Syncing games from IGDB using search query: {}", searchQuery);
-        List<IGDBGameDTO> igdbGames = igdbClientService.searchGames(searchQuery);
+        IGDBSearchResult searchResult = igdbClientService.searchGamesWithStatus(searchQuery);
+        if (searchResult.degraded()) {
+            log.warn("IGDB unavailable for query '{}', skipping sync of {} fallback results",
+                searchQuery, searchResult.games().size());
+            return List.of();
+        }
+        List<IGDBGameDTO> igdbGames;
+        try {
+            igdbGames = gameDetailsService.withDetails(searchResult.games());
+        } catch (IllegalStateException e) {
+            log.warn("IGDB details unavailable for query '{}', skipping sync of {} results",
+                searchQuery, searchResult.games().size(), e);
+            return List.of();
+        }
         log.debug("Found {} games from IGDB for query: {}", igdbGames.size(), searchQuery);
         return syncGamesFromSearch(igdbGames);
     }
@@ -49,135 +105,466 @@ public class GameSyncService {
     @Transactional
     public List<Game> syncGamesFromSearch(List<IGDBGameDTO> igdbGames) {
         log.debug("Syncing {} games from IGDB to database", igdbGames.size());
-        return igdbGames.stream()
+        long start = System.nanoTime();
+        List<Game> games = igdbGames.stream()
             .map(this::upsertGame)
             .toList();
+        recordSync("single", games.size(), System.nanoTime() - start);
+        return games;
+    }
+
+    /**
+     * Syncs games from a list of IGDB game DTOs using set-based batch writes.
+     * Referenced dimensions are resolved through the DimensionDictionary before each chunk,
+     * existing games are loaded with one query, unchanged games are skipped,
+     * and inserts and join rows are written as JDBC batches.
+     * Each chunk of {@code igdb.sync.chunk-size} games is committed in its own transaction
+     * so a large sync does not hold a pooled connection for the whole run.
+     * Batches large enough for the COPY bulk-load path go through bulkLoad instead when it is enabled.
+     * The library entries of the updated games are refreshed in the chunk transaction.
+     *
+     * @param igdbGames list of IGDB game DTOs
+     * @return summary of the inserted, updated and skipped games
+     */
+    public GameSyncResult syncGamesInBatches(List<IGDBGameDTO> igdbGames) {
+        if (gameCopyLoader.accepts(igdbGames.size())) {
+            return bulkLoad(igdbGames.iterator());
+        }
+        log.debug("Batch syncing {} games from IGDB to database in chunks of {}", igdbGames.size(), chunkSize);
+        long start = System.nanoTime();
+        GameSyncResult result = new GameSyncResult();
+        for (List<IGDBGameDTO> chunk : Lists.partition(igdbGames, chunkSize)) {
+            // Resolved outside the chunk transaction so new dimension rows are committed and shared first
+            DimensionIds dimensionIds = resolveDimensions(chunk);
+            result.add(transactionTemplate.execute(status -> syncChunk(chunk, dimensionIds)));
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        recordSync("batch", result.getProcessed(), elapsedNanos);
+        log.info("Batch sync processed {} games ({} inserted, {} updated, {} skipped) in {} ms ({} games/s)",
+            result.getProcessed(), result.getInserted(), result.getUpdated(), result.getSkipped(),
+            result.getElapsedMillis(), String.format("%.1f", result.getGamesPerSecond()));
+        return result;
+    }
+
+    /**
+     * Loads games through the Postgres COPY bulk-load path, consuming the iterator lazily.
+     * Same semantics as syncGamesInBatches: games are only written when newer than the stored copy,
+     * and a relation is only replaced when the DTO carries a list for it.
+     *
+     * @param igdbGames the IGDB game DTOs, each with an IGDB id, a title and an update time
+     * @return summary of the inserted, updated and skipped games
+     */
+    public GameSyncResult bulkLoad(Iterator<IGDBGameDTO> igdbGames) {
+        long start = System.nanoTime();
+        GameSyncResult result = gameCopyLoader.load(igdbGames, written -> {
+            gameTitleIndex.onGamesWritten(written);
+            libraryEntryBatchRepository.refreshGames(written.stream().map(Game::getGameId).toList());
+        });
+        recordSync("bulk", result.getProcessed(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Writes one chunk of games inside the current transaction.
+     *
+     * @param chunk the IGDB game DTOs of this chunk
+     * @param dimensionIds the surrogate keys of every dimension the chunk references
+     * @return summary of the chunk
+     */
+    private GameSyncResult syncChunk(List<IGDBGameDTO> chunk, DimensionIds dimensionIds) {
+        Map<Long, IGDBGameDTO> incoming = new LinkedHashMap<>();
+        for (IGDBGameDTO dto : chunk) {
+            incoming.put(dto.getIgdbId(), dto);
+        }
+
+        Map<Long, Game> existing = new HashMap<>();
+        for (Game game : gameRepository.findAllByIgdbIdIn(incoming.keySet())) {
+            existing.put(game.getIgdbId(), game);
+        }
+
+        List<Game> rows = new ArrayList<>();
+        for (IGDBGameDTO dto : incoming.values()) {
+            Game current = existing.get(dto.getIgdbId());
+            if (current != null && !isNewer(dto, current)) {
+                continue;
+            }
+            // Write from a fresh instance so the managed entity is not flushed a second time
+            Game row = new Game();
+            updateGameFromDTO(row, dto);
+            rows.add(row);
+        }
+
+        // A game a concurrent sync wrote in the meantime is updated instead of failing the chunk,
+        // and left out when that sync stored a copy at least as new
+        Map<Long, WrittenGame> written = gameBatchRepository.upsertGames(rows);
+        List<Game> inserts = new ArrayList<>();
+        List<Game> updates = new ArrayList<>();
+        List<IGDBGameDTO> changed = new ArrayList<>();
+        Map<Long, Long> gameIds = new HashMap<>();
+        Set<Long> updatedGameIds = new HashSet<>();
+        for (Game row : rows) {
+            WrittenGame game = written.get(row.getIgdbId());
+            if (game == null) {
+                continue;
+            }
+            row.setGameId(game.gameId());
+            gameIds.put(row.getIgdbId(), game.gameId());
+            if (game.inserted()) {
+                inserts.add(row);
+            } else {
+                updates.add(row);
+                updatedGameIds.add(game.gameId());
+            }
+            changed.add(incoming.get(row.getIgdbId()));
+        }
+
+        GameSyncResult result = GameSyncResult.builder()
+            .processed(chunk.size())
+            .inserted(inserts.size())
+            .updated(updates.size())
+            .skipped(chunk.size() - changed.size())
+            .build();
+        if (changed.isEmpty()) {
+            return result;
+        }
+        gameTitleIndex.onGamesWritten(titleChanges(inserts, updates, existing));
+
+        replaceRelation(GameRelation.PUBLISHERS, changed, gameIds, updatedGameIds,
+            IGDBGameDTO::getPublishers, publisher -> dimensionIds.publishers().get(publisher.getIgdbCompanyId()));
+        replaceRelation(GameRelation.DEVELOPERS, changed, gameIds, updatedGameIds,
+            IGDBGameDTO::getDevelopers, developer -> dimensionIds.developers().get(developer.getIgdbCompanyId()));
+        replaceRelation(GameRelation.GENRES, changed, gameIds, updatedGameIds,
+            IGDBGameDTO::getGenres, genre -> dimensionIds.genres().get(genre.getName()));
+        replaceRelation(GameRelation.PLATFORMS, changed, gameIds, updatedGameIds,
+            IGDBGameDTO::getPlatforms, platform -> dimensionIds.platforms().get(platform.getName()));
+
+        // New games are in no library yet
+        if (!updatedGameIds.isEmpty()) {
+            libraryEntryBatchRepository.refreshGames(updatedGameIds);
+        }
+        return result;
+    }
+
+    /**
+     * Lists the games of a chunk whose title the autocomplete index does not know yet
+     */
+    private List<Game> titleChanges(List<Game> inserts, List<Game> updates, Map<Long, Game> existing) {
+        List<Game> changed = new ArrayList<>(inserts);
+        for (Game game : updates) {
+            Game before = existing.get(game.getIgdbId());
+            if (before == null || !game.getTitle().equals(before.getTitle())) {
+                changed.add(game);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Writes the join rows of one relation for the changed games of a chunk.
+     * Mirrors upsertGame: a relation is only touched when the DTO carries a list for it.
+     * The current rows of updated games are loaded and diffed against the incoming ones,
+     * so only links that were added or removed are written.
+     */
+    private <T> void replaceRelation(GameRelation relation, List<IGDBGameDTO> games, Map<Long, Long> gameIds,
+            Set<Long> updatedGameIds, Function<IGDBGameDTO, List<T>> references, Function<T, Long> targetId) {
+        Map<Long, Set<Long>> rows = new LinkedHashMap<>();
+        List<Long> updated = new ArrayList<>();
+        for (IGDBGameDTO dto : games) {
+            List<T> values = references.apply(dto);
+            if (values == null) {
+                continue;
+            }
+            Long gameId = gameIds.get(dto.getIgdbId());
+            if (updatedGameIds.contains(gameId)) {
+                updated.add(gameId);
+            }
+            Set<Long> targets = rows.computeIfAbsent(gameId, id -> new LinkedHashSet<>());
+            for (T value : values) {
+                Long target = targetId.apply(value);
+                if (target != null) {
+                    targets.add(target);
+                }
+            }
+        }
+
+        Map<Long, Set<Long>> current = gameBatchRepository.findRelations(relation, updated);
+        Map<Long, Set<Long>> added = new LinkedHashMap<>();
+        Map<Long, Set<Long>> removed = new LinkedHashMap<>();
+        int unchanged = 0;
+        for (Map.Entry<Long, Set<Long>> entry : rows.entrySet()) {
+            Set<Long> existing = current.getOrDefault(entry.getKey(), Set.of());
+            Set<Long> toAdd = new LinkedHashSet<>(entry.getValue());
+            toAdd.removeAll(existing);
+            Set<Long> toRemove = new HashSet<>(existing);
+            toRemove.removeAll(entry.getValue());
+            if (!toAdd.isEmpty()) {
+                added.put(entry.getKey(), toAdd);
+            }
+            if (!toRemove.isEmpty()) {
+                removed.put(entry.getKey(), toRemove);
+            }
+            unchanged += existing.size() - toRemove.size();
+        }
+        recordRelationRows(relation.getTable(), gameBatchRepository.insertRelations(relation, added),
+            gameBatchRepository.deleteRelationRows(relation, removed), unchanged);
+    }
+
+    /**
+     * Counts the join rows a sync inserted, deleted and left in place, per join table
+     */
+    private void recordRelationRows(String table, int inserted, int deleted, int unchanged) {
+        meterRegistry.counter(RELATION_ROWS_METRIC, "table", table, "operation", "inserted").increment(inserted);
+        meterRegistry.counter(RELATION_ROWS_METRIC, "table", table, "operation", "deleted").increment(deleted);
+        meterRegistry.counter(RELATION_ROWS_METRIC, "table", table, "operation", "unchanged").increment(unchanged);
+    }
+
+    /**
+     * Resolves the surrogate keys of every dimension referenced by a chunk in one pass
+     */
+    private DimensionIds resolveDimensions(List<IGDBGameDTO> games) {
+        return new DimensionIds(
+            dimensionDictionary.resolvePublisherIds(collectCompanies(games, IGDBGameDTO::getPublishers).values()),
+            dimensionDictionary.resolveDeveloperIds(collectCompanies(games, IGDBGameDTO::getDevelopers).values()),
+            dimensionDictionary.resolveGenreIds(collectNames(games, dto -> dto.getGenres() == null ? null
+                : dto.getGenres().stream().map(IGDBGenreDTO::getName).toList())),
+            dimensionDictionary.resolvePlatformIds(collectNames(games, dto -> dto.getPlatforms() == null ? null
+                : dto.getPlatforms().stream().map(IGDBPlatformDTO::getName).toList()))
+        );
+    }
+
+    private Map<Long, IGDBCompanyDTO> collectCompanies(List<IGDBGameDTO> games,
+            Function<IGDBGameDTO, List<IGDBCompanyDTO>> companies) {
+        Map<Long, IGDBCompanyDTO> wanted = new LinkedHashMap<>();
+        for (IGDBGameDTO dto : games) {
+            List<IGDBCompanyDTO> values = companies.apply(dto);
+            if (values == null) {
+                continue;
+            }
+            for (IGDBCompanyDTO company : values) {
+                if (company.getIgdbCompanyId() != null) {
+                    wanted.putIfAbsent(company.getIgdbCompanyId(), company);
+                }
+            }
+        }
+        return wanted;
+    }
+
+    private Set<String> collectNames(List<IGDBGameDTO> games, Function<IGDBGameDTO, List<String>> names) {
+        Set<String> wanted = new LinkedHashSet<>();
+        for (IGDBGameDTO dto : games) {
+            List<String> values = names.apply(dto);
+            if (values == null) {
+                continue;
+            }
+            for (String name : values) {
+                if (name != null) {
+                    wanted.add(name);
+                }
+            }
+        }
+        return wanted;
+    }
+
+    private void recordSync(String mode, int games, long elapsedNanos) {
+        meterRegistry.timer(SYNC_DURATION_METRIC, "mode", mode).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter(SYNC_GAMES_METRIC, "mode", mode).increment(games);
     }
 
     /**
      * Upserts a single game from an IGDB game DTO
      * Only updates if the game has been updated in IGDB
+     * The game row is written with the conflict-tolerant upsert of the batch path, so concurrent
+     * syncs of the same game do not fail on the unique IGDB id
+     * The library entries of an updated game are refreshed from the entity in the same transaction
      * 
      * @param igdbGame the IGDB game DTO
      * @return the synchronized Game entity
      */
     @Transactional
     public Game upsertGame(IGDBGameDTO igdbGame) {
-        // Check if game exists
-        Optional<Game> existingGame = gameRepository.findByIgdbId(igdbGame.getIgdbId());
-        
-        // If game exists and has a newer or equal update time, skip update
-        if (existingGame.isPresent()) {
-            LocalDateTime existingUpdateTime = existingGame.get().getUpdatedAt();
-            LocalDateTime incomingUpdateTime = Instant.ofEpochSecond(igdbGame.getUpdatedAt())
-                .atZone(ZoneId.systemDefault())
-                .toLocalDateTime();
-                
-            if (existingUpdateTime != null && !incomingUpdateTime.isAfter(existingUpdateTime)) {
-                log.debug("Game {} already up to date", igdbGame.getTitle());
-                return existingGame.get();
-            }
+        Game row = new Game();
+        updateGameFromDTO(row, igdbGame);
+        WrittenGame written = gameBatchRepository.upsertGames(List.of(row)).get(igdbGame.getIgdbId());
+
+        // Not written when the stored copy is as new or newer
+        if (written == null) {
+            log.debug("Game {} already up to date", igdbGame.getTitle());
+            return gameRepository.findByIgdbId(igdbGame.getIgdbId()).orElseThrow();
         }
 
-        // Create or update game
-        Game game = existingGame.orElse(new Game());
+        Game game = gameRepository.findById(written.gameId()).orElseThrow();
+        // No-op for a freshly loaded row; refreshes an instance this transaction loaded before the write
         updateGameFromDTO(game, igdbGame);
+        gameTitleIndex.onGamesWritten(List.of(game));
         
-        // Save game first to ensure it exists for relationships
-        game = gameRepository.save(game);
-        
-        // Update publishers
+        // Update relationships, writing only the links that changed
+        // Links without a natural key are skipped, as in the batch path
         if (igdbGame.getPublishers() != null) {
-            game.getPublishers().clear();
-            for (IGDBCompanyDTO publisherDTO : igdbGame.getPublishers()) {
-                Publisher publisher = upsertPublisher(publisherDTO);
-                game.getPublishers().add(publisher);
-            }
+            diffRelation(GameRelation.PUBLISHERS, game.getPublishers(), igdbGame.getPublishers().stream()
+                .filter(company -> company.getIgdbCompanyId() != null)
+                .map(this::upsertPublisher)
+                .toList(), Publisher::getPublisherId);
         }
-        
-        // Update developers
         if (igdbGame.getDevelopers() != null) {
-            game.getDevelopers().clear();
-            for (IGDBCompanyDTO developerDTO : igdbGame.getDevelopers()) {
-                Developer developer = upsertDeveloper(developerDTO);
-                game.getDevelopers().add(developer);
-            }
+            diffRelation(GameRelation.DEVELOPERS, game.getDevelopers(), igdbGame.getDevelopers().stream()
+                .filter(company -> company.getIgdbCompanyId() != null)
+                .map(this::upsertDeveloper)
+                .toList(), Developer::getDeveloperId);
         }
-        
-        // Update genres
         if (igdbGame.getGenres() != null) {
-            game.getGenres().clear();
-            for (IGDBGenreDTO genreDTO : igdbGame.getGenres()) {
-                Genre genre = upsertGenre(genreDTO);
-                game.getGenres().add(genre);
-            }
+            diffRelation(GameRelation.GENRES, game.getGenres(), igdbGame.getGenres().stream()
+                .filter(genre -> genre.getName() != null)
+                .map(this::upsertGenre)
+                .toList(), Genre::getGenreId);
         }
-        
-        // Update platforms
         if (igdbGame.getPlatforms() != null) {
-            game.getPlatforms().clear();
-            for (IGDBPlatformDTO platformDTO : igdbGame.getPlatforms()) {
-                Platform platform = upsertPlatform(platformDTO);
-                game.getPlatforms().add(platform);
-            }
+            diffRelation(GameRelation.PLATFORMS, game.getPlatforms(), igdbGame.getPlatforms().stream()
+                .filter(platform -> platform.getName() != null)
+                .map(this::upsertPlatform)
+                .toList(), Platform::getPlatformId);
+        }
+        
+        if (!written.inserted()) {
+            libraryEntryBatchRepository.refreshGame(game);
         }
         
         log.debug("Successfully upserted game: {} (IGDB ID: {})", game.getTitle(), game.getIgdbId());
         return gameRepository.save(game);
     }
 
+    /**
+     * Brings a relationship collection in line with the incoming entities by removing and adding
+     * only the differences. Clearing and re-adding the whole set makes Hibernate delete and
+     * re-insert every join row of the game, even when only its summary changed.
+     *
+     * @param relation the join table behind the collection, for the metrics
+     * @param current the managed collection of the game
+     * @param incoming the entities the game should be linked to
+     * @param id the surrogate key of an entity; entities without one are compared by equality
+     */
+    private <E> void diffRelation(GameRelation relation, Set<E> current, List<E> incoming, Function<E, Long> id) {
+        Function<E, Object> key = entity -> id.apply(entity) != null ? id.apply(entity) : entity;
+        Map<Object, E> wanted = new LinkedHashMap<>();
+        for (E entity : incoming) {
+            wanted.putIfAbsent(key.apply(entity), entity);
+        }
+
+        int before = current.size();
+        current.removeIf(entity -> !wanted.containsKey(key.apply(entity)));
+        int deleted = before - current.size();
+
+        Set<Object> present = new HashSet<>();
+        for (E entity : current) {
+            present.add(key.apply(entity));
+        }
+        int inserted = 0;
+        for (Map.Entry<Object, E> entry : wanted.entrySet()) {
+            if (present.add(entry.getKey())) {
+                current.add(entry.getValue());
+                inserted++;
+            }
+        }
+        recordRelationRows(relation.getTable(), inserted, deleted, current.size() - inserted);
+    }
+
     private void updateGameFromDTO(Game game, IGDBGameDTO dto) {
         game.setIgdbId(dto.getIgdbId());
         game.setTitle(dto.getTitle());
         game.setDescription(dto.getDescription());
         game.setReleaseDate(dto.getReleaseDate());
         game.setCoverImageUrl(dto.getCoverImageUrl());
-        game.setUpdatedAt(
-            Instant.ofEpochSecond(dto.getUpdatedAt())
-                .atZone(ZoneId.systemDefault())
-                .toLocalDateTime()
-        );
+        game.setUpdatedAt(toLocalDateTime(dto.getUpdatedAt()));
+    }
+
+    /**
+     * Checks whether the IGDB copy of a game was updated after the stored one
+     *
+     * @param dto the incoming IGDB game
+     * @param game the stored game
+     * @return true if the stored game has no update time or the incoming one is later
+     */
+    private boolean isNewer(IGDBGameDTO dto, Game game) {
+        LocalDateTime existingUpdateTime = game.getUpdatedAt();
+        return existingUpdateTime == null || toLocalDateTime(dto.getUpdatedAt()).isAfter(existingUpdateTime);
+    }
+
+    private LocalDateTime toLocalDateTime(Long epochSeconds) {
+        return Instant.ofEpochSecond(epochSeconds)
+            .atZone(ZoneId.systemDefault())
+            .toLocalDateTime();
     }
 
+    /**
+     * Resolves a publisher through the dimension dictionary, inserting it when it is new.
+     * The insert tolerates a concurrent sync creating the same publisher, so no unique-key race
+     * can fail the caller's transaction; the developer, genre and platform variants work the same way.
+     *
+     * @param companyDTO the IGDB company, with its IGDB company id
+     * @return a reference to the stored publisher
+     * @throws IllegalArgumentException if the company has no IGDB company id
+     */
     @Transactional
     public Publisher upsertPublisher(IGDBCompanyDTO companyDTO) {
-        return publisherRepository.findByIgdbCompanyId(companyDTO.getIgdbCompanyId())
-            .orElseGet(() -> {
-                Publisher publisher = new Publisher();
-                publisher.setIgdbCompanyId(companyDTO.getIgdbCompanyId());
-                publisher.setName(companyDTO.getName());
-                return publisherRepository.save(publisher);
-            });
+        Optional<Long> publisherId = dimensionDictionary.findPublisherId(companyDTO.getIgdbCompanyId());
+        if (publisherId.isPresent()) {
+            return publisherRepository.getReferenceById(publisherId.get());
+        }
+        Long id = dimensionDictionary.resolvePublisherIds(List.of(companyDTO)).get(companyDTO.getIgdbCompanyId());
+        return publisherRepository.getReferenceById(
+            requireResolved(id, "publisher", companyDTO.getIgdbCompanyId()));
     }
 
     @Transactional
     public Developer upsertDeveloper(IGDBCompanyDTO companyDTO) {
-        return developerRepository.findByIgdbCompanyId(companyDTO.getIgdbCompanyId())
-            .orElseGet(() -> {
-                Developer developer = new Developer();
-                developer.setIgdbCompanyId(companyDTO.getIgdbCompanyId());
-                developer.setName(companyDTO.getName());
-                return developerRepository.save(developer);
-            });
+        Optional<Long> developerId = dimensionDictionary.findDeveloperId(companyDTO.getIgdbCompanyId());
+        if (developerId.isPresent()) {
+            return developerRepository.getReferenceById(developerId.get());
+        }
+        Long id = dimensionDictionary.resolveDeveloperIds(List.of(companyDTO)).get(companyDTO.getIgdbCompanyId());
+        return developerRepository.getReferenceById(
+            requireResolved(id, "developer", companyDTO.getIgdbCompanyId()));
     }
 
     @Transactional
     public Genre upsertGenre(IGDBGenreDTO genreDTO) {
-        return genreRepository.findByName(genreDTO.getName())
-            .orElseGet(() -> {
-                Genre genre = new Genre();
-                genre.setName(genreDTO.getName());
-                return genreRepository.save(genre);
-            });
+        Optional<Long> genreId = dimensionDictionary.findGenreId(genreDTO.getName());
+        if (genreId.isPresent()) {
+            return genreRepository.getReferenceById(genreId.get());
+        }
+        Long id = dimensionDictionary.resolveGenreIds(Collections.singletonList(genreDTO.getName()))
+            .get(genreDTO.getName());
+        return genreRepository.getReferenceById(requireResolved(id, "genre", genreDTO.getName()));
     }
 
     @Transactional
     public Platform upsertPlatform(IGDBPlatformDTO platformDTO) {
-        return platformRepository.findByName(platformDTO.getName())
-            .orElseGet(() -> {
-                Platform platform = new Platform();
-                platform.setName(platformDTO.getName());
-                return platformRepository.save(platform);
-            });
+        Optional<Long> platformId = dimensionDictionary.findPlatformId(platformDTO.getName());
+        if (platformId.isPresent()) {
+            return platformRepository.getReferenceById(platformId.get());
+        }
+        Long id = dimensionDictionary.resolvePlatformIds(Collections.singletonList(platformDTO.getName()))
+            .get(platformDTO.getName());
+        return platformRepository.getReferenceById(requireResolved(id, "platform", platformDTO.getName()));
+    }
+
+    /**
+     * Dimensions without a natural key cannot be looked up or inserted
+     */
+    private static Long requireResolved(Long id, String dimension, Object key) {
+        if (id == null) {
+            throw new IllegalArgumentException("Cannot resolve " + dimension + " with key " + key);
+        }
+        return id;
+    }
+
+    /**
+     * Surrogate keys of the dimensions referenced by one chunk of games
+     */
+    private record DimensionIds(
+            Map<Long, Long> publishers,
+            Map<Long, Long> developers,
+            Map<String, Long> genres,
+            Map<String, Long> platforms) {
     }
 } 
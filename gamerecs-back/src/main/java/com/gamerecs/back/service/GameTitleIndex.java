@@ -0,0 +1,593 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.GameCompletion;
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.repository.GameLibraryRepository;
+import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.util.SearchQueryNormalizer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-process prefix index over the titles of the games table, for title autocomplete.
+ *
+ * Titles are split into normalized tokens kept in one sorted array, each token pointing to a
+ * slice of a shared int array of game slots. Slots are numbered by popularity, the number of
+ * libraries holding the game, so the best completions of a token are the first entries of its
+ * slice and a lookup stops as soon as it has enough of them. Every query word matches as a
+ * prefix of a title word, so "zel bre" completes "The Legend of Zelda: Breath of the Wild".
+ *
+ * The index is built on startup from a streaming scan of the games table and rebuilt on a
+ * fixed interval to pick up popularity changes. Games inserted or renamed by GameSyncService
+ * in between are kept in a small pending map, searched alongside the index and merged into it
+ * once it grows past max-pending.
+ */
+@Service
+@Slf4j
+public class GameTitleIndex {
+    private static final String METRIC_PREFIX = "gamerecs.typeahead.";
+
+    /**
+     * Largest number of completions a lookup returns
+     */
+    public static final int MAX_COMPLETIONS = 20;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final GameRepository gameRepository;
+    private final GameLibraryRepository gameLibraryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxPending;
+    private final Timer lookups;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Games inserted or renamed since the snapshot was built, by IGDB id; they hide their snapshot slot
+     */
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public GameTitleIndex(
+            GameRepository gameRepository,
+            GameLibraryRepository gameLibraryRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${games.typeahead.max-pending:5000}") int maxPending) {
+        this.gameRepository = gameRepository;
+        this.gameLibraryRepository = gameLibraryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxPending = maxPending;
+
+        this.lookups = Timer.builder(METRIC_PREFIX + "lookup")
+            .description("Duration of title autocomplete lookups")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "memory", this, index -> index.snapshot.estimatedBytes)
+            .description("Estimated heap used by the title autocomplete index")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "games", this, index -> index.snapshot.size())
+            .description("Games in the title autocomplete index")
+            .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "pending", pending, Map::size)
+            .description("Games inserted or renamed since the title autocomplete index was built")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the most popular games whose title matches every word of the prefix
+     *
+     * @param prefix what the user typed so far
+     * @param limit the number of completions wanted, at most MAX_COMPLETIONS
+     * @return the completions, most popular first
+     */
+    public List<GameCompletion> complete(String prefix, int limit) {
+        long start = System.nanoTime();
+        String[] words = tokenize(SearchQueryNormalizer.normalize(prefix));
+        int k = Math.min(Math.max(limit, 1), MAX_COMPLETIONS);
+        if (words.length == 0) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        List<Candidate> candidates = new ArrayList<>(k * 2);
+        for (int slot : current.topSlots(words, k, pending)) {
+            candidates.add(new Candidate(current.igdbIds[slot], current.titles[slot], current.popularity[slot]));
+        }
+        for (Pending game : pending.values()) {
+            if (matchesAll(game.tokens(), words)) {
+                candidates.add(new Candidate(game.igdbId(), game.title(), game.popularity()));
+            }
+        }
+        // Stable, so snapshot candidates keep their slot order among equally popular games
+        candidates.sort(Comparator.comparingInt(Candidate::popularity).reversed());
+
+        List<GameCompletion> completions = new ArrayList<>(k);
+        Set<Long> seen = new HashSet<>();
+        for (Candidate candidate : candidates) {
+            if (completions.size() == k) {
+                break;
+            }
+            if (seen.add(candidate.igdbId())) {
+                completions.add(new GameCompletion(candidate.igdbId(), candidate.title()));
+            }
+        }
+        lookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return completions;
+    }
+
+    /**
+     * Records games GameSyncService inserted or renamed. Inside a transaction the index is only
+     * updated once it commits, so a rolled back sync leaves no trace.
+     *
+     * @param games the games written, with their IGDB id and title
+     */
+    public void onGamesWritten(Collection<Game> games) {
+        if (games.isEmpty()) {
+            return;
+        }
+        List<Game> written = List.copyOf(games);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(written);
+                }
+            });
+        } else {
+            apply(written);
+        }
+    }
+
+    /**
+     * Builds the index from the games table once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread.ofVirtual().name("game-title-index-build").start(this::rebuild);
+    }
+
+    /**
+     * Rebuilds the index from the games table, picking up popularity changes.
+     * Lookups keep using the previous index until the new one is complete.
+     */
+    @Scheduled(initialDelayString = "${games.typeahead.rebuild-interval:PT24H}",
+        fixedDelayString = "${games.typeahead.rebuild-interval:PT24H}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            Map<Long, Integer> popularityByGameId = new HashMap<>();
+            for (Object[] row : gameLibraryRepository.countLibrariesPerGame()) {
+                popularityByGameId.put((Long) row[0], ((Number) row[1]).intValue());
+            }
+
+            // Only games committed before the scan starts are surely in it; later ones stay pending
+            Map<Long, Pending> applied = Map.copyOf(pending);
+            Snapshot.Builder builder = new Snapshot.Builder();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<GameRepository.GameTitle> titles = gameRepository.streamAllTitles()) {
+                    titles.forEach(game -> builder.add(game.getIgdbId(), game.getTitle(),
+                        popularityByGameId.getOrDefault(game.getGameId(), 0)));
+                }
+            });
+            install(builder.build(), applied);
+            log.info("Built game title index of {} games and {} tokens in {} ms, about {} KB of heap",
+                snapshot.size(), snapshot.tokens.length,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), snapshot.estimatedBytes / 1024);
+        } catch (DataAccessException e) {
+            log.warn("Failed to build the game title index, keeping the current one", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Merges the pending games into a new snapshot without reading the database
+     */
+    void compact() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Map<Long, Pending> applied = Map.copyOf(pending);
+            Snapshot current = snapshot;
+            Snapshot.Builder builder = new Snapshot.Builder();
+            for (int slot = 0; slot < current.size(); slot++) {
+                if (!applied.containsKey(current.igdbIds[slot])) {
+                    builder.add(current.igdbIds[slot], current.titles[slot], current.popularity[slot]);
+                }
+            }
+            for (Pending game : applied.values()) {
+                builder.add(game.igdbId(), game.title(), game.popularity());
+            }
+            install(builder.build(), applied);
+            log.debug("Merged {} pending games into the game title index", applied.size());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Swaps in a new snapshot and drops the pending games it already holds, unless renamed again meanwhile
+     */
+    private void install(Snapshot built, Map<Long, Pending> applied) {
+        snapshot = built;
+        applied.forEach(pending::remove);
+    }
+
+    private void apply(List<Game> games) {
+        Snapshot current = snapshot;
+        for (Game game : games) {
+            if (game.getIgdbId() == null || game.getTitle() == null) {
+                continue;
+            }
+            int slot = current.slotOf(game.getIgdbId());
+            if (slot >= 0 && current.titles[slot].equals(game.getTitle())) {
+                pending.remove(game.getIgdbId());
+                continue;
+            }
+            // A renamed game keeps its popularity
+            int popularity = slot >= 0 ? current.popularity[slot] : 0;
+            pending.put(game.getIgdbId(), new Pending(game.getIgdbId(), game.getTitle(),
+                tokenize(SearchQueryNormalizer.normalize(game.getTitle())), popularity));
+        }
+        if (pending.size() >= maxPending && !rebuilding.get()) {
+            Thread.ofVirtual().name("game-title-index-compact").start(this::compact);
+        }
+    }
+
+    static String[] tokenize(String normalized) {
+        if (normalized == null) {
+            return new String[0];
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : NON_WORD.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens.toArray(String[]::new);
+    }
+
+    /**
+     * Tells whether every query word is a prefix of one of the title tokens
+     */
+    private static boolean matchesAll(String[] titleTokens, String[] words) {
+        for (String word : words) {
+            boolean found = false;
+            for (String token : titleTokens) {
+                if (token.startsWith(word)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Pending(long igdbId, String title, String[] tokens, int popularity) {
+    }
+
+    private record Candidate(long igdbId, String title, int popularity) {
+    }
+
+    /**
+     * Immutable index over a fixed set of games, in slot order: most popular first,
+     * then shortest title, then alphabetical
+     */
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Builder().build();
+
+        /**
+         * Rough per-object overhead of a String and its backing array with compressed oops
+         */
+        private static final int STRING_OVERHEAD = 40;
+
+        final long[] igdbIds;
+        final String[] titles;
+        final int[] popularity;
+
+        /**
+         * Distinct title tokens, sorted
+         */
+        final String[] tokens;
+
+        /**
+         * Slots of the games holding tokens[i] are postings[postingOffsets[i]] to postings[postingOffsets[i + 1]],
+         * in ascending order
+         */
+        final int[] postingOffsets;
+        final int[] postings;
+
+        /**
+         * IGDB ids sorted, with the slot of each, to find the slot of a game
+         */
+        final long[] sortedIgdbIds;
+        final int[] slotsBySortedIgdbId;
+
+        final long estimatedBytes;
+
+        private Snapshot(long[] igdbIds, String[] titles, int[] popularity, String[] tokens,
+                int[] postingOffsets, int[] postings, long[] sortedIgdbIds, int[] slotsBySortedIgdbId) {
+            this.igdbIds = igdbIds;
+            this.titles = titles;
+            this.popularity = popularity;
+            this.tokens = tokens;
+            this.postingOffsets = postingOffsets;
+            this.postings = postings;
+            this.sortedIgdbIds = sortedIgdbIds;
+            this.slotsBySortedIgdbId = slotsBySortedIgdbId;
+
+            long bytes = 8L * igdbIds.length + 4L * popularity.length + 4L * postingOffsets.length
+                + 4L * postings.length + 8L * sortedIgdbIds.length + 4L * slotsBySortedIgdbId.length
+                + 4L * titles.length + 4L * tokens.length;
+            for (String title : titles) {
+                bytes += STRING_OVERHEAD + title.length();
+            }
+            for (String token : tokens) {
+                bytes += STRING_OVERHEAD + token.length();
+            }
+            this.estimatedBytes = bytes;
+        }
+
+        int size() {
+            return igdbIds.length;
+        }
+
+        int slotOf(long igdbId) {
+            int index = Arrays.binarySearch(sortedIgdbIds, igdbId);
+            return index >= 0 ? slotsBySortedIgdbId[index] : -1;
+        }
+
+        /**
+         * Finds the k best slots matching every word, skipping games overridden by a pending entry.
+         * The word with the fewest postings drives the scan and each posting list is read only
+         * until it can no longer beat the k-th best slot found so far.
+         */
+        int[] topSlots(String[] words, int k, Map<Long, ?> overridden) {
+            int driver = -1;
+            int driverFrom = 0;
+            int driverTo = 0;
+            long driverPostings = Long.MAX_VALUE;
+            for (int w = 0; w < words.length; w++) {
+                int from = lowerBound(words[w]);
+                int to = lowerBound(words[w] + Character.MAX_VALUE);
+                long count = postingOffsets[to] - postingOffsets[from];
+                if (count == 0) {
+                    return new int[0];
+                }
+                if (count < driverPostings) {
+                    driver = w;
+                    driverFrom = from;
+                    driverTo = to;
+                    driverPostings = count;
+                }
+            }
+
+            // Max-heap of the best slots found so far; best[0] is the worst of them
+            int[] best = new int[k];
+            int found = 0;
+            for (int token = driverFrom; token < driverTo; token++) {
+                for (int p = postingOffsets[token]; p < postingOffsets[token + 1]; p++) {
+                    int slot = postings[p];
+                    if (found == k && slot >= best[0]) {
+                        break;
+                    }
+                    if (contains(best, found, slot) || overridden.containsKey(igdbIds[slot])
+                            || (words.length > 1 && !matchesAll(tokenize(
+                                SearchQueryNormalizer.normalize(titles[slot])), words))) {
+                        continue;
+                    }
+                    if (found < k) {
+                        best[found++] = slot;
+                        siftUp(best, found - 1);
+                    } else {
+                        best[0] = slot;
+                        siftDown(best, k);
+                    }
+                }
+            }
+            int[] result = Arrays.copyOf(best, found);
+            Arrays.sort(result);
+            return result;
+        }
+
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = tokens.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (tokens[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static boolean contains(int[] heap, int size, int slot) {
+            for (int i = 0; i < size; i++) {
+                if (heap[i] == slot) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static void siftUp(int[] heap, int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (heap[parent] >= heap[index]) {
+                    return;
+                }
+                swap(heap, parent, index);
+                index = parent;
+            }
+        }
+
+        private static void siftDown(int[] heap, int size) {
+            int index = 0;
+            while (true) {
+                int largest = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && heap[left] > heap[largest]) {
+                    largest = left;
+                }
+                if (right < size && heap[right] > heap[largest]) {
+                    largest = right;
+                }
+                if (largest == index) {
+                    return;
+                }
+                swap(heap, index, largest);
+                index = largest;
+            }
+        }
+
+        private static void swap(int[] heap, int i, int j) {
+            int tmp = heap[i];
+            heap[i] = heap[j];
+            heap[j] = tmp;
+        }
+
+        /**
+         * Collects games in any order and lays them out as a Snapshot
+         */
+        static final class Builder {
+            private long[] igdbIds = new long[1024];
+            private String[] titles = new String[1024];
+            private int[] popularity = new int[1024];
+            private int size;
+
+            void add(long igdbId, String title, int gamePopularity) {
+                if (title == null) {
+                    return;
+                }
+                if (size == igdbIds.length) {
+                    int capacity = size * 2;
+                    igdbIds = Arrays.copyOf(igdbIds, capacity);
+                    titles = Arrays.copyOf(titles, capacity);
+                    popularity = Arrays.copyOf(popularity, capacity);
+                }
+                igdbIds[size] = igdbId;
+                titles[size] = title;
+                popularity[size] = gamePopularity;
+                size++;
+            }
+
+            Snapshot build() {
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+                Arrays.sort(order, Comparator.<Integer>comparingInt(i -> -popularity[i])
+                    .thenComparingInt(i -> titles[i].length())
+                    .thenComparing(i -> titles[i]));
+
+                long[] slotIgdbIds = new long[size];
+                String[] slotTitles = new String[size];
+                int[] slotPopularity = new int[size];
+                for (int slot = 0; slot < size; slot++) {
+                    slotIgdbIds[slot] = igdbIds[order[slot]];
+                    slotTitles[slot] = titles[order[slot]];
+                    slotPopularity[slot] = popularity[order[slot]];
+                }
+
+                // Pairs of token id and slot, packed into one long so a single sort groups them
+                Map<String, Integer> tokenIds = new HashMap<>();
+                List<String> tokenNames = new ArrayList<>();
+                long[] pairs = new long[size * 3];
+                int pairCount = 0;
+                for (int slot = 0; slot < size; slot++) {
+                    for (String token : tokenize(SearchQueryNormalizer.normalize(slotTitles[slot]))) {
+                        Integer tokenId = tokenIds.get(token);
+                        if (tokenId == null) {
+                            tokenId = tokenNames.size();
+                            tokenIds.put(token, tokenId);
+                            tokenNames.add(token);
+                        }
+                        if (pairCount == pairs.length) {
+                            pairs = Arrays.copyOf(pairs, Math.max(16, pairs.length * 2));
+                        }
+                        pairs[pairCount++] = (long) tokenId << 32 | slot;
+                    }
+                }
+
+                String[] sortedTokens = tokenNames.toArray(String[]::new);
+                Arrays.sort(sortedTokens);
+                int[] ordinalOfTokenId = new int[sortedTokens.length];
+                for (int ordinal = 0; ordinal < sortedTokens.length; ordinal++) {
+                    ordinalOfTokenId[tokenIds.get(sortedTokens[ordinal])] = ordinal;
+                }
+                for (int i = 0; i < pairCount; i++) {
+                    int tokenId = (int) (pairs[i] >>> 32);
+                    pairs[i] = (long) ordinalOfTokenId[tokenId] << 32 | (pairs[i] & 0xFFFFFFFFL);
+                }
+                Arrays.sort(pairs, 0, pairCount);
+
+                int[] offsets = new int[sortedTokens.length + 1];
+                int[] postings = new int[pairCount];
+                for (int i = 0; i < pairCount; i++) {
+                    offsets[(int) (pairs[i] >>> 32) + 1]++;
+                    postings[i] = (int) pairs[i];
+                }
+                for (int i = 0; i < sortedTokens.length; i++) {
+                    offsets[i + 1] += offsets[i];
+                }
+
+                Integer[] byIgdbId = new Integer[size];
+                for (int slot = 0; slot < size; slot++) {
+                    byIgdbId[slot] = slot;
+                }
+                Arrays.sort(byIgdbId, Comparator.comparingLong(slot -> slotIgdbIds[slot]));
+                long[] sortedIgdbIds = new long[size];
+                int[] slotsBySortedIgdbId = new int[size];
+                for (int i = 0; i < size; i++) {
+                    sortedIgdbIds[i] = slotIgdbIds[byIgdbId[i]];
+                    slotsBySortedIgdbId[i] = byIgdbId[i];
+                }
+
+                return new Snapshot(slotIgdbIds, slotTitles, slotPopularity, sortedTokens,
+                    offsets, postings, sortedIgdbIds, slotsBySortedIgdbId);
+            }
+        }
+    }
+} 
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -35,7 +36,7 @@ public class GoogleOAuth2Service {
     private final ObjectMapper objectMapper;
 
     public GoogleOAuth2Service(
-            RestTemplate restTemplate,
+            @Qualifier("googleRestTemplate") RestTemplate restTemplate,
             @Value("${spring.security.oauth2.client.registration.google.client-id}") String clientId,
             @Value("${spring.security.oauth2.client.registration.google.client-secret}") String clientSecret,
             @Value("${spring.security.oauth2.client.registration.google.redirect-uri}") String redirectUri) {
@@ -0,0 +1,219 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.GameSyncResult;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.model.SyncCheckpoint;
+import com.gamerecs.back.repository.SyncCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Walks the whole IGDB games catalog by id and writes it into the local catalog.
+ *
+ * The job runs as a three-stage pipeline: a fetch stage pulls raw pages from IGDB,
+ * a parse stage stream-parses them into DTOs, and the calling thread writes each batch
+ * through GameSyncService. Stages are connected by bounded queues, so the shared IGDB
+ * rate limit is what paces the job and memory stays bounded when writing falls behind.
+ * The highest id written is saved after every batch, so a restarted job resumes there.
+ */
+@Service
+@Slf4j
+public class IGDBBackfillService {
+    /**
+     * Checkpoint key of the backfill job
+     */
+    public static final String JOB_NAME = "igdb-backfill";
+
+    /**
+     * Width of the id window fetched per request. Never wider than the IGDB page
+     * limit, so a window cannot be truncated and the fetch stage never has to wait
+     * for a parsed page to know where the next one starts.
+     */
+    private static final int ID_WINDOW = IGDBClientService.MAX_PAGE_SIZE;
+
+    private static final FetchedPage END_OF_PAGES = new FetchedPage(-1L, new byte[0]);
+    private static final ParsedBatch END_OF_BATCHES = new ParsedBatch(-1L, List.of());
+
+    private final IGDBClientService igdbClientService;
+    private final GameSyncService gameSyncService;
+    private final SyncCheckpointRepository checkpointRepository;
+    private final int queueCapacity;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public IGDBBackfillService(
+            IGDBClientService igdbClientService,
+            GameSyncService gameSyncService,
+            SyncCheckpointRepository checkpointRepository,
+            @Value("${igdb.backfill.queue-capacity:4}") int queueCapacity) {
+        this.igdbClientService = igdbClientService;
+        this.gameSyncService = gameSyncService;
+        this.checkpointRepository = checkpointRepository;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Starts the backfill on a background thread
+     *
+     * @return false if a backfill is already running
+     */
+    public boolean startBackfill() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread worker = new Thread(() -> {
+            try {
+                execute();
+            } catch (Exception e) {
+                log.error("IGDB backfill failed", e);
+            } finally {
+                running.set(false);
+            }
+        }, "igdb-backfill");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    /**
+     * Runs the backfill on the calling thread, resuming from the saved checkpoint
+     *
+     * @return the accumulated sync result of the run
+     * @throws IllegalStateException if a backfill is already running
+     */
+    public GameSyncResult runBackfill() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("IGDB backfill is already running");
+        }
+        try {
+            return execute();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * @return true while a backfill is in progress
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private GameSyncResult execute() {
+        long startId = checkpointRepository.findById(JOB_NAME)
+            .map(SyncCheckpoint::getCheckpointValue)
+            .orElse(0L);
+        long maxId = igdbClientService.findMaxGameId();
+        log.info("Starting IGDB backfill from id {} up to id {}", startId, maxId);
+
+        GameSyncResult total = new GameSyncResult();
+        if (startId >= maxId) {
+            log.info("IGDB backfill is already up to date");
+            return total;
+        }
+
+        BlockingQueue<FetchedPage> pages = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<ParsedBatch> batches = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService stages = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "igdb-backfill-stage");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<?> fetch = stages.submit(() -> fetchPages(startId, maxId, pages));
+            Future<?> parse = stages.submit(() -> parsePages(pages, batches));
+
+            ParsedBatch batch;
+            while ((batch = batches.take()) != END_OF_BATCHES) {
+                if (!batch.games().isEmpty()) {
+                    total.add(gameSyncService.syncGamesInBatches(batch.games()));
+                }
+                saveCheckpoint(batch.upperId());
+            }
+
+            // Surface failures of the upstream stages; parse first, since a failed
+            // parse stage can leave the fetch stage blocked on a full queue
+            parse.get();
+            fetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("IGDB backfill was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("IGDB backfill stage failed", e.getCause());
+        } finally {
+            stages.shutdownNow();
+        }
+
+        log.info("IGDB backfill finished: {} processed, {} inserted, {} updated, {} skipped ({} games/s)",
+            total.getProcessed(), total.getInserted(), total.getUpdated(), total.getSkipped(),
+            String.format("%.1f", total.getGamesPerSecond()));
+        return total;
+    }
+
+    private Void fetchPages(long startId, long maxId, BlockingQueue<FetchedPage> pages)
+            throws InterruptedException {
+        try {
+            for (long lower = startId; lower < maxId; lower += ID_WINDOW) {
+                long upper = Math.min(lower + ID_WINDOW, maxId);
+                pages.put(new FetchedPage(upper, igdbClientService.fetchGamesInIdRange(lower, upper)));
+            }
+        } finally {
+            pages.put(END_OF_PAGES);
+        }
+        return null;
+    }
+
+    private Void parsePages(BlockingQueue<FetchedPage> pages, BlockingQueue<ParsedBatch> batches)
+            throws InterruptedException {
+        try {
+            FetchedPage page;
+            while ((page = pages.take()) != END_OF_PAGES) {
+                List<IGDBGameDTO> games = new ArrayList<>();
+                try {
+                    igdbClientService.streamGames(new ByteArrayInputStream(page.body()), games::add);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to parse IGDB page up to id " + page.upperId(), e);
+                }
+                batches.put(new ParsedBatch(page.upperId(), games));
+            }
+        } finally {
+            batches.put(END_OF_BATCHES);
+        }
+        return null;
+    }
+
+    private void saveCheckpoint(long upperId) {
+        checkpointRepository.save(SyncCheckpoint.builder()
+            .jobName(JOB_NAME)
+            .checkpointValue(upperId)
+            .updatedAt(LocalDateTime.now())
+            .build());
+        log.debug("IGDB backfill checkpoint saved at id {}", upperId);
+    }
+
+    /**
+     * Raw IGDB response for the id window ending at upperId
+     */
+    private record FetchedPage(long upperId, byte[] body) {
+    }
+
+    /**
+     * Parsed games of the id window ending at upperId
+     */
+    private record ParsedBatch(long upperId, List<IGDBGameDTO> games) {
+    }
+} 
@@ -1,30 +1,48 @@
 package com.gamerecs.back.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gamerecs.back.config.CacheConfig;
 import com.gamerecs.back.dto.*;
-import com.google.common.util.concurrent.RateLimiter;
+import com.gamerecs.back.util.IGDBGameMapper;
+import com.gamerecs.back.util.SearchQueryNormalizer;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.http.*;
 import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.time.Instant;
-import java.time.ZoneId;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import jakarta.annotation.PostConstruct;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Service
 public class IGDBClientService {
@@ -36,135 +54,418 @@ public class IGDBClientService {
     private final ObjectMapper objectMapper;
     
     /**
-     * RateLimiter to enforce a cap of 4 requests per second to the IGDB API
+     * Rate limiter shared with the reactive client, enforcing IGDB's cap of 4 requests per second
      */
-    private RateLimiter rateLimiter;
-    
+    private final IGDBRateLimiter rateLimiter;
+
+    /**
+     * Sends searches missing from every cache tier to IGDB, several per request
+     */
+    private final IGDBSearchBatcher searchBatcher;
+
+    /**
+     * Search cache holding one future per query, so concurrent misses for a query share a single request
+     */
+    private final AsyncCache<Object, Object> searchCache;
+
+    /**
+     * Searches that joined a request already in flight instead of starting their own
+     */
+    private final Counter coalescedSearches;
+
+    /**
+     * Whether a query may be answered by filtering the complete cached result of a shorter query
+     */
+    private final boolean prefixReuse;
+
+    /**
+     * Searches answered from the cached result of a shorter query
+     */
+    private final Counter prefixReusedSearches;
+
+    /**
+     * Persistent tier read through on a miss of the in-memory search cache
+     */
+    private final IGDBSearchCacheStore searchCacheStore;
+
+    /**
+     * Reloads hot entries in the background before they expire
+     */
+    private final IGDBSearchRefresher searchRefresher;
+
+    /**
+     * Answers searches IGDB could not answer in time, from the stale cache or the local catalog
+     */
+    private final IGDBSearchFallback searchFallback;
+
+    /**
+     * Longest a caller waits for a search before it is served the fallback; the search itself
+     * goes on and fills the cache for later callers
+     */
+    private final Duration searchTimeBudget;
+
+    private final Counter memoryTierHits;
+    private final Counter memoryTierMisses;
+
+    private static final String GAMES_ENDPOINT = "https://api.igdb.com/v4/games";
+
+    /**
+     * Fields requested for every full game record
+     */
+    static final String GAME_FIELDS = """
+        name,cover.url,first_release_date,summary,platforms.name,genres.name,
+              involved_companies.company.name,involved_companies.developer,involved_companies.publisher,
+              updated_at""";
+
+    /**
+     * Fields requested for a search listing in two-phase mode; details are loaded by id when needed
+     */
+    static final String LISTING_FIELDS = "name,cover.url,first_release_date";
+
+    /**
+     * Restricts results to released main games
+     */
+    static final String GAME_FILTER = "first_release_date != null & version_parent = null & game_type = 0";
+
     /**
-     * Number of permits per second (API calls allowed per second)
+     * Maximum number of records IGDB returns for a single query
      */
-    private static final double RATE_LIMIT = 4.0;
+    public static final int MAX_PAGE_SIZE = 500;
 
     public IGDBClientService(
-            RestTemplate restTemplate,
+            @Qualifier("igdbRestTemplate") RestTemplate restTemplate,
             @Qualifier("igdbClientId") String clientId,
             @Qualifier("igdbAccessToken") String accessToken,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            IGDBRateLimiter rateLimiter,
+            IGDBSearchBatcher searchBatcher,
+            CacheManager cacheManager,
+            MeterRegistry meterRegistry,
+            @Value("${igdb.search.prefix-reuse:false}") boolean prefixReuse,
+            IGDBSearchCacheStore searchCacheStore,
+            IGDBSearchRefresher searchRefresher,
+            IGDBSearchFallback searchFallback,
+            @Value("${igdb.search.time-budget:PT3S}") Duration searchTimeBudget) {
         this.restTemplate = restTemplate;
         this.clientId = clientId;
         this.accessToken = accessToken;
         this.objectMapper = objectMapper;
+        this.rateLimiter = rateLimiter;
+        this.searchBatcher = searchBatcher;
+        this.searchCache = ((CaffeineCache) cacheManager.getCache(CacheConfig.IGDB_GAME_SEARCH_CACHE)).getAsyncCache();
+        this.coalescedSearches = Counter.builder("gamerecs.igdb.search.coalesced")
+            .description("IGDB searches served by joining a request already in flight")
+            .register(meterRegistry);
+        this.prefixReuse = prefixReuse;
+        this.prefixReusedSearches = Counter.builder("gamerecs.igdb.search.prefix.reused")
+            .description("IGDB searches answered by filtering the cached result of a shorter query")
+            .register(meterRegistry);
+        this.searchCacheStore = searchCacheStore;
+        this.searchRefresher = searchRefresher;
+        this.searchFallback = searchFallback;
+        this.searchTimeBudget = searchTimeBudget;
+        this.memoryTierHits = meterRegistry.counter("gamerecs.igdb.search.cache", "tier", "memory", "result", "hit");
+        this.memoryTierMisses = meterRegistry.counter("gamerecs.igdb.search.cache", "tier", "memory", "result", "miss");
     }
     
     /**
-     * Initialize the rate limiter after bean construction
+     * Search for games in the IGDB API based on the provided query
+     * Results are cached to minimize external API calls, keyed by the canonical form of the query
+     * A miss in the in-memory cache reads through to the persistent IGDBSearchCacheStore before calling IGDB
+     * A hit on an entry close to expiry is served as is while IGDBSearchRefresher reloads it in the background
+     * Concurrent cache misses for the same query share one in-flight request and its result,
+     * so a burst of identical searches costs a single rate-limited IGDB call
+     * Blocking adapter over IGDBReactiveClientService, which rate limits, bounds and retries the request;
+     * distinct misses arriving together are batched into one request by IGDBSearchBatcher
+     * Serves the IGDBSearchFallback result once all retries are exhausted, while the circuit breaker
+     * is open, or when the search takes longer than its time budget;
+     * failures are not cached, so the next search tries again
+     * 
+     * @param query the search query
+     * @return list of IGDBGameDTO objects matching the search criteria
      */
-    @PostConstruct
-    public void init() {
-        this.rateLimiter = RateLimiter.create(RATE_LIMIT);
-        logger.info("Initialized IGDB API rate limiter with {} requests per second", RATE_LIMIT);
+    public List<IGDBGameDTO> searchGames(String query) {
+        return searchGamesWithStatus(query).games();
     }
 
     /**
-     * Search for games in the IGDB API based on the provided query
-     * Results are cached to minimize external API calls
-     * Rate limited to 4 requests per second
-     * Auto-retries on transient failures
-     * 
+     * Searches like searchGames, telling whether the games come from IGDB or from a fallback
+     *
      * @param query the search query
-     * @return list of IGDBGameDTO objects matching the search criteria
+     * @return the games found, marked as degraded if they were served by IGDBSearchFallback
+     */
+    @SuppressWarnings("unchecked")
+    public IGDBSearchResult searchGamesWithStatus(String query) {
+        String canonicalQuery = SearchQueryNormalizer.normalize(query);
+        if (canonicalQuery == null || canonicalQuery.isEmpty()) {
+            return new IGDBSearchResult(Collections.emptyList(), IGDBSearchResult.Source.IGDB);
+        }
+        if (prefixReuse) {
+            Optional<List<IGDBGameDTO>> reused = filterCachedPrefixResult(canonicalQuery);
+            if (reused.isPresent()) {
+                return new IGDBSearchResult(reused.get(), IGDBSearchResult.Source.IGDB);
+            }
+        }
+
+        AtomicBoolean loaded = new AtomicBoolean();
+        CompletableFuture<Object> search = searchCache.get(canonicalQuery, (key, executor) -> {
+            loaded.set(true);
+            logger.debug("Cache miss for IGDB game search");
+            return loadSearch(canonicalQuery)
+                .map(games -> (Object) games)
+                .toFuture();
+        });
+        if (loaded.get()) {
+            memoryTierMisses.increment();
+        } else {
+            memoryTierHits.increment();
+            if (!search.isDone()) {
+                coalescedSearches.increment();
+                logger.debug("Joined in-flight IGDB search for query '{}'", query);
+            } else if (!search.isCompletedExceptionally()) {
+                searchRefresher.onHit(canonicalQuery);
+            }
+        }
+
+        try {
+            List<IGDBGameDTO> games = (List<IGDBGameDTO>) search.get(searchTimeBudget.toNanos(), TimeUnit.NANOSECONDS);
+            return new IGDBSearchResult(games != null ? games : Collections.emptyList(), IGDBSearchResult.Source.IGDB);
+        } catch (TimeoutException e) {
+            logger.warn("IGDB search with query '{}' exceeded its {} budget. Serving fallback result.", query, searchTimeBudget);
+            return searchFallback.search(canonicalQuery, IGDBSearchFallback.Reason.TIMEOUT);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CallNotPermittedException) {
+                logger.warn("IGDB circuit breaker is open, serving fallback result for query '{}'", query);
+                return searchFallback.search(canonicalQuery, IGDBSearchFallback.Reason.CIRCUIT_OPEN);
+            }
+            logger.error("All retry attempts exhausted for IGDB search with query '{}'. Serving fallback result.",
+                query, e.getCause());
+            return searchFallback.search(canonicalQuery, IGDBSearchFallback.Reason.ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return searchFallback.search(canonicalQuery, IGDBSearchFallback.Reason.ERROR);
+        }
+    }
+
+    /**
+     * Loads a search missing from the in-memory cache: from the persistent tier if it holds
+     * an unexpired result, otherwise from IGDB in the next search batch, storing the fresh result
+     * in the persistent tier.
+     * The blocking database calls run on the bounded elastic scheduler.
+     */
+    private Mono<List<IGDBGameDTO>> loadSearch(String canonicalQuery) {
+        return Mono.fromCallable(() -> searchCacheStore.find(canonicalQuery))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(stored -> stored.map(Mono::just).orElseGet(() -> searchBatcher.search(canonicalQuery)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(games -> searchCacheStore.save(canonicalQuery, games))));
+    }
+
+    /**
+     * Answers a query from the cached result of one of its leading-word prefixes.
+     * Only a result smaller than MAX_PAGE_SIZE is complete, so only such a result is filtered;
+     * a query that already has its own cache entry is left to the cache.
+     *
+     * @param canonicalQuery the normalized query
+     * @return the cached games containing every word of the query, or empty if no prefix result can be reused
+     */
+    @SuppressWarnings("unchecked")
+    private Optional<List<IGDBGameDTO>> filterCachedPrefixResult(String canonicalQuery) {
+        if (searchCache.getIfPresent(canonicalQuery) != null) {
+            return Optional.empty();
+        }
+        for (String prefix : SearchQueryNormalizer.wordPrefixes(canonicalQuery)) {
+            CompletableFuture<Object> cached = searchCache.getIfPresent(prefix);
+            if (cached == null || !cached.isDone() || cached.isCompletedExceptionally()) {
+                continue;
+            }
+            List<IGDBGameDTO> games = (List<IGDBGameDTO>) cached.join();
+            if (games != null && games.size() < MAX_PAGE_SIZE) {
+                prefixReusedSearches.increment();
+                logger.debug("Answered IGDB search '{}' from cached results of '{}'", canonicalQuery, prefix);
+                return Optional.of(games.stream()
+                    .filter(game -> SearchQueryNormalizer.matchesAllWords(game.getTitle(), canonicalQuery))
+                    .toList());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Fetches the raw page of games whose IGDB id lies in (fromIdExclusive, toIdInclusive].
+     * Windows no wider than MAX_PAGE_SIZE ids can never be truncated by the IGDB limit,
+     * so the catalog can be walked without knowing where each page ends.
+     * Rate limited and auto-retried on transient failures.
+     *
+     * @param fromIdExclusive lower bound of the id window, exclusive
+     * @param toIdInclusive upper bound of the id window, inclusive
+     * @return the raw JSON response body
      */
-    @Cacheable(value = CacheConfig.IGDB_GAME_SEARCH_CACHE, key = "#query")
     @Retryable(
         value = {RestClientException.class, ResourceAccessException.class},
         maxAttempts = 3,
         backoff = @Backoff(delay = 1000, multiplier = 2)
     )
-    public List<IGDBGameDTO> searchGames(String query) {
-        logger.debug("Cache miss for IGDB game search");
-        
-        // Acquire a permit from the rate limiter before proceeding
-        double waitTime = rateLimiter.acquire();
-        if (waitTime > 0.0) {
-            logger.debug("Rate limiter delay: {} seconds", waitTime);
+    public byte[] fetchGamesInIdRange(long fromIdExclusive, long toIdInclusive) {
+        String body = """
+            fields %s;
+                  where id > %d & id <= %d & %s;
+            sort id asc;
+            limit %d;
+            """.formatted(GAME_FIELDS, fromIdExclusive, toIdInclusive, GAME_FILTER, MAX_PAGE_SIZE);
+        return postQuery(GAMES_ENDPOINT, body);
+    }
+
+    /**
+     * Fetches the first page of games changed after the given watermark, oldest change first.
+     * Rate limited and auto-retried on transient failures.
+     *
+     * @param watermark epoch seconds; only games with a later updated_at are returned
+     * @return up to MAX_PAGE_SIZE games sorted by updated_at ascending
+     */
+    @Retryable(
+        value = {RestClientException.class, ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public List<IGDBGameDTO> fetchGamesUpdatedAfter(long watermark) {
+        String body = """
+            fields %s;
+                  where updated_at > %d & %s;
+            sort updated_at asc;
+            limit %d;
+            """.formatted(GAME_FIELDS, watermark, GAME_FILTER, MAX_PAGE_SIZE);
+        return parseGames(postQuery(GAMES_ENDPOINT, body));
+    }
+
+    /**
+     * Fetches a page of the games that all share one updated_at value.
+     * Used to drain a group of simultaneous changes too large for a single page.
+     *
+     * @param updatedAt epoch seconds of the change group
+     * @param offset number of games of the group already read
+     * @return up to MAX_PAGE_SIZE games sorted by id ascending
+     */
+    @Retryable(
+        value = {RestClientException.class, ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public List<IGDBGameDTO> fetchGamesUpdatedAt(long updatedAt, int offset) {
+        String body = """
+            fields %s;
+                  where updated_at = %d & %s;
+            sort id asc;
+            limit %d;
+            offset %d;
+            """.formatted(GAME_FIELDS, updatedAt, GAME_FILTER, MAX_PAGE_SIZE, offset);
+        return parseGames(postQuery(GAMES_ENDPOINT, body));
+    }
+
+    /**
+     * Finds the highest game id currently known to IGDB
+     *
+     * @return the highest IGDB game id, or 0 if IGDB returned no game
+     */
+    @Retryable(
+        value = {RestClientException.class, ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public long findMaxGameId() {
+        byte[] body = postQuery(GAMES_ENDPOINT, "fields id; sort id desc; limit 1;");
+        try {
+            return objectMapper.readTree(body).path(0).path("id").asLong(0L);
+        } catch (IOException e) {
+            throw new RestClientException("Failed to parse IGDB API response", e);
         }
-        
+    }
+
+    /**
+     * Stream-parses a JSON array of IGDB games, post-processing and handing over
+     * each game as soon as it is read instead of materializing the whole response.
+     *
+     * @param input the JSON array to read
+     * @param consumer receives each parsed game
+     * @return the number of games read
+     * @throws IOException if the input is not a JSON array of games
+     */
+    public int streamGames(InputStream input, Consumer<IGDBGameDTO> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of IGDB games");
+            }
+            int count = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                IGDBGameDTO game = objectMapper.readValue(parser, IGDBGameDTO.class);
+                postProcess(game);
+                consumer.accept(game);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Converts the raw IGDB fields of a game into the values used by the application:
+     * cover URL, release date and publisher/developer lists
+     *
+     * @param game the game to post-process
+     */
+    public void postProcess(IGDBGameDTO game) {
+        IGDBGameMapper.postProcess(game);
+    }
+
+    private List<IGDBGameDTO> parseGames(byte[] body) {
+        List<IGDBGameDTO> games = new ArrayList<>();
         try {
-            String endpoint = "https://api.igdb.com/v4/games";
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Client-ID", clientId);
-            headers.setBearerAuth(accessToken);
-            headers.setContentType(MediaType.TEXT_PLAIN);
-            
-            String body = """
-                search "%s";
-                fields name,cover.url,first_release_date,summary,platforms.name,genres.name,
-                      involved_companies.company.name,involved_companies.developer,involved_companies.publisher,
-                      updated_at;
-                      where first_release_date != null & version_parent = null & game_type = 0;
-                limit 500;
-                """.formatted(query);
-            
-            HttpEntity<String> request = new HttpEntity<>(body, headers);
-            ResponseEntity<String> response = restTemplate.exchange(
+            streamGames(new ByteArrayInputStream(body), games::add);
+        } catch (IOException e) {
+            throw new RestClientException("Failed to parse IGDB API response", e);
+        }
+        return games;
+    }
+
+    /**
+     * Sends a rate-limited query to an IGDB endpoint and returns the raw body
+     * These queries come from catalog sync jobs, so they wait behind interactive searches
+     */
+    private byte[] postQuery(String endpoint, String body) {
+        acquirePermit();
+        try {
+            ResponseEntity<byte[]> response = restTemplate.exchange(
                 endpoint,
                 HttpMethod.POST,
-                request,
-                String.class
+                new HttpEntity<>(body, createHeaders()),
+                byte[].class
             );
-            
-            List<IGDBGameDTO> games = objectMapper.readValue(
-                response.getBody(),
-                new TypeReference<List<IGDBGameDTO>>() {}
-            );
-            
-            // Post-process the games
-            for (IGDBGameDTO game : games) {
-                // Convert cover URL
-                if (game.getCoverImage() != null) {
-                    game.setCoverImageUrl(convertCoverUrl(game.getCoverImage().getUrl()));
-                }
-                
-                // Convert release date to LocalDate
-                if (game.getReleaseDateTimestamp() != null) {
-                    game.setReleaseDate(
-                        Instant.ofEpochSecond(game.getReleaseDateTimestamp())
-                            .atZone(ZoneId.systemDefault())
-                            .toLocalDate()
-                    );
-                }
-                
-                // Process involved companies into publishers and developers
-                game.processInvolvedCompanies();
-            }
-            
-            logger.info("Successfully retrieved and processed {} games from IGDB API", games.size());
-            return games;
+            rateLimiter.onSuccess();
+            return response.getBody() != null ? response.getBody() : new byte[0];
         } catch (HttpClientErrorException e) {
             if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
-                logger.warn("IGDB API rate limit exceeded for query: {}", query);
+                logger.warn("IGDB API rate limit exceeded for endpoint: {}", endpoint);
+                HttpHeaders responseHeaders = e.getResponseHeaders();
+                rateLimiter.onThrottled(IGDBRateLimiter.parseRetryAfter(
+                    responseHeaders != null ? responseHeaders.getFirst(HttpHeaders.RETRY_AFTER) : null));
                 throw new RestClientException("IGDB API rate limit exceeded", e);
             }
-            logger.error("HTTP error from IGDB API for query: {}: {}", query, e.getMessage());
             throw e;
-        } catch (Exception e) {
-            logger.error("Failed to parse IGDB API response for query: {}", query, e);
-            throw new RestClientException("Failed to parse IGDB API response", e);
         }
     }
-    
-    /**
-     * Recovery method for searchGames when all retries are exhausted
-     * 
-     * @param e the exception that triggered recovery
-     * @param query the original search query
-     * @return an empty list as fallback
-     */
-    @Recover
-    public List<IGDBGameDTO> recoverSearchGames(Exception e, String query) {
-        logger.error("All retry attempts exhausted for IGDB search with query '{}'. Returning empty result.", query, e);
-        return Collections.emptyList();
+
+    private void acquirePermit() {
+        double waitTime = rateLimiter.acquire(IGDBRateLimiter.Priority.BACKGROUND);
+        if (waitTime > 0.0) {
+            logger.debug("Rate limiter delay: {} seconds", waitTime);
+        }
+    }
+
+    private HttpHeaders createHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Client-ID", clientId);
+        headers.setBearerAuth(accessToken);
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        return headers;
     }
 
     /**
@@ -174,23 +475,16 @@ public class IGDBClientService {
      * @return the converted URL
      */
     public String convertCoverUrl(String originalUrl) {
-        if (originalUrl == null) {
-            return null;
-        }
-        
-        String httpsUrl = originalUrl.startsWith("//") 
-            ? "https:" + originalUrl 
-            : originalUrl;
-            
-        return httpsUrl.replace("t_thumb", "t_cover_big");
+        return IGDBGameMapper.convertCoverUrl(originalUrl);
     }
     
     /**
-     * Manually evict all entries from the IGDB game search cache
+     * Manually evict all entries from both tiers of the IGDB game search cache
      * Useful for administrative purposes or when force-refreshing data
      */
     @CacheEvict(value = CacheConfig.IGDB_GAME_SEARCH_CACHE, allEntries = true)
     public void clearGameSearchCache() {
+        searchCacheStore.clear();
         logger.info("Manually cleared IGDB game search cache");
     }
 } 
@@ -0,0 +1,208 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.GameSyncResult;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.model.SyncCheckpoint;
+import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.repository.JobLockRepository;
+import com.gamerecs.back.repository.SyncCheckpointRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the local catalog fresh by periodically pulling the games IGDB changed since the last run.
+ *
+ * The position of the sync is an updated_at watermark, stored as epoch seconds in the
+ * sync_checkpoints table. Each cycle asks IGDB for games updated after the watermark in
+ * updated_at order, writes them through GameSyncService and only then advances the watermark,
+ * so a failed cycle is simply retried from the last committed page on the next run.
+ *
+ * Every instance schedules the sync, but a cycle only runs under the job lock of
+ * JobLockRepository; instances finding it taken skip the cycle, so the IGDB budget is spent
+ * once per cycle whatever the number of instances.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(prefix = "igdb.delta-sync", name = "enabled", havingValue = "true")
+public class IGDBDeltaSyncService {
+    /**
+     * Checkpoint key of the delta sync
+     */
+    public static final String JOB_NAME = "igdb-delta";
+
+    private static final String LAG_METRIC = "gamerecs.sync.delta.lag";
+    private static final String GAMES_METRIC = "gamerecs.sync.delta.games";
+    private static final String CYCLE_METRIC = "gamerecs.sync.delta.duration";
+
+    private final IGDBClientService igdbClientService;
+    private final GameSyncService gameSyncService;
+    private final SyncCheckpointRepository checkpointRepository;
+    private final GameRepository gameRepository;
+    private final JobLockRepository jobLockRepository;
+    private final int maxPagesPerCycle;
+
+    /**
+     * Last committed watermark in epoch seconds, 0 until the first cycle has loaded it
+     */
+    private final AtomicLong watermark = new AtomicLong();
+    private final DistributionSummary gamesPerCycle;
+    private final Timer cycleTimer;
+
+    public IGDBDeltaSyncService(
+            IGDBClientService igdbClientService,
+            GameSyncService gameSyncService,
+            SyncCheckpointRepository checkpointRepository,
+            GameRepository gameRepository,
+            JobLockRepository jobLockRepository,
+            MeterRegistry meterRegistry,
+            @Value("${igdb.delta-sync.max-pages-per-cycle:20}") int maxPagesPerCycle) {
+        this.igdbClientService = igdbClientService;
+        this.gameSyncService = gameSyncService;
+        this.checkpointRepository = checkpointRepository;
+        this.gameRepository = gameRepository;
+        this.jobLockRepository = jobLockRepository;
+        this.maxPagesPerCycle = maxPagesPerCycle;
+
+        Gauge.builder(LAG_METRIC, watermark, this::lagSeconds)
+            .description("Seconds between now and the last IGDB change applied locally")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        this.gamesPerCycle = DistributionSummary.builder(GAMES_METRIC)
+            .description("Games pulled from IGDB per delta sync cycle")
+            .register(meterRegistry);
+        this.cycleTimer = Timer.builder(CYCLE_METRIC)
+            .description("Duration of an IGDB delta sync cycle")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Scheduled entry point; runs a cycle unless another instance holds the job lock.
+     * Failures are logged and retried on the next cycle
+     */
+    @Scheduled(
+        initialDelayString = "${igdb.delta-sync.initial-delay:PT1M}",
+        fixedDelayString = "${igdb.delta-sync.interval:PT15M}"
+    )
+    public void syncDelta() {
+        try {
+            if (!jobLockRepository.runExclusively(JOB_NAME, this::runCycle)) {
+                log.debug("Skipping IGDB delta sync cycle, another instance is running it");
+            }
+        } catch (Exception e) {
+            log.error("IGDB delta sync cycle failed at watermark {}", watermark.get(), e);
+        }
+    }
+
+    /**
+     * Runs one delta sync cycle of at most maxPagesPerCycle pages
+     *
+     * @return the number of games pulled from IGDB
+     */
+    public int runCycle() {
+        return cycleTimer.record(() -> {
+            long current = loadWatermark();
+            int games = 0;
+            int pages = 0;
+
+            while (pages < maxPagesPerCycle) {
+                List<IGDBGameDTO> page = igdbClientService.fetchGamesUpdatedAfter(current);
+                pages++;
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                long lastUpdatedAt = page.get(page.size() - 1).getUpdatedAt();
+                if (page.size() < IGDBClientService.MAX_PAGE_SIZE) {
+                    games += sync(page);
+                    current = advance(lastUpdatedAt);
+                    break;
+                }
+
+                // A full page may cut a group of games sharing the last updated_at in half,
+                // so only the games strictly older than it are safe to commit behind the watermark
+                List<IGDBGameDTO> settled = page.stream()
+                    .filter(game -> game.getUpdatedAt() < lastUpdatedAt)
+                    .toList();
+                if (settled.isEmpty()) {
+                    games += drainChangeGroup(lastUpdatedAt);
+                    current = advance(lastUpdatedAt);
+                } else {
+                    games += sync(settled);
+                    current = advance(settled.get(settled.size() - 1).getUpdatedAt());
+                }
+            }
+
+            gamesPerCycle.record(games);
+            log.info("IGDB delta sync pulled {} games in {} pages, watermark now {}", games, pages, current);
+            return games;
+        });
+    }
+
+    /**
+     * Reads every game of a change group larger than one page
+     */
+    private int drainChangeGroup(long updatedAt) {
+        int offset = 0;
+        int games = 0;
+        List<IGDBGameDTO> page;
+        do {
+            page = igdbClientService.fetchGamesUpdatedAt(updatedAt, offset);
+            games += sync(page);
+            offset += page.size();
+        } while (page.size() == IGDBClientService.MAX_PAGE_SIZE);
+        log.debug("Drained {} games sharing updated_at {}", offset, updatedAt);
+        return games;
+    }
+
+    private int sync(List<IGDBGameDTO> games) {
+        if (games.isEmpty()) {
+            return 0;
+        }
+        GameSyncResult result = gameSyncService.syncGamesInBatches(games);
+        return result.getProcessed();
+    }
+
+    /**
+     * Persists a new watermark; called only after the games behind it are committed
+     */
+    private long advance(long newWatermark) {
+        checkpointRepository.save(SyncCheckpoint.builder()
+            .jobName(JOB_NAME)
+            .checkpointValue(newWatermark)
+            .updatedAt(LocalDateTime.now())
+            .build());
+        watermark.set(newWatermark);
+        return newWatermark;
+    }
+
+    /**
+     * Loads the saved watermark, seeding it from the newest local game on the first run
+     */
+    private long loadWatermark() {
+        long loaded = checkpointRepository.findById(JOB_NAME)
+            .map(SyncCheckpoint::getCheckpointValue)
+            .orElseGet(() -> gameRepository.findMaxUpdatedAt()
+                .map(updatedAt -> updatedAt.atZone(ZoneId.systemDefault()).toEpochSecond())
+                .orElseGet(() -> Instant.now().getEpochSecond()));
+        watermark.set(loaded);
+        return loaded;
+    }
+
+    private double lagSeconds(AtomicLong current) {
+        long value = current.get();
+        return value == 0 ? Double.NaN : Instant.now().getEpochSecond() - value;
+    }
+} 
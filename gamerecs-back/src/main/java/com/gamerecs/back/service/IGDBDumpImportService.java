@@ -0,0 +1,275 @@
+package com.gamerecs.back.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.gamerecs.back.dto.GameSyncResult;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.util.IGDBGameMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Loads the catalog from a local dump of IGDB game records instead of the IGDB API,
+ * for disaster recovery and for seeding new environments without spending rate-limit budget.
+ *
+ * A dump holds one IGDB game object per line (NDJSON) or a single JSON array of them, as
+ * returned by the games endpoint, optionally gzip-compressed. The file is streamed: a parse
+ * stage reads one record at a time, applies the same post-processing as the IGDB clients and
+ * hands fixed-size batches to the calling thread, which writes them through the batch sync
+ * path of GameSyncService. The queue between the stages is bounded, so memory use depends
+ * on the batch size and queue capacity, never on the size of the file.
+ *
+ * Dumps are only read from the configured directory.
+ */
+@Service
+@Slf4j
+public class IGDBDumpImportService {
+    private static final String IMPORT_METRIC = "gamerecs.import.dump.games";
+
+    private static final List<IGDBGameDTO> END_OF_BATCHES = List.of();
+
+    private final GameSyncService gameSyncService;
+    private final ObjectReader gameReader;
+    private final Path dumpDirectory;
+    private final String startupDump;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final long progressInterval;
+    private final Counter imported;
+    private final Counter rejected;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public IGDBDumpImportService(
+            GameSyncService gameSyncService,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${igdb.dump-import.directory:dumps}") Path dumpDirectory,
+            @Value("${igdb.dump-import.on-startup:}") String startupDump,
+            @Value("${igdb.dump-import.batch-size:1000}") int batchSize,
+            @Value("${igdb.dump-import.queue-capacity:4}") int queueCapacity,
+            @Value("${igdb.dump-import.progress-interval:100000}") long progressInterval) {
+        this.gameSyncService = gameSyncService;
+        this.gameReader = objectMapper.readerFor(IGDBGameDTO.class);
+        this.dumpDirectory = dumpDirectory.toAbsolutePath().normalize();
+        this.startupDump = startupDump;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.progressInterval = progressInterval;
+        this.imported = meterRegistry.counter(IMPORT_METRIC, "result", "imported");
+        this.rejected = meterRegistry.counter(IMPORT_METRIC, "result", "rejected");
+    }
+
+    /**
+     * Resolves a dump file name inside the dump directory
+     *
+     * @param fileName the name of the dump, relative to the dump directory
+     * @return the path of the dump
+     * @throws IllegalArgumentException if the name points outside the directory or the file does not exist
+     */
+    public Path resolveDump(String fileName) {
+        Path dump = dumpDirectory.resolve(fileName).normalize();
+        if (!dump.startsWith(dumpDirectory)) {
+            throw new IllegalArgumentException("Dump files must be inside the dump directory");
+        }
+        if (!Files.isRegularFile(dump)) {
+            throw new IllegalArgumentException("Dump file not found: " + fileName);
+        }
+        return dump;
+    }
+
+    /**
+     * Starts importing a dump on a background thread
+     *
+     * @param dump the dump file, see resolveDump
+     * @return false if an import is already running
+     */
+    public boolean startImport(Path dump) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread worker = new Thread(() -> {
+            try {
+                execute(dump);
+            } catch (Exception e) {
+                log.error("Import of IGDB dump {} failed", dump, e);
+            } finally {
+                running.set(false);
+            }
+        }, "igdb-dump-import");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    /**
+     * Imports a dump on the calling thread
+     *
+     * @param dump the dump file, gzip-compressed if its name ends with .gz
+     * @return the accumulated sync result, timed over the whole import
+     * @throws IllegalStateException if an import is already running or the dump cannot be read
+     */
+    public GameSyncResult runImport(Path dump) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("IGDB dump import is already running");
+        }
+        try {
+            return execute(dump);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Imports the dump named by igdb.dump-import.on-startup, to seed a new environment on its first boot
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void importOnStartup() {
+        if (startupDump == null || startupDump.isBlank()) {
+            return;
+        }
+        try {
+            startImport(resolveDump(startupDump));
+        } catch (IllegalArgumentException e) {
+            log.error("Cannot import IGDB dump on startup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return true while an import is in progress
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private GameSyncResult execute(Path dump) {
+        log.info("Starting import of IGDB dump {} ({} MB)", dump, sizeInMegabytes(dump));
+        try (InputStream input = open(dump)) {
+            return importGames(input);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read IGDB dump " + dump, e);
+        }
+    }
+
+    /**
+     * Imports the games of a dump stream, NDJSON or JSON array
+     *
+     * @param input the dump content, closed by the caller
+     * @return the accumulated sync result, timed over the whole import
+     */
+    GameSyncResult importGames(InputStream input) {
+        long start = System.nanoTime();
+        AtomicLong rejectedRecords = new AtomicLong();
+        BlockingQueue<List<IGDBGameDTO>> batches = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService parser = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "igdb-dump-parse");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        GameSyncResult total = new GameSyncResult();
+        try {
+            Future<?> parse = parser.submit(() -> parseGames(input, batches, rejectedRecords));
+
+            List<IGDBGameDTO> batch;
+            long nextReport = progressInterval;
+            while ((batch = batches.take()) != END_OF_BATCHES) {
+                GameSyncResult written = gameSyncService.syncGamesInBatches(batch);
+                total.add(written);
+                // Games whose stored copy was already as new are skipped, not imported
+                imported.increment(written.getInserted() + written.getUpdated());
+                if (total.getProcessed() >= nextReport) {
+                    nextReport += progressInterval;
+                    log.info("IGDB dump import at {} games ({} rows/s)", total.getProcessed(),
+                        String.format("%.1f", rowsPerSecond(total.getProcessed(), start)));
+                }
+            }
+            parse.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("IGDB dump import was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to parse IGDB dump", e.getCause());
+        } finally {
+            parser.shutdownNow();
+        }
+
+        total.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("IGDB dump import finished: {} processed, {} inserted, {} updated, {} skipped, {} rejected "
+                + "in {} ms ({} rows/s)",
+            total.getProcessed(), total.getInserted(), total.getUpdated(), total.getSkipped(), rejectedRecords.get(),
+            total.getElapsedMillis(), String.format("%.1f", total.getGamesPerSecond()));
+        return total;
+    }
+
+    private Void parseGames(InputStream input, BlockingQueue<List<IGDBGameDTO>> batches, AtomicLong rejectedRecords)
+            throws InterruptedException {
+        try (MappingIterator<IGDBGameDTO> records = gameReader.readValues(input)) {
+            List<IGDBGameDTO> batch = new ArrayList<>(batchSize);
+            while (records.hasNextValue()) {
+                IGDBGameDTO game = records.nextValue();
+                // The sync path needs the id, the title and the update time to place a game
+                if (game.getIgdbId() == null || game.getTitle() == null || game.getUpdatedAt() == null) {
+                    rejectedRecords.incrementAndGet();
+                    rejected.increment();
+                    continue;
+                }
+                batch.add(IGDBGameMapper.postProcess(game));
+                if (batch.size() == batchSize) {
+                    batches.put(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.put(batch);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed IGDB dump", e);
+        } finally {
+            batches.put(END_OF_BATCHES);
+        }
+        return null;
+    }
+
+    private static InputStream open(Path dump) throws IOException {
+        InputStream input = new BufferedInputStream(Files.newInputStream(dump), 1 << 16);
+        return dump.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(input, 1 << 16) : input;
+    }
+
+    private static long sizeInMegabytes(Path dump) {
+        try {
+            return Files.size(dump) / (1024 * 1024);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static double rowsPerSecond(long rows, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed > 0 ? rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsed : 0.0;
+    }
+} 
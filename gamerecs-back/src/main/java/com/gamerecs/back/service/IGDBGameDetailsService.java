@@ -0,0 +1,117 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.config.CacheConfig;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Second phase of a two-phase IGDB search.
+ *
+ * With igdb.search.two-phase enabled, searches only fetch the listing fields of each game.
+ * The full record (summary, platforms, genres and companies) is loaded here by id, only for
+ * the games a user opens or adds, with every missing id of a call fetched in one request.
+ * Loaded records are cached per game id, so a game found by many searches is loaded once.
+ */
+@Service
+@Slf4j
+public class IGDBGameDetailsService {
+    private static final String CACHE_METRIC = "gamerecs.igdb.details.cache";
+
+    private final IGDBReactiveClientService reactiveClient;
+    private final AsyncCache<Object, Object> detailsCache;
+    private final boolean twoPhaseSearch;
+    private final Counter hits;
+    private final Counter misses;
+
+    public IGDBGameDetailsService(
+            IGDBReactiveClientService reactiveClient,
+            CacheManager cacheManager,
+            MeterRegistry meterRegistry,
+            @Value("${igdb.search.two-phase:false}") boolean twoPhaseSearch) {
+        this.reactiveClient = reactiveClient;
+        this.detailsCache = ((CaffeineCache) cacheManager.getCache(CacheConfig.IGDB_GAME_DETAILS_CACHE)).getAsyncCache();
+        this.twoPhaseSearch = twoPhaseSearch;
+        this.hits = meterRegistry.counter(CACHE_METRIC, "result", "hit");
+        this.misses = meterRegistry.counter(CACHE_METRIC, "result", "miss");
+    }
+
+    /**
+     * Gets the full records of the given games, from the cache or from IGDB
+     *
+     * @param igdbIds the IGDB ids of the games
+     * @return the games found, in the order of the ids; unknown ids are left out
+     * @throws IllegalStateException if IGDB could not be reached once retries are exhausted
+     */
+    public List<IGDBGameDTO> getGames(Collection<Long> igdbIds) {
+        List<Long> ids = igdbIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            Map<Object, Object> games = detailsCache.getAll(ids, (missing, executor) -> {
+                misses.increment(missing.size());
+                hits.increment(ids.size() - missing.size());
+                return fetch(missing).toFuture();
+            }).join();
+            return ids.stream()
+                .map(games::get)
+                .filter(Objects::nonNull)
+                .map(IGDBGameDTO.class::cast)
+                .toList();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Failed to load IGDB details for " + ids.size() + " games", e);
+        }
+    }
+
+    /**
+     * Completes games returned by a search: in two-phase mode the listing records are replaced
+     * by full records, otherwise the search already returned full records and they are kept
+     *
+     * @param games the games returned by a search
+     * @return the full records of the games
+     * @throws IllegalStateException if the full records could not be loaded from IGDB
+     */
+    public List<IGDBGameDTO> withDetails(List<IGDBGameDTO> games) {
+        if (!twoPhaseSearch || games.isEmpty()) {
+            return games;
+        }
+        return getGames(games.stream().map(IGDBGameDTO::getIgdbId).toList());
+    }
+
+    private Mono<Map<Object, Object>> fetch(Set<?> missing) {
+        List<List<Long>> chunks = new ArrayList<>();
+        List<Long> chunk = new ArrayList<>();
+        for (Object id : missing) {
+            chunk.add((Long) id);
+            if (chunk.size() == IGDBClientService.MAX_PAGE_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        return Flux.fromIterable(chunks)
+            .concatMap(ids -> reactiveClient.fetchGamesByIds(ids, IGDBRateLimiter.Priority.INTERACTIVE))
+            .flatMapIterable(games -> games)
+            .collectMap(game -> (Object) game.getIgdbId(), game -> (Object) game);
+    }
+} 
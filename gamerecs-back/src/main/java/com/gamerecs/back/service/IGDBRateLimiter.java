@@ -0,0 +1,305 @@
+package com.gamerecs.back.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiter shared by every client of the IGDB API, enforcing its cap of 4 requests per second
+ * across the whole cluster.
+ *
+ * The cluster budget is split evenly between the running instances, whose count is kept up to
+ * date by IGDBRateLimiterCoordinator. On top of that share the limiter adapts to IGDB itself:
+ * a 429 halves the rate and honors Retry-After, and every successful request wins back a little
+ * of the rate until the full share is reached again.
+ *
+ * Requests wait in one queue per priority and are granted slots one interval apart, interactive
+ * searches first, so background sync and refresh traffic only uses slots nobody is waiting for.
+ * Blocking callers wait on the grant; reactive callers get a Mono instead, so waiting for a slot
+ * never parks a thread.
+ */
+@Component
+public class IGDBRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(IGDBRateLimiter.class);
+
+    private static final String METRIC_PREFIX = "gamerecs.igdb.ratelimit.";
+
+    /**
+     * Lowest fraction of the instance share the limiter backs off to
+     */
+    private static final double MIN_RATE_FACTOR = 0.125;
+
+    /**
+     * Fraction of the share won back by every successful request after a 429
+     */
+    private static final double RECOVERY_STEP = 0.02;
+
+    /**
+     * Who is waiting for an IGDB request slot; interactive requests are always granted first
+     */
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    private final double clusterPermitsPerSecond;
+    private final Map<Priority, Deque<CompletableFuture<Void>>> queues = new EnumMap<>(Priority.class);
+    private final ScheduledExecutorService granter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "igdb-rate-limiter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int clusterSize = 1;
+    private double rateFactor = 1.0;
+    private long intervalNanos;
+
+    /**
+     * System.nanoTime() at which the next request may be sent
+     */
+    private long nextFreeSlot = System.nanoTime();
+    private boolean grantScheduled;
+
+    private final Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+    private final Counter throttled;
+
+    public IGDBRateLimiter(
+            @Value("${igdb.rate-limit.permits-per-second:4}") double permitsPerSecond,
+            MeterRegistry meterRegistry) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("IGDB rate limit must be positive");
+        }
+        this.clusterPermitsPerSecond = permitsPerSecond;
+        this.intervalNanos = intervalFor(currentRate());
+
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+            Gauge.builder(METRIC_PREFIX + "queue", this, limiter -> limiter.queueDepth(priority))
+                .description("Requests waiting for an IGDB rate limit slot")
+                .tag("priority", priority.name().toLowerCase())
+                .register(meterRegistry);
+            waitTimers.put(priority, Timer.builder(METRIC_PREFIX + "wait")
+                .description("Time spent waiting for an IGDB rate limit slot")
+                .tag("priority", priority.name().toLowerCase())
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+        Gauge.builder(METRIC_PREFIX + "rate", this, IGDBRateLimiter::currentRate)
+            .description("Requests per second this instance currently allows")
+            .register(meterRegistry);
+        this.throttled = Counter.builder(METRIC_PREFIX + "throttled")
+            .description("429 responses received from IGDB")
+            .register(meterRegistry);
+        logger.info("Initialized IGDB API rate limiter with {} requests per second", permitsPerSecond);
+    }
+
+    /**
+     * Blocks until a request may be sent
+     *
+     * @param priority the priority of the request
+     * @return the time spent waiting, in seconds
+     */
+    public double acquire(Priority priority) {
+        long start = System.nanoTime();
+        try {
+            enqueue(priority).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("IGDB rate limiter stopped", e.getCause());
+        }
+        return (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Completes once a request may be sent, without blocking the subscribing thread.
+     * The request is queued on subscription, so every retry waits for a slot of its own,
+     * and cancelling the Mono gives up its place in the queue.
+     *
+     * @param priority the priority of the request
+     * @return a Mono completing when the request has been granted a slot
+     */
+    public Mono<Void> acquireAsync(Priority priority) {
+        return Mono.defer(() -> Mono.fromFuture(enqueue(priority)));
+    }
+
+    /**
+     * Tells how far the schedule is already booked ahead of now, without reserving anything
+     *
+     * @return nanoseconds until a newly queued request would be granted, 0 if it could be sent right away
+     */
+    public synchronized long backlogNanos() {
+        return Math.max(0, nextFreeSlot - System.nanoTime()) + queueDepth() * intervalNanos;
+    }
+
+    /**
+     * Backs off after IGDB answered 429: halves the rate and pauses until Retry-After has passed
+     *
+     * @param retryAfter the Retry-After delay sent by IGDB, or null if there was none
+     */
+    public void onThrottled(Duration retryAfter) {
+        throttled.increment();
+        synchronized (this) {
+            rateFactor = Math.max(MIN_RATE_FACTOR, rateFactor / 2);
+            intervalNanos = intervalFor(currentRate());
+            if (retryAfter != null && !retryAfter.isNegative()) {
+                nextFreeSlot = Math.max(nextFreeSlot, System.nanoTime() + retryAfter.toNanos());
+            }
+        }
+        logger.warn("IGDB API rate limit exceeded, backing off to {} requests per second{}",
+            String.format("%.2f", currentRate()), retryAfter != null ? " for at least " + retryAfter : "");
+    }
+
+    /**
+     * Recovers part of the rate given up after a 429
+     */
+    public synchronized void onSuccess() {
+        if (rateFactor < 1.0) {
+            rateFactor = Math.min(1.0, rateFactor + RECOVERY_STEP);
+            intervalNanos = intervalFor(currentRate());
+        }
+    }
+
+    /**
+     * Sets the number of running instances the cluster budget is split between
+     *
+     * @param instances the number of live instances, including this one
+     */
+    public synchronized void setClusterSize(int instances) {
+        int size = Math.max(1, instances);
+        if (size != clusterSize) {
+            logger.info("IGDB rate limit now shared by {} instances", size);
+            clusterSize = size;
+            intervalNanos = intervalFor(currentRate());
+        }
+    }
+
+    /**
+     * @return the requests per second this instance currently allows
+     */
+    public synchronized double currentRate() {
+        return clusterPermitsPerSecond / clusterSize * rateFactor;
+    }
+
+    /**
+     * Reads a Retry-After header, given either in seconds or as an HTTP date
+     *
+     * @param header the header value, may be null
+     * @return the delay to wait, or null if the header is missing or malformed
+     */
+    public static Duration parseRetryAfter(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(header.strip()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime retryAt = ZonedDateTime.parse(header.strip(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration delay = Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt);
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        granter.shutdownNow();
+    }
+
+    private CompletableFuture<Void> enqueue(Priority priority) {
+        long queuedAt = System.nanoTime();
+        CompletableFuture<Void> granted = new CompletableFuture<>();
+        synchronized (this) {
+            if (queueDepth() == 0 && queuedAt >= nextFreeSlot) {
+                nextFreeSlot = queuedAt + intervalNanos;
+                granted.complete(null);
+            } else {
+                queues.get(priority).add(granted);
+                scheduleGrant();
+            }
+        }
+        Timer waitTimer = waitTimers.get(priority);
+        granted.thenRun(() -> waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS));
+        return granted;
+    }
+
+    /**
+     * Grants the next slot to the first waiting request, interactive before background
+     */
+    private void grant() {
+        CompletableFuture<Void> next = null;
+        synchronized (this) {
+            grantScheduled = false;
+            long now = System.nanoTime();
+            if (now < nextFreeSlot) {
+                scheduleGrant();
+                return;
+            }
+            for (Priority priority : Priority.values()) {
+                Deque<CompletableFuture<Void>> queue = queues.get(priority);
+                // Skip requests given up while waiting
+                while (!queue.isEmpty() && queue.peek().isDone()) {
+                    queue.poll();
+                }
+                if (!queue.isEmpty()) {
+                    next = queue.poll();
+                    break;
+                }
+            }
+            if (next != null) {
+                nextFreeSlot = now + intervalNanos;
+                if (queueDepth() > 0) {
+                    scheduleGrant();
+                }
+            }
+        }
+        if (next != null) {
+            next.complete(null);
+        }
+    }
+
+    private void scheduleGrant() {
+        if (!grantScheduled) {
+            grantScheduled = true;
+            granter.schedule(this::grant, Math.max(0, nextFreeSlot - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private int queueDepth() {
+        int depth = 0;
+        for (Deque<CompletableFuture<Void>> queue : queues.values()) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    private synchronized int queueDepth(Priority priority) {
+        return queues.get(priority).size();
+    }
+
+    private static long intervalFor(double permitsPerSecond) {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+}
@@ -0,0 +1,83 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.model.RateLimiterMember;
+import com.gamerecs.back.repository.RateLimiterMemberRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Splits the IGDB rate limit between the running instances through Postgres.
+ *
+ * Every instance writes a heartbeat row on a fixed interval and counts the rows seen recently;
+ * IGDBRateLimiter then allows this instance its share of the cluster budget. Coordinating the
+ * share rather than every request keeps the database out of the request path, which matters
+ * with a connection pool of two. If the database cannot be reached the last known share is kept.
+ */
+@Service
+@Slf4j
+public class IGDBRateLimiterCoordinator {
+    /**
+     * Heartbeats an instance may miss before it no longer counts towards the cluster
+     */
+    private static final int MISSED_HEARTBEATS = 3;
+
+    private final RateLimiterMemberRepository memberRepository;
+    private final IGDBRateLimiter rateLimiter;
+    private final Duration heartbeatInterval;
+    private final String instanceId;
+
+    public IGDBRateLimiterCoordinator(
+            RateLimiterMemberRepository memberRepository,
+            IGDBRateLimiter rateLimiter,
+            @Value("${igdb.rate-limit.heartbeat-interval:PT15S}") Duration heartbeatInterval) {
+        this.memberRepository = memberRepository;
+        this.rateLimiter = rateLimiter;
+        this.heartbeatInterval = heartbeatInterval;
+        // DYNO names the Heroku dyno; the suffix keeps restarted dynos apart
+        this.instanceId = System.getenv().getOrDefault("DYNO", "local") + "-" + UUID.randomUUID();
+    }
+
+    /**
+     * Records this instance as alive and updates its share of the cluster budget
+     */
+    @Scheduled(fixedDelayString = "${igdb.rate-limit.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            memberRepository.save(RateLimiterMember.builder()
+                .instanceId(instanceId)
+                .lastSeen(now)
+                .build());
+            LocalDateTime cutoff = now.minus(heartbeatInterval.multipliedBy(MISSED_HEARTBEATS));
+            memberRepository.deleteStale(cutoff);
+            long members = memberRepository.countByLastSeenAfter(cutoff);
+            rateLimiter.setClusterSize((int) members);
+        } catch (DataAccessException e) {
+            log.warn("IGDB rate limiter heartbeat failed, keeping the current share", e);
+        }
+    }
+
+    /**
+     * Leaves the cluster so the other instances can take over the share right away
+     */
+    @PreDestroy
+    public void leave() {
+        try {
+            memberRepository.deleteById(instanceId);
+        } catch (DataAccessException e) {
+            log.debug("Could not remove IGDB rate limiter member {}", instanceId, e);
+        }
+    }
+
+    String getInstanceId() {
+        return instanceId;
+    }
+} 
@@ -0,0 +1,361 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.dto.IGDBMultiQueryResultDTO;
+import com.gamerecs.back.util.IGDBGameMapper;
+import com.gamerecs.back.util.SearchQueryNormalizer;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking client for the IGDB API built on WebClient, over the pooled IGDB connector
+ * from HttpClientConfig.
+ *
+ * Requests go through a dispatcher that keeps at most maxInFlight of them running at once;
+ * the others wait in its queue without holding a thread. Each running request then takes
+ * a slot from the shared IGDBRateLimiter and decodes the response array game by game as it
+ * arrives. IGDBClientService adapts this client to its blocking API.
+ */
+@Service
+public class IGDBReactiveClientService {
+    private static final Logger logger = LoggerFactory.getLogger(IGDBReactiveClientService.class);
+
+    private static final String BASE_URL = "https://api.igdb.com/v4";
+
+    /**
+     * Retries after the first attempt, matching the blocking client
+     */
+    private static final int MAX_RETRIES = 2;
+
+    /**
+     * Most queries IGDB runs in one /multiquery request
+     */
+    public static final int MAX_MULTIQUERY_SIZE = 10;
+
+    /**
+     * Name of the resilience4j circuit breaker guarding every IGDB call
+     */
+    public static final String CIRCUIT_BREAKER = "igdb";
+
+    private final WebClient webClient;
+    private final IGDBRateLimiter rateLimiter;
+    private final Duration retryBackoff;
+
+    /**
+     * Fields requested by searches: the full record, or only the listing fields in two-phase mode
+     */
+    private final String searchFields;
+
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Duration of the last failed call, what a call rejected by the open circuit would likely have cost
+     */
+    private final AtomicLong lastFailedCallNanos = new AtomicLong();
+    private final Timer timeSaved;
+
+    /**
+     * Queue of requests waiting for an in-flight slot
+     */
+    private final Sinks.Many<Mono<Void>> dispatcher = Sinks.many().unicast().onBackpressureBuffer();
+
+    public IGDBReactiveClientService(
+            WebClient.Builder webClientBuilder,
+            @Qualifier("igdbHttpConnector") ClientHttpConnector httpConnector,
+            @Qualifier("igdbClientId") String clientId,
+            @Qualifier("igdbAccessToken") String accessToken,
+            IGDBRateLimiter rateLimiter,
+            @Value("${igdb.reactive.max-in-flight:4}") int maxInFlight,
+            @Value("${igdb.reactive.retry-backoff:PT1S}") Duration retryBackoff,
+            @Value("${igdb.search.two-phase:false}") boolean twoPhaseSearch,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            MeterRegistry meterRegistry) {
+        this.webClient = webClientBuilder
+            .clientConnector(httpConnector)
+            .baseUrl(BASE_URL)
+            .defaultHeader("Client-ID", clientId)
+            .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+            .build();
+        this.rateLimiter = rateLimiter;
+        this.retryBackoff = retryBackoff;
+        this.searchFields = twoPhaseSearch ? IGDBClientService.LISTING_FIELDS : IGDBClientService.GAME_FIELDS;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER);
+        this.timeSaved = Timer.builder("gamerecs.igdb.circuit.time.saved")
+            .description("Estimated time not spent on IGDB calls rejected while the circuit was open")
+            .register(meterRegistry);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.StateTransition transition = event.getStateTransition();
+            logger.warn("IGDB circuit breaker moved from {} to {}", transition.getFromState(), transition.getToState());
+            meterRegistry.counter("gamerecs.igdb.circuit.transitions",
+                "from", transition.getFromState().name().toLowerCase(),
+                "to", transition.getToState().name().toLowerCase()).increment();
+        });
+
+        // Failures are delivered to each caller by the task itself and never end the dispatcher
+        dispatcher.asFlux()
+            .flatMap(task -> task.onErrorComplete(), maxInFlight)
+            .subscribe();
+    }
+
+    /**
+     * Searches IGDB for released main games matching the query
+     * Rate limited, bounded by the in-flight cap and retried on transient failures
+     *
+     * The query is sent in its canonical form, see SearchQueryNormalizer
+     *
+     * @param query the search query
+     * @return Mono emitting the matching games, or an error once retries are exhausted
+     */
+    public Mono<List<IGDBGameDTO>> searchGames(String query) {
+        return searchGames(query, IGDBRateLimiter.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Searches IGDB for released main games matching the query, waiting for a rate limit
+     * slot with the given priority
+     *
+     * @param query the search query
+     * @param priority INTERACTIVE for user searches, BACKGROUND for refresh and sync traffic
+     * @return Mono emitting the matching games, or an error once retries are exhausted
+     */
+    public Mono<List<IGDBGameDTO>> searchGames(String query, IGDBRateLimiter.Priority priority) {
+        String body = """
+            search "%s";
+            fields %s;
+                  where %s;
+            limit %d;
+            """.formatted(SearchQueryNormalizer.normalize(query), searchFields, IGDBClientService.GAME_FILTER,
+                IGDBClientService.MAX_PAGE_SIZE);
+
+        return post("/games", body, priority, "IGDB search for query '" + query + "'", response -> response
+                .bodyToFlux(IGDBGameDTO.class)
+                .map(IGDBGameMapper::postProcess)
+                .collectList())
+            .doOnNext(games -> logger.info("Successfully retrieved and processed {} games from IGDB API", games.size()));
+    }
+
+    /**
+     * Runs several searches in a single /multiquery request, which costs one rate limit slot
+     * IGDB accepts at most MAX_MULTIQUERY_SIZE queries per request
+     *
+     * @param queries the search queries, without duplicates
+     * @param priority INTERACTIVE for user searches, BACKGROUND for refresh and sync traffic
+     * @return Mono emitting the games found for each query, keyed by the query as given
+     */
+    public Mono<Map<String, List<IGDBGameDTO>>> multiSearchGames(List<String> queries, IGDBRateLimiter.Priority priority) {
+        if (queries.size() > MAX_MULTIQUERY_SIZE) {
+            return Mono.error(new IllegalArgumentException(
+                "IGDB multiquery accepts at most " + MAX_MULTIQUERY_SIZE + " queries, got " + queries.size()));
+        }
+        // Queries are named by position, so the names never need escaping
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < queries.size(); i++) {
+            body.append("""
+                query games "%d" {
+                    search "%s";
+                    fields %s;
+                          where %s;
+                    limit %d;
+                };
+                """.formatted(i, SearchQueryNormalizer.normalize(queries.get(i)), searchFields,
+                    IGDBClientService.GAME_FILTER, IGDBClientService.MAX_PAGE_SIZE));
+        }
+
+        return post("/multiquery", body.toString(), priority, "IGDB multiquery of " + queries.size() + " searches",
+                response -> response
+                    .bodyToFlux(IGDBMultiQueryResultDTO.class)
+                    .collectList()
+                    .map(results -> splitMultiQueryResults(queries, results)))
+            .doOnNext(results -> logger.info("Successfully retrieved {} IGDB searches in one multiquery request",
+                results.size()));
+    }
+
+    /**
+     * Loads the full records of the given games in one request
+     *
+     * @param igdbIds the IGDB ids, at most MAX_PAGE_SIZE of them
+     * @param priority INTERACTIVE for user requests, BACKGROUND for refresh and sync traffic
+     * @return Mono emitting the games found; unknown ids are left out
+     */
+    public Mono<List<IGDBGameDTO>> fetchGamesByIds(Collection<Long> igdbIds, IGDBRateLimiter.Priority priority) {
+        if (igdbIds.size() > IGDBClientService.MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException(
+                "IGDB returns at most " + IGDBClientService.MAX_PAGE_SIZE + " games per request, got " + igdbIds.size()));
+        }
+        String body = """
+            fields %s;
+            where id = (%s);
+            limit %d;
+            """.formatted(IGDBClientService.GAME_FIELDS,
+                igdbIds.stream().map(String::valueOf).collect(Collectors.joining(",")), igdbIds.size());
+
+        return post("/games", body, priority, "IGDB details of " + igdbIds.size() + " games", response -> response
+                .bodyToFlux(IGDBGameDTO.class)
+                .map(IGDBGameMapper::postProcess)
+                .collectList())
+            .doOnNext(games -> logger.info("Successfully retrieved details of {} games from IGDB API", games.size()));
+    }
+
+    /**
+     * Sends one rate limited request, retried on transient failures and bounded by the in-flight cap
+     * While the circuit breaker is open the request fails at once with CallNotPermittedException,
+     * without waiting for an in-flight or rate limit slot
+     */
+    private <T> Mono<T> post(String uri, String body, IGDBRateLimiter.Priority priority, String description,
+            Function<WebClient.ResponseSpec, Mono<T>> decode) {
+        Mono<T> request = rateLimiter.acquireAsync(priority)
+            .then(guarded(Mono.defer(() -> decode.apply(webClient.post()
+                    .uri(uri)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .bodyValue(body)
+                    .retrieve())
+                .doOnSuccess(value -> rateLimiter.onSuccess())
+                .doOnError(WebClientResponseException.TooManyRequests.class, e -> rateLimiter.onThrottled(
+                    IGDBRateLimiter.parseRetryAfter(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))))), description))
+            .retryWhen(Retry.backoff(MAX_RETRIES, retryBackoff)
+                .filter(IGDBReactiveClientService::isTransient)
+                .doBeforeRetry(signal -> logger.warn("Retrying {} after: {}",
+                    description, signal.failure().getMessage()))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+
+        return Mono.defer(() -> isOpen() ? rejected(description) : bounded(request));
+    }
+
+    /**
+     * Whether the circuit breaker rejects calls right now. Asking an open circuit whose wait has
+     * elapsed for a permission moves it to half-open; that permission is handed back at once,
+     * so it stays available to the attempt that follows.
+     */
+    private boolean isOpen() {
+        CircuitBreaker.State state = circuitBreaker.getState();
+        if (state != CircuitBreaker.State.OPEN && state != CircuitBreaker.State.FORCED_OPEN) {
+            return false;
+        }
+        if (circuitBreaker.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            return false;
+        }
+        return true;
+    }
+
+    private <T> Mono<T> rejected(String description) {
+        logger.debug("IGDB circuit breaker is open, rejecting {}", description);
+        timeSaved.record(lastFailedCallNanos.get(), TimeUnit.NANOSECONDS);
+        return Mono.error(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+    }
+
+    /**
+     * Runs one attempt of a request through the circuit breaker, once it holds its in-flight and
+     * rate limit slots, so queueing, rate limit waits and retry backoff never count as a slow call.
+     * Each retry is reported as a call of its own. Only transient failures count against IGDB;
+     * a client error means IGDB answered, so it is neither a success nor a failure.
+     */
+    private <T> Mono<T> guarded(Mono<T> request, String description) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                return rejected(description);
+            }
+            long start = System.nanoTime();
+            return request
+                .doOnSuccess(value -> circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .doOnError(e -> {
+                    long elapsed = System.nanoTime() - start;
+                    if (isTransient(e)) {
+                        lastFailedCallNanos.set(elapsed);
+                        circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, e);
+                    } else {
+                        circuitBreaker.releasePermission();
+                    }
+                })
+                .doOnCancel(circuitBreaker::releasePermission);
+        });
+    }
+
+    private static Map<String, List<IGDBGameDTO>> splitMultiQueryResults(
+            List<String> queries, List<IGDBMultiQueryResultDTO> results) {
+        Map<String, List<IGDBGameDTO>> gamesByQuery = new HashMap<>();
+        for (IGDBMultiQueryResultDTO result : results) {
+            int index = Integer.parseInt(result.getName());
+            List<IGDBGameDTO> games = result.getResult() != null ? result.getResult() : List.of();
+            gamesByQuery.put(queries.get(index), games.stream().map(IGDBGameMapper::postProcess).toList());
+        }
+        // Every query gets an entry, even one missing from the response
+        for (String query : queries) {
+            gamesByQuery.putIfAbsent(query, List.of());
+        }
+        return gamesByQuery;
+    }
+
+    /**
+     * Runs a request once the dispatcher has an in-flight slot for it.
+     * Cancelling the returned Mono cancels the request, queued or running, and frees its slot.
+     */
+    private <T> Mono<T> bounded(Mono<T> request) {
+        return Mono.defer(() -> {
+            Sinks.One<T> result = Sinks.one();
+            Sinks.One<Boolean> cancelled = Sinks.one();
+
+            Mono<Void> task = request
+                .takeUntilOther(cancelled.asMono())
+                .doOnSuccess(value -> {
+                    if (value == null) {
+                        result.tryEmitEmpty();
+                    } else {
+                        result.tryEmitValue(value);
+                    }
+                })
+                .doOnError(result::tryEmitError)
+                .then();
+
+            synchronized (dispatcher) {
+                Sinks.EmitResult emitted = dispatcher.tryEmitNext(task);
+                if (emitted.isFailure()) {
+                    return Mono.error(new IllegalStateException("IGDB request dispatcher rejected request: " + emitted));
+                }
+            }
+            return result.asMono().doOnCancel(() -> cancelled.tryEmitValue(Boolean.TRUE));
+        });
+    }
+
+    /**
+     * Connection failures, rate limiting and server errors are worth retrying; other client errors are not
+     */
+    private static boolean isTransient(Throwable failure) {
+        if (failure instanceof WebClientRequestException) {
+            return true;
+        }
+        if (failure instanceof WebClientResponseException e) {
+            return e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS || e.getStatusCode().is5xxServerError();
+        }
+        return false;
+    }
+} 
@@ -0,0 +1,139 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.IGDBGameDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-batches IGDB searches that missed every cache tier.
+ *
+ * Distinct searches arriving within a short window are sent together as one /multiquery
+ * request, which costs a single rate limit slot instead of one per search. A batch is sent
+ * when the window closes or as soon as it holds the most queries IGDB accepts at once,
+ * and a batch of one is sent as a plain search. Every caller gets the result of its own
+ * query, or the error if the request failed.
+ */
+@Service
+@Slf4j
+public class IGDBSearchBatcher {
+    private final IGDBReactiveClientService reactiveClient;
+    private final Duration window;
+    private final int maxBatchSize;
+
+    private final DistributionSummary batchSize;
+    private final Timer queueTime;
+
+    /**
+     * Searches of the batch being collected, by canonical query
+     */
+    private Map<String, PendingSearch> pending = new LinkedHashMap<>();
+    private Disposable scheduledFlush;
+
+    private record PendingSearch(Sinks.One<List<IGDBGameDTO>> result, long queuedAt) {
+    }
+
+    public IGDBSearchBatcher(
+            IGDBReactiveClientService reactiveClient,
+            MeterRegistry meterRegistry,
+            @Value("${igdb.search.batch.window:PT0.005S}") Duration window,
+            @Value("${igdb.search.batch.max-size:10}") int maxBatchSize) {
+        if (maxBatchSize < 1 || maxBatchSize > IGDBReactiveClientService.MAX_MULTIQUERY_SIZE) {
+            throw new IllegalArgumentException("IGDB search batch size must be between 1 and "
+                + IGDBReactiveClientService.MAX_MULTIQUERY_SIZE);
+        }
+        this.reactiveClient = reactiveClient;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSize = DistributionSummary.builder("gamerecs.igdb.search.batch.size")
+            .description("Searches sent to IGDB in one request")
+            .register(meterRegistry);
+        this.queueTime = Timer.builder("gamerecs.igdb.search.batch.queued")
+            .description("Time a search waited for its batch to be sent")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Searches IGDB as part of the next batch
+     *
+     * @param canonicalQuery the normalized query
+     * @return Mono emitting the games matching the query, or the error of the batch request
+     */
+    public Mono<List<IGDBGameDTO>> search(String canonicalQuery) {
+        return Mono.defer(() -> {
+            Map<String, PendingSearch> full = null;
+            PendingSearch search;
+            synchronized (this) {
+                search = pending.get(canonicalQuery);
+                if (search == null) {
+                    search = new PendingSearch(Sinks.one(), System.nanoTime());
+                    pending.put(canonicalQuery, search);
+                    if (pending.size() >= maxBatchSize) {
+                        full = takeBatch();
+                    } else if (pending.size() == 1) {
+                        Map<String, PendingSearch> batch = pending;
+                        scheduledFlush = Mono.delay(window).subscribe(tick -> flush(batch));
+                    }
+                }
+            }
+            if (full != null) {
+                send(full);
+            }
+            return search.result().asMono();
+        });
+    }
+
+    /**
+     * Sends the batch the window was started for, unless it has already been sent because it filled up
+     */
+    private void flush(Map<String, PendingSearch> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            takeBatch();
+        }
+        send(batch);
+    }
+
+    private Map<String, PendingSearch> takeBatch() {
+        Map<String, PendingSearch> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.dispose();
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void send(Map<String, PendingSearch> batch) {
+        long now = System.nanoTime();
+        batchSize.record(batch.size());
+        batch.values().forEach(search -> queueTime.record(now - search.queuedAt(), TimeUnit.NANOSECONDS));
+
+        List<String> queries = new ArrayList<>(batch.keySet());
+        Mono<Map<String, List<IGDBGameDTO>>> request = queries.size() == 1
+            ? reactiveClient.searchGames(queries.get(0)).map(games -> Map.of(queries.get(0), games))
+            : reactiveClient.multiSearchGames(queries, IGDBRateLimiter.Priority.INTERACTIVE);
+        log.debug("Sending batch of {} IGDB searches", queries.size());
+
+        request.subscribe(
+            results -> batch.forEach((query, search) ->
+                search.result().tryEmitValue(results.getOrDefault(query, List.of()))),
+            e -> batch.values().forEach(search -> search.result().tryEmitError(e)));
+    }
+} 
@@ -0,0 +1,218 @@
+package com.gamerecs.back.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gamerecs.back.config.CacheConfig;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.model.IGDBSearchCacheEntry;
+import com.gamerecs.back.repository.IGDBSearchCacheRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent second tier of the IGDB search cache, behind the in-memory Caffeine tier.
+ *
+ * Results are stored per canonical query as GZIP-compressed JSON with a fetch time and an
+ * expiry, so they survive restarts and deploys. On startup the most used entries are copied
+ * into the Caffeine tier. The tier is best effort: a database failure is logged and treated
+ * as a miss, so a search still falls through to IGDB. Hits are counted in memory and written
+ * once per cache.igdb.persistent.hit-flush-interval, not with an UPDATE per hit.
+ */
+@Service
+@Slf4j
+public class IGDBSearchCacheStore {
+    private static final String CACHE_METRIC = "gamerecs.igdb.search.cache";
+
+    private static final TypeReference<List<IGDBGameDTO>> GAME_LIST = new TypeReference<>() {};
+
+    private final IGDBSearchCacheRepository repository;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final Duration ttl;
+    private final int preloadSize;
+    private final Counter hits;
+    private final Counter misses;
+    // Hits per canonical query not yet added to the stored hit counts
+    private final Map<String, Long> pendingHits = new ConcurrentHashMap<>();
+
+    public IGDBSearchCacheStore(
+            IGDBSearchCacheRepository repository,
+            ObjectMapper objectMapper,
+            CacheManager cacheManager,
+            MeterRegistry meterRegistry,
+            @Value("${cache.igdb.persistent.ttl:PT24H}") Duration ttl,
+            @Value("${cache.igdb.persistent.preload-size:200}") int preloadSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.ttl = ttl;
+        this.preloadSize = preloadSize;
+        this.hits = meterRegistry.counter(CACHE_METRIC, "tier", "database", "result", "hit");
+        this.misses = meterRegistry.counter(CACHE_METRIC, "tier", "database", "result", "miss");
+    }
+
+    /**
+     * Looks up an unexpired result for a query
+     *
+     * @param canonicalQuery the normalized query
+     * @return the stored games, or empty on a miss, an expired entry or a database failure
+     */
+    public Optional<List<IGDBGameDTO>> find(String canonicalQuery) {
+        try {
+            Optional<List<IGDBGameDTO>> games = repository.findById(canonicalQuery)
+                .filter(entry -> entry.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(this::decode);
+            if (games.isPresent()) {
+                hits.increment();
+                pendingHits.merge(canonicalQuery, 1L, Long::sum);
+            } else {
+                misses.increment();
+            }
+            return games;
+        } catch (DataAccessException | IllegalStateException e) {
+            log.warn("Persistent IGDB search cache lookup failed for query '{}'", canonicalQuery, e);
+            misses.increment();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Looks up the last stored result for a query even if it has expired, as a fallback while IGDB is unavailable
+     *
+     * @param canonicalQuery the normalized query
+     * @return the stored games, or empty if the query was never stored or on a database failure
+     */
+    public Optional<List<IGDBGameDTO>> findStale(String canonicalQuery) {
+        try {
+            return repository.findById(canonicalQuery).map(this::decode);
+        } catch (DataAccessException | IllegalStateException e) {
+            log.warn("Stale IGDB search cache lookup failed for query '{}'", canonicalQuery, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the result of a query, replacing an older one but keeping its hit count
+     *
+     * @param canonicalQuery the normalized query
+     * @param games the games IGDB returned
+     */
+    public void save(String canonicalQuery, List<IGDBGameDTO> games) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            IGDBSearchCacheEntry entry = repository.findById(canonicalQuery)
+                .orElseGet(() -> IGDBSearchCacheEntry.builder().searchQuery(canonicalQuery).build());
+            entry.setResult(encode(games));
+            entry.setResultCount(games.size());
+            entry.setFetchedAt(now);
+            entry.setExpiresAt(now.plus(ttl));
+            repository.save(entry);
+        } catch (DataAccessException | IllegalStateException e) {
+            log.warn("Failed to store IGDB search result for query '{}' in the persistent cache", canonicalQuery, e);
+        }
+    }
+
+    /**
+     * Deletes every stored result
+     */
+    public void clear() {
+        try {
+            pendingHits.clear();
+            repository.deleteAllInBatch();
+            log.info("Cleared persistent IGDB search cache");
+        } catch (DataAccessException e) {
+            log.warn("Failed to clear the persistent IGDB search cache", e);
+        }
+    }
+
+    /**
+     * Adds the hits counted since the last flush to the stored hit counts, one UPDATE per query
+     * Counts that fail to be written are kept for the next flush
+     */
+    @Scheduled(initialDelayString = "${cache.igdb.persistent.hit-flush-interval:PT1M}",
+            fixedDelayString = "${cache.igdb.persistent.hit-flush-interval:PT1M}")
+    @PreDestroy
+    public void flushHits() {
+        for (String canonicalQuery : pendingHits.keySet()) {
+            Long count = pendingHits.remove(canonicalQuery);
+            if (count == null) {
+                continue;
+            }
+            try {
+                repository.addHitCount(canonicalQuery, count);
+            } catch (DataAccessException e) {
+                log.warn("Failed to store {} hits of query '{}' in the persistent IGDB search cache",
+                    count, canonicalQuery, e);
+                pendingHits.merge(canonicalQuery, count, Long::sum);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops expired entries and copies the most used remaining ones into the Caffeine tier
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int expired = repository.deleteExpired(now);
+            AsyncCache<Object, Object> memoryTier =
+                ((CaffeineCache) cacheManager.getCache(CacheConfig.IGDB_GAME_SEARCH_CACHE)).getAsyncCache();
+            List<IGDBSearchCacheEntry> entries = repository.findMostUsed(now, PageRequest.of(0, preloadSize));
+            for (IGDBSearchCacheEntry entry : entries) {
+                memoryTier.put(entry.getSearchQuery(), CompletableFuture.completedFuture(decode(entry)));
+            }
+            log.info("Pre-loaded {} IGDB search results from the persistent cache, dropped {} expired",
+                entries.size(), expired);
+        } catch (DataAccessException | IllegalStateException e) {
+            log.warn("Failed to pre-load IGDB search results from the persistent cache", e);
+        }
+    }
+
+    private byte[] encode(List<IGDBGameDTO> games) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, games);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize IGDB search result", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<IGDBGameDTO> decode(IGDBSearchCacheEntry entry) {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(entry.getResult()))) {
+            return objectMapper.readValue(gzip, GAME_LIST);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read stored IGDB search result for query '"
+                + entry.getSearchQuery() + "'", e);
+        }
+    }
+}
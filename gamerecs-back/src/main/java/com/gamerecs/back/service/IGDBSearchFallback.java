@@ -0,0 +1,91 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.dto.IGDBSearchResult;
+import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.util.IGDBGameMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Answers an IGDB search when IGDB cannot: the circuit breaker is open, the search ran out of
+ * its time budget, or it failed once retries were exhausted.
+ *
+ * The last result stored for the query is served first, however old. Without one, the query
+ * is matched against the titles of the local games table. Either way the result is marked as
+ * degraded and is never written to the search cache.
+ */
+@Service
+@Slf4j
+public class IGDBSearchFallback {
+    private static final String FALLBACK_METRIC = "gamerecs.igdb.search.fallback";
+
+    /**
+     * Why IGDB could not answer
+     */
+    public enum Reason {
+        CIRCUIT_OPEN,
+        TIMEOUT,
+        ERROR
+    }
+
+    private final IGDBSearchCacheStore searchCacheStore;
+    private final GameRepository gameRepository;
+    private final MeterRegistry meterRegistry;
+    private final int localResultLimit;
+
+    public IGDBSearchFallback(
+            IGDBSearchCacheStore searchCacheStore,
+            GameRepository gameRepository,
+            MeterRegistry meterRegistry,
+            @Value("${igdb.search.fallback.local-result-limit:50}") int localResultLimit) {
+        this.searchCacheStore = searchCacheStore;
+        this.gameRepository = gameRepository;
+        this.meterRegistry = meterRegistry;
+        this.localResultLimit = localResultLimit;
+    }
+
+    /**
+     * Answers a search from the stale cache or the local catalog
+     *
+     * @param canonicalQuery the normalized query
+     * @param reason why IGDB could not answer
+     * @return the degraded result, with no games if neither fallback has any
+     */
+    public IGDBSearchResult search(String canonicalQuery, Reason reason) {
+        Optional<List<IGDBGameDTO>> stale = searchCacheStore.findStale(canonicalQuery);
+        if (stale.isPresent()) {
+            return record(new IGDBSearchResult(stale.get(), IGDBSearchResult.Source.STALE_CACHE), reason);
+        }
+
+        try {
+            List<IGDBGameDTO> local = gameRepository
+                .findByTitleContainingIgnoreCase(canonicalQuery, PageRequest.of(0, localResultLimit))
+                .stream()
+                .map(IGDBGameMapper::fromGame)
+                .toList();
+            if (!local.isEmpty()) {
+                return record(new IGDBSearchResult(local, IGDBSearchResult.Source.LOCAL_CATALOG), reason);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Local catalog fallback failed for IGDB search '{}'", canonicalQuery, e);
+        }
+        return record(new IGDBSearchResult(List.of(), IGDBSearchResult.Source.NONE), reason);
+    }
+
+    private IGDBSearchResult record(IGDBSearchResult result, Reason reason) {
+        log.warn("Served degraded IGDB search result from {} ({} games) after {}",
+            result.source(), result.games().size(), reason);
+        meterRegistry.counter(FALLBACK_METRIC,
+            "source", result.source().name().toLowerCase(),
+            "reason", reason.name().toLowerCase()).increment();
+        return result;
+    }
+} 
@@ -0,0 +1,131 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.config.CacheConfig;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Policy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Refresh-ahead for the in-memory IGDB search cache.
+ *
+ * Every cache hit reports here. Once the entry served is older than a configurable
+ * fraction of the cache TTL, it is reloaded from IGDB in the background while callers
+ * keep getting the old value. Refreshes are only triggered by reads, so an entry nobody
+ * reads simply expires. A refresh only starts when the shared rate limiter has a free
+ * slot right away and fewer than max-concurrent refreshes are running, and it waits for
+ * its slot with background priority, behind any user search.
+ */
+@Service
+@Slf4j
+public class IGDBSearchRefresher {
+    private static final String REFRESH_METRIC = "gamerecs.igdb.search.refresh";
+
+    private final AsyncCache<Object, Object> searchCache;
+    private final IGDBReactiveClientService reactiveClient;
+    private final IGDBSearchCacheStore searchCacheStore;
+    private final IGDBRateLimiter rateLimiter;
+    private final double ttlFraction;
+    private final Semaphore refreshPermits;
+
+    /**
+     * Queries with a refresh in flight, so each entry is refreshed once at a time
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final Counter refreshed;
+    private final Counter failed;
+    private final Counter skipped;
+    private final DistributionSummary staleness;
+
+    public IGDBSearchRefresher(
+            CacheManager cacheManager,
+            IGDBReactiveClientService reactiveClient,
+            IGDBSearchCacheStore searchCacheStore,
+            IGDBRateLimiter rateLimiter,
+            MeterRegistry meterRegistry,
+            @Value("${igdb.search.refresh.ttl-fraction:0.8}") double ttlFraction,
+            @Value("${igdb.search.refresh.max-concurrent:1}") int maxConcurrent) {
+        this.searchCache = ((CaffeineCache) cacheManager.getCache(CacheConfig.IGDB_GAME_SEARCH_CACHE)).getAsyncCache();
+        this.reactiveClient = reactiveClient;
+        this.searchCacheStore = searchCacheStore;
+        this.rateLimiter = rateLimiter;
+        this.ttlFraction = ttlFraction;
+        this.refreshPermits = new Semaphore(maxConcurrent);
+
+        this.refreshed = meterRegistry.counter(REFRESH_METRIC, "result", "success");
+        this.failed = meterRegistry.counter(REFRESH_METRIC, "result", "failure");
+        this.skipped = meterRegistry.counter(REFRESH_METRIC, "result", "skipped");
+        this.staleness = DistributionSummary.builder("gamerecs.igdb.search.staleness")
+            .description("Age of the IGDB search results served from the in-memory cache")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Records that a cached result was served and refreshes it in the background if it is due
+     *
+     * @param canonicalQuery the normalized query whose cached result was served
+     */
+    public void onHit(String canonicalQuery) {
+        Optional<Policy.FixedExpiration<Object, Object>> expiration =
+            searchCache.synchronous().policy().expireAfterWrite();
+        if (expiration.isEmpty()) {
+            return;
+        }
+        Optional<Duration> age = expiration.get().ageOf(canonicalQuery);
+        if (age.isEmpty()) {
+            return;
+        }
+        staleness.record(age.get().toMillis() / 1000.0);
+
+        long refreshAfterNanos = (long) (expiration.get().getExpiresAfter().toNanos() * ttlFraction);
+        if (age.get().toNanos() >= refreshAfterNanos) {
+            refresh(canonicalQuery);
+        }
+    }
+
+    private void refresh(String canonicalQuery) {
+        if (!refreshing.add(canonicalQuery)) {
+            return;
+        }
+        if (rateLimiter.backlogNanos() > 0 || !refreshPermits.tryAcquire()) {
+            // Try again on a later hit, when IGDB budget or a refresh slot is free
+            refreshing.remove(canonicalQuery);
+            skipped.increment();
+            return;
+        }
+
+        log.debug("Refreshing IGDB search '{}' ahead of expiry", canonicalQuery);
+        reactiveClient.searchGames(canonicalQuery, IGDBRateLimiter.Priority.BACKGROUND)
+            .publishOn(Schedulers.boundedElastic())
+            .doFinally(signal -> {
+                refreshPermits.release();
+                refreshing.remove(canonicalQuery);
+            })
+            .subscribe(
+                games -> {
+                    searchCache.put(canonicalQuery, CompletableFuture.completedFuture(games));
+                    searchCacheStore.save(canonicalQuery, games);
+                    refreshed.increment();
+                },
+                e -> {
+                    failed.increment();
+                    log.warn("Refresh of IGDB search '{}' failed, keeping the cached result", canonicalQuery, e);
+                });
+    }
+}
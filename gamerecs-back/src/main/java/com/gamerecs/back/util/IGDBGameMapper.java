@@ -0,0 +1,81 @@
+package com.gamerecs.back.util;
+
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.model.Game;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Utility class for turning raw IGDB game records into the values used by the application.
+ * Shared by the blocking and reactive IGDB clients so both produce identical DTOs.
+ */
+public final class IGDBGameMapper {
+
+    private IGDBGameMapper() {
+        // Private constructor to prevent instantiation
+        throw new UnsupportedOperationException("Utility class should not be instantiated");
+    }
+
+    /**
+     * Converts the raw IGDB fields of a game into the values used by the application:
+     * cover URL, release date and publisher/developer lists
+     *
+     * @param game the game to post-process
+     * @return the same game, for chaining
+     */
+    public static IGDBGameDTO postProcess(IGDBGameDTO game) {
+        // Convert cover URL
+        if (game.getCoverImage() != null) {
+            game.setCoverImageUrl(convertCoverUrl(game.getCoverImage().getUrl()));
+        }
+
+        // Convert release date to LocalDate
+        if (game.getReleaseDateTimestamp() != null) {
+            game.setReleaseDate(
+                Instant.ofEpochSecond(game.getReleaseDateTimestamp())
+                    .atZone(ZoneId.systemDefault())
+                    .toLocalDate()
+            );
+        }
+
+        // Process involved companies into publishers and developers
+        game.processInvolvedCompanies();
+        return game;
+    }
+
+    /**
+     * Builds a DTO from a game stored in the local catalog, with the fields held on the games table
+     *
+     * @param game the stored game
+     * @return a DTO carrying the stored id, title, description, release date and cover
+     */
+    public static IGDBGameDTO fromGame(Game game) {
+        IGDBGameDTO dto = new IGDBGameDTO();
+        dto.setIgdbId(game.getIgdbId());
+        dto.setTitle(game.getTitle());
+        dto.setDescription(game.getDescription());
+        dto.setReleaseDate(game.getReleaseDate());
+        dto.setCoverImageUrl(game.getCoverImageUrl());
+        return dto;
+    }
+
+    /**
+     * Converts the original cover URL from IGDB to the proper format
+     * Changes protocol-relative URLs to HTTPS and requests the larger cover size
+     *
+     * @param originalUrl the original URL from IGDB
+     * @return the converted URL, or null if the input is null
+     */
+    public static String convertCoverUrl(String originalUrl) {
+        if (originalUrl == null) {
+            return null;
+        }
+
+        String httpsUrl = originalUrl.startsWith("//")
+            ? "https:" + originalUrl
+            : originalUrl;
+
+        return httpsUrl.replace("t_thumb", "t_cover_big");
+    }
+} 
@@ -0,0 +1,81 @@
+package com.gamerecs.back.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for turning game search queries into one canonical form.
+ * The canonical query is used both as the search cache key and in the IGDB request,
+ * so queries that differ only in case, spacing or Unicode form share one cache entry.
+ */
+public final class SearchQueryNormalizer {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Characters that would end or escape the quoted IGDB search term
+     */
+    private static final Pattern QUOTING = Pattern.compile("[\"\\\\]");
+
+    private SearchQueryNormalizer() {
+        // Private constructor to prevent instantiation
+        throw new UnsupportedOperationException("Utility class should not be instantiated");
+    }
+
+    /**
+     * Normalizes a search query: applies Unicode NFKC normalization, drops quote and
+     * backslash characters, collapses whitespace runs to one space, trims and lower-cases.
+     *
+     * @param query the query to normalize
+     * @return the canonical query, or null if the input is null
+     */
+    public static String normalize(String query) {
+        if (query == null) {
+            return null;
+        }
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC);
+        normalized = QUOTING.matcher(normalized).replaceAll(" ");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").strip();
+        return normalized.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Lists the shorter queries made of the leading words of a canonical query, longest first.
+     * "zelda breath wild" yields "zelda breath" and "zelda".
+     *
+     * @param canonicalQuery a query already passed through normalize
+     * @return the word-boundary prefixes of the query, empty for a single word
+     */
+    public static List<String> wordPrefixes(String canonicalQuery) {
+        List<String> prefixes = new ArrayList<>();
+        int end = canonicalQuery.lastIndexOf(' ');
+        while (end > 0) {
+            prefixes.add(canonicalQuery.substring(0, end));
+            end = canonicalQuery.lastIndexOf(' ', end - 1);
+        }
+        return prefixes;
+    }
+
+    /**
+     * Checks whether a title contains every word of a canonical query
+     *
+     * @param title the title to check, in any form
+     * @param canonicalQuery a query already passed through normalize
+     * @return true if each query word occurs in the normalized title
+     */
+    public static boolean matchesAllWords(String title, String canonicalQuery) {
+        String normalizedTitle = normalize(title);
+        if (normalizedTitle == null) {
+            return false;
+        }
+        for (String word : canonicalQuery.split(" ")) {
+            if (!normalizedTitle.contains(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+} 
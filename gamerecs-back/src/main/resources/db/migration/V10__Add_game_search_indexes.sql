@@ -0,0 +1,14 @@
+-- Full-text and trigram indexes so game searches can be answered from the local catalog
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Titles weigh more than descriptions in the ranking; the column is maintained by Postgres on every write
+ALTER TABLE games ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'D')
+    ) STORED;
+
+CREATE INDEX idx_games_search_vector ON games USING GIN (search_vector);
+
+-- Matches misspelled and partial titles that full-text search misses
+CREATE INDEX idx_games_title_trgm ON games USING GIN (title gin_trgm_ops);
@@ -0,0 +1,25 @@
+-- Unlogged staging tables for the COPY bulk-load path of the game sync.
+-- Rows only live for the transaction of one load segment, so they skip the WAL.
+
+-- One row per incoming game; the relation columns stay NULL when the game carries no list for them
+CREATE UNLOGGED TABLE game_load_staging (
+    igdb_id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    release_date DATE,
+    cover_image_url VARCHAR(255),
+    updated_at TIMESTAMP NOT NULL,
+    genre_names TEXT[],
+    platform_names TEXT[],
+    publisher_ids BIGINT[],
+    publisher_names TEXT[],
+    developer_ids BIGINT[],
+    developer_names TEXT[]
+);
+
+-- Games written by the merge of the current segment
+CREATE UNLOGGED TABLE game_load_merged (
+    game_id BIGINT NOT NULL,
+    igdb_id BIGINT NOT NULL,
+    inserted BOOLEAN NOT NULL
+);
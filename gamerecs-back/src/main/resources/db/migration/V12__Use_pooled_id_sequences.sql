@@ -0,0 +1,11 @@
+-- Entities allocate ids from their serial sequences in blocks of 50 (pooled optimizer, allocationSize = 50),
+-- so Hibernate can batch inserts instead of reading back one generated key per row.
+-- The column defaults stay in place for plain SQL inserts: each such row takes the top id of a block of its own,
+-- which never overlaps a block handed out to Hibernate.
+ALTER SEQUENCE games_game_id_seq INCREMENT BY 50;
+ALTER SEQUENCE genres_genre_id_seq INCREMENT BY 50;
+ALTER SEQUENCE platforms_platform_id_seq INCREMENT BY 50;
+ALTER SEQUENCE publishers_publisher_id_seq INCREMENT BY 50;
+ALTER SEQUENCE developers_developer_id_seq INCREMENT BY 50;
+ALTER SEQUENCE game_libraries_library_id_seq INCREMENT BY 50;
+ALTER SEQUENCE users_user_id_seq INCREMENT BY 50;
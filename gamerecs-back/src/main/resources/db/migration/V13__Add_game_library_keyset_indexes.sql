@@ -0,0 +1,6 @@
+-- Keyset paging of a library reads the games in (title, game_id) or (release_date, game_id) order
+-- and starts after the last row of the previous page, so it walks these indexes instead of
+-- sorting the whole library and discarding an OFFSET of rows.
+-- Ascending B-tree order puts NULL release dates last, as the queries do.
+CREATE INDEX idx_games_title_game_id ON games(title, game_id);
+CREATE INDEX idx_games_release_date_game_id ON games(release_date, game_id);
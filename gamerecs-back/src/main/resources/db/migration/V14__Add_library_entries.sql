@@ -0,0 +1,31 @@
+-- Read model of the library list view: one row per game of a library, with the game columns
+-- the list shows and its genre and platform ids, so a page is read from this table alone.
+-- Written in the transactions that add or remove library games and that sync a game;
+-- removing a game from a library removes its entry with it.
+CREATE TABLE library_entries (
+    library_id BIGINT NOT NULL,
+    game_id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    release_date DATE,
+    cover_image_url VARCHAR(255),
+    genre_ids BIGINT[] NOT NULL DEFAULT '{}',
+    platform_ids BIGINT[] NOT NULL DEFAULT '{}',
+    PRIMARY KEY (library_id, game_id),
+    CONSTRAINT fk_library_entries_library_game
+        FOREIGN KEY (library_id, game_id)
+        REFERENCES library_games(library_id, game_id)
+        ON DELETE CASCADE
+);
+
+-- The keyset orders of the list view, within one library
+CREATE INDEX idx_library_entries_title ON library_entries(library_id, title, game_id);
+CREATE INDEX idx_library_entries_release_date ON library_entries(library_id, release_date, game_id);
+-- A synced game updates its entry in every library holding it
+CREATE INDEX idx_library_entries_game_id ON library_entries(game_id);
+
+INSERT INTO library_entries (library_id, game_id, title, release_date, cover_image_url, genre_ids, platform_ids)
+SELECT lg.library_id, g.game_id, g.title, g.release_date, g.cover_image_url,
+    ARRAY(SELECT gg.genre_id FROM game_genres gg WHERE gg.game_id = g.game_id ORDER BY gg.genre_id),
+    ARRAY(SELECT gp.platform_id FROM game_platforms gp WHERE gp.game_id = g.game_id ORDER BY gp.platform_id)
+FROM library_games lg
+JOIN games g ON g.game_id = lg.game_id;
@@ -0,0 +1,8 @@
+-- Catalog rows are mostly written with plain SQL (batch upserts and the COPY bulk load), where the column
+-- default takes one value of the sequence per row; with INCREMENT BY 50 from V12 each of those rows used up
+-- a block of 50 ids. Pooled allocation stays on the tables only Hibernate writes, users and game_libraries.
+ALTER SEQUENCE games_game_id_seq INCREMENT BY 1;
+ALTER SEQUENCE genres_genre_id_seq INCREMENT BY 1;
+ALTER SEQUENCE platforms_platform_id_seq INCREMENT BY 1;
+ALTER SEQUENCE publishers_publisher_id_seq INCREMENT BY 1;
+ALTER SEQUENCE developers_developer_id_seq INCREMENT BY 1;
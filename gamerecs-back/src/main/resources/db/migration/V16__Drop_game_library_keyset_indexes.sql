@@ -0,0 +1,7 @@
+-- The catalog-wide (title, game_id) and (release_date, game_id) indexes of V13 cannot serve a keyset page of
+-- one library: the library's games are reached through library_games, not by walking the whole catalog in
+-- order. The list view reads library_entries, whose (library_id, title, game_id) and
+-- (library_id, release_date, game_id) indexes of V14 serve that access pattern, so the V13 indexes only
+-- added write cost to every game upsert.
+DROP INDEX IF EXISTS idx_games_title_game_id;
+DROP INDEX IF EXISTS idx_games_release_date_game_id;
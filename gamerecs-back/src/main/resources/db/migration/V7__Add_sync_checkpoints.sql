@@ -0,0 +1,6 @@
+-- Create sync_checkpoints table to store the progress of long-running IGDB sync jobs
+CREATE TABLE sync_checkpoints (
+    job_name VARCHAR(50) PRIMARY KEY,
+    checkpoint_value BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+); 
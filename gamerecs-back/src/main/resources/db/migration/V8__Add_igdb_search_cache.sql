@@ -0,0 +1,12 @@
+-- Create igdb_search_cache table as the persistent second tier of the IGDB search cache
+CREATE TABLE igdb_search_cache (
+    search_query VARCHAR(255) PRIMARY KEY,
+    result BYTEA NOT NULL,
+    result_count INTEGER NOT NULL,
+    fetched_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    hit_count BIGINT NOT NULL DEFAULT 0
+);
+
+-- Startup pre-loads the most used entries that have not expired
+CREATE INDEX idx_igdb_search_cache_hit_count ON igdb_search_cache(hit_count DESC);
@@ -0,0 +1,5 @@
+-- Create igdb_rate_limiter_members table so running instances can split the IGDB rate limit between them
+CREATE TABLE igdb_rate_limiter_members (
+    instance_id VARCHAR(100) PRIMARY KEY,
+    last_seen TIMESTAMP NOT NULL
+);
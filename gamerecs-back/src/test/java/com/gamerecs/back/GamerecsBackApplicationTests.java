@@ -1,15 +1,28 @@
 package com.gamerecs.back;
 
+import com.gamerecs.back.service.IGDBDeltaSyncService;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.ActiveProfiles;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 @SpringBootTest
 @ActiveProfiles("test")
 class GamerecsBackApplicationTests {
 
+	@Autowired
+	private ApplicationContext applicationContext;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void deltaSyncIsNotScheduledInTests() {
+		assertEquals(0, applicationContext.getBeanNamesForType(IGDBDeltaSyncService.class).length);
+	}
+
 }
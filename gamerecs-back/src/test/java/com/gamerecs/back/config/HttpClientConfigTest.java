@@ -0,0 +1,129 @@
+package com.gamerecs.back.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the pooled client against a local server standing in for IGDB, next to the
+ * previous plain RestTemplate, and compares connections opened, bytes on the wire and latency
+ */
+class HttpClientConfigTest {
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientConfigTest.class);
+
+    private static final int REQUESTS = 20;
+
+    private HttpServer server;
+    private String body;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StringBuilder games = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            games.append(i == 0 ? "" : ",").append("""
+                {"id": %d, "name": "Game %d", "summary": "A game about exploring a large world", "platforms": [{"id": 6, "name": "PC"}]}"""
+                .formatted(i, i));
+        }
+        body = games.append("]").toString();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v4/games", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            acceptEncodings.add(String.valueOf(acceptEncoding));
+            byte[] response = body.getBytes(StandardCharsets.UTF_8);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                response = gzip(response);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+            bytesSent.addAndGet(response.length);
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Pooled client should reuse connections and negotiate gzip")
+    void shouldReuseConnectionsAndNegotiateGzip() {
+        RestTemplate pooled = new RestTemplate(new ReactorClientHttpRequestFactory(HttpClientConfig.createHttpClient(
+            "test", 2, Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(30), false)));
+
+        long nanos = run(pooled);
+
+        logger.info("Pooled client: {} requests, {} connections, {} bytes on the wire, {} ms",
+            REQUESTS, clientPorts.size(), bytesSent.get(), TimeUnit.NANOSECONDS.toMillis(nanos));
+        // A connection may still be on its way back to the pool when the next request starts
+        assertTrue(clientPorts.size() <= 2, "requests should share the pooled kept-alive connections");
+        assertTrue(acceptEncodings.stream().allMatch(encoding -> encoding.contains("gzip")));
+        assertTrue(bytesSent.get() < (long) REQUESTS * body.length() / 4, "responses should arrive compressed");
+    }
+
+    @Test
+    @DisplayName("Pooled client should send fewer bytes than the plain RestTemplate")
+    void shouldTransferFewerBytesThanPlainRestTemplate() {
+        long plainNanos = run(new RestTemplate());
+        long plainBytes = bytesSent.getAndSet(0);
+
+        RestTemplate pooled = new RestTemplate(new ReactorClientHttpRequestFactory(HttpClientConfig.createHttpClient(
+            "test", 2, Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(30), false)));
+        long pooledNanos = run(pooled);
+        long pooledBytes = bytesSent.get();
+
+        // Latency on loopback says little about a real upstream, so it is only reported
+        logger.info("{} repeated requests: plain RestTemplate {} bytes in {} ms, pooled client {} bytes in {} ms",
+            REQUESTS, plainBytes, TimeUnit.NANOSECONDS.toMillis(plainNanos),
+            pooledBytes, TimeUnit.NANOSECONDS.toMillis(pooledNanos));
+        assertTrue(pooledBytes < plainBytes);
+    }
+
+    private long run(RestTemplate restTemplate) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v4/games";
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertEquals(body, restTemplate.getForObject(url, String.class));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+} 
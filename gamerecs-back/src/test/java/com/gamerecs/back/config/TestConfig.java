@@ -56,7 +56,7 @@ public class TestConfig {
     public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         cacheManager.setCaffeine(caffeine);
-        cacheManager.setCacheNames(java.util.List.of(CacheConfig.IGDB_GAME_SEARCH_CACHE));
+        cacheManager.setCacheNames(java.util.List.of(CacheConfig.IGDB_GAME_SEARCH_CACHE, CacheConfig.IGDB_GAME_DETAILS_CACHE));
         return cacheManager;
     }
 
@@ -1,6 +1,8 @@
 package com.gamerecs.back.controller;
 
+import com.gamerecs.back.dto.LibraryEntryPage;
 import com.gamerecs.back.model.GameLibrary;
+import com.gamerecs.back.model.LibraryEntry;
 import com.gamerecs.back.model.User;
 import com.gamerecs.back.security.CustomUserDetails;
 import com.gamerecs.back.service.GameLibraryService;
@@ -20,12 +22,20 @@ import org.springframework.web.server.ResponseStatusException;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 
 import com.gamerecs.back.model.PaginatedGameLibraryResponse;
@@ -171,4 +181,109 @@ class GameLibraryControllerTest extends BaseIntegrationTest {
                .andExpect(status().isBadRequest())
                .andExpect(jsonPath("$.message").value("Invalid pagination parameters"));
     }
+
+    @Test
+    void testGetGameLibrary_WithCursor() throws Exception {
+        // Arrange: Prepare a keyset page without a total
+        PaginatedGameLibraryResponse dummyResponse = new PaginatedGameLibraryResponse();
+        dummyResponse.setLibraryId(1L);
+        dummyResponse.setTotalPages(-1);
+        dummyResponse.setTotalElements(-1L);
+        dummyResponse.setPageSize(10);
+        dummyResponse.setGames(testLibrary.getGames().stream().toList());
+        dummyResponse.setNextCursor("next");
+
+        when(gameLibraryService.getLibraryPageAfter(eq(TEST_USER_ID),
+               eq("releaseDate"), eq(""), eq("previous"), eq(10), eq(false)))
+               .thenReturn(dummyResponse);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/game-library/paginated")
+                .with(authentication(authentication))
+                .param("sortBy", "releaseDate")
+                .param("cursor", "previous")
+                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.nextCursor").value("next"))
+               .andExpect(jsonPath("$.totalElements").value(-1));
+        verify(gameLibraryService, never()).getPaginatedLibraryForUser(any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testGetGameLibrary_WithInvalidCursor() throws Exception {
+        when(gameLibraryService.getLibraryPageAfter(eq(TEST_USER_ID),
+               eq("title"), eq(""), eq("garbage"), eq(10), eq(true)))
+               .thenThrow(new IllegalArgumentException("Invalid library cursor"));
+
+        mockMvc.perform(get("/api/game-library/paginated")
+                .with(authentication(authentication))
+                .param("cursor", "garbage")
+                .param("includeTotal", "true")
+                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isBadRequest())
+               .andExpect(jsonPath("$.message").value("Invalid library cursor"));
+    }
+
+    @Test
+    void testGetGameLibraryEntries_Success() throws Exception {
+        LibraryEntry entry = new LibraryEntry(1L, 7L, "Hades", null, "https://example.com/hades.jpg",
+            List.of(3L, 5L), List.of(6L));
+        when(gameLibraryService.getLibraryEntries(TEST_USER_ID, "title", "Roguelike", null, 20))
+               .thenReturn(new LibraryEntryPage(1L, List.of(entry), 20, null));
+
+        mockMvc.perform(get("/api/game-library/entries")
+                .with(authentication(authentication))
+                .param("filterByGenre", "Roguelike")
+                .param("size", "20")
+                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.libraryId").value(1))
+               .andExpect(jsonPath("$.entries[0].title").value("Hades"))
+               .andExpect(jsonPath("$.entries[0].genreIds[1]").value(5))
+               .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void testGetGameLibraryEntries_InvalidParameters() throws Exception {
+        when(gameLibraryService.getLibraryEntries(TEST_USER_ID, "title", "", "garbage", 10))
+               .thenThrow(new IllegalArgumentException("Invalid library cursor"));
+
+        mockMvc.perform(get("/api/game-library/entries")
+                .with(authentication(authentication))
+                .param("size", "0"))
+               .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/game-library/entries")
+                .with(authentication(authentication))
+                .param("cursor", "garbage"))
+               .andExpect(status().isBadRequest())
+               .andExpect(jsonPath("$.message").value("Invalid library cursor"));
+    }
+
+    @Test
+    void testAddAndRemoveLibraryGame() throws Exception {
+        when(gameLibraryService.addGameToLibrary(TEST_USER_ID, 7L)).thenReturn(true);
+
+        mockMvc.perform(post("/api/game-library/games/7")
+                .with(authentication(authentication))
+                .with(csrf()))
+               .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/game-library/games/7")
+                .with(authentication(authentication))
+                .with(csrf()))
+               .andExpect(status().isNoContent());
+
+        verify(gameLibraryService).addGameToLibrary(TEST_USER_ID, 7L);
+        verify(gameLibraryService).removeGameFromLibrary(TEST_USER_ID, 7L);
+    }
+
+    @Test
+    void testAddLibraryGame_GameNotFound() throws Exception {
+        when(gameLibraryService.addGameToLibrary(TEST_USER_ID, 7L))
+               .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+
+        mockMvc.perform(post("/api/game-library/games/7")
+                .with(authentication(authentication))
+                .with(csrf()))
+               .andExpect(status().isNotFound());
+    }
 } 
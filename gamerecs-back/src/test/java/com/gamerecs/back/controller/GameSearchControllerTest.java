@@ -0,0 +1,109 @@
+package com.gamerecs.back.controller;
+
+import com.gamerecs.back.dto.GameCompletion;
+import com.gamerecs.back.dto.GameSearchPage;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.security.CustomUserDetails;
+import com.gamerecs.back.service.GameSearchService;
+import com.gamerecs.back.service.GameTitleIndex;
+import com.gamerecs.back.util.BaseIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class GameSearchControllerTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private GameSearchService gameSearchService;
+
+    @MockBean
+    private GameTitleIndex gameTitleIndex;
+
+    private Authentication authentication;
+
+    @BeforeEach
+    void setUp() {
+        CustomUserDetails userDetails = new CustomUserDetails("testuser", "password", true, 1L);
+        authentication = new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Test
+    void testSearchGames() throws Exception {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setIgdbId(1022L);
+        game.setTitle("The Legend of Zelda");
+        when(gameSearchService.search("zelda", null, 20))
+            .thenReturn(new GameSearchPage(List.of(game), "next", GameSearchPage.Source.LOCAL));
+
+        mockMvc.perform(get("/api/games/search")
+                .with(authentication(authentication))
+                .param("query", "zelda"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.games[0].name").value("The Legend of Zelda"))
+            .andExpect(jsonPath("$.nextCursor").value("next"))
+            .andExpect(jsonPath("$.source").value("LOCAL"));
+    }
+
+    @Test
+    void testSearchGamesRejectsInvalidCursorAndSize() throws Exception {
+        when(gameSearchService.search("zelda", "bad", 20)).thenThrow(new IllegalArgumentException("Invalid search cursor"));
+
+        mockMvc.perform(get("/api/games/search")
+                .with(authentication(authentication))
+                .param("query", "zelda")
+                .param("cursor", "bad"))
+            .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/games/search")
+                .with(authentication(authentication))
+                .param("query", "zelda")
+                .param("size", "500"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCompleteTitle() throws Exception {
+        when(gameTitleIndex.complete("zel bre", 5))
+            .thenReturn(List.of(new GameCompletion(7346L, "The Legend of Zelda: Breath of the Wild")));
+
+        mockMvc.perform(get("/api/games/typeahead")
+                .with(authentication(authentication))
+                .param("prefix", "zel bre")
+                .param("limit", "5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].igdbId").value(7346))
+            .andExpect(jsonPath("$[0].title").value("The Legend of Zelda: Breath of the Wild"));
+
+        mockMvc.perform(get("/api/games/typeahead")
+                .with(authentication(authentication))
+                .param("prefix", "zel")
+                .param("limit", "100"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSearchGamesRequiresAuthentication() throws Exception {
+        mockMvc.perform(get("/api/games/search").param("query", "zelda"))
+            .andExpect(status().isUnauthorized());
+    }
+} 
@@ -2,7 +2,11 @@ package com.gamerecs.back.controller;
 
 import com.gamerecs.back.service.IGDBClientService;
 import com.gamerecs.back.service.GameSyncService;
+import com.gamerecs.back.service.IGDBBackfillService;
+import com.gamerecs.back.service.IGDBDumpImportService;
+import com.gamerecs.back.service.IGDBGameDetailsService;
 import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.dto.IGDBSearchResult;
 import com.gamerecs.back.service.JwtService;
 import com.gamerecs.back.security.CustomUserDetails;
 import com.gamerecs.back.util.BaseIntegrationTest;
@@ -15,12 +19,18 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.web.servlet.MockMvc;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import com.gamerecs.back.model.Game;
+import com.gamerecs.back.dto.GameSyncResult;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
@@ -36,6 +46,15 @@ class IGDBControllerTest extends BaseIntegrationTest {
     @MockBean
     private GameSyncService gameSyncService;
 
+    @MockBean
+    private IGDBBackfillService igdbBackfillService;
+
+    @MockBean
+    private IGDBGameDetailsService igdbGameDetailsService;
+
+    @MockBean
+    private IGDBDumpImportService igdbDumpImportService;
+
     @MockBean
     private JwtService jwtService;
 
@@ -70,8 +89,10 @@ class IGDBControllerTest extends BaseIntegrationTest {
         List<IGDBGameDTO> mockResponse = Arrays.asList(sampleGame);
 
         // Mock service responses
-        when(igdbClientService.searchGames("Halo")).thenReturn(mockResponse);
-        when(gameSyncService.syncGamesFromSearch(mockResponse)).thenReturn(List.of(new Game()));
+        when(igdbClientService.searchGamesWithStatus("Halo"))
+            .thenReturn(new IGDBSearchResult(mockResponse, IGDBSearchResult.Source.IGDB));
+        when(igdbGameDetailsService.withDetails(mockResponse)).thenReturn(mockResponse);
+        when(gameSyncService.syncGamesInBatches(mockResponse)).thenReturn(GameSyncResult.builder().processed(1).inserted(1).build());
 
         // Perform the request and verify response
         mockMvc.perform(post("/api/igdb/update")
@@ -83,15 +104,57 @@ class IGDBControllerTest extends BaseIntegrationTest {
             .andExpect(content().contentType(MediaType.APPLICATION_JSON))
             .andExpect(jsonPath("$.message").value("IGDB update completed and data persisted."))
             .andExpect(jsonPath("$.data").isArray())
+            .andExpect(jsonPath("$.data.length()").value(1))
+            .andExpect(jsonPath("$.degraded").value(false));
+    }
+
+    @Test
+    void testTriggerIGDBUpdateWhileIGDBIsUnavailable() throws Exception {
+        List<IGDBGameDTO> staleResponse = List.of(sampleGame);
+        when(igdbClientService.searchGamesWithStatus("Halo"))
+            .thenReturn(new IGDBSearchResult(staleResponse, IGDBSearchResult.Source.STALE_CACHE));
+
+        mockMvc.perform(post("/api/igdb/update")
+                .with(csrf())
+                .with(authentication(authentication))
+                .contentType(MediaType.APPLICATION_JSON)
+                .param("query", "Halo"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.degraded").value(true))
             .andExpect(jsonPath("$.data.length()").value(1));
+
+        // Fallback results are not synced
+        verify(gameSyncService, never()).syncGamesInBatches(anyList());
+    }
+
+    @Test
+    void testTriggerIGDBUpdateWhenGameDetailsFailToLoad() throws Exception {
+        List<IGDBGameDTO> listings = List.of(sampleGame);
+        when(igdbClientService.searchGamesWithStatus("Halo"))
+            .thenReturn(new IGDBSearchResult(listings, IGDBSearchResult.Source.IGDB));
+        when(igdbGameDetailsService.withDetails(listings)).thenThrow(new IllegalStateException("IGDB down"));
+
+        mockMvc.perform(post("/api/igdb/update")
+                .with(csrf())
+                .with(authentication(authentication))
+                .contentType(MediaType.APPLICATION_JSON)
+                .param("query", "Halo"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.message").value("IGDB is unavailable, showing saved results. Nothing was persisted."))
+            .andExpect(jsonPath("$.degraded").value(true))
+            .andExpect(jsonPath("$.data.length()").value(1));
+
+        verify(gameSyncService, never()).syncGamesInBatches(anyList());
     }
 
     @Test
     void testTriggerIGDBUpdateWithEmptyResponse() throws Exception {
         // Mock empty response from service
         List<IGDBGameDTO> emptyResponse = List.of();
-        when(igdbClientService.searchGames("NonExistentGame")).thenReturn(emptyResponse);
-        when(gameSyncService.syncGamesFromSearch(emptyResponse)).thenReturn(List.of());
+        when(igdbClientService.searchGamesWithStatus("NonExistentGame"))
+            .thenReturn(new IGDBSearchResult(emptyResponse, IGDBSearchResult.Source.IGDB));
+        when(igdbGameDetailsService.withDetails(emptyResponse)).thenReturn(emptyResponse);
+        when(gameSyncService.syncGamesInBatches(emptyResponse)).thenReturn(new GameSyncResult());
 
         // Perform the request and verify response
         mockMvc.perform(post("/api/igdb/update")
@@ -114,5 +177,85 @@ class IGDBControllerTest extends BaseIntegrationTest {
                 .param("query", "Halo"))
             .andExpect(status().isUnauthorized());
     }
+
+    @Test
+    void testGetGameDetails() throws Exception {
+        sampleGame.setIgdbId(7L);
+        when(igdbGameDetailsService.getGames(List.of(7L, 8L))).thenReturn(List.of(sampleGame));
+
+        mockMvc.perform(get("/api/igdb/games")
+                .with(authentication(authentication))
+                .param("ids", "7,8"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.length()").value(1))
+            .andExpect(jsonPath("$.data[0].id").value(7));
+    }
+
+    @Test
+    void testGetGameDetailsWhileIGDBIsUnavailable() throws Exception {
+        when(igdbGameDetailsService.getGames(List.of(7L))).thenThrow(new IllegalStateException("IGDB down"));
+
+        mockMvc.perform(get("/api/igdb/games")
+                .with(authentication(authentication))
+                .param("ids", "7"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(jsonPath("$.degraded").value(true))
+            .andExpect(jsonPath("$.data.length()").value(0));
+    }
+
+    @Test
+    void testStartBackfillAsAdmin() throws Exception {
+        when(igdbBackfillService.startBackfill()).thenReturn(true);
+
+        mockMvc.perform(post("/api/igdb/backfill")
+                .with(csrf())
+                .with(authentication(adminAuthentication())))
+            .andExpect(status().isAccepted());
+    }
+
+    @Test
+    void testStartBackfillWhileRunning() throws Exception {
+        when(igdbBackfillService.startBackfill()).thenReturn(false);
+
+        mockMvc.perform(post("/api/igdb/backfill")
+                .with(csrf())
+                .with(authentication(adminAuthentication())))
+            .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testStartDumpImportAsAdmin() throws Exception {
+        Path dump = Path.of("dumps", "games.ndjson.gz");
+        when(igdbDumpImportService.resolveDump("games.ndjson.gz")).thenReturn(dump);
+        when(igdbDumpImportService.startImport(dump)).thenReturn(true);
+
+        mockMvc.perform(post("/api/igdb/import")
+                .with(csrf())
+                .with(authentication(adminAuthentication()))
+                .param("file", "games.ndjson.gz"))
+            .andExpect(status().isAccepted());
+    }
+
+    @Test
+    void testStartDumpImportRejectsUnknownFile() throws Exception {
+        when(igdbDumpImportService.resolveDump("../secrets.json"))
+            .thenThrow(new IllegalArgumentException("Dump files must be inside the dump directory"));
+
+        mockMvc.perform(post("/api/igdb/import")
+                .with(csrf())
+                .with(authentication(adminAuthentication()))
+                .param("file", "../secrets.json"))
+            .andExpect(status().isBadRequest());
+
+        verify(igdbDumpImportService, never()).startImport(any());
+    }
+
+    private Authentication adminAuthentication() {
+        CustomUserDetails adminDetails = new CustomUserDetails("admin", "password", true, TEST_USER_ID);
+        return new UsernamePasswordAuthenticationToken(
+            adminDetails,
+            null,
+            Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN"))
+        );
+    }
 } 
- 
\ No newline at end of file
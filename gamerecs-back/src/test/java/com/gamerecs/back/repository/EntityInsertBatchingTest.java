@@ -0,0 +1,59 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.User;
+import com.gamerecs.back.util.BaseIntegrationTest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the JDBC statements Hibernate prepares to persist a batch of new entities, for a table whose
+ * ids are allocated from a pooled sequence
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class EntityInsertBatchingTest extends BaseIntegrationTest {
+    private static final Logger logger = LoggerFactory.getLogger(EntityInsertBatchingTest.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testNewUsersAreInsertedInJdbcBatches() {
+        int users = 200;
+        List<User> newUsers = new ArrayList<>();
+        for (int i = 1; i <= users; i++) {
+            newUsers.add(User.builder()
+                .username("batchedUser" + i)
+                .email("batched-user-" + i + "@example.com")
+                .passwordHash("password123")
+                .build());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        userRepository.saveAll(newUsers);
+        entityManager.flush();
+
+        long statements = statistics.getPrepareStatementCount();
+        logger.info("Persisting {} users prepared {} JDBC statements", users, statements);
+        assertEquals(users, statistics.getEntityInsertCount());
+        assertTrue(statements <= users / 10, "persisting " + users + " users took " + statements + " statements");
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.repository.GameBatchRepository.GameRelation;
+import com.gamerecs.back.repository.GameBatchRepository.WrittenGame;
+import com.gamerecs.back.util.PostgresTestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs overlapping syncs of the same games against a real Postgres server, which the embedded
+ * test database cannot stand in for: ON CONFLICT, row locks and deadlock detection are what is tested.
+ * Runs against the scratch database of PostgresTestDatabase; the rows written are removed afterwards.
+ */
+@EnabledIfEnvironmentVariable(named = PostgresTestDatabase.URL_VARIABLE, matches = ".+")
+class GameBatchRepositoryConcurrencyTest {
+    private static final Logger logger = LoggerFactory.getLogger(GameBatchRepositoryConcurrencyTest.class);
+
+    private static final long FIRST_IGDB_ID = 900_000_000L;
+    private static final int GAMES = 500;
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;
+    private static final String GENRE_PREFIX = "Concurrency Test Genre ";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private GameBatchRepository gameBatchRepository;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = PostgresTestDatabase.dataSource();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        gameBatchRepository = new GameBatchRepository(jdbcTemplate, new NamedParameterJdbcTemplate(dataSource));
+        cleanUp();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        PostgresTestDatabase.deleteGames(jdbcTemplate, FIRST_IGDB_ID, FIRST_IGDB_ID + GAMES);
+        jdbcTemplate.update("DELETE FROM genres WHERE name LIKE ?", GENRE_PREFIX + "%");
+    }
+
+    @Test
+    void testOverlappingSyncsOfTheSameGamesAllSucceed() throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> runs = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int thread = 0; thread < THREADS; thread++) {
+            Random random = new Random(thread);
+            runs.add(workers.submit(() -> {
+                start.await();
+                for (int round = 0; round < ROUNDS; round++) {
+                    // Every worker writes every game in its own order, with its own update times
+                    List<Game> games = new ArrayList<>();
+                    for (int i = 0; i < GAMES; i++) {
+                        games.add(game(FIRST_IGDB_ID + i, LocalDateTime.of(2024, 1, 1, 0, 0)
+                            .plusMinutes(random.nextInt(10_000))));
+                    }
+                    Collections.shuffle(games, random);
+                    List<String> genres = List.of(GENRE_PREFIX + random.nextInt(5), GENRE_PREFIX + random.nextInt(5));
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> syncChunk(games, genres));
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                        logger.warn("Concurrent sync failed", e);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> run : runs) {
+            run.get(5, TimeUnit.MINUTES);
+        }
+        workers.shutdown();
+
+        logger.info("{} overlapping syncs of {} games finished in {} ms with {} failures",
+            THREADS * ROUNDS, GAMES, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin), failures.get());
+        assertEquals(0, failures.get());
+        assertEquals(GAMES, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM games WHERE igdb_id >= ? AND igdb_id < ?", Integer.class,
+            FIRST_IGDB_ID, FIRST_IGDB_ID + GAMES));
+    }
+
+    /**
+     * The write sequence of a batch sync chunk: dimensions, games, then join rows
+     */
+    private void syncChunk(List<Game> games, List<String> genres) {
+        gameBatchRepository.insertGenres(genres);
+        Set<Long> genreIds = Set.copyOf(jdbcTemplate.queryForList(
+            "SELECT genre_id FROM genres WHERE name IN (?, ?)", Long.class, genres.get(0), genres.get(1)));
+        Map<Long, WrittenGame> written = gameBatchRepository.upsertGames(games);
+        Map<Long, Set<Long>> links = written.values().stream()
+            .collect(Collectors.toMap(WrittenGame::gameId, game -> genreIds));
+        gameBatchRepository.insertRelations(GameRelation.GENRES, links);
+    }
+
+    private static Game game(long igdbId, LocalDateTime updatedAt) {
+        Game game = new Game();
+        game.setIgdbId(igdbId);
+        game.setTitle("Concurrency Test Game " + igdbId);
+        game.setUpdatedAt(updatedAt);
+        return game;
+    }
+} 
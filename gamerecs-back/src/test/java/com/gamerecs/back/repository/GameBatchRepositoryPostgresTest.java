@@ -0,0 +1,102 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.repository.GameBatchRepository.GameRelation;
+import com.gamerecs.back.repository.GameBatchRepository.WrittenGame;
+import com.gamerecs.back.util.PostgresTestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the ON CONFLICT statements of GameBatchRepository against the scratch database of
+ * PostgresTestDatabase; the embedded test database only ever runs the portable fallback.
+ */
+@EnabledIfEnvironmentVariable(named = PostgresTestDatabase.URL_VARIABLE, matches = ".+")
+class GameBatchRepositoryPostgresTest {
+
+    private static final long FIRST_IGDB_ID = 910_000_000L;
+    private static final String GENRE_PREFIX = "Upsert Test Genre ";
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private GameBatchRepository gameBatchRepository;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = PostgresTestDatabase.dataSource();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        gameBatchRepository = new GameBatchRepository(jdbcTemplate, new NamedParameterJdbcTemplate(dataSource));
+        cleanUp();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        PostgresTestDatabase.deleteGames(jdbcTemplate, FIRST_IGDB_ID, FIRST_IGDB_ID + 10);
+        jdbcTemplate.update("DELETE FROM genres WHERE name LIKE ?", GENRE_PREFIX + "%");
+    }
+
+    @Test
+    void testUpsertReportsInsertsAndNewerUpdatesAndSkipsStaleCopies() {
+        Map<Long, WrittenGame> inserted = gameBatchRepository.upsertGames(List.of(
+            game(FIRST_IGDB_ID, "Outer Wilds", UPDATED_AT),
+            game(FIRST_IGDB_ID + 1, "Tunic", UPDATED_AT)));
+
+        Map<Long, WrittenGame> rewritten = gameBatchRepository.upsertGames(List.of(
+            game(FIRST_IGDB_ID, "Outer Wilds: Archaeologist Edition", UPDATED_AT.plusDays(1)),
+            game(FIRST_IGDB_ID + 1, "Tunic (stale)", UPDATED_AT.minusDays(1)),
+            game(FIRST_IGDB_ID + 2, "Chicory", null)));
+
+        assertTrue(inserted.values().stream().allMatch(WrittenGame::inserted));
+        assertEquals(Set.of(FIRST_IGDB_ID, FIRST_IGDB_ID + 2), rewritten.keySet(), "the stale copy is not written");
+        assertFalse(rewritten.get(FIRST_IGDB_ID).inserted());
+        assertEquals(inserted.get(FIRST_IGDB_ID).gameId(), rewritten.get(FIRST_IGDB_ID).gameId());
+        assertTrue(rewritten.get(FIRST_IGDB_ID + 2).inserted());
+        assertEquals("Outer Wilds: Archaeologist Edition", title(FIRST_IGDB_ID));
+        assertEquals("Tunic", title(FIRST_IGDB_ID + 1));
+        assertEquals(LocalDate.of(2020, 1, 1), jdbcTemplate.queryForObject(
+            "SELECT release_date FROM games WHERE igdb_id = ?", LocalDate.class, FIRST_IGDB_ID));
+    }
+
+    @Test
+    void testDimensionAndJoinRowsWrittenTwiceAreKeptOnce() {
+        Long gameId = gameBatchRepository.upsertGames(List.of(game(FIRST_IGDB_ID, "Celeste", UPDATED_AT)))
+            .get(FIRST_IGDB_ID).gameId();
+
+        gameBatchRepository.insertGenres(List.of(GENRE_PREFIX + "Platformer"));
+        gameBatchRepository.insertGenres(List.of(GENRE_PREFIX + "Platformer", GENRE_PREFIX + "Indie"));
+        List<Long> genreIds = jdbcTemplate.queryForList(
+            "SELECT genre_id FROM genres WHERE name LIKE ? ORDER BY name", Long.class, GENRE_PREFIX + "%");
+        gameBatchRepository.insertRelations(GameRelation.GENRES, Map.of(gameId, Set.of(genreIds.get(0))));
+        gameBatchRepository.insertRelations(GameRelation.GENRES, Map.of(gameId, Set.copyOf(genreIds)));
+
+        assertEquals(2, genreIds.size());
+        assertEquals(Map.of(gameId, Set.copyOf(genreIds)),
+            gameBatchRepository.findRelations(GameRelation.GENRES, List.of(gameId)));
+    }
+
+    private String title(long igdbId) {
+        return jdbcTemplate.queryForObject("SELECT title FROM games WHERE igdb_id = ?", String.class, igdbId);
+    }
+
+    private static Game game(long igdbId, String title, LocalDateTime updatedAt) {
+        Game game = new Game();
+        game.setIgdbId(igdbId);
+        game.setTitle(title);
+        game.setReleaseDate(LocalDate.of(2020, 1, 1));
+        game.setUpdatedAt(updatedAt);
+        return game;
+    }
+} 
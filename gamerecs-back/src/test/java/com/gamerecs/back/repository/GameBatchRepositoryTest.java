@@ -0,0 +1,125 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.dto.IGDBCompanyDTO;
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.model.Genre;
+import com.gamerecs.back.repository.GameBatchRepository.GameRelation;
+import com.gamerecs.back.repository.GameBatchRepository.WrittenGame;
+import com.gamerecs.back.util.BaseIntegrationTest;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameBatchRepositoryTest extends BaseIntegrationTest {
+
+    @Autowired
+    private GameBatchRepository gameBatchRepository;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private PublisherRepository publisherRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Should insert games and resolve their IDs")
+    void testUpsertInsertsGamesAndResolvesIds() {
+        Map<Long, WrittenGame> written = gameBatchRepository.upsertGames(
+            List.of(createGame(10L, "First"), createGame(20L, "Second")));
+
+        Map<Long, Long> ids = gameBatchRepository.findGameIdsByIgdbIds(List.of(10L, 20L, 30L));
+
+        assertEquals(2, ids.size());
+        assertEquals(new WrittenGame(ids.get(20L), true), written.get(20L));
+        assertEquals("Second", gameRepository.findById(ids.get(20L)).orElseThrow().getTitle());
+    }
+
+    @Test
+    @DisplayName("Should update only games whose stored copy is older")
+    void testUpsertUpdatesOnlyNewerGames() {
+        gameBatchRepository.upsertGames(List.of(createGame(10L, "First"), createGame(20L, "Second")));
+        Long gameId = gameBatchRepository.findGameIdsByIgdbIds(List.of(10L)).get(10L);
+
+        Game newer = createGame(10L, "First (Updated)");
+        newer.setUpdatedAt(newer.getUpdatedAt().plusDays(1));
+        Game stale = createGame(20L, "Second (Stale)");
+        stale.setUpdatedAt(stale.getUpdatedAt().minusDays(1));
+        Map<Long, WrittenGame> written = gameBatchRepository.upsertGames(List.of(newer, stale));
+
+        assertEquals(Map.of(10L, new WrittenGame(gameId, false)), written);
+        entityManager.clear();
+        assertEquals("First (Updated)", gameRepository.findById(gameId).orElseThrow().getTitle());
+        assertEquals("Second", gameRepository.findByIgdbId(20L).orElseThrow().getTitle());
+    }
+
+    @Test
+    @DisplayName("Should keep the latest copy of a game listed twice")
+    void testUpsertKeepsLatestDuplicate() {
+        Game older = createGame(10L, "Older");
+        Game latest = createGame(10L, "Latest");
+        latest.setUpdatedAt(latest.getUpdatedAt().plusHours(1));
+
+        Map<Long, WrittenGame> written = gameBatchRepository.upsertGames(List.of(latest, older));
+
+        assertEquals(1, written.size());
+        entityManager.clear();
+        assertEquals("Latest", gameRepository.findByIgdbId(10L).orElseThrow().getTitle());
+    }
+
+    @Test
+    @DisplayName("Should insert dimensions and replace join rows")
+    void testInsertDimensionsAndRelations() {
+        Long gameId = gameBatchRepository.upsertGames(List.of(createGame(10L, "First"))).get(10L).gameId();
+
+        IGDBCompanyDTO company = new IGDBCompanyDTO();
+        company.setIgdbCompanyId(99L);
+        company.setName("Studio");
+        gameBatchRepository.insertPublishers(List.of(company));
+        gameBatchRepository.insertGenres(List.of("RPG", "Strategy"));
+
+        List<Genre> genres = genreRepository.findAllByNameIn(List.of("RPG", "Strategy"));
+        Long publisherId = publisherRepository.findByIgdbCompanyId(99L).orElseThrow().getPublisherId();
+
+        int genreRows = gameBatchRepository.insertRelations(GameRelation.GENRES,
+            Map.of(gameId, Set.of(genres.get(0).getGenreId(), genres.get(1).getGenreId())));
+        gameBatchRepository.insertRelations(GameRelation.PUBLISHERS, Map.of(gameId, Set.of(publisherId)));
+
+        assertEquals(2, genreRows);
+        entityManager.clear();
+        Game stored = gameRepository.findById(gameId).orElseThrow();
+        assertEquals(2, stored.getGenres().size());
+        assertEquals(1, stored.getPublishers().size());
+
+        Long removedGenreId = genres.get(0).getGenreId();
+        int deleted = gameBatchRepository.deleteRelationRows(GameRelation.GENRES, Map.of(gameId, Set.of(removedGenreId)));
+
+        assertEquals(1, deleted);
+        assertEquals(Map.of(gameId, Set.of(genres.get(1).getGenreId())),
+            gameBatchRepository.findRelations(GameRelation.GENRES, List.of(gameId)));
+        assertTrue(gameBatchRepository.findRelations(GameRelation.PLATFORMS, List.of(gameId)).isEmpty());
+    }
+
+    private Game createGame(Long igdbId, String title) {
+        Game game = new Game();
+        game.setIgdbId(igdbId);
+        game.setTitle(title);
+        game.setReleaseDate(LocalDate.of(2020, 1, 1));
+        game.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        return game;
+    }
+} 
@@ -0,0 +1,165 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.dto.GameSyncResult;
+import com.gamerecs.back.dto.IGDBCompanyDTO;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.dto.IGDBGenreDTO;
+import com.gamerecs.back.dto.IGDBPlatformDTO;
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.util.PostgresTestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the COPY bulk-load path against the scratch database of PostgresTestDatabase: staging,
+ * deduplication, the merge into games and the add/remove of join rows
+ */
+@EnabledIfEnvironmentVariable(named = PostgresTestDatabase.URL_VARIABLE, matches = ".+")
+class GameCopyLoaderPostgresTest {
+
+    private static final long FIRST_IGDB_ID = 920_000_000L;
+    private static final long FIRST_COMPANY_ID = 920_000_000L;
+    private static final String PREFIX = "Copy Load Test ";
+    private static final long UPDATED_AT = 1_700_000_000L;
+
+    private JdbcTemplate jdbcTemplate;
+    private GameCopyLoader loader;
+    private List<Game> written;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = PostgresTestDatabase.dataSource();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        loader = new GameCopyLoader(dataSource, jdbcTemplate, transactionTemplate, new SimpleMeterRegistry(),
+            true, 1, 2);
+        written = new ArrayList<>();
+        cleanUp();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        PostgresTestDatabase.deleteGames(jdbcTemplate, FIRST_IGDB_ID, FIRST_IGDB_ID + 10);
+        jdbcTemplate.update("DELETE FROM genres WHERE name LIKE ?", PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM platforms WHERE name LIKE ?", PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM publishers WHERE igdb_company_id >= ? AND igdb_company_id < ?",
+            FIRST_COMPANY_ID, FIRST_COMPANY_ID + 10);
+        jdbcTemplate.update("DELETE FROM developers WHERE igdb_company_id >= ? AND igdb_company_id < ?",
+            FIRST_COMPANY_ID, FIRST_COMPANY_ID + 10);
+    }
+
+    @Test
+    void testNewGamesAreInsertedWithTheirRelationsAndOlderCopiesInASegmentAreDropped() {
+        IGDBGameDTO zelda = game(FIRST_IGDB_ID, "Zelda", UPDATED_AT, List.of("RPG", "Adventure"));
+        zelda.setPlatforms(List.of(platform("Switch")));
+        zelda.setPublishers(List.of(company(FIRST_COMPANY_ID, "Nintendo")));
+        zelda.setDevelopers(List.of(company(FIRST_COMPANY_ID + 1, "Nintendo EPD"),
+            company(FIRST_COMPANY_ID + 1, "Nintendo EPD")));
+
+        GameSyncResult result = loader.load(List.of(
+            game(FIRST_IGDB_ID + 1, "Metroid (old)", UPDATED_AT - 10, List.of("Action")),
+            game(FIRST_IGDB_ID + 1, "Metroid", UPDATED_AT, List.of("Action")),
+            zelda).iterator(), written::addAll);
+
+        assertEquals(3, result.getProcessed());
+        assertEquals(2, result.getInserted());
+        assertEquals(0, result.getUpdated());
+        assertEquals(1, result.getSkipped(), "the older copy of a game staged twice is dropped");
+        assertEquals("Metroid", title(FIRST_IGDB_ID + 1));
+        assertEquals(List.of("Metroid", "Zelda"), written.stream().map(Game::getTitle).sorted().toList());
+        assertEquals(List.of(PREFIX + "Adventure", PREFIX + "RPG"), genres(FIRST_IGDB_ID));
+        assertEquals(List.of(PREFIX + "Switch"), platforms(FIRST_IGDB_ID));
+        assertEquals(List.of("Nintendo"), companies("game_publishers", "publishers", "publisher_id", FIRST_IGDB_ID));
+        assertEquals(List.of("Nintendo EPD"), companies("game_developers", "developers", "developer_id", FIRST_IGDB_ID));
+    }
+
+    @Test
+    void testNewerCopiesUpdateGamesAndRelationsWhileStaleCopiesAreSkipped() {
+        IGDBGameDTO zelda = game(FIRST_IGDB_ID, "Zelda", UPDATED_AT, List.of("RPG", "Adventure"));
+        zelda.setPlatforms(List.of(platform("Switch")));
+        zelda.setDevelopers(List.of(company(FIRST_COMPANY_ID, "Nintendo EPD")));
+        loader.load(List.of(zelda, game(FIRST_IGDB_ID + 1, "Metroid", UPDATED_AT, List.of("Action"))).iterator(),
+            written::addAll);
+        written.clear();
+
+        // Platforms left out are kept, an empty developer list removes them
+        IGDBGameDTO newerZelda = game(FIRST_IGDB_ID, "Zelda: Remastered", UPDATED_AT + 10, List.of("Adventure", "Puzzle"));
+        newerZelda.setDevelopers(List.of());
+        GameSyncResult result = loader.load(List.of(
+            newerZelda,
+            game(FIRST_IGDB_ID + 1, "Metroid (stale)", UPDATED_AT - 10, List.of()),
+            game(FIRST_IGDB_ID + 2, "Kirby", UPDATED_AT, List.of("Action"))).iterator(), written::addAll);
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getSkipped());
+        assertEquals(List.of("Kirby", "Zelda: Remastered"), written.stream().map(Game::getTitle).sorted().toList());
+        assertEquals("Zelda: Remastered", title(FIRST_IGDB_ID));
+        assertEquals(List.of(PREFIX + "Adventure", PREFIX + "Puzzle"), genres(FIRST_IGDB_ID));
+        assertEquals(List.of(PREFIX + "Switch"), platforms(FIRST_IGDB_ID));
+        assertEquals(List.of(), companies("game_developers", "developers", "developer_id", FIRST_IGDB_ID));
+        assertEquals("Metroid", title(FIRST_IGDB_ID + 1));
+        assertEquals(List.of(PREFIX + "Action"), genres(FIRST_IGDB_ID + 1), "a skipped game keeps its relations");
+    }
+
+    private String title(long igdbId) {
+        return jdbcTemplate.queryForObject("SELECT title FROM games WHERE igdb_id = ?", String.class, igdbId);
+    }
+
+    private List<String> genres(long igdbId) {
+        return jdbcTemplate.queryForList("SELECT ge.name FROM game_genres gg JOIN genres ge ON ge.genre_id = gg.genre_id"
+            + " JOIN games g ON g.game_id = gg.game_id WHERE g.igdb_id = ? ORDER BY ge.name", String.class, igdbId);
+    }
+
+    private List<String> platforms(long igdbId) {
+        return jdbcTemplate.queryForList("SELECT p.name FROM game_platforms gp"
+            + " JOIN platforms p ON p.platform_id = gp.platform_id"
+            + " JOIN games g ON g.game_id = gp.game_id WHERE g.igdb_id = ? ORDER BY p.name", String.class, igdbId);
+    }
+
+    private List<String> companies(String joinTable, String table, String idColumn, long igdbId) {
+        return jdbcTemplate.queryForList("SELECT c.name FROM " + joinTable + " j"
+            + " JOIN " + table + " c ON c." + idColumn + " = j." + idColumn
+            + " JOIN games g ON g.game_id = j.game_id WHERE g.igdb_id = ? ORDER BY c.name", String.class, igdbId);
+    }
+
+    private static IGDBGameDTO game(long igdbId, String title, long updatedAt, List<String> genres) {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setIgdbId(igdbId);
+        game.setTitle(title);
+        game.setReleaseDate(LocalDate.of(2017, 3, 3));
+        game.setUpdatedAt(updatedAt);
+        game.setGenres(genres.stream().map(name -> {
+            IGDBGenreDTO genre = new IGDBGenreDTO();
+            genre.setName(PREFIX + name);
+            return genre;
+        }).toList());
+        return game;
+    }
+
+    private static IGDBPlatformDTO platform(String name) {
+        IGDBPlatformDTO platform = new IGDBPlatformDTO();
+        platform.setName(PREFIX + name);
+        return platform;
+    }
+
+    private static IGDBCompanyDTO company(long igdbCompanyId, String name) {
+        IGDBCompanyDTO company = new IGDBCompanyDTO();
+        company.setIgdbCompanyId(igdbCompanyId);
+        company.setName(name);
+        return company;
+    }
+} 
@@ -0,0 +1,77 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.dto.IGDBCompanyDTO;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.dto.IGDBGenreDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the COPY text encoding of the bulk-load path; the load itself is run by GameCopyLoaderPostgresTest
+ */
+class GameCopyLoaderTest {
+
+    @Test
+    void testRowIsEncodedInCopyTextFormat() throws Exception {
+        long updatedAt = 1_700_000_000L;
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setIgdbId(42L);
+        game.setTitle("Tab\tand \\ backslash");
+        game.setDescription("Line one\nline two");
+        game.setReleaseDate(LocalDate.of(2017, 3, 3));
+        IGDBGenreDTO genre = new IGDBGenreDTO();
+        genre.setName("Role-playing \"RPG\"");
+        game.setGenres(List.of(genre));
+        game.setPublishers(new ArrayList<>(List.of(company(7L, "Nintendo"), company(null, null))));
+        game.setDevelopers(new ArrayList<>());
+        game.setUpdatedAt(updatedAt);
+
+        StringWriter out = new StringWriter();
+        GameCopyLoader.writeRow(out, game);
+
+        String localUpdatedAt = Instant.ofEpochSecond(updatedAt).atZone(ZoneId.systemDefault()).toLocalDateTime().toString();
+        assertEquals(List.of(
+                "42",
+                "Tab\\tand \\\\ backslash",
+                "Line one\\nline two",
+                "2017-03-03",
+                "\\N",
+                localUpdatedAt,
+                "{\"Role-playing \\\\\"RPG\\\\\"\"}",
+                "\\N",
+                "{7,NULL}",
+                "{\"Nintendo\",NULL}",
+                "{}",
+                "{}"),
+            Arrays.asList(out.toString().split("\t", -1)).stream().map(String::strip).toList());
+        assertTrue(out.toString().endsWith("\n"));
+        assertEquals(1, out.toString().split("\n").length, "escaped line breaks keep one row per line");
+    }
+
+    @Test
+    void testOnlyLargeBatchesAreBulkLoadedWhenEnabled() {
+        GameCopyLoader disabled = new GameCopyLoader(null, null, null, new SimpleMeterRegistry(), false, 500, 1000);
+        GameCopyLoader enabled = new GameCopyLoader(null, null, null, new SimpleMeterRegistry(), true, 500, 1000);
+
+        assertFalse(disabled.accepts(10_000));
+        assertFalse(enabled.accepts(499));
+        assertTrue(enabled.accepts(500));
+    }
+
+    private static IGDBCompanyDTO company(Long id, String name) {
+        IGDBCompanyDTO company = new IGDBCompanyDTO();
+        company.setIgdbCompanyId(id);
+        company.setName(name);
+        return company;
+    }
+} 
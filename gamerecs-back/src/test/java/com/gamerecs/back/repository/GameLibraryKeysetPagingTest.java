@@ -0,0 +1,177 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.model.GameLibrary;
+import com.gamerecs.back.model.User;
+import com.gamerecs.back.util.BaseIntegrationTest;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads the first page and a deep page of a library with OFFSET paging and with keyset paging,
+ * and checks both modes return the same games. GameLibraryPagingBenchmarkTest runs the same reads
+ * on a larger library and times them.
+ */
+class GameLibraryKeysetPagingTest extends BaseIntegrationTest {
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private GameLibraryRepository gameLibraryRepository;
+
+    @Autowired
+    private GameBatchRepository gameBatchRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .username("pagingUser")
+                .email("paging@example.com")
+                .passwordHash("password123")
+                .build());
+        GameLibrary library = new GameLibrary();
+        library.setUser(user);
+        Long libraryId = gameLibraryRepository.saveAndFlush(library).getLibraryId();
+
+        List<Game> games = new ArrayList<>();
+        int titles = games() / 10;
+        for (long i = 1; i <= games(); i++) {
+            Game game = new Game();
+            game.setIgdbId(i);
+            // Ten games per title, so the keyset has title ties to break
+            game.setTitle("Library Game " + (i % titles));
+            game.setReleaseDate(i % 10 == 0 ? null : LocalDate.of(2000, 1, 1).plusDays(i % 3000));
+            game.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+            games.add(game);
+        }
+        List<Object[]> rows = gameBatchRepository.upsertGames(games).values().stream()
+            .map(written -> new Object[] {libraryId, written.gameId()})
+            .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO library_games (library_id, game_id) VALUES (?, ?)", rows);
+        entityManager.clear();
+    }
+
+    @Test
+    void testDeepKeysetPageMatchesOffsetPageByTitle() {
+        List<Game> offsetFirst = read("OFFSET page 1 by title", () ->
+            gameLibraryRepository.findGamesByUserOrderByTitle(user, PageRequest.of(0, PAGE_SIZE)).getContent());
+        List<Game> offsetDeep = read("OFFSET deep page by title", () ->
+            gameLibraryRepository.findGamesByUserOrderByTitle(user, PageRequest.of(deepPage(), PAGE_SIZE)).getContent());
+
+        List<Game> keysetFirst = read("keyset page 1 by title", () ->
+            gameLibraryRepository.findGamesByUserOrderByTitle(user, Limit.of(PAGE_SIZE)));
+        Game previous = lastGameBeforeDeepPage(keysetFirst, this::nextByTitle);
+        List<Game> keysetDeep = read("keyset deep page by title", () -> nextByTitle(previous));
+
+        // The OFFSET query orders by title alone, so only the titles of tied games are comparable
+        assertEquals(titles(offsetFirst), titles(keysetFirst));
+        assertEquals(titles(offsetDeep), titles(keysetDeep));
+    }
+
+    @Test
+    void testDeepKeysetPageMatchesOffsetPageByReleaseDate() {
+        List<Game> offsetFirst = read("OFFSET page 1 by release date", () ->
+            gameLibraryRepository.findGamesByUserOrderByReleaseDate(user, PageRequest.of(0, PAGE_SIZE)).getContent());
+        List<Game> offsetDeep = read("OFFSET deep page by release date", () ->
+            gameLibraryRepository.findGamesByUserOrderByReleaseDate(user, PageRequest.of(deepPage(), PAGE_SIZE))
+                .getContent());
+
+        List<Game> keysetFirst = read("keyset page 1 by release date", () ->
+            gameLibraryRepository.findGamesByUserOrderByReleaseDate(user, Limit.of(PAGE_SIZE)));
+        Game previous = lastGameBeforeDeepPage(keysetFirst, this::nextByReleaseDate);
+        List<Game> keysetDeep = read("keyset deep page by release date", () -> nextByReleaseDate(previous));
+
+        // Where the OFFSET query puts undated games depends on the database, so only the sizes compare
+        assertEquals(PAGE_SIZE, offsetFirst.size());
+        assertEquals(PAGE_SIZE, offsetDeep.size());
+        assertEquals(LocalDate.of(2000, 1, 2), keysetFirst.get(0).getReleaseDate());
+        assertTrue(keysetDeep.stream().allMatch(game -> game.getReleaseDate() == null), "undated games come last");
+    }
+
+    /**
+     * Follows the keyset pages from the first one, as a client would, checking no game is read twice
+     *
+     * @return the last game of the page before the deep page
+     */
+    private Game lastGameBeforeDeepPage(List<Game> first, Function<Game, List<Game>> next) {
+        Set<Long> seen = new HashSet<>();
+        List<Game> page = first;
+        for (int number = 1; ; number++) {
+            assertEquals(PAGE_SIZE, page.size());
+            page.forEach(game -> assertTrue(seen.add(game.getGameId()), "game " + game.getGameId() + " read twice"));
+            Game last = page.get(page.size() - 1);
+            if (number == deepPage()) {
+                return last;
+            }
+            page = next.apply(last);
+            entityManager.clear();
+        }
+    }
+
+    private List<Game> nextByTitle(Game last) {
+        return gameLibraryRepository.findGamesByUserAfterTitle(
+            user, last.getTitle(), last.getGameId(), Limit.of(PAGE_SIZE));
+    }
+
+    private List<Game> nextByReleaseDate(Game last) {
+        return last.getReleaseDate() == null
+            ? gameLibraryRepository.findGamesByUserAfterUndated(user, last.getGameId(), Limit.of(PAGE_SIZE))
+            : gameLibraryRepository.findGamesByUserAfterReleaseDate(
+                user, last.getReleaseDate(), last.getGameId(), Limit.of(PAGE_SIZE));
+    }
+
+    /**
+     * Number of games in the library
+     */
+    int games() {
+        return 1_000;
+    }
+
+    /**
+     * Zero-based number of the deep page read
+     */
+    int deepPage() {
+        return 45;
+    }
+
+    /**
+     * Runs a page query
+     *
+     * @param label what the query reads, for the timings of GameLibraryPagingBenchmarkTest
+     */
+    <T> T read(String label, Supplier<T> query) {
+        T result = query.get();
+        entityManager.clear();
+        return result;
+    }
+
+    private static List<String> titles(List<Game> games) {
+        return games.stream().map(Game::getTitle).toList();
+    }
+} 
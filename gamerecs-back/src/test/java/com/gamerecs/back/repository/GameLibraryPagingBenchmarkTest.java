@@ -0,0 +1,54 @@
+package com.gamerecs.back.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the reads of GameLibraryKeysetPagingTest on page 1 and page 500 of a 10k game library and
+ * logs their median latency. Timings on the embedded test database are no measure of Postgres.
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class GameLibraryPagingBenchmarkTest extends GameLibraryKeysetPagingTest {
+    private static final Logger logger = LoggerFactory.getLogger(GameLibraryPagingBenchmarkTest.class);
+
+    private static final int RUNS = 20;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Override
+    int games() {
+        return 10_000;
+    }
+
+    @Override
+    int deepPage() {
+        return 499;
+    }
+
+    /**
+     * Runs a page query RUNS times and logs the median latency
+     */
+    @Override
+    <T> T read(String label, Supplier<T> query) {
+        long[] nanos = new long[RUNS];
+        T result = null;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            result = query.get();
+            nanos[run] = System.nanoTime() - start;
+            entityManager.clear();
+        }
+        Arrays.sort(nanos);
+        logger.info("{}: median {} us over {} runs", label, TimeUnit.NANOSECONDS.toMicros(nanos[RUNS / 2]), RUNS);
+        return result;
+    }
+} 
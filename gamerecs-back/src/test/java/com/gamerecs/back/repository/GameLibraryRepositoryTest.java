@@ -2,6 +2,7 @@ package com.gamerecs.back.repository;
 
 import com.gamerecs.back.model.Game;
 import com.gamerecs.back.model.GameLibrary;
+import com.gamerecs.back.model.Genre;
 import com.gamerecs.back.model.User;
 import com.gamerecs.back.util.BaseIntegrationTest;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,8 +12,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
+import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -30,6 +35,9 @@ class GameLibraryRepositoryTest extends BaseIntegrationTest {
     @Autowired
     private GameRepository gameRepository;
 
+    @Autowired
+    private GenreRepository genreRepository;
+
     private User testUser;
     private Game testGame;
 
@@ -149,4 +157,98 @@ class GameLibraryRepositoryTest extends BaseIntegrationTest {
         assertTrue(found.isPresent(), "Game library should be found by user");
         assertEquals(library.getLibraryId(), found.get().getLibraryId(), "Found library should match created library");
     }
+
+    @Test
+    @DisplayName("Should page a library by title keyset, breaking title ties by game id")
+    void testKeysetPagesByTitle() {
+        GameLibrary library = libraryOf(
+            game(1L, "Banjo", null), game(2L, "Alpha", null), game(3L, "Banjo", null), game(4L, "Celeste", null));
+        List<Game> expected = library.getGames().stream()
+            .sorted(Comparator.comparing(Game::getTitle).thenComparing(Game::getGameId))
+            .toList();
+
+        List<Game> first = gameLibraryRepository.findGamesByUserOrderByTitle(testUser, Limit.of(2));
+        Game last = first.get(1);
+        List<Game> second = gameLibraryRepository.findGamesByUserAfterTitle(
+            testUser, last.getTitle(), last.getGameId(), Limit.of(2));
+        last = second.get(1);
+        List<Game> third = gameLibraryRepository.findGamesByUserAfterTitle(
+            testUser, last.getTitle(), last.getGameId(), Limit.of(2));
+
+        assertEquals(expected.subList(0, 2), first);
+        assertEquals(expected.subList(2, 4), second);
+        assertTrue(third.isEmpty(), "Nothing follows the last game");
+        assertEquals(4, gameLibraryRepository.countGamesByUser(testUser));
+    }
+
+    @Test
+    @DisplayName("Should page a library by release date keyset, undated games last")
+    void testKeysetPagesByReleaseDate() {
+        Game old = game(1L, "Old", LocalDate.of(1990, 1, 1));
+        Game recent = game(2L, "Recent", LocalDate.of(2020, 1, 1));
+        Game undated = game(3L, "Undated", null);
+        Game alsoUndated = game(4L, "Also Undated", null);
+        libraryOf(old, recent, undated, alsoUndated);
+
+        List<Game> first = gameLibraryRepository.findGamesByUserOrderByReleaseDate(testUser, Limit.of(1));
+        List<Game> afterRecent = gameLibraryRepository.findGamesByUserAfterReleaseDate(
+            testUser, recent.getReleaseDate(), recent.getGameId(), Limit.of(10));
+        List<Game> afterUndated = gameLibraryRepository.findGamesByUserAfterUndated(
+            testUser, Math.min(undated.getGameId(), alsoUndated.getGameId()), Limit.of(10));
+
+        assertEquals(List.of(old), first);
+        assertEquals(2, afterRecent.size(), "Both undated games follow the last dated one");
+        assertTrue(afterRecent.stream().allMatch(game -> game.getReleaseDate() == null));
+        assertEquals(1, afterUndated.size());
+    }
+
+    @Test
+    @DisplayName("Should page the games of a genre by keyset")
+    void testKeysetPagesByGenre() {
+        Genre rpg = new Genre();
+        rpg.setName("RPG");
+        rpg = genreRepository.save(rpg);
+        Game chrono = game(1L, "Chrono", null);
+        chrono.getGenres().add(rpg);
+        Game tetris = game(2L, "Tetris", null);
+        Game zelda = game(3L, "Zelda", null);
+        zelda.getGenres().add(rpg);
+        libraryOf(chrono, tetris, zelda);
+
+        List<Game> first = gameLibraryRepository.findGamesByUserAndGenreOrderByTitle(testUser, "rpg", Limit.of(1));
+        List<Game> next = gameLibraryRepository.findGamesByUserAndGenreAfterTitle(
+            testUser, "rpg", chrono.getTitle(), chrono.getGameId(), Limit.of(10));
+
+        assertEquals(List.of(chrono), first);
+        assertEquals(List.of(zelda), next);
+        assertEquals(2, gameLibraryRepository.countGamesByUserAndGenre(testUser, "RPG"));
+    }
+
+    @Test
+    @DisplayName("Should read a whole library by title ignoring case")
+    void testFindAllGamesByTitleIgnoringCase() {
+        Game lowerCase = game(1L, "banjo", null);
+        Game upperCase = game(2L, "Alpha", null);
+        Game last = game(3L, "Celeste", null);
+        libraryOf(lowerCase, upperCase, last);
+
+        assertEquals(List.of(upperCase, lowerCase, last),
+            gameLibraryRepository.findAllGamesByUserOrderByTitleIgnoreCase(testUser));
+        assertTrue(gameLibraryRepository.findAllGamesByUserAndGenreOrderByTitleIgnoreCase(testUser, "RPG").isEmpty());
+    }
+
+    private Game game(long igdbId, String title, LocalDate releaseDate) {
+        Game game = new Game();
+        game.setIgdbId(1000L + igdbId);
+        game.setTitle(title);
+        game.setReleaseDate(releaseDate);
+        return gameRepository.save(game);
+    }
+
+    private GameLibrary libraryOf(Game... games) {
+        GameLibrary library = new GameLibrary();
+        library.setUser(testUser);
+        library.setGames(new HashSet<>(List.of(games)));
+        return gameLibraryRepository.saveAndFlush(library);
+    }
 } 
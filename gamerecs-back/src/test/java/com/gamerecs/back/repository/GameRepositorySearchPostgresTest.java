@@ -0,0 +1,137 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.util.PostgresTestDatabase;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the native ranked search of GameRepository against the scratch database of
+ * PostgresTestDatabase; it needs the search_vector column and pg_trgm of V10, which the
+ * embedded test database lacks
+ */
+@EnabledIfEnvironmentVariable(named = PostgresTestDatabase.URL_VARIABLE, matches = ".+")
+class GameRepositorySearchPostgresTest {
+
+    private static final long FIRST_IGDB_ID = 930_000_000L;
+
+    private static LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+
+    private JdbcTemplate jdbcTemplate;
+    private EntityManager entityManager;
+    private GameRepository gameRepository;
+
+    @BeforeAll
+    static void createEntityManagerFactory() {
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(PostgresTestDatabase.dataSource());
+        entityManagerFactoryBean.setPackagesToScan("com.gamerecs.back.model");
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaPropertyMap(Map.of(
+            "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName()));
+        entityManagerFactoryBean.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void closeEntityManagerFactory() {
+        entityManagerFactoryBean.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = PostgresTestDatabase.dataSource();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        cleanUp();
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+        gameRepository = new JpaRepositoryFactory(entityManager).getRepository(GameRepository.class);
+
+        List<Game> games = new ArrayList<>();
+        games.add(game(0, "Zephyrine Odyssey", "A voyage across the sky"));
+        games.add(game(1, "Zephyrine Odyssey II", "The voyage continues"));
+        games.add(game(2, "Zephyrine Tactics", "Turn based battles"));
+        games.add(game(3, "Legends of the Sky", "Features the Zephyrine airship"));
+        // Ties on rank are broken by game id
+        for (int i = 4; i < 9; i++) {
+            games.add(game(i, "Zephyrine Racer", null));
+        }
+        games.add(game(9, "Unrelated Farming", "Crops and cows"));
+        new GameBatchRepository(jdbcTemplate, new NamedParameterJdbcTemplate(dataSource)).upsertGames(games);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        if (entityManager != null) {
+            entityManager.close();
+        }
+        PostgresTestDatabase.deleteGames(jdbcTemplate, FIRST_IGDB_ID, FIRST_IGDB_ID + 10);
+    }
+
+    @Test
+    void testMatchesAreRankedByTextRankAndTitleSimilarity() {
+        List<GameRepository.RankedGame> ranked = gameRepository.searchRanked("zephyrine:* & odyssey:*",
+            "zephyrine odyssey", 10);
+
+        assertEquals(List.of("Zephyrine Odyssey", "Zephyrine Odyssey II"),
+            ranked.stream().map(GameRepository.RankedGame::getTitle).limit(2).toList());
+        assertTrue(ranked.get(0).getRank() >= ranked.get(1).getRank());
+        assertEquals(LocalDate.of(2020, 1, 1), ranked.get(0).getReleaseDate());
+        assertFalse(ranked.stream().anyMatch(game -> game.getTitle().equals("Unrelated Farming")));
+    }
+
+    @Test
+    void testMisspelledTitleIsMatchedBySimilarity() {
+        List<GameRepository.RankedGame> ranked = gameRepository.searchRanked("zephyrin:* & odysey:*",
+            "zephyrin odysey", 10);
+
+        assertFalse(ranked.isEmpty());
+        assertTrue(ranked.get(0).getTitle().startsWith("Zephyrine Odyssey"));
+    }
+
+    @Test
+    void testPagesFollowingTheCursorCoverEveryMatchOnce() {
+        List<GameRepository.RankedGame> all = gameRepository.searchRanked("zephyrine:*", "zephyrine", 50);
+
+        List<Long> paged = new ArrayList<>();
+        List<GameRepository.RankedGame> page = gameRepository.searchRanked("zephyrine:*", "zephyrine", 2);
+        while (!page.isEmpty()) {
+            page.forEach(game -> paged.add(game.getGameId()));
+            GameRepository.RankedGame last = page.get(page.size() - 1);
+            page = gameRepository.searchRankedAfter("zephyrine:*", "zephyrine", last.getRank(), last.getGameId(), 2);
+        }
+
+        assertEquals(9, all.size());
+        assertEquals(all.stream().map(GameRepository.RankedGame::getGameId).toList(), paged);
+    }
+
+    private static Game game(int offset, String title, String description) {
+        Game game = new Game();
+        game.setIgdbId(FIRST_IGDB_ID + offset);
+        game.setTitle(title);
+        game.setDescription(description);
+        game.setReleaseDate(LocalDate.of(2020, 1, 1));
+        game.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        return game;
+    }
+} 
@@ -0,0 +1,68 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.util.PostgresTestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the advisory lock of JobLockRepository against the scratch database of
+ * PostgresTestDatabase; two repositories stand for two instances sharing the database
+ */
+@EnabledIfEnvironmentVariable(named = PostgresTestDatabase.URL_VARIABLE, matches = ".+")
+class JobLockRepositoryPostgresTest {
+
+    private static final String JOB_NAME = "job-lock-test";
+
+    private JobLockRepository firstInstance;
+    private JobLockRepository secondInstance;
+
+    @BeforeEach
+    void setUp() {
+        firstInstance = new JobLockRepository(new JdbcTemplate(PostgresTestDatabase.dataSource()));
+        secondInstance = new JobLockRepository(new JdbcTemplate(PostgresTestDatabase.dataSource()));
+    }
+
+    @Test
+    void testJobIsSkippedWhileAnotherInstanceRunsIt() {
+        AtomicBoolean secondRan = new AtomicBoolean();
+        AtomicBoolean secondAcquired = new AtomicBoolean(true);
+
+        boolean firstRan = firstInstance.runExclusively(JOB_NAME,
+            () -> secondAcquired.set(secondInstance.runExclusively(JOB_NAME, () -> secondRan.set(true))));
+
+        assertTrue(firstRan);
+        assertFalse(secondAcquired.get());
+        assertFalse(secondRan.get());
+    }
+
+    @Test
+    void testLockIsReleasedAfterTheJobEvenWhenItFails() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> firstInstance.runExclusively(JOB_NAME, () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("cycle failed");
+        }));
+
+        assertTrue(secondInstance.runExclusively(JOB_NAME, runs::incrementAndGet));
+        assertTrue(firstInstance.runExclusively(JOB_NAME, runs::incrementAndGet));
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void testDifferentJobsDoNotExcludeEachOther() {
+        AtomicBoolean otherRan = new AtomicBoolean();
+
+        firstInstance.runExclusively(JOB_NAME,
+            () -> secondInstance.runExclusively(JOB_NAME + "-other", () -> otherRan.set(true)));
+
+        assertTrue(otherRan.get());
+    }
+} 
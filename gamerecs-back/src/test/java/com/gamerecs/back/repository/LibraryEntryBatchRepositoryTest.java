@@ -0,0 +1,230 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.model.GameLibrary;
+import com.gamerecs.back.model.Genre;
+import com.gamerecs.back.model.LibraryEntry;
+import com.gamerecs.back.model.Platform;
+import com.gamerecs.back.model.User;
+import com.gamerecs.back.repository.GameBatchRepository.GameRelation;
+import com.gamerecs.back.util.BaseIntegrationTest;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes library entries through LibraryEntryBatchRepository and reads them back through LibraryEntryRepository
+ */
+class LibraryEntryBatchRepositoryTest extends BaseIntegrationTest {
+
+    @Autowired
+    private LibraryEntryBatchRepository libraryEntryBatchRepository;
+
+    @Autowired
+    private LibraryEntryRepository libraryEntryRepository;
+
+    @Autowired
+    private GameBatchRepository gameBatchRepository;
+
+    @Autowired
+    private GameLibraryRepository gameLibraryRepository;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private PlatformRepository platformRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+    private Long libraryId;
+    private Genre rpg;
+    private Genre shooter;
+    private Platform pc;
+    private Game zelda;
+    private Game doom;
+    private Game undated;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .username("entriesUser")
+                .email("entries@example.com")
+                .passwordHash("password123")
+                .build());
+        GameLibrary library = new GameLibrary();
+        library.setUser(user);
+        libraryId = gameLibraryRepository.save(library).getLibraryId();
+
+        rpg = genreRepository.save(genre("Role-playing (RPG)"));
+        shooter = genreRepository.save(genre("Shooter"));
+        pc = platformRepository.save(platform("PC"));
+        zelda = gameRepository.save(game(1L, "Zelda", LocalDate.of(1986, 2, 21), Set.of(rpg), Set.of(pc)));
+        doom = gameRepository.save(game(2L, "Doom", LocalDate.of(1993, 12, 10), Set.of(shooter, rpg), Set.of(pc)));
+        undated = gameRepository.save(game(3L, "Alpha", null, Set.of(rpg), Set.of()));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should add games to a library with entries copied from the games")
+    void testAddGamesWritesLibraryGamesAndEntries() {
+        int added = libraryEntryBatchRepository.addGames(libraryId,
+            List.of(zelda.getGameId(), doom.getGameId(), undated.getGameId(), -1L));
+        int addedAgain = libraryEntryBatchRepository.addGames(libraryId, List.of(zelda.getGameId()));
+
+        assertEquals(3, added, "the id without a game is skipped");
+        assertEquals(0, addedAgain);
+        assertEquals(3, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM library_games WHERE library_id = ?", Integer.class, libraryId));
+        LibraryEntry entry = libraryEntryRepository.findById(new LibraryEntry.Key(libraryId, doom.getGameId()))
+            .orElseThrow();
+        assertEquals("Doom", entry.getTitle());
+        assertEquals(LocalDate.of(1993, 12, 10), entry.getReleaseDate());
+        assertEquals(List.of(rpg.getGenreId(), shooter.getGenreId()), entry.getGenreIds());
+        assertEquals(List.of(pc.getPlatformId()), entry.getPlatformIds());
+        assertEquals(List.of(), libraryEntryRepository.findById(new LibraryEntry.Key(libraryId, undated.getGameId()))
+            .orElseThrow().getPlatformIds());
+    }
+
+    @Test
+    @DisplayName("Should remove games from a library with their entries")
+    void testRemoveGamesDeletesLibraryGamesAndEntries() {
+        libraryEntryBatchRepository.addGames(libraryId, List.of(zelda.getGameId(), doom.getGameId()));
+
+        int removed = libraryEntryBatchRepository.removeGames(libraryId, List.of(doom.getGameId(), undated.getGameId()));
+
+        assertEquals(1, removed);
+        assertEquals(List.of(zelda.getGameId()), gameIds(libraryEntryRepository.findByLibraryOrderByTitle(
+            libraryId, Limit.unlimited())));
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM library_games WHERE library_id = ?", Integer.class, libraryId));
+    }
+
+    @Test
+    @DisplayName("Should refresh the entries of games rewritten with plain SQL")
+    void testRefreshGamesCopiesColumnsAndLinks() {
+        libraryEntryBatchRepository.addGames(libraryId, List.of(zelda.getGameId(), doom.getGameId()));
+        jdbcTemplate.update("UPDATE games SET title = ?, cover_image_url = ? WHERE game_id = ?",
+            "The Legend of Zelda", "https://example.com/zelda.jpg", zelda.getGameId());
+        gameBatchRepository.insertRelations(GameRelation.GENRES, Map.of(zelda.getGameId(), Set.of(shooter.getGenreId())));
+
+        int refreshed = libraryEntryBatchRepository.refreshGames(List.of(zelda.getGameId(), undated.getGameId()));
+
+        assertEquals(1, refreshed, "only the games in a library have entries");
+        LibraryEntry entry = libraryEntryRepository.findById(new LibraryEntry.Key(libraryId, zelda.getGameId()))
+            .orElseThrow();
+        assertEquals("The Legend of Zelda", entry.getTitle());
+        assertEquals("https://example.com/zelda.jpg", entry.getCoverImageUrl());
+        assertEquals(List.of(rpg.getGenreId(), shooter.getGenreId()), entry.getGenreIds());
+        assertEquals("Doom", libraryEntryRepository.findById(new LibraryEntry.Key(libraryId, doom.getGameId()))
+            .orElseThrow().getTitle());
+    }
+
+    @Test
+    @DisplayName("Should refresh the entries of a managed game from its collections")
+    void testRefreshGameCopiesTheEntity() {
+        libraryEntryBatchRepository.addGames(libraryId, List.of(zelda.getGameId()));
+        Game game = gameRepository.findById(zelda.getGameId()).orElseThrow();
+        game.setTitle("Zelda II");
+        game.getGenres().clear();
+        game.getPlatforms().clear();
+
+        assertEquals(1, libraryEntryBatchRepository.refreshGame(game));
+
+        entityManager.clear();
+        LibraryEntry entry = libraryEntryRepository.findById(new LibraryEntry.Key(libraryId, zelda.getGameId()))
+            .orElseThrow();
+        assertEquals("Zelda II", entry.getTitle());
+        assertEquals(List.of(), entry.getGenreIds());
+        assertEquals(List.of(), entry.getPlatformIds());
+    }
+
+    @Test
+    @DisplayName("Should page the entries of a genre by keyset from the read model")
+    void testEntriesOfGenresInKeysetOrder() {
+        libraryEntryBatchRepository.addGames(libraryId, List.of(zelda.getGameId(), doom.getGameId(), undated.getGameId()));
+        List<Long> shooterId = List.of(shooter.getGenreId());
+        List<Long> rpgId = List.of(rpg.getGenreId());
+
+        List<LibraryEntry> byTitle = libraryEntryRepository.findByLibraryAndGenreOrderByTitle(libraryId, rpgId, Limit.of(2));
+        List<LibraryEntry> nextByTitle = libraryEntryRepository.findByLibraryAndGenreAfterTitle(
+            libraryId, rpgId, "Doom", doom.getGameId(), Limit.of(2));
+        List<LibraryEntry> byReleaseDate = libraryEntryRepository.findByLibraryOrderByReleaseDate(libraryId, Limit.of(3));
+        List<LibraryEntry> afterDated = libraryEntryRepository.findByLibraryAndGenreAfterReleaseDate(
+            libraryId, rpgId, LocalDate.of(1990, 1, 1), 0L, Limit.of(3));
+
+        assertEquals(List.of(doom.getGameId()), gameIds(libraryEntryRepository.findByLibraryAndGenreOrderByTitle(
+            libraryId, shooterId, Limit.of(10))));
+        assertEquals(List.of(undated.getGameId(), doom.getGameId()), gameIds(byTitle));
+        assertEquals(List.of(zelda.getGameId()), gameIds(nextByTitle));
+        assertEquals(List.of(zelda.getGameId(), doom.getGameId(), undated.getGameId()), gameIds(byReleaseDate));
+        assertEquals(List.of(doom.getGameId(), undated.getGameId()), gameIds(afterDated));
+    }
+
+    @Test
+    @DisplayName("Should match every genre whose name differs only by case, like the joined library queries")
+    void testEntriesOfGenresNamedAlike() {
+        Genre lowerCaseShooter = genreRepository.save(genre("shooter"));
+        Game quake = gameRepository.save(game(4L, "Quake", LocalDate.of(1996, 6, 22), Set.of(lowerCaseShooter), Set.of()));
+        entityManager.flush();
+        libraryEntryBatchRepository.addGames(libraryId, List.of(zelda.getGameId(), doom.getGameId(), quake.getGameId()));
+
+        List<Long> shooterIds = genreRepository.findGenreIdsByNameIgnoreCase("SHOOTER");
+        List<LibraryEntry> entries = libraryEntryRepository.findByLibraryAndGenreOrderByTitle(
+            libraryId, shooterIds, Limit.unlimited());
+        List<Game> joined = gameLibraryRepository.findGamesByUserAndGenreOrderByTitle(user, "SHOOTER", Limit.unlimited());
+
+        assertEquals(List.of(shooter.getGenreId(), lowerCaseShooter.getGenreId()), shooterIds);
+        assertEquals(List.of(doom.getGameId(), quake.getGameId()), gameIds(entries));
+        assertEquals(joined.stream().map(Game::getGameId).toList(), gameIds(entries));
+    }
+
+    private static List<Long> gameIds(List<LibraryEntry> entries) {
+        return entries.stream().map(LibraryEntry::getGameId).toList();
+    }
+
+    private static Game game(long igdbId, String title, LocalDate releaseDate, Set<Genre> genres, Set<Platform> platforms) {
+        Game game = new Game();
+        game.setIgdbId(igdbId);
+        game.setTitle(title);
+        game.setReleaseDate(releaseDate);
+        game.getGenres().addAll(genres);
+        game.getPlatforms().addAll(platforms);
+        return game;
+    }
+
+    private static Genre genre(String name) {
+        Genre genre = new Genre();
+        genre.setName(name);
+        return genre;
+    }
+
+    private static Platform platform(String name) {
+        Platform platform = new Platform();
+        platform.setName(name);
+        return platform;
+    }
+} 
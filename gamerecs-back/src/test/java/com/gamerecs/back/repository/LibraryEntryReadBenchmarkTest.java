@@ -0,0 +1,72 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.LibraryEntry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs the reads of LibraryEntryReadTest at 200 keyset positions of a 10k game library and logs
+ * the p95 latency and the p95 CPU time of the reading thread. The embedded test database runs in
+ * that thread, so its CPU time includes the database's; neither is a measure of Postgres under
+ * concurrent load. Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class LibraryEntryReadBenchmarkTest extends LibraryEntryReadTest {
+    private static final Logger logger = LoggerFactory.getLogger(LibraryEntryReadBenchmarkTest.class);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Override
+    int games() {
+        return 10_000;
+    }
+
+    @Override
+    int reads() {
+        return 200;
+    }
+
+    /**
+     * Reads one page after each position and logs the p95 latency and the p95 CPU time of this thread
+     */
+    @Override
+    List<List<Long>> readAll(String label, List<LibraryEntry> positions, Function<LibraryEntry, List<Long>> read) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        // Warm up the statement and plan caches before timing
+        positions.stream().limit(20).forEach(read::apply);
+        entityManager.clear();
+
+        long[] nanos = new long[positions.size()];
+        long[] cpuNanos = new long[positions.size()];
+        List<List<Long>> pages = new ArrayList<>();
+        for (int i = 0; i < positions.size(); i++) {
+            long cpuStart = threads.getCurrentThreadCpuTime();
+            long start = System.nanoTime();
+            pages.add(read.apply(positions.get(i)));
+            nanos[i] = System.nanoTime() - start;
+            cpuNanos[i] = threads.getCurrentThreadCpuTime() - cpuStart;
+            entityManager.clear();
+        }
+        logger.info("{}: p95 {} us, p95 CPU {} us over {} reads", label,
+            TimeUnit.NANOSECONDS.toMicros(p95(nanos)), TimeUnit.NANOSECONDS.toMicros(p95(cpuNanos)), positions.size());
+        return pages;
+    }
+
+    private static long p95(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+    }
+} 
@@ -0,0 +1,180 @@
+package com.gamerecs.back.repository;
+
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.model.GameLibrary;
+import com.gamerecs.back.model.Genre;
+import com.gamerecs.back.model.LibraryEntry;
+import com.gamerecs.back.model.Platform;
+import com.gamerecs.back.model.User;
+import com.gamerecs.back.repository.GameBatchRepository.GameRelation;
+import com.gamerecs.back.util.BaseIntegrationTest;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads pages of a library, filtered by genre, at keyset positions spread over the genre: once from
+ * the library_entries read model and once from library_games joined to games, genres and platforms,
+ * and checks both reads return the same games. LibraryEntryReadBenchmarkTest runs the same reads on
+ * a larger library and times them.
+ */
+class LibraryEntryReadTest extends BaseIntegrationTest {
+    private static final int GENRES = 8;
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private LibraryEntryRepository libraryEntryRepository;
+
+    @Autowired
+    private LibraryEntryBatchRepository libraryEntryBatchRepository;
+
+    @Autowired
+    private GameLibraryRepository gameLibraryRepository;
+
+    @Autowired
+    private GameBatchRepository gameBatchRepository;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private PlatformRepository platformRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+    private Long libraryId;
+    private Genre genre;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .username("entriesBenchUser")
+                .email("entries-bench@example.com")
+                .passwordHash("password123")
+                .build());
+        GameLibrary library = new GameLibrary();
+        library.setUser(user);
+        libraryId = gameLibraryRepository.saveAndFlush(library).getLibraryId();
+
+        List<Long> genreIds = new ArrayList<>();
+        for (int i = 0; i < GENRES; i++) {
+            Genre saved = new Genre();
+            saved.setName("Bench Genre " + i);
+            genreIds.add(genreRepository.save(saved).getGenreId());
+        }
+        genre = genreRepository.findById(genreIds.get(0)).orElseThrow();
+        Platform platform = new Platform();
+        platform.setName("Bench Platform");
+        Long platformId = platformRepository.saveAndFlush(platform).getPlatformId();
+
+        List<Game> games = new ArrayList<>();
+        for (long i = 1; i <= games(); i++) {
+            Game game = new Game();
+            game.setIgdbId(i);
+            game.setTitle("Library Game " + (i % 1000));
+            game.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i % 3000));
+            game.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+            games.add(game);
+        }
+        List<Long> gameIds = gameBatchRepository.upsertGames(games).values().stream()
+            .map(GameBatchRepository.WrittenGame::gameId)
+            .toList();
+        // Two genres per game, so a genre holds about a quarter of the library
+        Map<Long, Set<Long>> genresByGameId = new HashMap<>();
+        Map<Long, Set<Long>> platformsByGameId = new HashMap<>();
+        for (int i = 0; i < gameIds.size(); i++) {
+            genresByGameId.put(gameIds.get(i), Set.of(genreIds.get(i % GENRES), genreIds.get((i + 1) % GENRES)));
+            platformsByGameId.put(gameIds.get(i), Set.of(platformId));
+        }
+        gameBatchRepository.insertRelations(GameRelation.GENRES, genresByGameId);
+        gameBatchRepository.insertRelations(GameRelation.PLATFORMS, platformsByGameId);
+        libraryEntryBatchRepository.addGames(libraryId, gameIds);
+        entityManager.clear();
+    }
+
+    @Test
+    void testReadModelPagesMatchJoinedPagesOfAGenre() {
+        List<LibraryEntry> all = libraryEntryRepository.findByLibraryAndGenreOrderByTitle(
+            libraryId, List.of(genre.getGenreId()), Limit.unlimited());
+        assertEquals(games() * 2 / GENRES, all.size());
+        // Keyset positions spread over the genre, each read as the start of a next page
+        List<LibraryEntry> positions = new ArrayList<>();
+        for (int read = 0; read < reads(); read++) {
+            positions.add(all.get(read * (all.size() - PAGE_SIZE) / reads()));
+        }
+        entityManager.clear();
+
+        List<List<Long>> fromEntries = readAll("library_entries page of a genre", positions, after ->
+            libraryEntryRepository.findByLibraryAndGenreAfterTitle(
+                    libraryId, List.of(genre.getGenreId()), after.getTitle(), after.getGameId(), Limit.of(PAGE_SIZE))
+                .stream().map(LibraryEntry::getGameId).toList());
+        List<List<Long>> fromJoins = readAll("joined page of a genre with collections", positions, after ->
+            joinedPage(after).stream().map(Game::getGameId).toList());
+
+        assertEquals(fromJoins, fromEntries);
+        assertTrue(fromEntries.stream().allMatch(page -> page.size() == PAGE_SIZE));
+    }
+
+    /**
+     * The keyset read of GameLibraryRepository with the genres and platforms the list view shows,
+     * loaded the way GameLibraryService loads them
+     */
+    private List<Game> joinedPage(LibraryEntry after) {
+        List<Game> games = gameLibraryRepository.findGamesByUserAndGenreAfterTitle(
+            user, genre.getName(), after.getTitle(), after.getGameId(), Limit.of(PAGE_SIZE));
+        List<Long> gameIds = games.stream().map(Game::getGameId).toList();
+        assertEquals(gameIds.size() * 2, gameRepository.findGenresByGameIds(gameIds).size());
+        assertEquals(gameIds.size(), gameRepository.findPlatformsByGameIds(gameIds).size());
+        return games;
+    }
+
+    /**
+     * Number of games in the library
+     */
+    int games() {
+        return 1_000;
+    }
+
+    /**
+     * Number of keyset positions read
+     */
+    int reads() {
+        return 20;
+    }
+
+    /**
+     * Reads one page after each position
+     *
+     * @param label what is read, for the timings of LibraryEntryReadBenchmarkTest
+     * @return the game ids of each page
+     */
+    List<List<Long>> readAll(String label, List<LibraryEntry> positions, Function<LibraryEntry, List<Long>> read) {
+        List<List<Long>> pages = new ArrayList<>();
+        for (LibraryEntry position : positions) {
+            pages.add(read.apply(position));
+            entityManager.clear();
+        }
+        return pages;
+    }
+} 
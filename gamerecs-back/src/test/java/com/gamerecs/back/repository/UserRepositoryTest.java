@@ -37,7 +37,8 @@ class UserRepositoryTest extends BaseIntegrationTest {
     void shouldSaveUser() {
         logger.debug("Testing user save operation");
         
-        User savedUser = userRepository.save(testUser);
+        // Ids come from a sequence, so the insert and its creation timestamp wait for the flush
+        User savedUser = userRepository.saveAndFlush(testUser);
         
         assertNotNull(savedUser.getUserId(), "User ID should be generated");
         assertEquals(testUser.getUsername(), savedUser.getUsername(), "Username should match");
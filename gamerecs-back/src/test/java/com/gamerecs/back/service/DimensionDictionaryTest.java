@@ -0,0 +1,195 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.IGDBCompanyDTO;
+import com.gamerecs.back.model.Genre;
+import com.gamerecs.back.model.Publisher;
+import com.gamerecs.back.repository.DeveloperRepository;
+import com.gamerecs.back.repository.GameBatchRepository;
+import com.gamerecs.back.repository.GenreRepository;
+import com.gamerecs.back.repository.PlatformRepository;
+import com.gamerecs.back.repository.PublisherRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DimensionDictionaryTest {
+
+    @Mock
+    private PublisherRepository publisherRepository;
+
+    @Mock
+    private DeveloperRepository developerRepository;
+
+    @Mock
+    private GenreRepository genreRepository;
+
+    @Mock
+    private PlatformRepository platformRepository;
+
+    @Mock
+    private GameBatchRepository gameBatchRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DimensionDictionary dictionary;
+
+    /**
+     * Stand-in for the genres table
+     */
+    private final Map<String, Long> genreTable = new ConcurrentHashMap<>();
+    private final AtomicLong nextGenreId = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dictionary = new DimensionDictionary(publisherRepository, developerRepository, genreRepository,
+            platformRepository, gameBatchRepository, new TransactionTemplate(transactionManager), meterRegistry);
+
+        lenient().when(genreRepository.findAllByNameIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> names = invocation.getArgument(0);
+            List<Genre> genres = new ArrayList<>();
+            for (String name : names) {
+                Long id = genreTable.get(name);
+                if (id != null) {
+                    genres.add(genre(id, name));
+                }
+            }
+            return genres;
+        });
+        lenient().doAnswer(invocation -> {
+            Collection<String> names = invocation.getArgument(0);
+            for (String name : names) {
+                if (genreTable.putIfAbsent(name, nextGenreId.getAndIncrement()) != null) {
+                    throw new IllegalStateException("Duplicate genre insert: " + name);
+                }
+            }
+            return null;
+        }).when(gameBatchRepository).insertGenres(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should preload every dimension and answer lookups from memory")
+    void shouldPreloadAndServeHits() {
+        Publisher publisher = new Publisher();
+        publisher.setPublisherId(5L);
+        publisher.setIgdbCompanyId(500L);
+        when(publisherRepository.findAll()).thenReturn(List.of(publisher));
+        when(genreRepository.findAll()).thenReturn(List.of(genre(7L, "RPG")));
+
+        dictionary.preload();
+
+        assertEquals(Optional.of(5L), dictionary.findPublisherId(500L));
+        assertEquals(Map.of("RPG", 7L), dictionary.resolveGenreIds(List.of("RPG")));
+        assertTrue(dictionary.findDeveloperId(1L).isEmpty());
+        verify(genreRepository, never()).findAllByNameIn(anyCollection());
+        assertEquals(2.0, meterRegistry.get("gamerecs.dimension.lookups")
+            .tags("result", "hit").counters().stream().mapToDouble(c -> c.count()).sum());
+        assertEquals(1.0, meterRegistry.get("gamerecs.dimension.lookups")
+            .tags("dimension", "developer", "result", "miss").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should insert missing entries once and remember them")
+    void shouldInsertMissingEntriesOnce() {
+        genreTable.put("Adventure", nextGenreId.getAndIncrement());
+
+        Map<String, Long> first = dictionary.resolveGenreIds(List.of("Adventure", "Shooter"));
+        Map<String, Long> second = dictionary.resolveGenreIds(List.of("Adventure", "Shooter"));
+
+        assertEquals(first, second);
+        assertEquals(genreTable.get("Shooter"), first.get("Shooter"));
+        verify(gameBatchRepository, times(1)).insertGenres(List.of("Shooter"));
+        verify(genreRepository, times(2)).findAllByNameIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should insert a missing entry exactly once under concurrent resolution")
+    void shouldInsertOnceUnderConcurrency() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        try {
+            List<Future<Map<String, Long>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return dictionary.resolveGenreIds(List.of("Action", "Puzzle"));
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                        throw e;
+                    }
+                }));
+            }
+            start.countDown();
+
+            Map<String, Long> expected = results.get(0).get();
+            for (Future<Map<String, Long>> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, failures.get());
+        assertEquals(2, genreTable.size());
+        verify(gameBatchRepository, times(1)).insertGenres(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should resolve companies by IGDB company id and ignore entries without one")
+    void shouldResolveCompaniesByIgdbId() {
+        IGDBCompanyDTO company = new IGDBCompanyDTO();
+        company.setIgdbCompanyId(42L);
+        company.setName("Studio");
+        IGDBCompanyDTO anonymous = new IGDBCompanyDTO();
+        anonymous.setName("Unknown");
+
+        Publisher stored = new Publisher();
+        stored.setPublisherId(3L);
+        stored.setIgdbCompanyId(42L);
+        when(publisherRepository.findAllByIgdbCompanyIdIn(anyCollection()))
+            .thenReturn(List.of())
+            .thenReturn(List.of(stored));
+
+        Map<Long, Long> ids = dictionary.resolvePublisherIds(List.of(company, anonymous));
+
+        assertEquals(Map.of(42L, 3L), ids);
+        verify(gameBatchRepository).insertPublishers(List.of(company));
+        assertEquals(Optional.of(3L), dictionary.findPublisherId(42L));
+    }
+
+    private Genre genre(Long id, String name) {
+        Genre genre = new Genre();
+        genre.setGenreId(id);
+        genre.setName(name);
+        return genre;
+    }
+} 
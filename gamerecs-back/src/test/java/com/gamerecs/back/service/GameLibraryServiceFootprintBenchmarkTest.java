@@ -0,0 +1,48 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.model.GameLibrary;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Runs the read of GameLibraryServiceFootprintTest on a 2,000 game library several times and logs
+ * the statements, rows and least heap allocated by one read.
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class GameLibraryServiceFootprintBenchmarkTest extends GameLibraryServiceFootprintTest {
+    private static final Logger logger = LoggerFactory.getLogger(GameLibraryServiceFootprintBenchmarkTest.class);
+
+    private static final int RUNS = 5;
+
+    @Override
+    int games() {
+        return 2_000;
+    }
+
+    /**
+     * Reads the library RUNS times; the statistics are left with those of the last read
+     */
+    @Override
+    GameLibrary readLibrary(Statistics statistics) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocated = Long.MAX_VALUE;
+        GameLibrary library = null;
+        for (int run = 0; run < RUNS; run++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            library = super.readLibrary(statistics);
+            allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - allocatedBefore);
+        }
+        long rows = 0;
+        for (String query : statistics.getQueries()) {
+            rows += statistics.getQueryStatistics(query).getExecutionRowCount();
+        }
+        logger.info("Reading {} games took {} statements, {} rows and {} KB of heap",
+            games(), statistics.getPrepareStatementCount(), rows, allocated / 1024);
+        return library;
+    }
+} 
@@ -0,0 +1,183 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.IGDBCompanyDTO;
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.model.GameLibrary;
+import com.gamerecs.back.model.User;
+import com.gamerecs.back.repository.GameBatchRepository;
+import com.gamerecs.back.repository.GameBatchRepository.GameRelation;
+import com.gamerecs.back.repository.GameLibraryRepository;
+import com.gamerecs.back.repository.UserRepository;
+import com.gamerecs.back.util.BaseIntegrationTest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.FlushModeType;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads a library whose games have several genres, platforms and developers, the shape that made
+ * the former single fetch join return the product of the collection sizes, and checks the statements
+ * and rows of one read. GameLibraryServiceFootprintBenchmarkTest also logs the heap a read allocates.
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class GameLibraryServiceFootprintTest extends BaseIntegrationTest {
+    private static final int GENRES_PER_GAME = 3;
+    private static final int PLATFORMS_PER_GAME = 2;
+    private static final int DEVELOPERS_PER_GAME = 2;
+
+    @Autowired
+    private GameLibraryService gameLibraryService;
+
+    @Autowired
+    private GameBatchRepository gameBatchRepository;
+
+    @Autowired
+    private GameLibraryRepository gameLibraryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder()
+                .username("footprintUser")
+                .email("footprint@example.com")
+                .passwordHash("password123")
+                .build());
+        userId = user.getUserId();
+        GameLibrary library = new GameLibrary();
+        library.setUser(user);
+        Long libraryId = gameLibraryRepository.saveAndFlush(library).getLibraryId();
+
+        List<Game> games = new ArrayList<>();
+        for (long i = 1; i <= games(); i++) {
+            Game game = new Game();
+            game.setIgdbId(i);
+            game.setTitle("Footprint Game " + i);
+            game.setDescription("A game with a description long enough to weigh on every row it is repeated in. ".repeat(3));
+            game.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            game.setCoverImageUrl("https://images.igdb.com/igdb/image/upload/t_cover_big/co" + i + ".jpg");
+            game.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+            games.add(game);
+        }
+        Map<Long, Long> gameIds = new HashMap<>();
+        gameBatchRepository.upsertGames(games).forEach((igdbId, written) -> gameIds.put(igdbId, written.gameId()));
+        jdbcTemplate.batchUpdate("INSERT INTO library_games (library_id, game_id) VALUES (?, ?)",
+            gameIds.values().stream().map(gameId -> new Object[] {libraryId, gameId}).toList());
+
+        gameBatchRepository.insertGenres(names("Genre ", 30));
+        gameBatchRepository.insertPlatforms(names("Platform ", 10));
+        gameBatchRepository.insertPublishers(companies("Publisher ", 100));
+        gameBatchRepository.insertDevelopers(companies("Developer ", 200));
+        link(GameRelation.GENRES, gameIds, "SELECT genre_id FROM genres WHERE name = ?",
+            i -> List.of("Genre " + i % 30, "Genre " + (i + 1) % 30, "Genre " + (i + 2) % 30));
+        link(GameRelation.PLATFORMS, gameIds, "SELECT platform_id FROM platforms WHERE name = ?",
+            i -> List.of("Platform " + i % 10, "Platform " + (i + 3) % 10));
+        link(GameRelation.PUBLISHERS, gameIds, "SELECT publisher_id FROM publishers WHERE name = ?",
+            i -> List.of("Publisher " + i % 100));
+        link(GameRelation.DEVELOPERS, gameIds, "SELECT developer_id FROM developers WHERE name = ?",
+            i -> List.of("Developer " + i % 200, "Developer " + (i + 7) % 200));
+        entityManager.clear();
+    }
+
+    @Test
+    void testLibraryIsReadInNarrowQueries() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // The endpoint runs in a read-only transaction of its own, which never flushes; the transaction
+        // of this test would otherwise dirty check every game read before each query
+        entityManager.setFlushMode(FlushModeType.COMMIT);
+        GameLibrary library = readLibrary(statistics);
+        long statements = statistics.getPrepareStatementCount();
+        long rows = 0;
+        for (String query : statistics.getQueries()) {
+            rows += statistics.getQueryStatistics(query).getExecutionRowCount();
+        }
+
+        assertEquals(games(), library.getGames().size());
+        for (Game game : library.getGames()) {
+            assertEquals(GENRES_PER_GAME, game.getGenres().size());
+            assertEquals(PLATFORMS_PER_GAME, game.getPlatforms().size());
+            assertEquals(1, game.getPublishers().size());
+            assertEquals(DEVELOPERS_PER_GAME, game.getDevelopers().size());
+        }
+        // library id, games, then each collection in batches of 1,000 games
+        assertEquals(2 + 4 * ((games() + 999) / 1000), statements);
+        // one row per library, game and collection element, not per combination of elements
+        assertEquals(1 + games() * (1 + GENRES_PER_GAME + PLATFORMS_PER_GAME + 1 + DEVELOPERS_PER_GAME), rows);
+    }
+
+    /**
+     * Number of games in the library
+     */
+    int games() {
+        return 1_500;
+    }
+
+    /**
+     * Reads the library of the test user as the list endpoint does, with fresh statistics
+     *
+     * @param statistics the statistics to clear before the read
+     * @return the library read
+     */
+    GameLibrary readLibrary(Statistics statistics) {
+        entityManager.clear();
+        statistics.clear();
+        return gameLibraryService.getLibraryForUser(userId, "title", "");
+    }
+
+    private void link(GameRelation relation, Map<Long, Long> gameIds, String idQuery, LongFunction<List<String>> names) {
+        Map<String, Long> targetIds = new HashMap<>();
+        Map<Long, Set<Long>> links = new HashMap<>();
+        gameIds.forEach((igdbId, gameId) -> links.put(gameId, Set.copyOf(names.apply(igdbId).stream()
+            .map(name -> targetIds.computeIfAbsent(name, key -> jdbcTemplate.queryForObject(idQuery, Long.class, key)))
+            .toList())));
+        gameBatchRepository.insertRelations(relation, links);
+    }
+
+    private static List<String> names(String prefix, int count) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            names.add(prefix + i);
+        }
+        return names;
+    }
+
+    private static List<IGDBCompanyDTO> companies(String prefix, int count) {
+        List<IGDBCompanyDTO> companies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            IGDBCompanyDTO company = new IGDBCompanyDTO();
+            company.setIgdbCompanyId(i + 1L);
+            company.setName(prefix + i);
+            companies.add(company);
+        }
+        return companies;
+    }
+} 
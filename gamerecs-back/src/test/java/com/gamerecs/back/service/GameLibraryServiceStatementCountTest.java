@@ -0,0 +1,171 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.model.Developer;
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.model.GameLibrary;
+import com.gamerecs.back.model.Genre;
+import com.gamerecs.back.model.PaginatedGameLibraryResponse;
+import com.gamerecs.back.model.Platform;
+import com.gamerecs.back.model.Publisher;
+import com.gamerecs.back.model.User;
+import com.gamerecs.back.repository.DeveloperRepository;
+import com.gamerecs.back.repository.GameLibraryRepository;
+import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.repository.GenreRepository;
+import com.gamerecs.back.repository.PlatformRepository;
+import com.gamerecs.back.repository.PublisherRepository;
+import com.gamerecs.back.repository.UserRepository;
+import com.gamerecs.back.util.BaseIntegrationTest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the JDBC statements a page of the game library costs, which must not grow with the page size
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class GameLibraryServiceStatementCountTest extends BaseIntegrationTest {
+    private static final Logger logger = LoggerFactory.getLogger(GameLibraryServiceStatementCountTest.class);
+
+    private static final int GAMES = 60;
+
+    @Autowired
+    private GameLibraryService gameLibraryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GameLibraryRepository gameLibraryRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private PlatformRepository platformRepository;
+
+    @Autowired
+    private PublisherRepository publisherRepository;
+
+    @Autowired
+    private DeveloperRepository developerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder()
+                .username("countingUser")
+                .email("counting@example.com")
+                .passwordHash("password123")
+                .build());
+        userId = user.getUserId();
+
+        Set<Game> games = new HashSet<>();
+        for (long i = 1; i <= GAMES; i++) {
+            Game game = new Game();
+            game.setIgdbId(i);
+            game.setTitle("Counted Game " + i);
+            // Every game has collections of its own, so nothing is shared between the games of a page
+            game.getGenres().add(genreRepository.save(genre("Genre " + i)));
+            game.getGenres().add(genreRepository.save(genre("Other Genre " + i)));
+            game.getPlatforms().add(platformRepository.save(platform("Platform " + i)));
+            game.getPublishers().add(publisherRepository.save(publisher(i)));
+            game.getDevelopers().add(developerRepository.save(developer(i)));
+            games.add(gameRepository.save(game));
+        }
+        GameLibrary library = new GameLibrary();
+        library.setUser(user);
+        library.setGames(games);
+        gameLibraryRepository.saveAndFlush(library);
+    }
+
+    @Test
+    void testOffsetPageCostsTheSameStatementsWhateverItsSize() {
+        long small = statementsFor(() -> gameLibraryService.getPaginatedLibraryForUser(userId, "title", "", 1, 5));
+        long large = statementsFor(() -> gameLibraryService.getPaginatedLibraryForUser(userId, "title", "", 0, 50));
+
+        logger.info("OFFSET pages of 5 and 50 games took {} and {} statements", small, large);
+        assertEquals(small, large);
+        // library id, page, count, then one query per collection
+        assertEquals(7, large);
+    }
+
+    @Test
+    void testKeysetPageCostsTheSameStatementsWhateverItsSize() {
+        long small = statementsFor(() -> gameLibraryService.getLibraryPageAfter(userId, "releaseDate", "", "", 5, false));
+        long large = statementsFor(() -> gameLibraryService.getLibraryPageAfter(userId, "releaseDate", "", "", 50, false));
+
+        logger.info("Keyset pages of 5 and 50 games took {} and {} statements", small, large);
+        assertEquals(small, large);
+        // library id, page, then one query per collection
+        assertEquals(6, large);
+    }
+
+    private long statementsFor(Supplier<PaginatedGameLibraryResponse> page) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        PaginatedGameLibraryResponse response = page.get();
+        // Serializing the page reads every collection; none may be left to load lazily
+        for (Game game : response.getGames()) {
+            assertTrue(Hibernate.isInitialized(game.getGenres()));
+            assertTrue(Hibernate.isInitialized(game.getPlatforms()));
+            assertTrue(Hibernate.isInitialized(game.getPublishers()));
+            assertTrue(Hibernate.isInitialized(game.getDevelopers()));
+            assertEquals(2, game.getGenres().size());
+            assertEquals(1, game.getDevelopers().size());
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static Genre genre(String name) {
+        Genre genre = new Genre();
+        genre.setName(name);
+        return genre;
+    }
+
+    private static Platform platform(String name) {
+        Platform platform = new Platform();
+        platform.setName(name);
+        return platform;
+    }
+
+    private static Publisher publisher(long igdbCompanyId) {
+        Publisher publisher = new Publisher();
+        publisher.setIgdbCompanyId(igdbCompanyId);
+        publisher.setName("Publisher " + igdbCompanyId);
+        return publisher;
+    }
+
+    private static Developer developer(long igdbCompanyId) {
+        Developer developer = new Developer();
+        developer.setIgdbCompanyId(igdbCompanyId);
+        developer.setName("Developer " + igdbCompanyId);
+        return developer;
+    }
+} 
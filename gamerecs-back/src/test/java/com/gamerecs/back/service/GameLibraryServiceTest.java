@@ -1,10 +1,17 @@
 package com.gamerecs.back.service;
 
+import com.gamerecs.back.dto.LibraryEntryPage;
 import com.gamerecs.back.model.Game;
 import com.gamerecs.back.model.GameLibrary;
 import com.gamerecs.back.model.Genre;
+import com.gamerecs.back.model.LibraryEntry;
+import com.gamerecs.back.model.PaginatedGameLibraryResponse;
 import com.gamerecs.back.model.User;
 import com.gamerecs.back.repository.GameLibraryRepository;
+import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.repository.GenreRepository;
+import com.gamerecs.back.repository.LibraryEntryBatchRepository;
+import com.gamerecs.back.repository.LibraryEntryRepository;
 import com.gamerecs.back.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,13 +19,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -35,6 +41,18 @@ public class GameLibraryServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private GenreRepository genreRepository;
+
+    @Mock
+    private LibraryEntryRepository libraryEntryRepository;
+
+    @Mock
+    private LibraryEntryBatchRepository libraryEntryBatchRepository;
+
     @InjectMocks
     private GameLibraryService gameLibraryService;
 
@@ -59,8 +77,8 @@ public class GameLibraryServiceTest {
     @Test
     void getLibraryForUser_ValidUser_ReturnsLibrary() {
         // Arrange
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(gameLibraryRepository.findByUserWithGamesAndCollections(testUser)).thenReturn(Optional.of(testLibrary));
+        givenLibraryOfTestUser();
+        when(gameLibraryRepository.findAllGamesByUserOrderByTitleIgnoreCase(testUser)).thenReturn(List.of());
 
         // Act
         GameLibrary result = gameLibraryService.getLibraryForUser(userId);
@@ -69,16 +87,18 @@ public class GameLibraryServiceTest {
         assertNotNull(result);
         assertEquals(testLibrary.getLibraryId(), result.getLibraryId());
         assertEquals(testUser, result.getUser());
+        assertTrue(result.getGames().isEmpty());
         
-        // Verify repository methods were called
-        verify(userRepository, times(1)).findById(userId);
-        verify(gameLibraryRepository, times(1)).findByUserWithGamesAndCollections(testUser);
+        // No games, so no collection is read
+        verify(gameLibraryRepository, times(1)).findLibraryIdByUserId(userId);
+        verifyNoInteractions(gameRepository);
     }
 
     @Test
     void getLibraryForUser_UserNotFound_ThrowsUnauthorized() {
         // Arrange
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(gameLibraryRepository.findLibraryIdByUserId(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         // Act & Assert
         ResponseStatusException exception = assertThrows(
@@ -88,17 +108,14 @@ public class GameLibraryServiceTest {
         
         assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatusCode());
         assertEquals("User not found", exception.getReason());
-        
-        // Verify repository method was called
-        verify(userRepository, times(1)).findById(userId);
-        verify(gameLibraryRepository, never()).findByUser(any());
+        verify(gameLibraryRepository, never()).findAllGamesByUserOrderByTitleIgnoreCase(any());
     }
 
     @Test
     void getLibraryForUser_LibraryNotFound_ThrowsNotFound() {
         // Arrange
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(gameLibraryRepository.findByUserWithGamesAndCollections(testUser)).thenReturn(Optional.empty());
+        when(gameLibraryRepository.findLibraryIdByUserId(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(true);
 
         // Act & Assert
         ResponseStatusException exception = assertThrows(
@@ -108,159 +125,235 @@ public class GameLibraryServiceTest {
         
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
         assertEquals("Game library not found", exception.getReason());
-        
-        // Verify repository methods were called
-        verify(userRepository, times(1)).findById(userId);
-        verify(gameLibraryRepository, times(1)).findByUserWithGamesAndCollections(testUser);
+        verify(gameLibraryRepository, never()).findAllGamesByUserOrderByTitleIgnoreCase(any());
     }
 
     @Test
-    void getLibraryForUser_WithSorting_ReturnsSortedLibrary() {
-        // Arrange
-        // Create test games with different titles
-        Game game1 = new Game();
-        game1.setGameId(1L);
-        game1.setTitle("Zelda");
-        
-        Game game2 = new Game();
-        game2.setGameId(2L);
-        game2.setTitle("Assassin's Creed");
-        
-        // Add games to the library
-        testLibrary.getGames().add(game1);
-        testLibrary.getGames().add(game2);
-        
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(gameLibraryRepository.findByUserWithGamesAndCollections(testUser)).thenReturn(Optional.of(testLibrary));
+    void getLibraryForUser_WithSorting_KeepsDatabaseOrderAndLoadsCollections() {
+        // Arrange: the repository returns the games already sorted by title
+        Game assassins = libraryGame(2L, "Assassin's Creed", null);
+        Game zelda = libraryGame(1L, "Zelda", null);
+        Genre adventure = new Genre();
+        adventure.setGenreId(1L);
+        adventure.setName("Adventure");
+        givenLibraryOfTestUser();
+        when(gameLibraryRepository.findAllGamesByUserOrderByTitleIgnoreCase(testUser)).thenReturn(List.of(assassins, zelda));
+        when(gameRepository.findGenresByGameIds(anyList())).thenReturn(List.<Object[]>of(
+            new Object[] {1L, adventure}, new Object[] {2L, adventure}));
         
         // Act
         GameLibrary result = gameLibraryService.getLibraryForUser(userId, "title", "");
         
         // Assert
-        assertNotNull(result);
-        assertEquals(testLibrary.getLibraryId(), result.getLibraryId());
-        
-        // Since HashSet doesn't maintain order, we need to check if both games are present
-        assertEquals(2, result.getGames().size());
-        assertTrue(result.getGames().stream().anyMatch(game -> "Assassin's Creed".equals(game.getTitle())));
-        assertTrue(result.getGames().stream().anyMatch(game -> "Zelda".equals(game.getTitle())));
-        
-        // To verify sorting, we need to convert to a list and sort it ourselves
-        List<String> actualTitles = result.getGames().stream()
-            .map(Game::getTitle)
-            .sorted(String.CASE_INSENSITIVE_ORDER)
-            .collect(java.util.stream.Collectors.toList());
-        
-        List<String> expectedTitles = List.of("Assassin's Creed", "Zelda");
-        assertEquals(expectedTitles, actualTitles);
+        List<Game> games = new ArrayList<>(result.getGames());
+        assertEquals(List.of("Assassin's Creed", "Zelda"), games.stream().map(Game::getTitle).toList());
+        assertEquals(Set.of(adventure), games.get(0).getGenres());
+        assertEquals(Set.of(adventure), games.get(1).getGenres());
+        assertTrue(games.get(1).getPlatforms().isEmpty());
+        // The games returned are copies: the entities read keep their own collections
+        assertNotSame(zelda, games.get(1));
+        assertTrue(zelda.getGenres().isEmpty());
+        verify(gameRepository, times(1)).findDevelopersByGameIds(anyList());
     }
     
     @Test
-    void getLibraryForUser_WithFiltering_ReturnsFilteredLibrary() {
+    void getLibraryForUser_WithFiltering_FiltersInTheDatabase() {
         // Arrange
-        // Create test games with different genres
-        Game actionGame = new Game();
-        actionGame.setGameId(1L);
-        actionGame.setTitle("Action Game");
-        
-        Genre actionGenre = new Genre();
-        actionGenre.setGenreId(1L);
-        actionGenre.setName("Action");
-        
-        Game rpgGame = new Game();
-        rpgGame.setGameId(2L);
-        rpgGame.setTitle("RPG Game");
-        
-        Genre rpgGenre = new Genre();
-        rpgGenre.setGenreId(2L);
-        rpgGenre.setName("RPG");
-        
-        // Set up genres for games
-        actionGame.setGenres(new LinkedHashSet<>(Collections.singletonList(actionGenre)));
-        rpgGame.setGenres(new LinkedHashSet<>(Collections.singletonList(rpgGenre)));
-        
-        // Add games to the library
-        testLibrary.getGames().add(actionGame);
-        testLibrary.getGames().add(rpgGame);
-        
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(gameLibraryRepository.findByUserWithGamesAndCollections(testUser)).thenReturn(Optional.of(testLibrary));
+        Game actionGame = libraryGame(1L, "Action Game", null);
+        givenLibraryOfTestUser();
+        when(gameLibraryRepository.findAllGamesByUserAndGenreOrderByTitleIgnoreCase(testUser, "Action"))
+            .thenReturn(List.of(actionGame));
         
         // Act
         GameLibrary result = gameLibraryService.getLibraryForUser(userId, "title", "Action");
         
         // Assert
-        assertNotNull(result);
-        assertEquals(testLibrary.getLibraryId(), result.getLibraryId());
-        assertEquals(1, result.getGames().size());
-        
-        // Check if only action games are included
-        Game filteredGame = result.getGames().iterator().next();
-        assertEquals("Action Game", filteredGame.getTitle());
+        assertEquals(Set.of(actionGame), result.getGames());
+        verify(gameLibraryRepository, never()).findAllGamesByUserOrderByTitleIgnoreCase(any());
     }
     
     @Test
-    void getLibraryForUser_WithSortingAndFiltering_ReturnsSortedAndFilteredLibrary() {
-        // Arrange: Create a User with a game library that has a mix of games
-        GameLibrary library = new GameLibrary();
-        library.setLibraryId(2L);
-        library.setUser(testUser);
-        Set<Game> games = new HashSet<>();
-        
-        // Create games with different titles and genres
-        Game game1 = new Game();
-        game1.setGameId(1L);
-        game1.setTitle("Zelda");
-        Genre adventureGenre = new Genre();
-        adventureGenre.setGenreId(1L);
-        adventureGenre.setName("Adventure");
-        game1.setGenres(new LinkedHashSet<>(Collections.singletonList(adventureGenre)));
-        
-        Game game2 = new Game();
-        game2.setGameId(2L);
-        game2.setTitle("Action Game");
-        Genre actionGenre = new Genre();
-        actionGenre.setGenreId(2L);
-        actionGenre.setName("Action");
-        game2.setGenres(new LinkedHashSet<>(Collections.singletonList(actionGenre)));
-        
-        Game game3 = new Game();
-        game3.setGameId(3L);
-        game3.setTitle("Mario");
-        game3.setGenres(new LinkedHashSet<>(Collections.singletonList(adventureGenre)));
-        
-        // Add another Action game with a different title to test sorting
-        Game game4 = new Game();
-        game4.setGameId(4L);
-        game4.setTitle("Battlefield");
-        game4.setGenres(new LinkedHashSet<>(Collections.singletonList(actionGenre)));
-        
-        games.add(game1);
-        games.add(game2);
-        games.add(game3);
-        games.add(game4);
-        library.setGames(games);
-        
-        // Stub repository calls
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(gameLibraryRepository.findByUserWithGamesAndCollections(testUser)).thenReturn(Optional.of(library));
-        
-        // Act: request library sorted by title and filtered to only Action games
-        GameLibrary result = gameLibraryService.getLibraryForUser(userId, "title", "Action");
-        
-        // Assert: The returned games should be sorted by title and only contain the Action genre games
-        assertEquals(2, result.getGames().size());
+    void getLibraryForUser_WithSortingAndFiltering_ReadsEveryGameByReleaseDate() {
+        // Arrange
+        Game older = libraryGame(1L, "Older", LocalDate.of(1998, 11, 21));
+        Game newer = libraryGame(2L, "Newer", LocalDate.of(2017, 3, 3));
+        givenLibraryOfTestUser();
+        when(gameLibraryRepository.findGamesByUserAndGenreOrderByReleaseDate(testUser, "Action", Limit.unlimited()))
+            .thenReturn(List.of(older, newer));
         
-        // Convert to list to verify order
-        List<Game> sortedGames = new ArrayList<>(result.getGames());
-        assertEquals("Action Game", sortedGames.get(0).getTitle());
-        assertEquals("Battlefield", sortedGames.get(1).getTitle());
+        // Act
+        GameLibrary result = gameLibraryService.getLibraryForUser(userId, "releaseDate", "Action");
         
-        // Verify all games have the Action genre
-        for (Game game : result.getGames()) {
-            boolean hasActionGenre = game.getGenres().stream()
-                .anyMatch(genre -> "Action".equals(genre.getName()));
-            assertTrue(hasActionGenre, "Game should have Action genre: " + game.getTitle());
-        }
+        // Assert
+        assertEquals(List.of(older, newer), new ArrayList<>(result.getGames()));
+    }
+
+    @Test
+    void getLibraryPageAfter_FullPage_ReturnsCursorOfLastGame() {
+        Game first = libraryGame(1L, "Alpha", LocalDate.of(2001, 1, 1));
+        Game second = libraryGame(2L, "Beta", LocalDate.of(2002, 1, 1));
+        Game third = libraryGame(3L, "Gamma", null);
+        givenLibraryOfTestUser();
+        when(gameLibraryRepository.findGamesByUserOrderByTitle(testUser, Limit.of(2))).thenReturn(List.of(first, second));
+        when(gameLibraryRepository.findGamesByUserAfterTitle(testUser, "Beta", 2L, Limit.of(2))).thenReturn(List.of(third));
+
+        PaginatedGameLibraryResponse firstPage = gameLibraryService.getLibraryPageAfter(userId, "title", "", "", 2, false);
+        PaginatedGameLibraryResponse lastPage = gameLibraryService.getLibraryPageAfter(
+            userId, "title", "", firstPage.getNextCursor(), 2, false);
+
+        assertEquals(List.of(first, second), firstPage.getGames());
+        assertEquals(-1, firstPage.getTotalElements());
+        assertEquals(-1, firstPage.getTotalPages());
+        assertEquals(List.of(third), lastPage.getGames());
+        assertNull(lastPage.getNextCursor(), "a short page is the last one");
+        verify(gameLibraryRepository, never()).countGamesByUser(any());
+        verify(gameRepository).findGenresByGameIds(argThat(ids -> Set.copyOf(ids).equals(Set.of(1L, 2L))));
+        verify(gameRepository).findDevelopersByGameIds(List.of(3L));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void getPaginatedLibraryForUser_MissingLibrary_ThrowsNotFoundOrUnauthorized() {
+        when(gameLibraryRepository.findLibraryIdByUserId(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(true, false);
+
+        ResponseStatusException noLibrary = assertThrows(ResponseStatusException.class,
+            () -> gameLibraryService.getPaginatedLibraryForUser(userId, "title", "", 0, 10));
+        ResponseStatusException noUser = assertThrows(ResponseStatusException.class,
+            () -> gameLibraryService.getPaginatedLibraryForUser(userId, "title", "", 0, 10));
+
+        assertEquals(HttpStatus.NOT_FOUND, noLibrary.getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, noUser.getStatusCode());
+        verifyNoInteractions(gameRepository);
+    }
+
+    @Test
+    void getLibraryPageAfter_ReleaseDateCursor_ContinuesAfterDatedOrUndatedGame() {
+        Game dated = libraryGame(1L, "Dated", LocalDate.of(2001, 1, 1));
+        Game undated = libraryGame(2L, "Undated", null);
+        givenLibraryOfTestUser();
+        when(gameLibraryRepository.findGamesByUserAndGenreAfterReleaseDate(
+            testUser, "RPG", LocalDate.of(2001, 1, 1), 1L, Limit.of(1))).thenReturn(List.of(undated));
+        when(gameLibraryRepository.findGamesByUserAndGenreAfterUndated(testUser, "RPG", 2L, Limit.of(1)))
+            .thenReturn(List.of());
+        when(gameLibraryRepository.countGamesByUserAndGenre(testUser, "RPG")).thenReturn(3L);
+
+        String afterDated = GameLibraryService.Cursor.of(dated, true).encode();
+        PaginatedGameLibraryResponse page = gameLibraryService.getLibraryPageAfter(
+            userId, "releaseDate", "RPG", afterDated, 1, true);
+        PaginatedGameLibraryResponse end = gameLibraryService.getLibraryPageAfter(
+            userId, "releaseDate", "RPG", page.getNextCursor(), 1, true);
+
+        assertEquals(List.of(undated), page.getGames());
+        assertEquals(3, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+        assertTrue(end.getGames().isEmpty());
+    }
+
+    @Test
+    void getLibraryPageAfter_MalformedOrForeignCursor_ThrowsIllegalArgument() {
+        givenLibraryOfTestUser();
+        String titleCursor = GameLibraryService.Cursor.of(libraryGame(1L, "Alpha: Part 2", null), false).encode();
+
+        assertEquals("Alpha: Part 2", GameLibraryService.Cursor.decode(titleCursor).key());
+        assertThrows(IllegalArgumentException.class,
+            () -> gameLibraryService.getLibraryPageAfter(userId, "title", "", "not-a-cursor", 10, false));
+        assertThrows(IllegalArgumentException.class,
+            () -> gameLibraryService.getLibraryPageAfter(userId, "releaseDate", "", titleCursor, 10, false));
+    }
+
+    @Test
+    void getLibraryEntries_FullPages_ReadTheReadModelAfterTheCursor() {
+        givenLibraryOfTestUser();
+        LibraryEntry celeste = libraryEntry(2L, "Celeste");
+        LibraryEntry hades = libraryEntry(1L, "Hades");
+        when(libraryEntryRepository.findByLibraryOrderByTitle(1L, Limit.of(1))).thenReturn(List.of(celeste));
+        when(libraryEntryRepository.findByLibraryAfterTitle(1L, "Celeste", 2L, Limit.of(1))).thenReturn(List.of(hades));
+
+        LibraryEntryPage first = gameLibraryService.getLibraryEntries(userId, "title", "", null, 1);
+        LibraryEntryPage second = gameLibraryService.getLibraryEntries(userId, "title", "", first.nextCursor(), 1);
+
+        assertEquals(1L, first.libraryId());
+        assertEquals(List.of(celeste), first.entries());
+        assertEquals(List.of(hades), second.entries());
+        assertNotNull(second.nextCursor());
+        // The list view never touches the games or the library tables beyond the library id
+        verifyNoInteractions(gameRepository, userRepository);
+    }
+
+    @Test
+    void getLibraryEntries_GenreFilter_MatchesEveryGenreOfThatName() {
+        givenLibraryOfTestUser();
+        LibraryEntry undated = libraryEntry(3L, "Undated");
+        // "RPG" and "rpg" are distinct genres, both matched like the joined library queries do
+        when(genreRepository.findGenreIdsByNameIgnoreCase("rpg")).thenReturn(List.of(7L, 9L));
+        when(libraryEntryRepository.findByLibraryAndGenreOrderByReleaseDate(1L, List.of(7L, 9L), Limit.of(2)))
+            .thenReturn(List.of(undated));
+
+        LibraryEntryPage page = gameLibraryService.getLibraryEntries(userId, "releaseDate", "rpg", "", 2);
+
+        assertEquals(List.of(undated), page.entries());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getLibraryEntries_UnknownGenre_ReturnsEmptyPageWithoutReadingEntries() {
+        givenLibraryOfTestUser();
+        when(genreRepository.findGenreIdsByNameIgnoreCase("Nope")).thenReturn(List.of());
+
+        LibraryEntryPage page = gameLibraryService.getLibraryEntries(userId, "title", "Nope", null, 10);
+
+        assertTrue(page.entries().isEmpty());
+        assertNull(page.nextCursor());
+        verifyNoInteractions(libraryEntryRepository);
+    }
+
+    @Test
+    void addGameToLibrary_ExistingGame_WritesGameAndEntry() {
+        givenLibraryOfTestUser();
+        when(gameRepository.existsById(5L)).thenReturn(true);
+        when(libraryEntryBatchRepository.addGames(1L, List.of(5L))).thenReturn(1);
+
+        assertTrue(gameLibraryService.addGameToLibrary(userId, 5L));
+    }
+
+    @Test
+    void addGameToLibrary_UnknownGame_ThrowsNotFound() {
+        givenLibraryOfTestUser();
+        when(gameRepository.existsById(5L)).thenReturn(false);
+
+        ResponseStatusException exception = assertThrows(
+            ResponseStatusException.class,
+            () -> gameLibraryService.addGameToLibrary(userId, 5L)
+        );
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        assertEquals("Game not found", exception.getReason());
+        verifyNoInteractions(libraryEntryBatchRepository);
+    }
+
+    @Test
+    void removeGameFromLibrary_GameNotInLibrary_ReturnsFalse() {
+        givenLibraryOfTestUser();
+        when(libraryEntryBatchRepository.removeGames(1L, List.of(5L))).thenReturn(0);
+
+        assertFalse(gameLibraryService.removeGameFromLibrary(userId, 5L));
+    }
+
+    private void givenLibraryOfTestUser() {
+        when(gameLibraryRepository.findLibraryIdByUserId(userId)).thenReturn(Optional.of(testLibrary.getLibraryId()));
+        lenient().when(userRepository.getReferenceById(userId)).thenReturn(testUser);
+    }
+
+    private static LibraryEntry libraryEntry(long gameId, String title) {
+        return new LibraryEntry(1L, gameId, title, null, null, List.of(), List.of());
+    }
+
+    private static Game libraryGame(long gameId, String title, LocalDate releaseDate) {
+        Game game = new Game();
+        game.setGameId(gameId);
+        game.setTitle(title);
+        game.setReleaseDate(releaseDate);
+        return game;
     }
 } 
@@ -0,0 +1,189 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.GameSearchPage;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.dto.IGDBSearchResult;
+import com.gamerecs.back.model.SyncCheckpoint;
+import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.repository.SyncCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GameSearchServiceTest {
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private SyncCheckpointRepository checkpointRepository;
+
+    @Mock
+    private IGDBClientService igdbClientService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GameSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        searchService = new GameSearchService(gameRepository, checkpointRepository, igdbClientService,
+            meterRegistry, 2, Duration.ofHours(1));
+    }
+
+    @Test
+    void testToPrefixQuery() {
+        assertEquals("zelda:* & breath:*", GameSearchService.toPrefixQuery("zelda: breath"));
+        assertEquals("pokémon:* & 2:*", GameSearchService.toPrefixQuery("pokémon & 2!"));
+        assertEquals("", GameSearchService.toPrefixQuery("'|&"));
+        assertEquals("", GameSearchService.toPrefixQuery(null));
+    }
+
+    @Test
+    void testEnoughFreshLocalResultsDoNotCallIGDB() {
+        when(gameRepository.searchRanked("zelda:*", "zelda", 3))
+            .thenReturn(List.of(ranked(1L, 10L, "Zelda", 1.5f), ranked(2L, 20L, "Zelda II", 1.2f)));
+        when(checkpointRepository.findById(IGDBDeltaSyncService.JOB_NAME)).thenReturn(Optional.of(checkpoint(5)));
+
+        GameSearchPage page = searchService.search("Zelda", null, 3);
+
+        assertEquals(GameSearchPage.Source.LOCAL, page.source());
+        assertEquals(List.of("Zelda", "Zelda II"), page.games().stream().map(IGDBGameDTO::getTitle).toList());
+        assertNull(page.nextCursor());
+        verifyNoInteractions(igdbClientService);
+        assertEquals(1, meterRegistry.get("gamerecs.games.search").tag("source", "local").timer().count());
+    }
+
+    @Test
+    void testNextPageStartsAfterTheCursor() {
+        when(gameRepository.searchRanked("zelda:*", "zelda", 2))
+            .thenReturn(List.of(ranked(1L, 10L, "Zelda", 1.5f), ranked(2L, 20L, "Zelda II", 1.2f)));
+        String cursor = searchService.search("zelda", null, 2).nextCursor();
+
+        when(gameRepository.searchRankedAfter("zelda:*", "zelda", 1.2f, 2L, 2))
+            .thenReturn(List.of(ranked(3L, 30L, "Zelda III", 1.2f)));
+        GameSearchPage next = searchService.search("zelda", cursor, 2);
+
+        assertEquals("Zelda III", next.games().get(0).getTitle());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    void testFewLocalResultsAreCompletedFromIGDB() {
+        when(gameRepository.searchRanked("hollow:*", "hollow", 10))
+            .thenReturn(List.of(ranked(1L, 10L, "Hollow Knight", 2.0f)));
+        when(igdbClientService.searchGamesWithStatus("hollow")).thenReturn(new IGDBSearchResult(
+            List.of(game(10L, "Hollow Knight"), game(11L, "Hollow Knight: Silksong")), IGDBSearchResult.Source.IGDB));
+
+        GameSearchPage page = searchService.search("hollow", null, 10);
+
+        assertEquals(GameSearchPage.Source.LOCAL_AND_IGDB, page.source());
+        assertEquals(List.of(10L, 11L), page.games().stream().map(IGDBGameDTO::getIgdbId).toList());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testStaleCatalogIsCompletedFromIGDB() {
+        when(gameRepository.searchRanked("zelda:*", "zelda", 3))
+            .thenReturn(List.of(ranked(1L, 10L, "Zelda", 1.5f), ranked(2L, 20L, "Zelda II", 1.2f)));
+        when(checkpointRepository.findById(IGDBDeltaSyncService.JOB_NAME)).thenReturn(Optional.of(checkpoint(120)));
+        when(igdbClientService.searchGamesWithStatus("zelda"))
+            .thenReturn(new IGDBSearchResult(List.of(), IGDBSearchResult.Source.IGDB));
+
+        assertEquals(GameSearchPage.Source.LOCAL_AND_IGDB, searchService.search("zelda", null, 3).source());
+    }
+
+    @Test
+    void testMissingCheckpointTrustsEnoughLocalResults() {
+        when(gameRepository.searchRanked("zelda:*", "zelda", 3))
+            .thenReturn(List.of(ranked(1L, 10L, "Zelda", 1.5f), ranked(2L, 20L, "Zelda II", 1.2f)));
+        when(checkpointRepository.findById(IGDBDeltaSyncService.JOB_NAME)).thenReturn(Optional.empty());
+
+        assertEquals(GameSearchPage.Source.LOCAL, searchService.search("zelda", null, 3).source());
+        verifyNoInteractions(igdbClientService);
+    }
+
+    @Test
+    void testFullFirstPageIsNotCompletedFromIGDB() {
+        when(gameRepository.searchRanked("zelda:*", "zelda", 2))
+            .thenReturn(List.of(ranked(1L, 10L, "Zelda", 1.5f), ranked(2L, 20L, "Zelda II", 1.2f)));
+
+        GameSearchPage page = searchService.search("zelda", null, 2);
+
+        assertEquals(GameSearchPage.Source.LOCAL, page.source());
+        assertEquals(2, page.games().size());
+        assertNotNull(page.nextCursor(), "a full page has a next page");
+        verifyNoInteractions(igdbClientService, checkpointRepository);
+    }
+
+    @Test
+    void testIGDBGamesAreAppendedUpToThePageSize() {
+        when(gameRepository.searchRanked("hollow:*", "hollow", 3))
+            .thenReturn(List.of(ranked(1L, 10L, "Hollow Knight", 2.0f)));
+        when(igdbClientService.searchGamesWithStatus("hollow")).thenReturn(new IGDBSearchResult(
+            List.of(game(10L, "Hollow Knight"), game(11L, "Hollow Knight: Silksong"), game(12L, "Hollow"),
+                game(13L, "Hollowbody")), IGDBSearchResult.Source.IGDB));
+
+        GameSearchPage page = searchService.search("hollow", null, 3);
+
+        assertEquals(List.of(10L, 11L, 12L), page.games().stream().map(IGDBGameDTO::getIgdbId).toList());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testDegradedIGDBResultIsNotMerged() {
+        when(gameRepository.searchRanked("hollow:*", "hollow", 10)).thenReturn(new ArrayList<>());
+        when(igdbClientService.searchGamesWithStatus("hollow")).thenReturn(new IGDBSearchResult(
+            List.of(game(11L, "Old Result")), IGDBSearchResult.Source.STALE_CACHE));
+
+        assertTrue(searchService.search("hollow", null, 10).games().isEmpty());
+    }
+
+    @Test
+    void testBlankQueryAndMalformedCursor() {
+        assertTrue(searchService.search("  !! ", null, 10).games().isEmpty());
+        verifyNoInteractions(gameRepository);
+
+        assertThrows(IllegalArgumentException.class, () -> searchService.search("zelda", "not-a-cursor", 10));
+    }
+
+    private static GameRepository.RankedGame ranked(Long gameId, Long igdbId, String title, float rank) {
+        return new GameRepository.RankedGame() {
+            public Long getGameId() { return gameId; }
+            public Long getIgdbId() { return igdbId; }
+            public String getTitle() { return title; }
+            public LocalDate getReleaseDate() { return null; }
+            public String getCoverImageUrl() { return null; }
+            public Float getRank() { return rank; }
+        };
+    }
+
+    private static IGDBGameDTO game(Long igdbId, String title) {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setIgdbId(igdbId);
+        game.setTitle(title);
+        return game;
+    }
+
+    private static SyncCheckpoint checkpoint(int minutesAgo) {
+        return SyncCheckpoint.builder()
+            .jobName(IGDBDeltaSyncService.JOB_NAME)
+            .checkpointValue(0L)
+            .updatedAt(LocalDateTime.now().minusMinutes(minutesAgo))
+            .build();
+    }
+} 
@@ -0,0 +1,256 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.GameSyncResult;
+import com.gamerecs.back.dto.IGDBCompanyDTO;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.dto.IGDBGenreDTO;
+import com.gamerecs.back.dto.IGDBPlatformDTO;
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.model.GameLibrary;
+import com.gamerecs.back.model.Genre;
+import com.gamerecs.back.model.LibraryEntry;
+import com.gamerecs.back.model.User;
+import com.gamerecs.back.repository.GameLibraryRepository;
+import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.repository.GenreRepository;
+import com.gamerecs.back.repository.LibraryEntryBatchRepository;
+import com.gamerecs.back.repository.LibraryEntryRepository;
+import com.gamerecs.back.repository.PublisherRepository;
+import com.gamerecs.back.repository.UserRepository;
+import com.gamerecs.back.util.BaseIntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the batch sync mode of GameSyncService
+ */
+class GameSyncServiceBatchTest extends BaseIntegrationTest {
+    private static final Logger logger = LoggerFactory.getLogger(GameSyncServiceBatchTest.class);
+
+    @Autowired
+    private GameSyncService gameSyncService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private PublisherRepository publisherRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GameLibraryRepository gameLibraryRepository;
+
+    @Autowired
+    private LibraryEntryBatchRepository libraryEntryBatchRepository;
+
+    @Autowired
+    private LibraryEntryRepository libraryEntryRepository;
+
+    @MockBean
+    private IGDBClientService igdbClientService;
+
+    private static final long UPDATED_AT = Instant.parse("2024-01-01T00:00:00Z").getEpochSecond();
+
+    @Test
+    @DisplayName("Should insert new games with their relationships in batches")
+    void shouldInsertNewGamesWithRelationships() {
+        List<IGDBGameDTO> games = new ArrayList<>();
+        for (long i = 1; i <= 250; i++) {
+            games.add(createGame(i, "Game " + i, UPDATED_AT, "Adventure", "PC", 1000L + (i % 3)));
+        }
+
+        GameSyncResult result = gameSyncService.syncGamesInBatches(games);
+
+        assertEquals(250, result.getProcessed());
+        assertEquals(250, result.getInserted());
+        assertEquals(0, result.getSkipped());
+        assertEquals(250, gameRepository.count());
+        assertEquals(1, genreRepository.count());
+        assertEquals(3, publisherRepository.count());
+
+        entityManager.clear();
+        Game stored = gameRepository.findByIgdbId(42L).orElseThrow();
+        assertEquals("Game 42", stored.getTitle());
+        assertEquals(1, stored.getGenres().size());
+        assertEquals(1, stored.getPlatforms().size());
+        assertEquals(1, stored.getPublishers().size());
+        assertEquals(1, stored.getDevelopers().size());
+    }
+
+    @Test
+    @DisplayName("Should skip games whose updated_at has not changed")
+    void shouldSkipUnchangedGames() {
+        gameSyncService.syncGamesInBatches(List.of(createGame(1L, "Game", UPDATED_AT, "Adventure", "PC", 1L)));
+
+        GameSyncResult result = gameSyncService.syncGamesInBatches(
+            List.of(createGame(1L, "Renamed Game", UPDATED_AT, "Adventure", "PC", 1L)));
+
+        assertEquals(1, result.getSkipped());
+        assertEquals(0, result.getUpdated());
+        entityManager.clear();
+        assertEquals("Game", gameRepository.findByIgdbId(1L).orElseThrow().getTitle());
+    }
+
+    @Test
+    @DisplayName("Should update changed games and replace their relationships")
+    void shouldUpdateChangedGamesAndReplaceRelationships() {
+        gameSyncService.syncGamesInBatches(List.of(createGame(1L, "Game", UPDATED_AT, "Adventure", "PC", 1L)));
+
+        GameSyncResult result = gameSyncService.syncGamesInBatches(
+            List.of(createGame(1L, "Game Remastered", UPDATED_AT + 60, "Shooter", "PC", 1L)));
+
+        assertEquals(1, result.getUpdated());
+        entityManager.clear();
+        Game stored = gameRepository.findByIgdbId(1L).orElseThrow();
+        assertEquals("Game Remastered", stored.getTitle());
+        assertEquals(List.of("Shooter"),
+            stored.getGenres().stream().map(Genre::getName).collect(Collectors.toList()));
+        assertEquals(2, genreRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should only write the join rows that changed when a sync is replayed")
+    void shouldOnlyWriteChangedJoinRowsOnReplay() {
+        int gameCount = 200;
+        gameSyncService.syncGamesInBatches(replay(gameCount, UPDATED_AT, "Original summary", "Adventure"));
+        double[] before = joinRowWrites();
+
+        // IGDB only changed the summaries
+        GameSyncResult summaries = gameSyncService.syncGamesInBatches(
+            replay(gameCount, UPDATED_AT + 60, "Patched summary", "Adventure"));
+        double[] afterSummaries = joinRowWrites();
+
+        // IGDB moved every game from one genre to another
+        gameSyncService.syncGamesInBatches(replay(gameCount, UPDATED_AT + 120, "Patched summary", "Shooter"));
+        double[] afterGenres = joinRowWrites();
+
+        assertEquals(gameCount, summaries.getUpdated());
+        assertEquals(0.0, afterSummaries[0] - before[0], "no join rows inserted for summary-only changes");
+        assertEquals(0.0, afterSummaries[1] - before[1], "no join rows deleted for summary-only changes");
+        assertEquals(gameCount, afterGenres[0] - afterSummaries[0]);
+        assertEquals(gameCount, afterGenres[1] - afterSummaries[1]);
+
+        // Each game has two genres, one platform, one publisher and one developer
+        int linksPerGame = 5;
+        logger.info("Replay of {} updated games: {} join rows written for summary changes and {} for a genre change, "
+                + "where deleting and re-inserting every link writes {} per replay",
+            gameCount, (int) (afterSummaries[0] - before[0] + afterSummaries[1] - before[1]),
+            (int) (afterGenres[0] - afterSummaries[0] + afterGenres[1] - afterSummaries[1]), 2 * linksPerGame * gameCount);
+        entityManager.clear();
+        assertEquals(List.of("RPG", "Shooter"), gameRepository.findByIgdbId(7L).orElseThrow().getGenres().stream()
+            .map(Genre::getName).sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Should refresh the library entries of games a sync updates")
+    void shouldRefreshLibraryEntriesOfUpdatedGames() {
+        gameSyncService.syncGamesInBatches(List.of(
+            createGame(1L, "Game", UPDATED_AT, "Adventure", "PC", 1L),
+            createGame(2L, "Other Game", UPDATED_AT, "Adventure", "PC", 1L)));
+        Long gameId = gameRepository.findByIgdbId(1L).orElseThrow().getGameId();
+        User user = userRepository.save(User.builder()
+                .username("syncedLibraryUser")
+                .email("synced@example.com")
+                .passwordHash("password123")
+                .build());
+        GameLibrary library = new GameLibrary();
+        library.setUser(user);
+        Long libraryId = gameLibraryRepository.saveAndFlush(library).getLibraryId();
+        libraryEntryBatchRepository.addGames(libraryId, List.of(gameId));
+
+        gameSyncService.syncGamesInBatches(List.of(createGame(1L, "Game Remastered", UPDATED_AT + 60, "Shooter", "PC", 1L)));
+        entityManager.clear();
+        LibraryEntry batched = libraryEntryRepository.findById(new LibraryEntry.Key(libraryId, gameId)).orElseThrow();
+
+        gameSyncService.syncGamesFromSearch(List.of(createGame(1L, "Game Definitive", UPDATED_AT + 120, "RPG", "PC", 1L)));
+        entityManager.flush();
+        entityManager.clear();
+        LibraryEntry single = libraryEntryRepository.findById(new LibraryEntry.Key(libraryId, gameId)).orElseThrow();
+
+        assertEquals("Game Remastered", batched.getTitle());
+        assertEquals(List.of(genreRepository.findByName("Shooter").orElseThrow().getGenreId()), batched.getGenreIds());
+        assertEquals("Game Definitive", single.getTitle());
+        assertEquals(List.of(genreRepository.findByName("RPG").orElseThrow().getGenreId()), single.getGenreIds());
+        assertEquals(1, libraryEntryRepository.count(), "games outside the library get no entry");
+    }
+
+    @Test
+    @DisplayName("Should handle an empty list")
+    void shouldHandleEmptyList() {
+        GameSyncResult result = gameSyncService.syncGamesInBatches(List.of());
+
+        assertEquals(0, result.getProcessed());
+        assertEquals(0.0, result.getGamesPerSecond());
+    }
+
+    private List<IGDBGameDTO> replay(int gameCount, long updatedAt, String summary, String changingGenre) {
+        List<IGDBGameDTO> games = new ArrayList<>();
+        for (long i = 1; i <= gameCount; i++) {
+            IGDBGameDTO game = createGame(i, "Game " + i, updatedAt, "RPG", "PC", 1000L + (i % 3));
+            game.setDescription(summary);
+            IGDBGenreDTO genre = new IGDBGenreDTO();
+            genre.setName(changingGenre);
+            game.setGenres(List.of(game.getGenres().get(0), genre));
+            games.add(game);
+        }
+        return games;
+    }
+
+    /**
+     * Join rows inserted and deleted by the batch sync so far, over all four join tables
+     */
+    private double[] joinRowWrites() {
+        double inserted = meterRegistry.find("gamerecs.sync.relation.rows").tag("operation", "inserted").counters()
+            .stream().mapToDouble(counter -> counter.count()).sum();
+        double deleted = meterRegistry.find("gamerecs.sync.relation.rows").tag("operation", "deleted").counters()
+            .stream().mapToDouble(counter -> counter.count()).sum();
+        return new double[] {inserted, deleted};
+    }
+
+    private IGDBGameDTO createGame(long igdbId, String title, long updatedAt,
+            String genreName, String platformName, long companyId) {
+        IGDBGameDTO dto = new IGDBGameDTO();
+        dto.setIgdbId(igdbId);
+        dto.setTitle(title);
+        dto.setUpdatedAt(updatedAt);
+
+        IGDBGenreDTO genre = new IGDBGenreDTO();
+        genre.setName(genreName);
+        dto.setGenres(List.of(genre));
+
+        IGDBPlatformDTO platform = new IGDBPlatformDTO();
+        platform.setName(platformName);
+        dto.setPlatforms(List.of(platform));
+
+        IGDBCompanyDTO company = new IGDBCompanyDTO();
+        company.setIgdbCompanyId(companyId);
+        company.setName("Company " + companyId);
+        dto.setPublishers(new ArrayList<>(List.of(company)));
+        dto.setDevelopers(new ArrayList<>(List.of(company)));
+        return dto;
+    }
+} 
@@ -3,19 +3,23 @@ package com.gamerecs.back.service;
 import com.gamerecs.back.dto.*;
 import com.gamerecs.back.model.*;
 import com.gamerecs.back.repository.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,6 +38,18 @@ class GameSyncServiceRelationshipsTest {
     private PlatformRepository platformRepository;
     @Mock
     private IGDBClientService igdbClientService;
+    @Mock
+    private DimensionDictionary dimensionDictionary;
+    @Mock
+    private GameTitleIndex gameTitleIndex;
+    @Mock
+    private GameCopyLoader gameCopyLoader;
+    @Mock
+    private GameBatchRepository gameBatchRepository;
+    @Mock
+    private LibraryEntryBatchRepository libraryEntryBatchRepository;
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @InjectMocks
     private GameSyncService gameSyncService;
@@ -73,8 +89,8 @@ class GameSyncServiceRelationshipsTest {
         publisher.setIgdbCompanyId(1L);
         publisher.setName("Test Publisher");
 
-        when(gameRepository.findByIgdbId(100L)).thenReturn(Optional.of(existingGame));
-        when(publisherRepository.findByIgdbCompanyId(1L)).thenReturn(Optional.of(publisher));
+        givenStoredGame();
+        givenPublisher(1L, publisher);
         when(gameRepository.save(any(Game.class))).thenReturn(existingGame);
 
         // Act
@@ -85,7 +101,7 @@ class GameSyncServiceRelationshipsTest {
         assertEquals(1, result.getPublishers().size());
         assertTrue(result.getPublishers().stream()
                 .anyMatch(p -> p.getIgdbCompanyId().equals(1L)));
-        verify(publisherRepository).findByIgdbCompanyId(1L);
+        verify(dimensionDictionary).findPublisherId(1L);
     }
 
     @Test
@@ -101,8 +117,8 @@ class GameSyncServiceRelationshipsTest {
         developer.setIgdbCompanyId(1L);
         developer.setName("Test Developer");
 
-        when(gameRepository.findByIgdbId(100L)).thenReturn(Optional.of(existingGame));
-        when(developerRepository.findByIgdbCompanyId(1L)).thenReturn(Optional.of(developer));
+        givenStoredGame();
+        givenDeveloper(1L, developer);
         when(gameRepository.save(any(Game.class))).thenReturn(existingGame);
 
         // Act
@@ -113,7 +129,7 @@ class GameSyncServiceRelationshipsTest {
         assertEquals(1, result.getDevelopers().size());
         assertTrue(result.getDevelopers().stream()
                 .anyMatch(d -> d.getIgdbCompanyId().equals(1L)));
-        verify(developerRepository).findByIgdbCompanyId(1L);
+        verify(dimensionDictionary).findDeveloperId(1L);
     }
 
     @Test
@@ -128,8 +144,8 @@ class GameSyncServiceRelationshipsTest {
         genre.setGenreId(1L);
         genre.setName("Action");
 
-        when(gameRepository.findByIgdbId(100L)).thenReturn(Optional.of(existingGame));
-        when(genreRepository.findByName("Action")).thenReturn(Optional.of(genre));
+        givenStoredGame();
+        givenGenre("Action", genre);
         when(gameRepository.save(any(Game.class))).thenReturn(existingGame);
 
         // Act
@@ -140,7 +156,7 @@ class GameSyncServiceRelationshipsTest {
         assertEquals(1, result.getGenres().size());
         assertTrue(result.getGenres().stream()
                 .anyMatch(g -> g.getName().equals("Action")));
-        verify(genreRepository).findByName("Action");
+        verify(dimensionDictionary).findGenreId("Action");
     }
 
     @Test
@@ -155,8 +171,8 @@ class GameSyncServiceRelationshipsTest {
         platform.setPlatformId(1L);
         platform.setName("PC");
 
-        when(gameRepository.findByIgdbId(100L)).thenReturn(Optional.of(existingGame));
-        when(platformRepository.findByName("PC")).thenReturn(Optional.of(platform));
+        givenStoredGame();
+        givenPlatform("PC", platform);
         when(gameRepository.save(any(Game.class))).thenReturn(existingGame);
 
         // Act
@@ -167,7 +183,7 @@ class GameSyncServiceRelationshipsTest {
         assertEquals(1, result.getPlatforms().size());
         assertTrue(result.getPlatforms().stream()
                 .anyMatch(p -> p.getName().equals("PC")));
-        verify(platformRepository).findByName("PC");
+        verify(dimensionDictionary).findPlatformId("PC");
     }
 
     @Test
@@ -200,7 +216,7 @@ class GameSyncServiceRelationshipsTest {
         platform.setName("Old Platform");
         existingGame.getPlatforms().add(platform);
 
-        when(gameRepository.findByIgdbId(100L)).thenReturn(Optional.of(existingGame));
+        givenStoredGame();
         when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> {
             Game savedGame = invocation.getArgument(0);
             // Return the actual saved game state
@@ -216,8 +232,8 @@ class GameSyncServiceRelationshipsTest {
         assertTrue(result.getGenres().isEmpty(), "Genres should be empty");
         assertTrue(result.getPlatforms().isEmpty(), "Platforms should be empty");
         
-        // Verify save is called twice - once before updating relationships and once after
-        verify(gameRepository, times(2)).save(any(Game.class));
+        // The game row itself is written by the upsert; save only flushes the relationships
+        verify(gameRepository).save(any(Game.class));
     }
 
     @Test
@@ -243,32 +259,15 @@ class GameSyncServiceRelationshipsTest {
         platformDTO.setName("New Platform");
         igdbGameDTO.setPlatforms(List.of(platformDTO));
 
-        when(gameRepository.findByIgdbId(100L)).thenReturn(Optional.of(existingGame));
-        when(publisherRepository.findByIgdbCompanyId(1L)).thenReturn(Optional.empty());
-        when(developerRepository.findByIgdbCompanyId(2L)).thenReturn(Optional.empty());
-        when(genreRepository.findByName("New Genre")).thenReturn(Optional.empty());
-        when(platformRepository.findByName("New Platform")).thenReturn(Optional.empty());
-
-        when(publisherRepository.save(any(Publisher.class))).thenAnswer(i -> {
-            Publisher p = i.getArgument(0);
-            p.setPublisherId(1L);
-            return p;
-        });
-        when(developerRepository.save(any(Developer.class))).thenAnswer(i -> {
-            Developer d = i.getArgument(0);
-            d.setDeveloperId(2L);
-            return d;
-        });
-        when(genreRepository.save(any(Genre.class))).thenAnswer(i -> {
-            Genre g = i.getArgument(0);
-            g.setGenreId(3L);
-            return g;
-        });
-        when(platformRepository.save(any(Platform.class))).thenAnswer(i -> {
-            Platform p = i.getArgument(0);
-            p.setPlatformId(4L);
-            return p;
-        });
+        givenStoredGame();
+        when(dimensionDictionary.resolvePublisherIds(List.of(publisherDTO))).thenReturn(Map.of(1L, 1L));
+        when(dimensionDictionary.resolveDeveloperIds(List.of(developerDTO))).thenReturn(Map.of(2L, 2L));
+        when(dimensionDictionary.resolveGenreIds(List.of("New Genre"))).thenReturn(Map.of("New Genre", 3L));
+        when(dimensionDictionary.resolvePlatformIds(List.of("New Platform"))).thenReturn(Map.of("New Platform", 4L));
+        when(publisherRepository.getReferenceById(1L)).thenReturn(new Publisher());
+        when(developerRepository.getReferenceById(2L)).thenReturn(new Developer());
+        when(genreRepository.getReferenceById(3L)).thenReturn(genre(3L, "New Genre"));
+        when(platformRepository.getReferenceById(4L)).thenReturn(new Platform());
         when(gameRepository.save(any(Game.class))).thenReturn(existingGame);
 
         // Act
@@ -280,10 +279,11 @@ class GameSyncServiceRelationshipsTest {
         assertEquals(1, result.getGenres().size());
         assertEquals(1, result.getPlatforms().size());
 
-        verify(publisherRepository).save(any(Publisher.class));
-        verify(developerRepository).save(any(Developer.class));
-        verify(genreRepository).save(any(Genre.class));
-        verify(platformRepository).save(any(Platform.class));
+        // New dimensions are inserted by the dictionary, never saved through JPA
+        verify(publisherRepository, never()).save(any(Publisher.class));
+        verify(developerRepository, never()).save(any(Developer.class));
+        verify(genreRepository, never()).save(any(Genre.class));
+        verify(platformRepository, never()).save(any(Platform.class));
     }
 
     @Test
@@ -306,8 +306,7 @@ class GameSyncServiceRelationshipsTest {
             publisher.setPublisherId((long) i);
             publisher.setIgdbCompanyId((long) i);
             publisher.setName("Publisher " + i);
-            when(publisherRepository.findByIgdbCompanyId((long) i))
-                .thenReturn(Optional.of(publisher));
+            givenPublisher((long) i, publisher);
         }
 
         // Add two developers
@@ -321,8 +320,7 @@ class GameSyncServiceRelationshipsTest {
             developer.setDeveloperId((long) i);
             developer.setIgdbCompanyId((long) i);
             developer.setName("Developer " + i);
-            when(developerRepository.findByIgdbCompanyId((long) i))
-                .thenReturn(Optional.of(developer));
+            givenDeveloper((long) i, developer);
         }
 
         // Add two genres
@@ -335,8 +333,7 @@ class GameSyncServiceRelationshipsTest {
             Genre genre = new Genre();
             genre.setGenreId((long) i);
             genre.setName("Genre " + i);
-            when(genreRepository.findByName("Genre " + i))
-                .thenReturn(Optional.of(genre));
+            givenGenre("Genre " + i, genre);
         }
 
         // Add two platforms
@@ -349,8 +346,7 @@ class GameSyncServiceRelationshipsTest {
             Platform platform = new Platform();
             platform.setPlatformId((long) i);
             platform.setName("Platform " + i);
-            when(platformRepository.findByName("Platform " + i))
-                .thenReturn(Optional.of(platform));
+            givenPlatform("Platform " + i, platform);
         }
 
         igdbGameDTO.setPublishers(publisherDTOs);
@@ -358,7 +354,7 @@ class GameSyncServiceRelationshipsTest {
         igdbGameDTO.setGenres(genreDTOs);
         igdbGameDTO.setPlatforms(platformDTOs);
 
-        when(gameRepository.findByIgdbId(100L)).thenReturn(Optional.of(existingGame));
+        givenStoredGame();
         when(gameRepository.save(any(Game.class))).thenReturn(existingGame);
 
         // Act
@@ -370,10 +366,109 @@ class GameSyncServiceRelationshipsTest {
         assertEquals(2, result.getGenres().size());
         assertEquals(2, result.getPlatforms().size());
 
-        verify(gameRepository, times(2)).save(any(Game.class));
-        verify(publisherRepository, times(2)).findByIgdbCompanyId(any());
-        verify(developerRepository, times(2)).findByIgdbCompanyId(any());
-        verify(genreRepository, times(2)).findByName(any());
-        verify(platformRepository, times(2)).findByName(any());
+        verify(gameRepository).save(any(Game.class));
+        verify(dimensionDictionary, times(2)).findPublisherId(any());
+        verify(dimensionDictionary, times(2)).findDeveloperId(any());
+        verify(dimensionDictionary, times(2)).findGenreId(any());
+        verify(dimensionDictionary, times(2)).findPlatformId(any());
+    }
+
+    @Test
+    void testAttachReferencesById_WhenDimensionsAreInDictionary() {
+        // Arrange
+        IGDBCompanyDTO publisherDTO = new IGDBCompanyDTO();
+        publisherDTO.setIgdbCompanyId(1L);
+        publisherDTO.setName("Known Publisher");
+        igdbGameDTO.setPublishers(List.of(publisherDTO));
+
+        IGDBGenreDTO genreDTO = new IGDBGenreDTO();
+        genreDTO.setName("Action");
+        igdbGameDTO.setGenres(List.of(genreDTO));
+
+        Publisher publisherReference = new Publisher();
+        publisherReference.setPublisherId(10L);
+        Genre genreReference = new Genre();
+        genreReference.setGenreId(20L);
+
+        givenStoredGame();
+        when(gameRepository.save(any(Game.class))).thenReturn(existingGame);
+        when(dimensionDictionary.findPublisherId(1L)).thenReturn(Optional.of(10L));
+        when(dimensionDictionary.findGenreId("Action")).thenReturn(Optional.of(20L));
+        when(publisherRepository.getReferenceById(10L)).thenReturn(publisherReference);
+        when(genreRepository.getReferenceById(20L)).thenReturn(genreReference);
+
+        // Act
+        Game result = gameSyncService.upsertGame(igdbGameDTO);
+
+        // Assert
+        assertTrue(result.getPublishers().contains(publisherReference));
+        assertTrue(result.getGenres().contains(genreReference));
+        verify(dimensionDictionary, never()).resolvePublisherIds(any());
+        verify(dimensionDictionary, never()).resolveGenreIds(any());
+    }
+
+    @Test
+    void testOnlyChangedGenreLinksAreWritten() {
+        Genre kept = genre(2L, "RPG");
+        existingGame.getGenres().add(genre(1L, "Adventure"));
+        existingGame.getGenres().add(kept);
+        igdbGameDTO.setGenres(List.of(genreDTO("RPG"), genreDTO("Strategy")));
+
+        givenStoredGame();
+        givenGenre("RPG", genre(2L, "RPG"));
+        givenGenre("Strategy", genre(3L, "Strategy"));
+        when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Game result = gameSyncService.upsertGame(igdbGameDTO);
+
+        assertEquals(List.of(2L, 3L), result.getGenres().stream().map(Genre::getGenreId).sorted().toList());
+        assertTrue(result.getGenres().stream().anyMatch(genre -> genre == kept), "unchanged links are left in place");
+        assertEquals(1.0, relationRows("inserted"));
+        assertEquals(1.0, relationRows("deleted"));
+        assertEquals(1.0, relationRows("unchanged"));
+    }
+
+    private void givenStoredGame() {
+        when(gameBatchRepository.upsertGames(anyCollection()))
+            .thenReturn(Map.of(100L, new GameBatchRepository.WrittenGame(1L, false)));
+        when(gameRepository.findById(1L)).thenReturn(Optional.of(existingGame));
+    }
+
+    private void givenPublisher(Long igdbCompanyId, Publisher publisher) {
+        when(dimensionDictionary.findPublisherId(igdbCompanyId)).thenReturn(Optional.of(publisher.getPublisherId()));
+        when(publisherRepository.getReferenceById(publisher.getPublisherId())).thenReturn(publisher);
+    }
+
+    private void givenDeveloper(Long igdbCompanyId, Developer developer) {
+        when(dimensionDictionary.findDeveloperId(igdbCompanyId)).thenReturn(Optional.of(developer.getDeveloperId()));
+        when(developerRepository.getReferenceById(developer.getDeveloperId())).thenReturn(developer);
+    }
+
+    private void givenGenre(String name, Genre genre) {
+        when(dimensionDictionary.findGenreId(name)).thenReturn(Optional.of(genre.getGenreId()));
+        when(genreRepository.getReferenceById(genre.getGenreId())).thenReturn(genre);
+    }
+
+    private void givenPlatform(String name, Platform platform) {
+        when(dimensionDictionary.findPlatformId(name)).thenReturn(Optional.of(platform.getPlatformId()));
+        when(platformRepository.getReferenceById(platform.getPlatformId())).thenReturn(platform);
+    }
+
+    private double relationRows(String operation) {
+        return meterRegistry.get("gamerecs.sync.relation.rows")
+            .tag("table", "game_genres").tag("operation", operation).counter().count();
+    }
+
+    private static Genre genre(Long id, String name) {
+        Genre genre = new Genre();
+        genre.setGenreId(id);
+        genre.setName(name);
+        return genre;
+    }
+
+    private static IGDBGenreDTO genreDTO(String name) {
+        IGDBGenreDTO genre = new IGDBGenreDTO();
+        genre.setName(name);
+        return genre;
     }
 } 
@@ -3,23 +3,32 @@ package com.gamerecs.back.service;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.gamerecs.back.dto.GameSyncResult;
 import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.dto.IGDBSearchResult;
 import com.gamerecs.back.model.Game;
 import com.gamerecs.back.repository.DeveloperRepository;
+import com.gamerecs.back.repository.GameBatchRepository;
+import com.gamerecs.back.repository.GameCopyLoader;
 import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.repository.LibraryEntryBatchRepository;
 import com.gamerecs.back.repository.PublisherRepository;
 import com.gamerecs.back.repository.GenreRepository;
 import com.gamerecs.back.repository.PlatformRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +52,27 @@ class GameSyncServiceTest {
     @Mock
     private IGDBClientService igdbClientService;
     
+    @Mock
+    private GameBatchRepository gameBatchRepository;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private DimensionDictionary dimensionDictionary;
+
+    @Mock
+    private IGDBGameDetailsService gameDetailsService;
+
+    @Mock
+    private GameTitleIndex gameTitleIndex;
+
+    @Mock
+    private GameCopyLoader gameCopyLoader;
+
+    @Mock
+    private LibraryEntryBatchRepository libraryEntryBatchRepository;
+    
     private GameSyncService gameSyncService;
     
     @BeforeEach
@@ -53,7 +83,15 @@ class GameSyncServiceTest {
             developerRepository, 
             genreRepository,
             platformRepository,
-            igdbClientService
+            igdbClientService,
+            gameBatchRepository,
+            transactionTemplate,
+            new SimpleMeterRegistry(),
+            dimensionDictionary,
+            gameDetailsService,
+            gameTitleIndex,
+            gameCopyLoader,
+            libraryEntryBatchRepository
         );
     }
 
@@ -77,14 +115,18 @@ class GameSyncServiceTest {
                 .toLocalDateTime()
         );
         
-        when(gameRepository.findByIgdbId(1L)).thenReturn(Optional.of(existingGame));
+        existingGame.setGameId(5L);
+        
+        when(gameBatchRepository.upsertGames(anyCollection()))
+            .thenReturn(Map.of(1L, new GameBatchRepository.WrittenGame(5L, false)));
+        when(gameRepository.findById(5L)).thenReturn(Optional.of(existingGame));
         when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> invocation.getArgument(0));
         
         // Act
         Game updatedGame = gameSyncService.upsertGame(incomingGame);
         
         // Assert
-        verify(gameRepository, times(2)).save(any(Game.class)); // Once for initial save, once after relationships
+        verify(gameRepository).save(any(Game.class)); // The row is upserted; save flushes the relationships
         assertEquals(
             Instant.ofEpochSecond(currentTime)
                 .atZone(ZoneId.systemDefault())
@@ -109,6 +151,8 @@ class GameSyncServiceTest {
         // Set existing game's updated_at to current time
         existingGame.setUpdatedAt(LocalDateTime.now());
         
+        // The upsert leaves the newer stored copy alone and reports nothing written
+        when(gameBatchRepository.upsertGames(anyCollection())).thenReturn(Map.of());
         when(gameRepository.findByIgdbId(1L)).thenReturn(Optional.of(existingGame));
         
         // Act
@@ -133,8 +177,15 @@ class GameSyncServiceTest {
         game2.setUpdatedAt(Instant.now().getEpochSecond());
 
         List<IGDBGameDTO> mockSearchResults = List.of(game1, game2);
-        when(igdbClientService.searchGames("test query")).thenReturn(mockSearchResults);
-        when(gameRepository.findByIgdbId(anyLong())).thenReturn(Optional.empty());
+        when(igdbClientService.searchGamesWithStatus("test query"))
+            .thenReturn(new IGDBSearchResult(mockSearchResults, IGDBSearchResult.Source.IGDB));
+        when(gameDetailsService.withDetails(mockSearchResults)).thenReturn(mockSearchResults);
+        when(gameBatchRepository.upsertGames(anyCollection())).thenAnswer(invocation -> {
+            Collection<Game> rows = invocation.getArgument(0);
+            Game row = rows.iterator().next();
+            return Map.of(row.getIgdbId(), new GameBatchRepository.WrittenGame(row.getIgdbId() * 10, true));
+        });
+        when(gameRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(new Game()));
         when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -142,8 +193,53 @@ class GameSyncServiceTest {
 
         // Assert
         assertEquals(2, syncedGames.size());
-        verify(gameRepository, times(4)).save(any(Game.class)); // Two saves per game (initial + after relationships)
+        verify(gameBatchRepository, times(2)).upsertGames(anyCollection());
+        verify(gameRepository, times(2)).save(any(Game.class)); // One save per game, after relationships
         assertEquals("Test Game 1", syncedGames.get(0).getTitle());
         assertEquals("Test Game 2", syncedGames.get(1).getTitle());
     }
+
+    @Test
+    void testSyncGamesFromSearchSkipsFallbackResults() {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setIgdbId(1L);
+        game.setTitle("Stale Game");
+        when(igdbClientService.searchGamesWithStatus("test query"))
+            .thenReturn(new IGDBSearchResult(List.of(game), IGDBSearchResult.Source.STALE_CACHE));
+
+        List<Game> syncedGames = gameSyncService.syncGamesFromSearch("test query");
+
+        assertTrue(syncedGames.isEmpty());
+        verify(gameRepository, never()).save(any(Game.class));
+    }
+
+    @Test
+    void testSyncGamesFromSearchSkipsGamesWhoseDetailsFailToLoad() {
+        IGDBGameDTO listing = new IGDBGameDTO();
+        listing.setIgdbId(1L);
+        listing.setTitle("Listing Only");
+        List<IGDBGameDTO> listings = List.of(listing);
+        when(igdbClientService.searchGamesWithStatus("test query"))
+            .thenReturn(new IGDBSearchResult(listings, IGDBSearchResult.Source.IGDB));
+        when(gameDetailsService.withDetails(listings)).thenThrow(new IllegalStateException("IGDB down"));
+
+        assertTrue(gameSyncService.syncGamesFromSearch("test query").isEmpty());
+        verify(gameRepository, never()).save(any(Game.class));
+    }
+
+    @Test
+    void testLargeBatchGoesThroughBulkLoad() {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setIgdbId(1L);
+        game.setTitle("Bulk Game");
+        game.setUpdatedAt(Instant.now().getEpochSecond());
+        GameSyncResult loaded = GameSyncResult.builder().processed(1).inserted(1).build();
+        when(gameCopyLoader.accepts(1)).thenReturn(true);
+        when(gameCopyLoader.load(any(), any())).thenReturn(loaded);
+
+        GameSyncResult result = gameSyncService.syncGamesInBatches(List.of(game));
+
+        assertSame(loaded, result);
+        verifyNoInteractions(gameBatchRepository, transactionTemplate, dimensionDictionary);
+    }
 } 
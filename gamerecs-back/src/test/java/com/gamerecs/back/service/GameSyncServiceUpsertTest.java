@@ -1,5 +1,6 @@
 package com.gamerecs.back.service;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -11,19 +12,25 @@ import com.gamerecs.back.model.Genre;
 import com.gamerecs.back.model.Platform;
 import com.gamerecs.back.model.Publisher;
 import com.gamerecs.back.repository.DeveloperRepository;
+import com.gamerecs.back.repository.GameBatchRepository;
+import com.gamerecs.back.repository.GameCopyLoader;
 import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.repository.LibraryEntryBatchRepository;
 import com.gamerecs.back.repository.GenreRepository;
 import com.gamerecs.back.repository.PlatformRepository;
 import com.gamerecs.back.repository.PublisherRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -50,6 +57,27 @@ class GameSyncServiceUpsertTest {
     @Mock
     private IGDBClientService igdbClientService;
     
+    @Mock
+    private GameBatchRepository gameBatchRepository;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private DimensionDictionary dimensionDictionary;
+
+    @Mock
+    private IGDBGameDetailsService gameDetailsService;
+
+    @Mock
+    private GameTitleIndex gameTitleIndex;
+
+    @Mock
+    private GameCopyLoader gameCopyLoader;
+
+    @Mock
+    private LibraryEntryBatchRepository libraryEntryBatchRepository;
+    
     private GameSyncService gameSyncService;
     
     @BeforeEach
@@ -60,7 +88,15 @@ class GameSyncServiceUpsertTest {
             developerRepository, 
             genreRepository,
             platformRepository,
-            igdbClientService
+            igdbClientService,
+            gameBatchRepository,
+            transactionTemplate,
+            new SimpleMeterRegistry(),
+            dimensionDictionary,
+            gameDetailsService,
+            gameTitleIndex,
+            gameCopyLoader,
+            libraryEntryBatchRepository
         );
     }
     
@@ -69,104 +105,64 @@ class GameSyncServiceUpsertTest {
     class PublisherUpsertTests {
         
         @Test
-        @DisplayName("Should return existing publisher when found by IGDB company ID")
-        void shouldReturnExistingPublisherWhenFound() {
+        @DisplayName("Should return a reference when the publisher is in the dictionary")
+        void shouldReturnReferenceWhenPublisherIsKnown() {
             // Arrange
-            Long igdbCompanyId = 123L;
-            String publisherName = "Existing Publisher";
-            
             IGDBCompanyDTO companyDTO = new IGDBCompanyDTO();
-            companyDTO.setIgdbCompanyId(igdbCompanyId);
-            companyDTO.setName(publisherName);
+            companyDTO.setIgdbCompanyId(123L);
+            companyDTO.setName("Existing Publisher");
             
-            Publisher existingPublisher = new Publisher();
-            existingPublisher.setPublisherId(1L);
-            existingPublisher.setIgdbCompanyId(igdbCompanyId);
-            existingPublisher.setName(publisherName);
+            Publisher reference = new Publisher();
+            reference.setPublisherId(1L);
+            reference.setIgdbCompanyId(123L);
             
-            when(publisherRepository.findByIgdbCompanyId(igdbCompanyId))
-                .thenReturn(Optional.of(existingPublisher));
+            when(dimensionDictionary.findPublisherId(123L))
+                .thenReturn(Optional.of(1L));
+            when(publisherRepository.getReferenceById(1L)).thenReturn(reference);
             
             // Act
             Publisher result = gameSyncService.upsertPublisher(companyDTO);
             
             // Assert
-            assertNotNull(result);
-            assertEquals(existingPublisher.getPublisherId(), result.getPublisherId());
-            assertEquals(igdbCompanyId, result.getIgdbCompanyId());
-            assertEquals(publisherName, result.getName());
-            
-            // Verify repository was called with correct ID
-            verify(publisherRepository).findByIgdbCompanyId(igdbCompanyId);
-            // Verify save was not called since we found an existing publisher
+            assertSame(reference, result);
+            verify(dimensionDictionary, never()).resolvePublisherIds(any());
             verify(publisherRepository, never()).save(any(Publisher.class));
         }
         
         @Test
-        @DisplayName("Should create and save new publisher when not found by IGDB company ID")
-        void shouldCreateAndSaveNewPublisherWhenNotFound() {
+        @DisplayName("Should insert the publisher through the dictionary when it is not known")
+        void shouldResolveThroughDictionaryWhenPublisherIsNew() {
             // Arrange
-            Long igdbCompanyId = 456L;
-            String publisherName = "New Publisher";
-            
             IGDBCompanyDTO companyDTO = new IGDBCompanyDTO();
-            companyDTO.setIgdbCompanyId(igdbCompanyId);
-            companyDTO.setName(publisherName);
+            companyDTO.setIgdbCompanyId(456L);
+            companyDTO.setName("New Publisher");
             
-            Publisher savedPublisher = new Publisher();
-            savedPublisher.setPublisherId(2L);
-            savedPublisher.setIgdbCompanyId(igdbCompanyId);
-            savedPublisher.setName(publisherName);
+            Publisher reference = new Publisher();
+            reference.setPublisherId(2L);
             
-            when(publisherRepository.findByIgdbCompanyId(igdbCompanyId))
-                .thenReturn(Optional.empty());
-            when(publisherRepository.save(any(Publisher.class)))
-                .thenReturn(savedPublisher);
+            when(dimensionDictionary.resolvePublisherIds(List.of(companyDTO)))
+                .thenReturn(Map.of(456L, 2L));
+            when(publisherRepository.getReferenceById(2L)).thenReturn(reference);
             
             // Act
             Publisher result = gameSyncService.upsertPublisher(companyDTO);
             
             // Assert
-            assertNotNull(result);
-            assertEquals(savedPublisher.getPublisherId(), result.getPublisherId());
-            assertEquals(igdbCompanyId, result.getIgdbCompanyId());
-            assertEquals(publisherName, result.getName());
-            
-            // Verify repository was called with correct ID
-            verify(publisherRepository).findByIgdbCompanyId(igdbCompanyId);
-            
-            // Capture and verify the saved publisher
-            ArgumentCaptor<Publisher> publisherCaptor = ArgumentCaptor.forClass(Publisher.class);
-            verify(publisherRepository).save(publisherCaptor.capture());
-            
-            Publisher capturedPublisher = publisherCaptor.getValue();
-            assertEquals(igdbCompanyId, capturedPublisher.getIgdbCompanyId());
-            assertEquals(publisherName, capturedPublisher.getName());
+            assertSame(reference, result);
+            // The dictionary inserts conflict-tolerantly; the entity is never saved through JPA
+            verify(publisherRepository, never()).save(any(Publisher.class));
         }
         
         @Test
-        @DisplayName("Should handle null values in company DTO")
-        void shouldHandleNullValuesInCompanyDTO() {
+        @DisplayName("Should reject a publisher without a IGDB company ID")
+        void shouldRejectPublisherWithoutKey() {
             // Arrange
             IGDBCompanyDTO companyDTO = new IGDBCompanyDTO();
-            // Leave fields as null
-            
-            when(publisherRepository.findByIgdbCompanyId(null))
-                .thenReturn(Optional.empty());
-            when(publisherRepository.save(any(Publisher.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
-            
-            // Act
-            Publisher result = gameSyncService.upsertPublisher(companyDTO);
             
-            // Assert
-            assertNotNull(result);
-            assertNull(result.getIgdbCompanyId());
-            assertNull(result.getName());
-            
-            // Verify repository interactions
-            verify(publisherRepository).findByIgdbCompanyId(null);
-            verify(publisherRepository).save(any(Publisher.class));
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> 
+                gameSyncService.upsertPublisher(companyDTO));
+            verify(publisherRepository, never()).getReferenceById(any());
         }
     }
     
@@ -175,104 +171,64 @@ class GameSyncServiceUpsertTest {
     class DeveloperUpsertTests {
         
         @Test
-        @DisplayName("Should return existing developer when found by IGDB company ID")
-        void shouldReturnExistingDeveloperWhenFound() {
+        @DisplayName("Should return a reference when the developer is in the dictionary")
+        void shouldReturnReferenceWhenDeveloperIsKnown() {
             // Arrange
-            Long igdbCompanyId = 789L;
-            String developerName = "Existing Developer";
-            
             IGDBCompanyDTO companyDTO = new IGDBCompanyDTO();
-            companyDTO.setIgdbCompanyId(igdbCompanyId);
-            companyDTO.setName(developerName);
+            companyDTO.setIgdbCompanyId(789L);
+            companyDTO.setName("Existing Developer");
             
-            Developer existingDeveloper = new Developer();
-            existingDeveloper.setDeveloperId(3L);
-            existingDeveloper.setIgdbCompanyId(igdbCompanyId);
-            existingDeveloper.setName(developerName);
+            Developer reference = new Developer();
+            reference.setDeveloperId(3L);
+            reference.setIgdbCompanyId(789L);
             
-            when(developerRepository.findByIgdbCompanyId(igdbCompanyId))
-                .thenReturn(Optional.of(existingDeveloper));
+            when(dimensionDictionary.findDeveloperId(789L))
+                .thenReturn(Optional.of(3L));
+            when(developerRepository.getReferenceById(3L)).thenReturn(reference);
             
             // Act
             Developer result = gameSyncService.upsertDeveloper(companyDTO);
             
             // Assert
-            assertNotNull(result);
-            assertEquals(existingDeveloper.getDeveloperId(), result.getDeveloperId());
-            assertEquals(igdbCompanyId, result.getIgdbCompanyId());
-            assertEquals(developerName, result.getName());
-            
-            // Verify repository was called with correct ID
-            verify(developerRepository).findByIgdbCompanyId(igdbCompanyId);
-            // Verify save was not called since we found an existing developer
+            assertSame(reference, result);
+            verify(dimensionDictionary, never()).resolveDeveloperIds(any());
             verify(developerRepository, never()).save(any(Developer.class));
         }
         
         @Test
-        @DisplayName("Should create and save new developer when not found by IGDB company ID")
-        void shouldCreateAndSaveNewDeveloperWhenNotFound() {
+        @DisplayName("Should insert the developer through the dictionary when it is not known")
+        void shouldResolveThroughDictionaryWhenDeveloperIsNew() {
             // Arrange
-            Long igdbCompanyId = 101L;
-            String developerName = "New Developer";
-            
             IGDBCompanyDTO companyDTO = new IGDBCompanyDTO();
-            companyDTO.setIgdbCompanyId(igdbCompanyId);
-            companyDTO.setName(developerName);
+            companyDTO.setIgdbCompanyId(101L);
+            companyDTO.setName("New Developer");
             
-            Developer savedDeveloper = new Developer();
-            savedDeveloper.setDeveloperId(4L);
-            savedDeveloper.setIgdbCompanyId(igdbCompanyId);
-            savedDeveloper.setName(developerName);
+            Developer reference = new Developer();
+            reference.setDeveloperId(4L);
             
-            when(developerRepository.findByIgdbCompanyId(igdbCompanyId))
-                .thenReturn(Optional.empty());
-            when(developerRepository.save(any(Developer.class)))
-                .thenReturn(savedDeveloper);
+            when(dimensionDictionary.resolveDeveloperIds(List.of(companyDTO)))
+                .thenReturn(Map.of(101L, 4L));
+            when(developerRepository.getReferenceById(4L)).thenReturn(reference);
             
             // Act
             Developer result = gameSyncService.upsertDeveloper(companyDTO);
             
             // Assert
-            assertNotNull(result);
-            assertEquals(savedDeveloper.getDeveloperId(), result.getDeveloperId());
-            assertEquals(igdbCompanyId, result.getIgdbCompanyId());
-            assertEquals(developerName, result.getName());
-            
-            // Verify repository was called with correct ID
-            verify(developerRepository).findByIgdbCompanyId(igdbCompanyId);
-            
-            // Capture and verify the saved developer
-            ArgumentCaptor<Developer> developerCaptor = ArgumentCaptor.forClass(Developer.class);
-            verify(developerRepository).save(developerCaptor.capture());
-            
-            Developer capturedDeveloper = developerCaptor.getValue();
-            assertEquals(igdbCompanyId, capturedDeveloper.getIgdbCompanyId());
-            assertEquals(developerName, capturedDeveloper.getName());
+            assertSame(reference, result);
+            // The dictionary inserts conflict-tolerantly; the entity is never saved through JPA
+            verify(developerRepository, never()).save(any(Developer.class));
         }
         
         @Test
-        @DisplayName("Should handle null values in company DTO for developer")
-        void shouldHandleNullValuesInCompanyDTOForDeveloper() {
+        @DisplayName("Should reject a developer without a IGDB company ID")
+        void shouldRejectDeveloperWithoutKey() {
             // Arrange
             IGDBCompanyDTO companyDTO = new IGDBCompanyDTO();
-            // Leave fields as null
-            
-            when(developerRepository.findByIgdbCompanyId(null))
-                .thenReturn(Optional.empty());
-            when(developerRepository.save(any(Developer.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
-            
-            // Act
-            Developer result = gameSyncService.upsertDeveloper(companyDTO);
-            
-            // Assert
-            assertNotNull(result);
-            assertNull(result.getIgdbCompanyId());
-            assertNull(result.getName());
             
-            // Verify repository interactions
-            verify(developerRepository).findByIgdbCompanyId(null);
-            verify(developerRepository).save(any(Developer.class));
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> 
+                gameSyncService.upsertDeveloper(companyDTO));
+            verify(developerRepository, never()).getReferenceById(any());
         }
     }
     
@@ -281,96 +237,61 @@ class GameSyncServiceUpsertTest {
     class GenreUpsertTests {
         
         @Test
-        @DisplayName("Should return existing genre when found by name")
-        void shouldReturnExistingGenreWhenFound() {
+        @DisplayName("Should return a reference when the genre is in the dictionary")
+        void shouldReturnReferenceWhenGenreIsKnown() {
             // Arrange
-            String genreName = "Existing Genre";
-            
             IGDBGenreDTO genreDTO = new IGDBGenreDTO();
-            genreDTO.setIgdbGenreId(555L);
-            genreDTO.setName(genreName);
+            genreDTO.setName("Existing Genre");
             
-            Genre existingGenre = new Genre();
-            existingGenre.setGenreId(5L);
-            existingGenre.setName(genreName);
+            Genre reference = new Genre();
+            reference.setGenreId(5L);
             
-            when(genreRepository.findByName(genreName))
-                .thenReturn(Optional.of(existingGenre));
+            when(dimensionDictionary.findGenreId("Existing Genre"))
+                .thenReturn(Optional.of(5L));
+            when(genreRepository.getReferenceById(5L)).thenReturn(reference);
             
             // Act
             Genre result = gameSyncService.upsertGenre(genreDTO);
             
             // Assert
-            assertNotNull(result);
-            assertEquals(existingGenre.getGenreId(), result.getGenreId());
-            assertEquals(genreName, result.getName());
-            
-            // Verify repository was called with correct name
-            verify(genreRepository).findByName(genreName);
-            // Verify save was not called since we found an existing genre
+            assertSame(reference, result);
+            verify(dimensionDictionary, never()).resolveGenreIds(any());
             verify(genreRepository, never()).save(any(Genre.class));
         }
         
         @Test
-        @DisplayName("Should create and save new genre when not found by name")
-        void shouldCreateAndSaveNewGenreWhenNotFound() {
+        @DisplayName("Should insert the genre through the dictionary when it is not known")
+        void shouldResolveThroughDictionaryWhenGenreIsNew() {
             // Arrange
-            String genreName = "New Genre";
-            
             IGDBGenreDTO genreDTO = new IGDBGenreDTO();
-            genreDTO.setIgdbGenreId(666L);
-            genreDTO.setName(genreName);
+            genreDTO.setName("New Genre");
             
-            Genre savedGenre = new Genre();
-            savedGenre.setGenreId(6L);
-            savedGenre.setName(genreName);
+            Genre reference = new Genre();
+            reference.setGenreId(6L);
             
-            when(genreRepository.findByName(genreName))
-                .thenReturn(Optional.empty());
-            when(genreRepository.save(any(Genre.class)))
-                .thenReturn(savedGenre);
+            when(dimensionDictionary.resolveGenreIds(List.of(genreDTO.getName())))
+                .thenReturn(Map.of("New Genre", 6L));
+            when(genreRepository.getReferenceById(6L)).thenReturn(reference);
             
             // Act
             Genre result = gameSyncService.upsertGenre(genreDTO);
             
             // Assert
-            assertNotNull(result);
-            assertEquals(savedGenre.getGenreId(), result.getGenreId());
-            assertEquals(genreName, result.getName());
-            
-            // Verify repository was called with correct name
-            verify(genreRepository).findByName(genreName);
-            
-            // Capture and verify the saved genre
-            ArgumentCaptor<Genre> genreCaptor = ArgumentCaptor.forClass(Genre.class);
-            verify(genreRepository).save(genreCaptor.capture());
-            
-            Genre capturedGenre = genreCaptor.getValue();
-            assertEquals(genreName, capturedGenre.getName());
+            assertSame(reference, result);
+            // The dictionary inserts conflict-tolerantly; the entity is never saved through JPA
+            verify(genreRepository, never()).save(any(Genre.class));
         }
         
         @Test
-        @DisplayName("Should handle null values in genre DTO")
-        void shouldHandleNullValuesInGenreDTO() {
+        @DisplayName("Should reject a genre without a name")
+        void shouldRejectGenreWithoutKey() {
             // Arrange
             IGDBGenreDTO genreDTO = new IGDBGenreDTO();
-            // Leave fields as null
             
-            when(genreRepository.findByName(null))
-                .thenReturn(Optional.empty());
-            when(genreRepository.save(any(Genre.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
-            
-            // Act
-            Genre result = gameSyncService.upsertGenre(genreDTO);
-            
-            // Assert
-            assertNotNull(result);
-            assertNull(result.getName());
-            
-            // Verify repository interactions
-            verify(genreRepository).findByName(null);
-            verify(genreRepository).save(any(Genre.class));
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> 
+                gameSyncService.upsertGenre(genreDTO));
+            verify(genreRepository, never()).getReferenceById(any());
         }
     }
     
@@ -379,96 +300,61 @@ class GameSyncServiceUpsertTest {
     class PlatformUpsertTests {
         
         @Test
-        @DisplayName("Should return existing platform when found by name")
-        void shouldReturnExistingPlatformWhenFound() {
+        @DisplayName("Should return a reference when the platform is in the dictionary")
+        void shouldReturnReferenceWhenPlatformIsKnown() {
             // Arrange
-            String platformName = "Existing Platform";
-            
             IGDBPlatformDTO platformDTO = new IGDBPlatformDTO();
-            platformDTO.setIgdbPlatformId(777L);
-            platformDTO.setName(platformName);
+            platformDTO.setName("Existing Platform");
             
-            Platform existingPlatform = new Platform();
-            existingPlatform.setPlatformId(7L);
-            existingPlatform.setName(platformName);
+            Platform reference = new Platform();
+            reference.setPlatformId(7L);
             
-            when(platformRepository.findByName(platformName))
-                .thenReturn(Optional.of(existingPlatform));
+            when(dimensionDictionary.findPlatformId("Existing Platform"))
+                .thenReturn(Optional.of(7L));
+            when(platformRepository.getReferenceById(7L)).thenReturn(reference);
             
             // Act
             Platform result = gameSyncService.upsertPlatform(platformDTO);
             
             // Assert
-            assertNotNull(result);
-            assertEquals(existingPlatform.getPlatformId(), result.getPlatformId());
-            assertEquals(platformName, result.getName());
-            
-            // Verify repository was called with correct name
-            verify(platformRepository).findByName(platformName);
-            // Verify save was not called since we found an existing platform
+            assertSame(reference, result);
+            verify(dimensionDictionary, never()).resolvePlatformIds(any());
             verify(platformRepository, never()).save(any(Platform.class));
         }
         
         @Test
-        @DisplayName("Should create and save new platform when not found by name")
-        void shouldCreateAndSaveNewPlatformWhenNotFound() {
+        @DisplayName("Should insert the platform through the dictionary when it is not known")
+        void shouldResolveThroughDictionaryWhenPlatformIsNew() {
             // Arrange
-            String platformName = "New Platform";
-            
             IGDBPlatformDTO platformDTO = new IGDBPlatformDTO();
-            platformDTO.setIgdbPlatformId(888L);
-            platformDTO.setName(platformName);
+            platformDTO.setName("New Platform");
             
-            Platform savedPlatform = new Platform();
-            savedPlatform.setPlatformId(8L);
-            savedPlatform.setName(platformName);
+            Platform reference = new Platform();
+            reference.setPlatformId(8L);
             
-            when(platformRepository.findByName(platformName))
-                .thenReturn(Optional.empty());
-            when(platformRepository.save(any(Platform.class)))
-                .thenReturn(savedPlatform);
+            when(dimensionDictionary.resolvePlatformIds(List.of(platformDTO.getName())))
+                .thenReturn(Map.of("New Platform", 8L));
+            when(platformRepository.getReferenceById(8L)).thenReturn(reference);
             
             // Act
             Platform result = gameSyncService.upsertPlatform(platformDTO);
             
             // Assert
-            assertNotNull(result);
-            assertEquals(savedPlatform.getPlatformId(), result.getPlatformId());
-            assertEquals(platformName, result.getName());
-            
-            // Verify repository was called with correct name
-            verify(platformRepository).findByName(platformName);
-            
-            // Capture and verify the saved platform
-            ArgumentCaptor<Platform> platformCaptor = ArgumentCaptor.forClass(Platform.class);
-            verify(platformRepository).save(platformCaptor.capture());
-            
-            Platform capturedPlatform = platformCaptor.getValue();
-            assertEquals(platformName, capturedPlatform.getName());
+            assertSame(reference, result);
+            // The dictionary inserts conflict-tolerantly; the entity is never saved through JPA
+            verify(platformRepository, never()).save(any(Platform.class));
         }
         
         @Test
-        @DisplayName("Should handle null values in platform DTO")
-        void shouldHandleNullValuesInPlatformDTO() {
+        @DisplayName("Should reject a platform without a name")
+        void shouldRejectPlatformWithoutKey() {
             // Arrange
             IGDBPlatformDTO platformDTO = new IGDBPlatformDTO();
-            // Leave fields as null
-            
-            when(platformRepository.findByName(null))
-                .thenReturn(Optional.empty());
-            when(platformRepository.save(any(Platform.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
-            
-            // Act
-            Platform result = gameSyncService.upsertPlatform(platformDTO);
             
-            // Assert
-            assertNotNull(result);
-            assertNull(result.getName());
-            
-            // Verify repository interactions
-            verify(platformRepository).findByName(null);
-            verify(platformRepository).save(any(Platform.class));
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> 
+                gameSyncService.upsertPlatform(platformDTO));
+            verify(platformRepository, never()).getReferenceById(any());
         }
     }
     
@@ -477,89 +363,36 @@ class GameSyncServiceUpsertTest {
     class EdgeCasesAndErrorHandling {
         
         @Test
-        @DisplayName("Should handle repository exceptions when finding publisher")
-        void shouldHandleRepositoryExceptionsWhenFindingPublisher() {
+        @DisplayName("Should propagate dictionary exceptions when inserting a publisher")
+        void shouldPropagateDictionaryExceptionsForPublisher() {
             // Arrange
             IGDBCompanyDTO companyDTO = new IGDBCompanyDTO();
             companyDTO.setIgdbCompanyId(999L);
             companyDTO.setName("Exception Publisher");
             
-            when(publisherRepository.findByIgdbCompanyId(999L))
+            when(dimensionDictionary.resolvePublisherIds(List.of(companyDTO)))
                 .thenThrow(new RuntimeException("Database error"));
             
             // Act & Assert
             assertThrows(RuntimeException.class, () -> 
                 gameSyncService.upsertPublisher(companyDTO));
-            
-            // Verify repository was called
-            verify(publisherRepository).findByIgdbCompanyId(999L);
-            // Verify save was not called due to exception
-            verify(publisherRepository, never()).save(any(Publisher.class));
+            verify(publisherRepository, never()).getReferenceById(any());
         }
         
         @Test
-        @DisplayName("Should handle repository exceptions when saving developer")
-        void shouldHandleRepositoryExceptionsWhenSavingDeveloper() {
-            // Arrange
-            IGDBCompanyDTO companyDTO = new IGDBCompanyDTO();
-            companyDTO.setIgdbCompanyId(1010L);
-            companyDTO.setName("Exception Developer");
-            
-            when(developerRepository.findByIgdbCompanyId(1010L))
-                .thenReturn(Optional.empty());
-            when(developerRepository.save(any(Developer.class)))
-                .thenThrow(new RuntimeException("Database error on save"));
-            
-            // Act & Assert
-            assertThrows(RuntimeException.class, () -> 
-                gameSyncService.upsertDeveloper(companyDTO));
-            
-            // Verify repository interactions
-            verify(developerRepository).findByIgdbCompanyId(1010L);
-            verify(developerRepository).save(any(Developer.class));
-        }
-        
-        @Test
-        @DisplayName("Should handle repository exceptions when finding genre")
-        void shouldHandleRepositoryExceptionsWhenFindingGenre() {
+        @DisplayName("Should propagate dictionary exceptions when inserting a genre")
+        void shouldPropagateDictionaryExceptionsForGenre() {
             // Arrange
             IGDBGenreDTO genreDTO = new IGDBGenreDTO();
-            genreDTO.setIgdbGenreId(1111L);
             genreDTO.setName("Exception Genre");
             
-            when(genreRepository.findByName("Exception Genre"))
+            when(dimensionDictionary.resolveGenreIds(List.of("Exception Genre")))
                 .thenThrow(new RuntimeException("Database error"));
             
             // Act & Assert
             assertThrows(RuntimeException.class, () -> 
                 gameSyncService.upsertGenre(genreDTO));
-            
-            // Verify repository was called
-            verify(genreRepository).findByName("Exception Genre");
-            // Verify save was not called due to exception
-            verify(genreRepository, never()).save(any(Genre.class));
-        }
-        
-        @Test
-        @DisplayName("Should handle repository exceptions when saving platform")
-        void shouldHandleRepositoryExceptionsWhenSavingPlatform() {
-            // Arrange
-            IGDBPlatformDTO platformDTO = new IGDBPlatformDTO();
-            platformDTO.setIgdbPlatformId(1212L);
-            platformDTO.setName("Exception Platform");
-            
-            when(platformRepository.findByName("Exception Platform"))
-                .thenReturn(Optional.empty());
-            when(platformRepository.save(any(Platform.class)))
-                .thenThrow(new RuntimeException("Database error on save"));
-            
-            // Act & Assert
-            assertThrows(RuntimeException.class, () -> 
-                gameSyncService.upsertPlatform(platformDTO));
-            
-            // Verify repository interactions
-            verify(platformRepository).findByName("Exception Platform");
-            verify(platformRepository).save(any(Platform.class));
+            verify(genreRepository, never()).getReferenceById(any());
         }
     }
 } 
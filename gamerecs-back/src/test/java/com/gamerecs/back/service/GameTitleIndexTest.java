@@ -0,0 +1,178 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.GameCompletion;
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.repository.GameLibraryRepository;
+import com.gamerecs.back.repository.GameRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GameTitleIndexTest {
+    private static final Logger logger = LoggerFactory.getLogger(GameTitleIndexTest.class);
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private GameLibraryRepository gameLibraryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GameTitleIndex index;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new GameTitleIndex(gameRepository, gameLibraryRepository, transactionManager, meterRegistry, 100);
+    }
+
+    @Test
+    void testCompletionsAreRankedByPopularity() {
+        load(List.of(
+                title(1L, 101L, "The Legend of Zelda"),
+                title(2L, 102L, "Zelda II: The Adventure of Link"),
+                title(3L, 103L, "The Legend of Zelda: Breath of the Wild"),
+                title(4L, 104L, "Super Mario Odyssey")),
+            List.of(new Object[] {3L, 40L}, new Object[] {1L, 12L}));
+
+        assertEquals(List.of(103L, 101L, 102L), ids(index.complete("zel", 10)));
+        assertEquals(List.of(103L), ids(index.complete("Zel bre", 10)));
+        assertEquals(List.of(103L), ids(index.complete("zelda", 1)));
+        assertTrue(index.complete("metroid", 10).isEmpty());
+        assertTrue(index.complete("  ::  ", 10).isEmpty());
+        assertEquals(4.0, meterRegistry.get("gamerecs.typeahead.games").gauge().value());
+        assertTrue(meterRegistry.get("gamerecs.typeahead.memory").gauge().value() > 0);
+    }
+
+    @Test
+    void testInsertedAndRenamedGamesAreFoundBeforeTheNextBuild() {
+        load(List.of(title(1L, 101L, "Hollow Knight")), List.<Object[]>of(new Object[] {1L, 7L}));
+
+        index.onGamesWritten(List.of(game(101L, "Hollow Knight Voidheart Edition"), game(202L, "Hollow Knight: Silksong")));
+
+        List<GameCompletion> completions = index.complete("hollow knight", 10);
+        assertEquals(List.of(101L, 202L), ids(completions), "the renamed game keeps its popularity");
+        assertEquals("Hollow Knight Voidheart Edition", completions.get(0).title());
+        assertTrue(index.complete("voidheart", 10).stream().anyMatch(c -> c.igdbId() == 101L));
+        assertEquals(2.0, meterRegistry.get("gamerecs.typeahead.pending").gauge().value());
+    }
+
+    @Test
+    void testCompactionMergesPendingGames() {
+        load(List.of(title(1L, 101L, "Celeste")), List.of());
+        index.onGamesWritten(List.of(game(101L, "Celeste Classic"), game(202L, "Celeste 64")));
+
+        index.compact();
+
+        assertEquals(0.0, meterRegistry.get("gamerecs.typeahead.pending").gauge().value());
+        assertEquals(2.0, meterRegistry.get("gamerecs.typeahead.games").gauge().value());
+        assertEquals(List.of("Celeste 64", "Celeste Classic"),
+            index.complete("celeste", 10).stream().map(GameCompletion::title).toList());
+        assertTrue(index.complete("celeste cl", 10).stream().allMatch(c -> c.igdbId() == 101L));
+    }
+
+    @Test
+    void testGameWrittenDuringARebuildScanStaysFindable() {
+        load(List.of(title(1L, 101L, "Hollow Knight")), List.of());
+        // The sync commits after the scan read its snapshot, so the scan never returns the new game
+        when(gameRepository.streamAllTitles()).thenReturn(Stream.of(title(1L, 101L, "Hollow Knight"))
+            .peek(row -> index.onGamesWritten(List.of(game(202L, "Hollow Knight: Silksong")))));
+
+        index.rebuild();
+
+        assertEquals(List.of(202L), ids(index.complete("silksong", 10)));
+        assertEquals(1.0, meterRegistry.get("gamerecs.typeahead.pending").gauge().value());
+    }
+
+    @Test
+    void testUnchangedTitleIsNotPending() {
+        load(List.of(title(1L, 101L, "Hades")), List.of());
+
+        index.onGamesWritten(List.of(game(101L, "Hades")));
+
+        assertEquals(0.0, meterRegistry.get("gamerecs.typeahead.pending").gauge().value());
+    }
+
+    /**
+     * Reports the footprint and lookup time of an index the size of the IGDB catalog
+     */
+    @Test
+    void testLargeCatalogFootprintAndLookupTime() {
+        String[] words = {"legend", "star", "dragon", "super", "dark", "fantasy", "battle", "world", "quest",
+            "racing", "soccer", "tales", "knight", "space", "zombie", "ninja", "island", "city", "war", "kart"};
+        Random random = new Random(42);
+        List<GameRepository.GameTitle> titles = new ArrayList<>();
+        List<Object[]> popularity = new ArrayList<>();
+        for (long i = 1; i <= 200_000; i++) {
+            String title = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                + " " + Long.toString(i * 7919, 36) + " " + (i % 7);
+            titles.add(title(i, i, title));
+            if (i % 10 == 0) {
+                popularity.add(new Object[] {i, (long) random.nextInt(1000)});
+            }
+        }
+        load(titles, popularity);
+
+        String[] queries = {"l", "le", "leg", "sta", "dragon q", "super kart", "dark s 3", "zz", "x"};
+        for (int i = 0; i < 2_000; i++) {
+            index.complete(queries[i % queries.length], 10);
+        }
+        long start = System.nanoTime();
+        int lookups = 10_000;
+        for (int i = 0; i < lookups; i++) {
+            assertFalse(index.complete(queries[i % queries.length], 10).isEmpty());
+        }
+        double averageMicros = (System.nanoTime() - start) / (double) lookups / TimeUnit.MICROSECONDS.toNanos(1);
+        double megabytes = meterRegistry.get("gamerecs.typeahead.memory").gauge().value() / (1024 * 1024);
+
+        logger.info("Title index of 200000 games: about {} MB, {} us per lookup on average",
+            String.format("%.1f", megabytes), String.format("%.1f", averageMicros));
+        assertTrue(megabytes < 50, "index takes " + megabytes + " MB");
+        // Generous bound so a slow build machine does not fail the suite
+        assertTrue(averageMicros < 5_000, "lookups take " + averageMicros + " us");
+    }
+
+    private void load(List<GameRepository.GameTitle> titles, List<Object[]> popularity) {
+        when(gameRepository.streamAllTitles()).thenReturn(titles.stream());
+        when(gameLibraryRepository.countLibrariesPerGame()).thenReturn(popularity);
+        index.rebuild();
+    }
+
+    private static GameRepository.GameTitle title(Long gameId, Long igdbId, String title) {
+        return new GameRepository.GameTitle() {
+            public Long getGameId() { return gameId; }
+            public Long getIgdbId() { return igdbId; }
+            public String getTitle() { return title; }
+        };
+    }
+
+    private static Game game(Long igdbId, String title) {
+        Game game = new Game();
+        game.setIgdbId(igdbId);
+        game.setTitle(title);
+        return game;
+    }
+
+    private static List<Long> ids(List<GameCompletion> completions) {
+        return completions.stream().map(GameCompletion::igdbId).toList();
+    }
+} 
@@ -0,0 +1,130 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.GameSyncResult;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.model.SyncCheckpoint;
+import com.gamerecs.back.repository.SyncCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IGDBBackfillServiceTest {
+
+    @Mock
+    private IGDBClientService igdbClientService;
+
+    @Mock
+    private GameSyncService gameSyncService;
+
+    @Mock
+    private SyncCheckpointRepository checkpointRepository;
+
+    private IGDBBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        backfillService = new IGDBBackfillService(igdbClientService, gameSyncService, checkpointRepository, 2);
+
+        // Each fetched page body holds the comma-separated ids of its games
+        lenient().when(igdbClientService.fetchGamesInIdRange(anyLong(), anyLong()))
+            .thenAnswer(invocation -> {
+                long from = invocation.getArgument(0);
+                return (from + 1 + "," + (from + 2)).getBytes(StandardCharsets.UTF_8);
+            });
+        lenient().when(igdbClientService.streamGames(any(InputStream.class), any()))
+            .thenAnswer(invocation -> {
+                InputStream input = invocation.getArgument(0);
+                Consumer<IGDBGameDTO> consumer = invocation.getArgument(1);
+                String[] ids = new String(input.readAllBytes(), StandardCharsets.UTF_8).split(",");
+                for (String id : ids) {
+                    IGDBGameDTO game = new IGDBGameDTO();
+                    game.setIgdbId(Long.parseLong(id));
+                    consumer.accept(game);
+                }
+                return ids.length;
+            });
+        lenient().when(gameSyncService.syncGamesInBatches(anyList()))
+            .thenAnswer(invocation -> {
+                List<IGDBGameDTO> games = invocation.getArgument(0);
+                return GameSyncResult.builder().processed(games.size()).inserted(games.size()).build();
+            });
+    }
+
+    @Test
+    @DisplayName("Should walk the catalog in id windows and checkpoint after every batch")
+    void shouldWalkCatalogAndCheckpoint() {
+        when(checkpointRepository.findById(IGDBBackfillService.JOB_NAME)).thenReturn(Optional.empty());
+        when(igdbClientService.findMaxGameId()).thenReturn(1200L);
+
+        GameSyncResult result = backfillService.runBackfill();
+
+        assertEquals(6, result.getProcessed());
+        verify(igdbClientService).fetchGamesInIdRange(0L, 500L);
+        verify(igdbClientService).fetchGamesInIdRange(500L, 1000L);
+        verify(igdbClientService).fetchGamesInIdRange(1000L, 1200L);
+
+        ArgumentCaptor<SyncCheckpoint> checkpoints = ArgumentCaptor.forClass(SyncCheckpoint.class);
+        verify(checkpointRepository, times(3)).save(checkpoints.capture());
+        assertEquals(List.of(500L, 1000L, 1200L),
+            checkpoints.getAllValues().stream().map(SyncCheckpoint::getCheckpointValue).toList());
+        assertFalse(backfillService.isRunning());
+    }
+
+    @Test
+    @DisplayName("Should resume from the saved checkpoint")
+    void shouldResumeFromCheckpoint() {
+        when(checkpointRepository.findById(IGDBBackfillService.JOB_NAME)).thenReturn(Optional.of(
+            SyncCheckpoint.builder().jobName(IGDBBackfillService.JOB_NAME).checkpointValue(1000L).build()));
+        when(igdbClientService.findMaxGameId()).thenReturn(1200L);
+
+        backfillService.runBackfill();
+
+        verify(igdbClientService, times(1)).fetchGamesInIdRange(anyLong(), anyLong());
+        verify(igdbClientService).fetchGamesInIdRange(1000L, 1200L);
+    }
+
+    @Test
+    @DisplayName("Should do nothing when the checkpoint is already at the newest id")
+    void shouldSkipWhenUpToDate() {
+        when(checkpointRepository.findById(IGDBBackfillService.JOB_NAME)).thenReturn(Optional.of(
+            SyncCheckpoint.builder().jobName(IGDBBackfillService.JOB_NAME).checkpointValue(1200L).build()));
+        when(igdbClientService.findMaxGameId()).thenReturn(1200L);
+
+        GameSyncResult result = backfillService.runBackfill();
+
+        assertEquals(0, result.getProcessed());
+        verify(igdbClientService, never()).fetchGamesInIdRange(anyLong(), anyLong());
+        verify(checkpointRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should stop without advancing the checkpoint past a failed fetch")
+    void shouldStopOnFetchFailure() {
+        when(checkpointRepository.findById(IGDBBackfillService.JOB_NAME)).thenReturn(Optional.empty());
+        when(igdbClientService.findMaxGameId()).thenReturn(1200L);
+        when(igdbClientService.fetchGamesInIdRange(500L, 1000L)).thenThrow(new IllegalStateException("IGDB down"));
+
+        assertThrows(IllegalStateException.class, () -> backfillService.runBackfill());
+
+        ArgumentCaptor<SyncCheckpoint> checkpoints = ArgumentCaptor.forClass(SyncCheckpoint.class);
+        verify(checkpointRepository).save(checkpoints.capture());
+        assertEquals(500L, checkpoints.getValue().getCheckpointValue());
+        assertFalse(backfillService.isRunning());
+    }
+} 
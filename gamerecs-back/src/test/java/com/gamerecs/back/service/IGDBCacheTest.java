@@ -1,22 +1,19 @@
 package com.gamerecs.back.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gamerecs.back.config.CacheConfig;
 import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.repository.IGDBSearchCacheRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.cache.CacheManager;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 
-import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -33,7 +30,7 @@ import static org.mockito.Mockito.*;
 public class IGDBCacheTest {
 
     @MockBean
-    private RestTemplate restTemplate;
+    private IGDBReactiveClientService reactiveClient;
 
     @Autowired
     private CacheManager cacheManager;
@@ -44,6 +41,9 @@ public class IGDBCacheTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private IGDBSearchCacheRepository searchCacheRepository;
+
     private static final String TEST_QUERY = "zelda";
     private static final String MOCK_RESPONSE = """
         [
@@ -71,17 +71,13 @@ public class IGDBCacheTest {
 
     @BeforeEach
     void setUp() {
-        // Clear the cache before each test
+        // Clear both cache tiers before each test
         cacheManager.getCache(CacheConfig.IGDB_GAME_SEARCH_CACHE).clear();
+        searchCacheRepository.deleteAll();
         
-        // Mock RestTemplate response
-        ResponseEntity<String> mockResponseEntity = new ResponseEntity<>(MOCK_RESPONSE, HttpStatus.OK);
-        when(restTemplate.exchange(
-            anyString(),
-            eq(HttpMethod.POST),
-            any(HttpEntity.class),
-            eq(String.class)
-        )).thenReturn(mockResponseEntity);
+        // Mock the reactive client the blocking search delegates to
+        when(reactiveClient.searchGames(anyString())).thenAnswer(invocation -> Mono.just(
+            objectMapper.readValue(MOCK_RESPONSE, new TypeReference<List<IGDBGameDTO>>() {})));
     }
 
     @Test
@@ -89,24 +85,14 @@ public class IGDBCacheTest {
         // First call should result in a cache miss and make an API call
         List<IGDBGameDTO> firstResult = igdbClientService.searchGames(TEST_QUERY);
         
-        // Verify the RestTemplate was called once
-        verify(restTemplate, times(1)).exchange(
-            anyString(),
-            eq(HttpMethod.POST),
-            any(HttpEntity.class),
-            eq(String.class)
-        );
+        // Verify the IGDB client was called once
+        verify(reactiveClient, times(1)).searchGames(anyString());
         
         // Second call with the same query should hit the cache and not make an API call
         List<IGDBGameDTO> secondResult = igdbClientService.searchGames(TEST_QUERY);
         
-        // Verify the RestTemplate was not called again
-        verify(restTemplate, times(1)).exchange(
-            anyString(),
-            eq(HttpMethod.POST),
-            any(HttpEntity.class),
-            eq(String.class)
-        );
+        // Verify the IGDB client was not called again
+        verify(reactiveClient, times(1)).searchGames(anyString());
         
         // Results should be the same
         assertThat(secondResult).isEqualTo(firstResult);
@@ -120,13 +106,8 @@ public class IGDBCacheTest {
         // Second call with a different query
         igdbClientService.searchGames("mario");
         
-        // Verify the RestTemplate was called twice
-        verify(restTemplate, times(2)).exchange(
-            anyString(),
-            eq(HttpMethod.POST),
-            any(HttpEntity.class),
-            eq(String.class)
-        );
+        // Verify the IGDB client was called twice
+        verify(reactiveClient, times(2)).searchGames(anyString());
     }
     
     @Test
@@ -140,13 +121,8 @@ public class IGDBCacheTest {
         // Second call should also result in a cache miss
         igdbClientService.searchGames(TEST_QUERY);
         
-        // Verify the RestTemplate was called twice
-        verify(restTemplate, times(2)).exchange(
-            anyString(),
-            eq(HttpMethod.POST),
-            any(HttpEntity.class),
-            eq(String.class)
-        );
+        // Verify the IGDB client was called twice
+        verify(reactiveClient, times(2)).searchGames(anyString());
     }
     
     @Test
@@ -1,25 +1,40 @@
 package com.gamerecs.back.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gamerecs.back.config.CacheConfig;
 import com.gamerecs.back.dto.IGDBGameDTO;
-import com.gamerecs.back.dto.IGDBPlatformDTO;
-import com.gamerecs.back.dto.IGDBGenreDTO;
-import com.gamerecs.back.dto.IGDBCompanyDTO;
-import com.google.common.util.concurrent.RateLimiter;
+import com.gamerecs.back.dto.IGDBSearchResult;
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.repository.GameRepository;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.http.*;
-import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 
-import java.time.LocalDate;
-import java.time.Instant;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -32,18 +47,29 @@ class IGDBClientServiceTest {
     private RestTemplate restTemplate;
     
     @Mock
-    private RateLimiter rateLimiter;
+    private IGDBRateLimiter rateLimiter;
+
+    @Mock
+    private IGDBReactiveClientService reactiveClient;
+
+    @Mock
+    private IGDBSearchCacheStore searchCacheStore;
+
+    @Mock
+    private IGDBSearchRefresher searchRefresher;
+
+    @Mock
+    private GameRepository gameRepository;
 
     private IGDBClientService igdbService;
     private ObjectMapper objectMapper;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
-        igdbService = new IGDBClientService(restTemplate, "dummyClientId", "dummyAccessToken", objectMapper);
-        
-        // Set rate limiter for testing
-        ReflectionTestUtils.setField(igdbService, "rateLimiter", rateLimiter);
+        meterRegistry = new SimpleMeterRegistry();
+        igdbService = createService(false);
         
         // We'll configure the rateLimiter in each test that needs it, 
         // rather than here in setUp to avoid UnnecessaryStubbingException
@@ -67,185 +93,359 @@ class IGDBClientServiceTest {
     }
 
     @Test
-    void testSearchGames() {
-        // Configure rateLimiter for this test
-        when(rateLimiter.acquire()).thenReturn(0.0);
-        
-        // Prepare test data
-        String mockResponse = """
-            [
-                {
-                    "id": 1,
-                    "name": "Test Game",
-                    "cover": {
-                        "url": "//images.igdb.com/igdb/image/upload/t_thumb/test.png"
-                    },
-                    "first_release_date": 1577836800,
-                    "summary": "Test summary",
-                    "platforms": [{"id": 1, "name": "PC"}],
-                    "genres": [{"id": 1, "name": "RPG"}],
-                    "involved_companies": [
-                        {
-                            "company": {"id": 1, "name": "Test Studio"},
-                            "developer": true,
-                            "publisher": false
-                        }
-                    ],
-                    "updated_at": 1609459200
-                }
-            ]
-            """;
+    void testSearchGamesDelegatesToReactiveClient() {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setTitle("Test Game");
+        when(reactiveClient.searchGames("test query")).thenReturn(Mono.just(List.of(game)));
+
+        List<IGDBGameDTO> results = igdbService.searchGames("test query");
+
+        assertEquals(List.of(game), results);
+        verifyNoInteractions(restTemplate, rateLimiter);
+    }
+
+    @Test
+    void testSearchGamesReturnsEmptyListWhenRetriesAreExhausted() {
+        when(reactiveClient.searchGames("test query")).thenReturn(Mono.error(
+            WebClientResponseException.create(503, "Service Unavailable", null, null, null)));
+
+        List<IGDBGameDTO> results = igdbService.searchGames("test query");
+
+        assertNotNull(results);
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    void testOpenCircuitServesStaleCachedResult() {
+        when(reactiveClient.searchGames("zelda")).thenReturn(Mono.error(
+            CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("igdb"))));
+        when(searchCacheStore.findStale("zelda")).thenReturn(Optional.of(List.of(game("Zelda"))));
+
+        IGDBSearchResult result = igdbService.searchGamesWithStatus("Zelda");
+
+        assertTrue(result.degraded());
+        assertEquals(IGDBSearchResult.Source.STALE_CACHE, result.source());
+        assertEquals("Zelda", result.games().get(0).getTitle());
+        assertEquals(1.0, meterRegistry.get("gamerecs.igdb.search.fallback")
+            .tag("source", "stale_cache").tag("reason", "circuit_open").counter().count());
+        // Degraded results are not stored
+        verify(searchCacheStore, never()).save(anyString(), any());
+    }
+
+    @Test
+    void testFailedSearchFallsBackToLocalCatalog() {
+        when(reactiveClient.searchGames("zelda")).thenReturn(Mono.error(
+            WebClientResponseException.create(503, "Service Unavailable", null, null, null)));
+        Game stored = new Game();
+        stored.setIgdbId(1022L);
+        stored.setTitle("The Legend of Zelda");
+        when(gameRepository.findByTitleContainingIgnoreCase(eq("zelda"), any())).thenReturn(List.of(stored));
+
+        IGDBSearchResult result = igdbService.searchGamesWithStatus("zelda");
+
+        assertEquals(IGDBSearchResult.Source.LOCAL_CATALOG, result.source());
+        assertEquals(1022L, result.games().get(0).getIgdbId());
+    }
+
+    @Test
+    void testSearchOverTimeBudgetServesFallbackAndKeepsLoading() throws Exception {
+        CompletableFuture<List<IGDBGameDTO>> upstream = new CompletableFuture<>();
+        when(reactiveClient.searchGames("zelda")).thenReturn(Mono.fromFuture(upstream));
+        IGDBClientService service = createService(false, Duration.ofMillis(50));
+
+        IGDBSearchResult result = service.searchGamesWithStatus("zelda");
+        assertTrue(result.degraded());
+        assertEquals(IGDBSearchResult.Source.NONE, result.source());
+
+        // The slow search was not cancelled, and its result serves the next caller
+        upstream.complete(List.of(game("Zelda")));
+        IGDBSearchResult next = service.searchGamesWithStatus("zelda");
+        assertFalse(next.degraded());
+        assertEquals(1, next.games().size());
+        verify(reactiveClient, times(1)).searchGames("zelda");
+    }
+
+    @Test
+    void testConcurrentIdenticalSearchesShareOneUpstreamCall() throws Exception {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setTitle("Zelda");
+        CompletableFuture<List<IGDBGameDTO>> upstream = new CompletableFuture<>();
+        when(reactiveClient.searchGames("zelda")).thenReturn(Mono.fromFuture(upstream));
+
+        List<Future<List<IGDBGameDTO>>> results = searchConcurrently("zelda", 10);
+        // Release the upstream response only once every other caller has joined it
+        awaitCoalesced(9);
+        upstream.complete(List.of(game));
+
+        for (Future<List<IGDBGameDTO>> result : results) {
+            assertEquals(List.of(game), result.get(5, TimeUnit.SECONDS));
+        }
+        verify(reactiveClient, times(1)).searchGames("zelda");
+        assertEquals(9.0, meterRegistry.get("gamerecs.igdb.search.coalesced").counter().count());
+
+        // Later searches are served from the cache
+        assertEquals(List.of(game), igdbService.searchGames("zelda"));
+        verify(reactiveClient, times(1)).searchGames("zelda");
+    }
+
+    @Test
+    void testFailedSharedSearchFailsAllCallersAndIsNotCached() throws Exception {
+        CompletableFuture<List<IGDBGameDTO>> upstream = new CompletableFuture<>();
+        when(reactiveClient.searchGames("zelda"))
+            .thenReturn(Mono.fromFuture(upstream))
+            .thenReturn(Mono.just(List.of(new IGDBGameDTO())));
+
+        List<Future<List<IGDBGameDTO>>> results = searchConcurrently("zelda", 5);
+        awaitCoalesced(4);
+        upstream.completeExceptionally(WebClientResponseException.create(503, "Service Unavailable", null, null, null));
+
+        for (Future<List<IGDBGameDTO>> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS).isEmpty());
+        }
+        verify(reactiveClient, times(1)).searchGames("zelda");
+
+        // The failure was not cached, so the next search goes upstream again
+        assertEquals(1, igdbService.searchGames("zelda").size());
+        verify(reactiveClient, times(2)).searchGames("zelda");
+    }
+
+    @Test
+    void testQueryVariantsShareOneCanonicalCacheEntry() {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setTitle("Zelda");
+        when(reactiveClient.searchGames("the legend of zelda")).thenReturn(Mono.just(List.of(game)));
+
+        igdbService.searchGames("The Legend of Zelda");
+        igdbService.searchGames("  the   legend of ZELDA ");
+        igdbService.searchGames("the\tlegend of zelda");
+
+        verify(reactiveClient, times(1)).searchGames(anyString());
+    }
+
+    @Test
+    void testBlankQueryDoesNotCallIGDB() {
+        assertTrue(igdbService.searchGames("   ").isEmpty());
+        verifyNoInteractions(reactiveClient);
+    }
+
+    @Test
+    void testPrefixReuseFiltersCompleteCachedResult() {
+        igdbService = createService(true);
+        when(reactiveClient.searchGames("zelda")).thenReturn(Mono.just(List.of(
+            game("The Legend of Zelda: Breath of the Wild"), game("Zelda II: The Adventure of Link"))));
+
+        igdbService.searchGames("zelda");
+        List<IGDBGameDTO> results = igdbService.searchGames("Zelda Breath");
+
+        assertEquals(1, results.size());
+        assertEquals("The Legend of Zelda: Breath of the Wild", results.get(0).getTitle());
+        verify(reactiveClient, never()).searchGames("zelda breath");
+        assertEquals(1.0, meterRegistry.get("gamerecs.igdb.search.prefix.reused").counter().count());
+    }
+
+    @Test
+    void testPrefixReuseSkipsTruncatedCachedResult() {
+        igdbService = createService(true);
+        List<IGDBGameDTO> fullPage = new ArrayList<>();
+        for (int i = 0; i < IGDBClientService.MAX_PAGE_SIZE; i++) {
+            fullPage.add(game("Mario " + i));
+        }
+        when(reactiveClient.searchGames("mario")).thenReturn(Mono.just(fullPage));
+        when(reactiveClient.searchGames("mario kart")).thenReturn(Mono.just(List.of(game("Mario Kart 8"))));
+
+        igdbService.searchGames("mario");
+        List<IGDBGameDTO> results = igdbService.searchGames("mario kart");
+
+        assertEquals("Mario Kart 8", results.get(0).getTitle());
+        verify(reactiveClient).searchGames("mario kart");
+    }
+
+    @Test
+    void testMemoryMissReadsThroughPersistentTier() {
+        IGDBGameDTO game = game("Zelda");
+        when(searchCacheStore.find("zelda")).thenReturn(Optional.of(List.of(game)));
+
+        assertEquals(List.of(game), igdbService.searchGames("zelda"));
+        assertEquals(List.of(game), igdbService.searchGames("zelda"));
+
+        verify(searchCacheStore, times(1)).find("zelda");
+        verifyNoInteractions(reactiveClient);
+        verify(searchRefresher, times(1)).onHit("zelda");
+        assertEquals(1.0, meterRegistry.get("gamerecs.igdb.search.cache")
+            .tags("tier", "memory", "result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("gamerecs.igdb.search.cache")
+            .tags("tier", "memory", "result", "miss").counter().count());
+    }
+
+    @Test
+    void testIGDBResultIsStoredInPersistentTier() {
+        IGDBGameDTO game = game("Zelda");
+        when(reactiveClient.searchGames("zelda")).thenReturn(Mono.just(List.of(game)));
+
+        igdbService.searchGames("Zelda");
 
-        // Mock RestTemplate response
-        ResponseEntity<String> mockResponseEntity = new ResponseEntity<>(mockResponse, HttpStatus.OK);
+        verify(searchCacheStore).save("zelda", List.of(game));
+    }
+
+    @Test
+    void testBlockingQueriesUseSharedRateLimiter() {
+        when(rateLimiter.acquire(any())).thenReturn(0.0, 0.25);
         when(restTemplate.exchange(
             anyString(),
             eq(HttpMethod.POST),
             any(HttpEntity.class),
-            eq(String.class)
-        )).thenReturn(mockResponseEntity);
+            eq(byte[].class)
+        )).thenReturn(new ResponseEntity<>("[]".getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
 
-        // Execute test
-        List<IGDBGameDTO> results = igdbService.searchGames("test query");
+        igdbService.fetchGamesInIdRange(0L, 500L);
+        igdbService.fetchGamesUpdatedAfter(1700000000L);
 
-        // Verify results
-        assertNotNull(results);
-        assertEquals(1, results.size());
-        IGDBGameDTO game = results.get(0);
-        
-        // Basic game info
-        assertEquals(1L, game.getIgdbId());
-        assertEquals("Test Game", game.getTitle());
-        assertEquals("https://images.igdb.com/igdb/image/upload/t_cover_big/test.png", game.getCoverImageUrl());
-        assertEquals("Test summary", game.getDescription());
-        assertEquals(1609459200L, game.getUpdatedAt());
-        
-        // Platform
-        assertNotNull(game.getPlatforms());
-        assertEquals(1, game.getPlatforms().size());
-        IGDBPlatformDTO platform = game.getPlatforms().get(0);
-        assertEquals(1L, platform.getIgdbPlatformId());
-        assertEquals("PC", platform.getName());
-        
-        // Genre
-        assertNotNull(game.getGenres());
-        assertEquals(1, game.getGenres().size());
-        IGDBGenreDTO genre = game.getGenres().get(0);
-        assertEquals(1L, genre.getIgdbGenreId());
-        assertEquals("RPG", genre.getName());
-        
-        // Developer/Publisher
-        assertNotNull(game.getDevelopers());
-        assertEquals(1, game.getDevelopers().size());
-        IGDBCompanyDTO developer = game.getDevelopers().get(0);
-        assertEquals(1L, developer.getIgdbCompanyId());
-        assertEquals("Test Studio", developer.getName());
-        
-        // Release date
-        assertEquals(
-            LocalDate.ofInstant(
-                Instant.ofEpochSecond(1577836800L),
-                java.time.ZoneId.systemDefault()
-            ),
-            game.getReleaseDate()
-        );
+        verify(rateLimiter, times(2)).acquire(IGDBRateLimiter.Priority.BACKGROUND);
+        verify(rateLimiter, times(2)).onSuccess();
     }
-    
+
     @Test
-    void testSearchGamesRetriesOnTransientFailure() {
-        // Configure rateLimiter for this test
-        when(rateLimiter.acquire()).thenReturn(0.0);
-        
-        // Prepare test data
-        String mockResponse = """
+    void testBlockingQueryReportsThrottlingToRateLimiter() {
+        when(rateLimiter.acquire(any())).thenReturn(0.0);
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.set(HttpHeaders.RETRY_AFTER, "3");
+        when(restTemplate.exchange(
+            anyString(),
+            eq(HttpMethod.POST),
+            any(HttpEntity.class),
+            eq(byte[].class)
+        )).thenThrow(HttpClientErrorException.create(
+            HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", responseHeaders, null, null));
+
+        assertThrows(RestClientException.class, () -> igdbService.fetchGamesInIdRange(0L, 500L));
+        verify(rateLimiter).onThrottled(Duration.ofSeconds(3));
+        verify(rateLimiter, never()).onSuccess();
+    }
+
+    @Test
+    void testStreamGamesPostProcessesEachGame() throws Exception {
+        String json = """
             [
-                {
-                    "id": 1,
-                    "name": "Test Game",
-                    "summary": "Test summary",
-                    "first_release_date": 1577836800,
-                    "updated_at": 1609459200
-                }
+                {"id": 1, "name": "First", "cover": {"url": "//images.igdb.com/igdb/image/upload/t_thumb/a.png"},
+                 "first_release_date": 1577836800},
+                {"id": 2, "name": "Second"}
             ]
             """;
+        List<IGDBGameDTO> games = new ArrayList<>();
 
-        // Create spy on the service to manually implement retry logic for testing
-        IGDBClientService serviceSpy = Mockito.spy(igdbService);
-        
-        // Mock RestTemplate to fail twice then succeed
+        int count = igdbService.streamGames(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), games::add);
+
+        assertEquals(2, count);
+        assertEquals("Second", games.get(1).getTitle());
+        assertEquals("https://images.igdb.com/igdb/image/upload/t_cover_big/a.png", games.get(0).getCoverImageUrl());
+        assertNotNull(games.get(0).getReleaseDate());
+    }
+
+    @Test
+    void testStreamGamesRejectsNonArray() {
+        assertThrows(IOException.class, () -> igdbService.streamGames(
+            new ByteArrayInputStream("{\"id\": 1}".getBytes(StandardCharsets.UTF_8)), game -> { }));
+    }
+
+    @Test
+    void testFetchGamesInIdRangeQueriesIdWindow() {
+        when(rateLimiter.acquire(any())).thenReturn(0.0);
         when(restTemplate.exchange(
             anyString(),
             eq(HttpMethod.POST),
             any(HttpEntity.class),
-            eq(String.class)
-        )).thenThrow(new RestClientException("First failure"))
-          .thenThrow(new RestClientException("Second failure"))
-          .thenReturn(new ResponseEntity<>(mockResponse, HttpStatus.OK));
-
-        // Since we don't have Spring Retry in the unit test, we'll manually simulate 
-        // a retry by calling the method up to 3 times
-        List<IGDBGameDTO> results = null;
-        int maxAttempts = 3;
-        int attempt = 0;
-        
-        while (attempt < maxAttempts) {
-            try {
-                attempt++;
-                results = serviceSpy.searchGames("test query");
-                break; // If successful, exit the loop
-            } catch (RestClientException e) {
-                if (attempt >= maxAttempts) {
-                    // If all attempts failed, rethrow the exception
-                    throw e;
-                }
-                // Otherwise continue with the next attempt
-            }
-        }
+            eq(byte[].class)
+        )).thenReturn(new ResponseEntity<>("[]".getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
 
-        // Verify results
-        assertNotNull(results);
-        assertEquals(1, results.size());
-        assertEquals("Test Game", results.get(0).getTitle());
-        
-        // Verify the exchange method was called 3 times (1 initial + 2 retries)
-        verify(restTemplate, times(3)).exchange(
+        byte[] body = igdbService.fetchGamesInIdRange(500L, 1000L);
+
+        assertEquals("[]", new String(body, StandardCharsets.UTF_8));
+        verify(restTemplate).exchange(
             anyString(),
             eq(HttpMethod.POST),
-            any(HttpEntity.class),
-            eq(String.class)
+            argThat((HttpEntity<?> request) -> String.valueOf(request.getBody()).contains("id > 500 & id <= 1000")),
+            eq(byte[].class)
         );
     }
-    
+
     @Test
-    void testRateLimiterEnforcesFourPerSecond() {
-        // Setup the RateLimiter mock to simulate rate limiting
-        // First 4 calls return 0.0 (no delay), then return delays for subsequent calls
-        when(rateLimiter.acquire())
-            .thenReturn(0.0)  // First call - no delay
-            .thenReturn(0.0)  // Second call - no delay
-            .thenReturn(0.0)  // Third call - no delay
-            .thenReturn(0.0)  // Fourth call - no delay
-            .thenReturn(0.25) // Fifth call - 250ms delay
-            .thenReturn(0.25); // Sixth call - 250ms delay
-            
-        // Mock successful API response
-        ResponseEntity<String> mockResponse = new ResponseEntity<>(
-            "[{\"id\":1,\"name\":\"Test Game\",\"first_release_date\":1577836800,\"updated_at\":1609459200}]", 
-            HttpStatus.OK
-        );
+    void testFindMaxGameId() {
+        when(rateLimiter.acquire(any())).thenReturn(0.0);
         when(restTemplate.exchange(
             anyString(),
             eq(HttpMethod.POST),
             any(HttpEntity.class),
-            eq(String.class)
-        )).thenReturn(mockResponse);
-        
-        // Make 6 API calls
-        for (int i = 0; i < 6; i++) {
-            igdbService.searchGames("test" + i);
+            eq(byte[].class)
+        )).thenReturn(new ResponseEntity<>("[{\"id\": 345678}]".getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
+
+        assertEquals(345678L, igdbService.findMaxGameId());
+    }
+
+    @Test
+    void testFetchGamesUpdatedAfterSortsByUpdatedAt() {
+        when(rateLimiter.acquire(any())).thenReturn(0.0);
+        when(restTemplate.exchange(
+            anyString(),
+            eq(HttpMethod.POST),
+            any(HttpEntity.class),
+            eq(byte[].class)
+        )).thenReturn(new ResponseEntity<>(
+            "[{\"id\": 7, \"name\": \"Changed\", \"updated_at\": 1700000100}]".getBytes(StandardCharsets.UTF_8),
+            HttpStatus.OK));
+
+        List<IGDBGameDTO> games = igdbService.fetchGamesUpdatedAfter(1700000000L);
+
+        assertEquals(1, games.size());
+        assertEquals(1700000100L, games.get(0).getUpdatedAt());
+        verify(restTemplate).exchange(
+            anyString(),
+            eq(HttpMethod.POST),
+            argThat((HttpEntity<?> request) -> String.valueOf(request.getBody()).contains("updated_at > 1700000000")
+                && String.valueOf(request.getBody()).contains("sort updated_at asc")),
+            eq(byte[].class)
+        );
+    }
+
+    private List<Future<List<IGDBGameDTO>>> searchConcurrently(String query, int callers) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<IGDBGameDTO>>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return igdbService.searchGames(query);
+            }));
         }
-        
-        // Verify rate limiter was used 6 times
-        verify(rateLimiter, times(6)).acquire();
+        start.countDown();
+        executor.shutdown();
+        return results;
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("gamerecs.igdb.search.coalesced").counter().count() < expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private IGDBClientService createService(boolean prefixReuse) {
+        return createService(prefixReuse, Duration.ofSeconds(5));
+    }
+
+    private IGDBClientService createService(boolean prefixReuse, Duration searchTimeBudget) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.IGDB_GAME_SEARCH_CACHE);
+        cacheManager.setAsyncCacheMode(true);
+        return new IGDBClientService(restTemplate, "dummyClientId", "dummyAccessToken", objectMapper,
+            rateLimiter, new IGDBSearchBatcher(reactiveClient, meterRegistry, Duration.ZERO, 10), cacheManager,
+            meterRegistry, prefixReuse, searchCacheStore,
+            searchRefresher, new IGDBSearchFallback(searchCacheStore, gameRepository, meterRegistry, 50),
+            searchTimeBudget);
+    }
+
+    private IGDBGameDTO game(String title) {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setTitle(title);
+        return game;
     }
 } 
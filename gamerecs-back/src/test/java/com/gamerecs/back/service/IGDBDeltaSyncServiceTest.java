@@ -0,0 +1,194 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.GameSyncResult;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.model.SyncCheckpoint;
+import com.gamerecs.back.repository.GameRepository;
+import com.gamerecs.back.repository.JobLockRepository;
+import com.gamerecs.back.repository.SyncCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IGDBDeltaSyncServiceTest {
+
+    @Mock
+    private IGDBClientService igdbClientService;
+
+    @Mock
+    private GameSyncService gameSyncService;
+
+    @Mock
+    private SyncCheckpointRepository checkpointRepository;
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private JobLockRepository jobLockRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IGDBDeltaSyncService deltaSyncService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        deltaSyncService = new IGDBDeltaSyncService(
+            igdbClientService, gameSyncService, checkpointRepository, gameRepository, jobLockRepository,
+            meterRegistry, 5);
+        lenient().when(gameSyncService.syncGamesInBatches(anyList()))
+            .thenAnswer(invocation -> {
+                List<IGDBGameDTO> games = invocation.getArgument(0);
+                return GameSyncResult.builder().processed(games.size()).build();
+            });
+        lenient().when(jobLockRepository.runExclusively(eq(IGDBDeltaSyncService.JOB_NAME), any()))
+            .thenAnswer(invocation -> {
+                invocation.<Runnable>getArgument(1).run();
+                return true;
+            });
+    }
+
+    @Test
+    @DisplayName("Should sync a partial page and advance the watermark to its newest change")
+    void shouldSyncPartialPage() {
+        givenWatermark(100L);
+        when(igdbClientService.fetchGamesUpdatedAfter(100L)).thenReturn(games(1, 3, 150L, 200L, 250L));
+
+        int synced = deltaSyncService.runCycle();
+
+        assertEquals(3, synced);
+        assertEquals(List.of(250L), savedWatermarks());
+        assertEquals(3.0, meterRegistry.get("gamerecs.sync.delta.games").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("gamerecs.sync.delta.duration").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should hold back the trailing updated_at group of a full page")
+    void shouldHoldBackTrailingGroupOfFullPage() {
+        givenWatermark(100L);
+        List<IGDBGameDTO> fullPage = new ArrayList<>(games(1, 498, 150L));
+        fullPage.addAll(games(1000, 2, 300L));
+        when(igdbClientService.fetchGamesUpdatedAfter(100L)).thenReturn(fullPage);
+        when(igdbClientService.fetchGamesUpdatedAfter(150L)).thenReturn(games(1000, 3, 300L));
+
+        int synced = deltaSyncService.runCycle();
+
+        assertEquals(501, synced);
+        assertEquals(List.of(150L, 300L), savedWatermarks());
+    }
+
+    @Test
+    @DisplayName("Should drain a change group larger than one page before advancing")
+    void shouldDrainOversizedChangeGroup() {
+        givenWatermark(100L);
+        when(igdbClientService.fetchGamesUpdatedAfter(100L)).thenReturn(games(1, 500, 200L));
+        when(igdbClientService.fetchGamesUpdatedAt(200L, 0)).thenReturn(games(1, 500, 200L));
+        when(igdbClientService.fetchGamesUpdatedAt(200L, 500)).thenReturn(games(501, 20, 200L));
+        when(igdbClientService.fetchGamesUpdatedAfter(200L)).thenReturn(List.of());
+
+        int synced = deltaSyncService.runCycle();
+
+        assertEquals(520, synced);
+        assertEquals(List.of(200L), savedWatermarks());
+    }
+
+    @Test
+    @DisplayName("Should not advance the watermark when writing a page fails")
+    void shouldNotAdvanceWatermarkOnFailure() {
+        givenWatermark(100L);
+        when(igdbClientService.fetchGamesUpdatedAfter(100L)).thenReturn(games(1, 2, 150L));
+        when(gameSyncService.syncGamesInBatches(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        deltaSyncService.syncDelta();
+
+        verify(checkpointRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should run the scheduled cycle under the job lock")
+    void shouldRunScheduledCycleUnderJobLock() {
+        givenWatermark(100L);
+        when(igdbClientService.fetchGamesUpdatedAfter(100L)).thenReturn(games(1, 2, 150L));
+
+        deltaSyncService.syncDelta();
+
+        verify(jobLockRepository).runExclusively(eq(IGDBDeltaSyncService.JOB_NAME), any());
+        assertEquals(List.of(150L), savedWatermarks());
+    }
+
+    @Test
+    @DisplayName("Should skip the scheduled cycle while another instance holds the job lock")
+    void shouldSkipCycleWhenJobLockIsHeld() {
+        when(jobLockRepository.runExclusively(eq(IGDBDeltaSyncService.JOB_NAME), any())).thenReturn(false);
+
+        deltaSyncService.syncDelta();
+
+        verifyNoInteractions(igdbClientService, gameSyncService, checkpointRepository);
+        assertEquals(0, meterRegistry.get("gamerecs.sync.delta.duration").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should sync before saving the watermark")
+    void shouldSyncBeforeSavingWatermark() {
+        givenWatermark(100L);
+        when(igdbClientService.fetchGamesUpdatedAfter(100L)).thenReturn(games(1, 2, 150L));
+
+        deltaSyncService.runCycle();
+
+        InOrder inOrder = inOrder(gameSyncService, checkpointRepository);
+        inOrder.verify(gameSyncService).syncGamesInBatches(anyList());
+        inOrder.verify(checkpointRepository).save(any(SyncCheckpoint.class));
+    }
+
+    @Test
+    @DisplayName("Should seed the watermark from the newest local game on the first run")
+    void shouldSeedWatermarkFromLocalCatalog() {
+        LocalDateTime newest = LocalDateTime.of(2024, 1, 1, 12, 0);
+        long expected = newest.atZone(ZoneId.systemDefault()).toEpochSecond();
+        when(checkpointRepository.findById(IGDBDeltaSyncService.JOB_NAME)).thenReturn(Optional.empty());
+        when(gameRepository.findMaxUpdatedAt()).thenReturn(Optional.of(newest));
+        when(igdbClientService.fetchGamesUpdatedAfter(expected)).thenReturn(List.of());
+
+        assertEquals(0, deltaSyncService.runCycle());
+        assertTrue(meterRegistry.get("gamerecs.sync.delta.lag").gauge().value() > 0);
+    }
+
+    private void givenWatermark(long value) {
+        when(checkpointRepository.findById(IGDBDeltaSyncService.JOB_NAME)).thenReturn(Optional.of(
+            SyncCheckpoint.builder().jobName(IGDBDeltaSyncService.JOB_NAME).checkpointValue(value).build()));
+    }
+
+    private List<Long> savedWatermarks() {
+        ArgumentCaptor<SyncCheckpoint> captor = ArgumentCaptor.forClass(SyncCheckpoint.class);
+        verify(checkpointRepository, atLeastOnce()).save(captor.capture());
+        return captor.getAllValues().stream().map(SyncCheckpoint::getCheckpointValue).toList();
+    }
+
+    private List<IGDBGameDTO> games(long firstId, int count, long... updatedAts) {
+        List<IGDBGameDTO> games = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            IGDBGameDTO game = new IGDBGameDTO();
+            game.setIgdbId(firstId + i);
+            game.setUpdatedAt(updatedAts.length == 1 ? updatedAts[0] : updatedAts[i]);
+            games.add(game);
+        }
+        return games;
+    }
+} 
@@ -0,0 +1,225 @@
+package com.gamerecs.back.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gamerecs.back.dto.GameSyncResult;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IGDBDumpImportServiceTest {
+    private static final Logger logger = LoggerFactory.getLogger(IGDBDumpImportServiceTest.class);
+
+    @Mock
+    private GameSyncService gameSyncService;
+
+    @TempDir
+    private Path dumpDirectory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IGDBDumpImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        importService = new IGDBDumpImportService(gameSyncService, new ObjectMapper(), meterRegistry, dumpDirectory, "",
+            1000, 2, 500_000);
+    }
+
+    @Test
+    void testNdjsonRecordsArePostProcessed() {
+        when(gameSyncService.syncGamesInBatches(anyList())).thenAnswer(invocation -> inserted(invocation.getArgument(0)));
+        String dump = """
+            {"id": 1, "name": "Halo", "updated_at": 1700000000, "cover": {"url": "//images.igdb.com/igdb/image/upload/t_thumb/co1.jpg"},\
+             "involved_companies": [{"developer": true, "publisher": false, "company": {"id": 3, "name": "Bungie"}}]}
+            {"id": 2, "name": "Halo 2", "updated_at": 1700000001}
+            """;
+
+        GameSyncResult result = importService.importGames(stream(dump));
+
+        ArgumentCaptor<List<IGDBGameDTO>> batch = ArgumentCaptor.captor();
+        verify(gameSyncService).syncGamesInBatches(batch.capture());
+        IGDBGameDTO halo = batch.getValue().get(0);
+        assertEquals("https://images.igdb.com/igdb/image/upload/t_cover_big/co1.jpg", halo.getCoverImageUrl());
+        assertEquals("Bungie", halo.getDevelopers().get(0).getName());
+        assertEquals(2, result.getProcessed());
+    }
+
+    @Test
+    void testJsonArrayDumpAndInvalidRecordsAreRejected() {
+        when(gameSyncService.syncGamesInBatches(anyList())).thenAnswer(invocation -> inserted(invocation.getArgument(0)));
+        String dump = """
+            [{"id": 1, "name": "Halo", "updated_at": 1700000000},
+             {"name": "No id", "updated_at": 1700000000},
+             {"id": 3, "updated_at": 1700000000},
+             {"id": 4, "name": "No update time"},
+             {"id": 5, "name": "Halo 3", "updated_at": 1700000002}]
+            """;
+
+        GameSyncResult result = importService.importGames(stream(dump));
+
+        assertEquals(2, result.getProcessed());
+        assertEquals(3.0, meterRegistry.get("gamerecs.import.dump.games").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void testSkippedGamesAreNotCountedAsImported() {
+        when(gameSyncService.syncGamesInBatches(anyList())).thenReturn(
+            GameSyncResult.builder().processed(3).inserted(1).updated(1).skipped(1).build());
+        String dump = """
+            {"id": 1, "name": "Halo", "updated_at": 1700000000}
+            {"id": 2, "name": "Halo 2", "updated_at": 1700000001}
+            {"id": 3, "name": "Halo 3", "updated_at": 1700000002}
+            """;
+
+        GameSyncResult result = importService.importGames(stream(dump));
+
+        assertEquals(1, result.getSkipped());
+        assertEquals(2.0, meterRegistry.get("gamerecs.import.dump.games").tag("result", "imported").counter().count());
+    }
+
+    @Test
+    void testMalformedDumpFails() {
+        assertThrows(IllegalStateException.class,
+            () -> importService.importGames(stream("{\"id\": 1, \"name\": \"Halo\", \"updated_at\": 1}\n{\"id\": 2, ")));
+        verifyNoInteractions(gameSyncService);
+    }
+
+    @Test
+    void testGzipDumpIsImportedFromTheDumpDirectory() throws Exception {
+        when(gameSyncService.syncGamesInBatches(anyList())).thenAnswer(invocation -> inserted(invocation.getArgument(0)));
+        Path dump = dumpDirectory.resolve("games.ndjson.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(dump))) {
+            out.write("{\"id\": 1, \"name\": \"Halo\", \"updated_at\": 1700000000}\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        GameSyncResult result = importService.runImport(importService.resolveDump("games.ndjson.gz"));
+
+        assertEquals(1, result.getInserted());
+        assertFalse(importService.isRunning());
+    }
+
+    @Test
+    void testDumpsOutsideTheDumpDirectoryAreRejected() throws Exception {
+        Files.writeString(dumpDirectory.resolveSibling("outside.json"), "[]");
+
+        assertThrows(IllegalArgumentException.class, () -> importService.resolveDump("../outside.json"));
+        assertThrows(IllegalArgumentException.class, () -> importService.resolveDump("missing.json"));
+    }
+
+    /**
+     * Imports a generated dump of two million games, streamed without ever being held in memory,
+     * and reports the parse throughput with the write path mocked out
+     */
+    @Test
+    void testMultiMillionRowDumpIsImportedInBoundedBatches() {
+        int games = 2_000_000;
+        AtomicInteger batches = new AtomicInteger();
+        AtomicInteger largestBatch = new AtomicInteger();
+        AtomicLong lastId = new AtomicLong();
+        // Stub only, so the mock does not keep every written batch for verification
+        GameSyncService writer = mock(GameSyncService.class, withSettings().stubOnly());
+        when(writer.syncGamesInBatches(anyList())).thenAnswer(invocation -> {
+            List<IGDBGameDTO> batch = invocation.getArgument(0);
+            batches.incrementAndGet();
+            largestBatch.accumulateAndGet(batch.size(), Math::max);
+            for (IGDBGameDTO game : batch) {
+                assertEquals(lastId.incrementAndGet(), game.getIgdbId(), "games are written in dump order");
+            }
+            return inserted(batch);
+        });
+
+        IGDBDumpImportService service = new IGDBDumpImportService(writer, new ObjectMapper(), meterRegistry,
+            dumpDirectory, "", 1000, 2, 500_000);
+        GameSyncResult result = service.importGames(new GeneratedDump(games));
+
+        logger.info("Imported a generated dump of {} games in {} ms ({} rows/s, writes mocked)",
+            result.getProcessed(), result.getElapsedMillis(), String.format("%.0f", result.getGamesPerSecond()));
+        assertEquals(games, result.getProcessed());
+        assertEquals(1000, largestBatch.get());
+        assertEquals(games / 1000, batches.get());
+    }
+
+    private static GameSyncResult inserted(List<IGDBGameDTO> batch) {
+        return GameSyncResult.builder().processed(batch.size()).inserted(batch.size()).build();
+    }
+
+    private static InputStream stream(String dump) {
+        return new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * NDJSON dump whose lines are generated as they are read
+     */
+    private static class GeneratedDump extends InputStream {
+        private final int games;
+        private int nextId = 1;
+        private byte[] line = new byte[0];
+        private int position;
+
+        GeneratedDump(int games) {
+            this.games = games;
+        }
+
+        @Override
+        public int read() {
+            if (!fill()) {
+                return -1;
+            }
+            return line[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, line.length - position);
+            System.arraycopy(line, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean fill() {
+            if (position < line.length) {
+                return true;
+            }
+            if (nextId > games) {
+                return false;
+            }
+            int id = nextId++;
+            line = ("{\"id\":" + id + ",\"name\":\"Generated Game " + id + "\",\"summary\":\"A generated game\","
+                + "\"first_release_date\":" + (1_000_000_000L + id) + ",\"updated_at\":" + (1_700_000_000L + id)
+                + ",\"cover\":{\"url\":\"//images.igdb.com/igdb/image/upload/t_thumb/co" + id + ".jpg\"},"
+                + "\"genres\":[{\"id\":12,\"name\":\"Role-playing (RPG)\"}]}\n").getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            return true;
+        }
+    }
+} 
@@ -0,0 +1,108 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.config.CacheConfig;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IGDBGameDetailsServiceTest {
+
+    @Mock
+    private IGDBReactiveClientService reactiveClient;
+
+    private CaffeineCacheManager cacheManager;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager(CacheConfig.IGDB_GAME_DETAILS_CACHE);
+        cacheManager.setAsyncCacheMode(true);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testGetGamesFetchesOnlyMissingIdsInOneRequest() {
+        IGDBGameDetailsService service = createService(true);
+        when(reactiveClient.fetchGamesByIds(anyCollection(), eq(IGDBRateLimiter.Priority.INTERACTIVE)))
+            .thenAnswer(invocation -> {
+                Collection<Long> ids = invocation.getArgument(0);
+                return Mono.just(ids.stream().map(IGDBGameDetailsServiceTest::game).toList());
+            });
+
+        assertEquals(List.of(2L, 1L), ids(service.getGames(List.of(2L, 1L))));
+        assertEquals(List.of(3L, 1L, 2L), ids(service.getGames(List.of(3L, 1L, 2L))));
+
+        verify(reactiveClient, times(1)).fetchGamesByIds(argThat(ids -> ids.size() == 2), any());
+        verify(reactiveClient, times(1)).fetchGamesByIds(argThat(ids -> ids.size() == 1 && ids.contains(3L)), any());
+        assertEquals(2.0, meterRegistry.get("gamerecs.igdb.details.cache").tag("result", "hit").counter().count());
+        assertEquals(3.0, meterRegistry.get("gamerecs.igdb.details.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testGetGamesLeavesOutUnknownIds() {
+        IGDBGameDetailsService service = createService(true);
+        when(reactiveClient.fetchGamesByIds(anyCollection(), any())).thenReturn(Mono.just(List.of(game(1L))));
+
+        assertEquals(List.of(1L), ids(service.getGames(List.of(1L, 99L))));
+    }
+
+    @Test
+    void testGetGamesFailsWhenIGDBIsUnavailable() {
+        IGDBGameDetailsService service = createService(true);
+        when(reactiveClient.fetchGamesByIds(anyCollection(), any()))
+            .thenReturn(Mono.error(new IllegalStateException("IGDB down")));
+
+        assertThrows(IllegalStateException.class, () -> service.getGames(List.of(1L)));
+    }
+
+    @Test
+    void testWithDetailsReplacesListingsInTwoPhaseMode() {
+        IGDBGameDetailsService service = createService(true);
+        IGDBGameDTO listing = new IGDBGameDTO();
+        listing.setIgdbId(1L);
+        IGDBGameDTO full = game(1L);
+        full.setDescription("Full record");
+        when(reactiveClient.fetchGamesByIds(anyCollection(), any())).thenReturn(Mono.just(List.of(full)));
+
+        List<IGDBGameDTO> games = service.withDetails(List.of(listing));
+
+        assertEquals("Full record", games.get(0).getDescription());
+    }
+
+    @Test
+    void testWithDetailsKeepsFullSearchResults() {
+        IGDBGameDetailsService service = createService(false);
+        List<IGDBGameDTO> games = List.of(game(1L));
+
+        assertSame(games, service.withDetails(games));
+        verifyNoInteractions(reactiveClient);
+    }
+
+    private IGDBGameDetailsService createService(boolean twoPhaseSearch) {
+        return new IGDBGameDetailsService(reactiveClient, cacheManager, meterRegistry, twoPhaseSearch);
+    }
+
+    private static List<Long> ids(Collection<IGDBGameDTO> games) {
+        return games.stream().map(IGDBGameDTO::getIgdbId).toList();
+    }
+
+    private static IGDBGameDTO game(Long igdbId) {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setIgdbId(igdbId);
+        return game;
+    }
+} 
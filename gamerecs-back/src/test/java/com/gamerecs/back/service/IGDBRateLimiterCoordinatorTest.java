@@ -0,0 +1,67 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.model.RateLimiterMember;
+import com.gamerecs.back.repository.RateLimiterMemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IGDBRateLimiterCoordinatorTest {
+
+    @Mock
+    private RateLimiterMemberRepository memberRepository;
+
+    @Mock
+    private IGDBRateLimiter rateLimiter;
+
+    private IGDBRateLimiterCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() {
+        coordinator = new IGDBRateLimiterCoordinator(memberRepository, rateLimiter, Duration.ofSeconds(15));
+    }
+
+    @Test
+    void testHeartbeatRecordsMemberAndSplitsBudget() {
+        when(memberRepository.countByLastSeenAfter(any())).thenReturn(3L);
+
+        coordinator.heartbeat();
+
+        ArgumentCaptor<RateLimiterMember> member = ArgumentCaptor.forClass(RateLimiterMember.class);
+        verify(memberRepository).save(member.capture());
+        assertEquals(coordinator.getInstanceId(), member.getValue().getInstanceId());
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(memberRepository).deleteStale(cutoff.capture());
+        assertEquals(member.getValue().getLastSeen().minusSeconds(45), cutoff.getValue());
+        verify(rateLimiter).setClusterSize(3);
+    }
+
+    @Test
+    void testHeartbeatFailureKeepsCurrentShare() {
+        when(memberRepository.save(any())).thenThrow(new DataAccessResourceFailureException("database down"));
+
+        assertDoesNotThrow(() -> coordinator.heartbeat());
+
+        verify(rateLimiter, never()).setClusterSize(anyInt());
+    }
+
+    @Test
+    void testLeaveRemovesMember() {
+        coordinator.leave();
+
+        verify(memberRepository).deleteById(coordinator.getInstanceId());
+    }
+} 
@@ -0,0 +1,169 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.service.IGDBRateLimiter.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IGDBRateLimiterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private IGDBRateLimiter rateLimiter;
+
+    @AfterEach
+    void tearDown() {
+        if (rateLimiter != null) {
+            rateLimiter.shutdown();
+        }
+    }
+
+    @Test
+    void testRequestsAreSpacedFourPerSecond() {
+        rateLimiter = new IGDBRateLimiter(4, meterRegistry);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.acquire(Priority.INTERACTIVE);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // The first request goes out right away, the next four one interval apart
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(950), "five requests took " + elapsed + "ns");
+        assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(1500), "five requests took " + elapsed + "ns");
+    }
+
+    @Test
+    void testAcquireAsyncDelaysWithoutBlocking() {
+        rateLimiter = new IGDBRateLimiter(10, meterRegistry);
+        rateLimiter.acquire(Priority.INTERACTIVE);
+
+        long start = System.nanoTime();
+        var delayed = rateLimiter.acquireAsync(Priority.INTERACTIVE);
+        long assembled = System.nanoTime() - start;
+        delayed.block(Duration.ofSeconds(5));
+        long completed = System.nanoTime() - start;
+
+        assertTrue(assembled < TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(completed >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void testInteractiveRequestsAreGrantedBeforeQueuedBackgroundRequests() throws InterruptedException {
+        rateLimiter = new IGDBRateLimiter(20, meterRegistry);
+        rateLimiter.acquire(Priority.BACKGROUND);
+
+        List<Priority> granted = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquireAsync(Priority.BACKGROUND).subscribe(null, null, () -> {
+                granted.add(Priority.BACKGROUND);
+                done.countDown();
+            });
+        }
+        rateLimiter.acquireAsync(Priority.INTERACTIVE).subscribe(null, null, () -> {
+            granted.add(Priority.INTERACTIVE);
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Priority.INTERACTIVE, granted.get(0));
+    }
+
+    @Test
+    void testCancelledRequestGivesUpItsPlace() {
+        rateLimiter = new IGDBRateLimiter(10, meterRegistry);
+        rateLimiter.acquire(Priority.INTERACTIVE);
+
+        rateLimiter.acquireAsync(Priority.BACKGROUND).subscribe().dispose();
+
+        long start = System.nanoTime();
+        rateLimiter.acquire(Priority.INTERACTIVE);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(180),
+            "a cancelled request must not take a slot");
+    }
+
+    @Test
+    void testThrottlingHalvesRateAndSuccessRecoversIt() {
+        rateLimiter = new IGDBRateLimiter(4, meterRegistry);
+
+        rateLimiter.onThrottled(null);
+        assertEquals(2.0, rateLimiter.currentRate(), 0.001);
+        rateLimiter.onThrottled(null);
+        rateLimiter.onThrottled(null);
+        rateLimiter.onThrottled(null);
+        assertEquals(0.5, rateLimiter.currentRate(), 0.001, "the rate never drops below an eighth of the share");
+
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.onSuccess();
+        }
+        assertEquals(4.0, rateLimiter.currentRate(), 0.001);
+        assertEquals(4.0, meterRegistry.get("gamerecs.igdb.ratelimit.throttled").counter().count());
+    }
+
+    @Test
+    void testRetryAfterPausesRequests() {
+        rateLimiter = new IGDBRateLimiter(1000, meterRegistry);
+
+        rateLimiter.onThrottled(Duration.ofMillis(300));
+        assertTrue(rateLimiter.backlogNanos() > TimeUnit.MILLISECONDS.toNanos(200));
+
+        long start = System.nanoTime();
+        rateLimiter.acquire(Priority.INTERACTIVE);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    void testClusterSizeSplitsTheBudget() {
+        rateLimiter = new IGDBRateLimiter(4, meterRegistry);
+
+        rateLimiter.setClusterSize(2);
+        assertEquals(2.0, rateLimiter.currentRate(), 0.001);
+        assertEquals(2.0, meterRegistry.get("gamerecs.igdb.ratelimit.rate").gauge().value(), 0.001);
+
+        rateLimiter.setClusterSize(0);
+        assertEquals(4.0, rateLimiter.currentRate(), 0.001);
+    }
+
+    @Test
+    void testWaitTimesAreRecordedPerPriority() {
+        rateLimiter = new IGDBRateLimiter(50, meterRegistry);
+
+        rateLimiter.acquire(Priority.INTERACTIVE);
+        rateLimiter.acquire(Priority.BACKGROUND);
+
+        assertEquals(1, waitCount("interactive"));
+        assertEquals(1, waitCount("background"));
+    }
+
+    @Test
+    void testParseRetryAfter() {
+        assertEquals(Duration.ofSeconds(5), IGDBRateLimiter.parseRetryAfter("5"));
+        assertEquals(Duration.ZERO, IGDBRateLimiter.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertNull(IGDBRateLimiter.parseRetryAfter("soon"));
+        assertNull(IGDBRateLimiter.parseRetryAfter(null));
+    }
+
+    @Test
+    void testRejectsNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new IGDBRateLimiter(0, meterRegistry));
+    }
+
+    /**
+     * Wait times are recorded right after the grant, possibly just after the caller woke up
+     */
+    private long waitCount(String priority) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        long count;
+        do {
+            count = meterRegistry.get("gamerecs.igdb.ratelimit.wait").tag("priority", priority).timer().count();
+        } while (count == 0 && System.nanoTime() < deadline);
+        return count;
+    }
+}
@@ -0,0 +1,379 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.IGDBCompanyDTO;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IGDBReactiveClientServiceTest {
+    private static final Logger logger = LoggerFactory.getLogger(IGDBReactiveClientServiceTest.class);
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static final String GAME_JSON = """
+        [
+            {
+                "id": 1,
+                "name": "Test Game",
+                "cover": {
+                    "url": "//images.igdb.com/igdb/image/upload/t_thumb/test.png"
+                },
+                "first_release_date": 1577836800,
+                "summary": "Test summary",
+                "platforms": [{"id": 1, "name": "PC"}],
+                "genres": [{"id": 1, "name": "RPG"}],
+                "involved_companies": [
+                    {
+                        "company": {"id": 1, "name": "Test Studio"},
+                        "developer": true,
+                        "publisher": false
+                    }
+                ],
+                "updated_at": 1609459200
+            }
+        ]
+        """;
+
+    @Test
+    void testSearchGamesDecodesAndPostProcessesGames() {
+        List<ClientRequest> requests = new ArrayList<>();
+        IGDBReactiveClientService client = client(request -> {
+            requests.add(request);
+            return Mono.just(ok(GAME_JSON));
+        }, 1000, 4);
+
+        List<IGDBGameDTO> results = client.searchGames("test query").block(TIMEOUT);
+
+        assertNotNull(results);
+        assertEquals(1, results.size());
+        IGDBGameDTO game = results.get(0);
+        assertEquals(1L, game.getIgdbId());
+        assertEquals("Test Game", game.getTitle());
+        assertEquals("https://images.igdb.com/igdb/image/upload/t_cover_big/test.png", game.getCoverImageUrl());
+        assertEquals("PC", game.getPlatforms().get(0).getName());
+        assertEquals("RPG", game.getGenres().get(0).getName());
+        IGDBCompanyDTO developer = game.getDevelopers().get(0);
+        assertEquals("Test Studio", developer.getName());
+        assertEquals(LocalDate.ofInstant(Instant.ofEpochSecond(1577836800L), ZoneId.systemDefault()),
+            game.getReleaseDate());
+
+        ClientRequest request = requests.get(0);
+        assertEquals("https://api.igdb.com/v4/games", request.url().toString());
+        assertEquals("clientId", request.headers().getFirst("Client-ID"));
+        assertEquals("Bearer accessToken", request.headers().getFirst(HttpHeaders.AUTHORIZATION));
+    }
+
+    @Test
+    void testMultiSearchGamesSplitsResultsByQuery() {
+        List<ClientRequest> requests = new ArrayList<>();
+        IGDBReactiveClientService client = client(request -> {
+            requests.add(request);
+            return Mono.just(ok("""
+                [
+                    {"name": "0", "result": %s},
+                    {"name": "1", "result": []}
+                ]
+                """.formatted(GAME_JSON)));
+        }, 1000, 4);
+
+        Map<String, List<IGDBGameDTO>> results = client.multiSearchGames(
+            List.of("test", "nothing", "missing"), IGDBRateLimiter.Priority.INTERACTIVE).block(TIMEOUT);
+
+        assertEquals(3, results.size());
+        assertEquals("Test Game", results.get("test").get(0).getTitle());
+        assertEquals("https://images.igdb.com/igdb/image/upload/t_cover_big/test.png",
+            results.get("test").get(0).getCoverImageUrl());
+        assertEquals(List.of(), results.get("nothing"));
+        assertEquals(List.of(), results.get("missing"));
+        assertEquals(1, requests.size());
+        assertEquals("https://api.igdb.com/v4/multiquery", requests.get(0).url().toString());
+    }
+
+    @Test
+    void testMultiSearchGamesRejectsTooManyQueries() {
+        IGDBReactiveClientService client = client(request -> Mono.just(ok("[]")), 1000, 4);
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i <= IGDBReactiveClientService.MAX_MULTIQUERY_SIZE; i++) {
+            queries.add("game" + i);
+        }
+
+        assertThrows(IllegalArgumentException.class,
+            () -> client.multiSearchGames(queries, IGDBRateLimiter.Priority.INTERACTIVE).block(TIMEOUT));
+    }
+
+    @Test
+    void testFetchGamesByIdsDecodesFullRecords() {
+        List<ClientRequest> requests = new ArrayList<>();
+        IGDBReactiveClientService client = client(request -> {
+            requests.add(request);
+            return Mono.just(ok(GAME_JSON));
+        }, 1000, 4);
+
+        List<IGDBGameDTO> games = client.fetchGamesByIds(List.of(1L, 2L), IGDBRateLimiter.Priority.INTERACTIVE)
+            .block(TIMEOUT);
+
+        assertEquals(1, games.size());
+        assertEquals("Test Studio", games.get(0).getDevelopers().get(0).getName());
+        assertEquals("https://api.igdb.com/v4/games", requests.get(0).url().toString());
+    }
+
+    @Test
+    void testSearchGamesRetriesOnTransientFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+        IGDBReactiveClientService client = client(request -> Mono.just(attempts.incrementAndGet() < 3
+            ? ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()
+            : ok(GAME_JSON)), 1000, 4);
+
+        List<IGDBGameDTO> results = client.searchGames("test query").block(TIMEOUT);
+
+        assertEquals(1, results.size());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testSearchGamesDoesNotRetryClientErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+        IGDBReactiveClientService client = client(request -> {
+            attempts.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.BAD_REQUEST).build());
+        }, 1000, 4);
+
+        assertThrows(WebClientResponseException.BadRequest.class, () -> client.searchGames("test").block(TIMEOUT));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void testOpenCircuitRejectsCallsWithoutReachingIGDB() {
+        AtomicInteger attempts = new AtomicInteger();
+        // Every attempt is a call of its own, so the three attempts of one search open the circuit
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .slidingWindowSize(3)
+            .minimumNumberOfCalls(3)
+            .waitDurationInOpenState(Duration.ofMinutes(1))
+            .build());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        IGDBReactiveClientService client = client(request -> {
+            attempts.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }, new IGDBRateLimiter(1000, new SimpleMeterRegistry()), 4, registry, meterRegistry);
+
+        assertThrows(WebClientResponseException.ServiceUnavailable.class,
+            () -> client.searchGames("down").block(TIMEOUT));
+        int attemptsBeforeOpen = attempts.get();
+        assertEquals(3, attemptsBeforeOpen);
+
+        assertThrows(CallNotPermittedException.class, () -> client.searchGames("down").block(TIMEOUT));
+        assertEquals(attemptsBeforeOpen, attempts.get());
+        assertEquals(CircuitBreaker.State.OPEN,
+            registry.circuitBreaker(IGDBReactiveClientService.CIRCUIT_BREAKER).getState());
+        assertEquals(1.0, meterRegistry.get("gamerecs.igdb.circuit.transitions")
+            .tag("from", "closed").tag("to", "open").counter().count());
+        assertEquals(1, meterRegistry.get("gamerecs.igdb.circuit.time.saved").timer().count());
+    }
+
+    @Test
+    void testClientErrorsDoNotOpenTheCircuit() {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .slidingWindowSize(2)
+            .minimumNumberOfCalls(2)
+            .build());
+        IGDBReactiveClientService client = client(request -> Mono.just(ClientResponse.create(HttpStatus.BAD_REQUEST).build()),
+            new IGDBRateLimiter(1000, new SimpleMeterRegistry()), 4, registry, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(WebClientResponseException.BadRequest.class, () -> client.searchGames("bad").block(TIMEOUT));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED,
+            registry.circuitBreaker(IGDBReactiveClientService.CIRCUIT_BREAKER).getState());
+    }
+
+    @Test
+    void testTimeQueuedForSlotsIsNotASlowCall() throws InterruptedException {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .slidingWindowSize(5)
+            .minimumNumberOfCalls(5)
+            .slowCallDurationThreshold(Duration.ofMillis(50))
+            .slowCallRateThreshold(50)
+            .build());
+        // Ten searches through one in-flight slot at 20 per second: the last waits about 450 ms before it is sent
+        IGDBReactiveClientService client = client(request -> Mono.just(ok("[]")),
+            new IGDBRateLimiter(20, new SimpleMeterRegistry()), 1, registry, new SimpleMeterRegistry());
+
+        CountDownLatch done = new CountDownLatch(10);
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            client.searchGames("queued" + i).subscribe(games -> done.countDown());
+        }
+        assertTrue(done.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+
+        CircuitBreaker circuitBreaker = registry.circuitBreaker(IGDBReactiveClientService.CIRCUIT_BREAKER);
+        assertTrue(System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(200), "the searches must have queued");
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfSlowCalls());
+    }
+
+    @Test
+    void testThrottledResponseSlowsDownRateLimiter() {
+        AtomicInteger attempts = new AtomicInteger();
+        IGDBRateLimiter rateLimiter = new IGDBRateLimiter(1000, new SimpleMeterRegistry());
+        IGDBReactiveClientService client = client(request -> Mono.just(attempts.incrementAndGet() == 1
+            ? ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "0").build()
+            : ok(GAME_JSON)), rateLimiter, 4);
+
+        List<IGDBGameDTO> results = client.searchGames("test query").block(TIMEOUT);
+
+        assertEquals(1, results.size());
+        assertEquals(2, attempts.get());
+        // Halved by the 429, then partly recovered by the successful retry
+        assertEquals(520, rateLimiter.currentRate(), 0.001);
+    }
+
+    @Test
+    void testInFlightRequestsAreCapped() {
+        Queue<Sinks.One<ClientResponse>> pending = new ConcurrentLinkedQueue<>();
+        AtomicInteger started = new AtomicInteger();
+        IGDBReactiveClientService client = client(request -> {
+            started.incrementAndGet();
+            Sinks.One<ClientResponse> response = Sinks.one();
+            pending.add(response);
+            return response.asMono();
+        }, 1000, 2);
+
+        List<Disposable> searches = new ArrayList<>();
+        AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            searches.add(client.searchGames("game" + i).subscribe(games -> completed.incrementAndGet()));
+        }
+
+        waitUntil(() -> started.get() == 2);
+        assertEquals(2, started.get(), "only max-in-flight requests may be sent");
+
+        // Each finished request lets one queued request through, never more than two at a time
+        for (int i = 1; i <= 5; i++) {
+            waitUntil(() -> !pending.isEmpty());
+            pending.poll().tryEmitValue(ok("[]"));
+            int finished = i;
+            waitUntil(() -> completed.get() == finished);
+            assertTrue(started.get() - completed.get() <= 2);
+        }
+        assertEquals(5, started.get());
+        searches.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void testCancelledRequestReleasesItsSlot() {
+        AtomicInteger started = new AtomicInteger();
+        IGDBReactiveClientService client = client(request -> {
+            int call = started.incrementAndGet();
+            return call == 1 ? Mono.never() : Mono.just(ok("[]"));
+        }, 1000, 1);
+
+        Disposable stuck = client.searchGames("stuck").subscribe();
+        waitUntil(() -> started.get() == 1);
+        Mono<List<IGDBGameDTO>> next = client.searchGames("next");
+
+        stuck.dispose();
+
+        assertEquals(List.of(), next.block(TIMEOUT));
+        assertEquals(2, started.get());
+    }
+
+    /**
+     * Burst of cache misses: measures how long the calling thread is held while a burst is
+     * admitted, against how long the burst takes to drain through the rate limiter.
+     * A blocking client holds one caller thread per request for that whole drain time.
+     */
+    @Test
+    void testBurstOfCacheMissesDoesNotHoldCallerThreads() throws InterruptedException {
+        int burst = 40;
+        double permitsPerSecond = 100;
+        IGDBReactiveClientService client = client(
+            request -> Mono.delay(Duration.ofMillis(20)).map(tick -> ok("[]")), permitsPerSecond, 4);
+
+        CountDownLatch done = new CountDownLatch(burst);
+        long start = System.nanoTime();
+        for (int i = 0; i < burst; i++) {
+            client.searchGames("miss" + i).subscribe(games -> done.countDown());
+        }
+        long admitNanos = System.nanoTime() - start;
+        assertTrue(done.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+        long drainNanos = System.nanoTime() - start;
+
+        logger.info("Burst of {} IGDB cache misses: caller thread held {} ms, burst drained in {} ms",
+            burst, TimeUnit.NANOSECONDS.toMillis(admitNanos), TimeUnit.NANOSECONDS.toMillis(drainNanos));
+        // The limiter alone spreads the burst over (burst - 1) / permitsPerSecond seconds
+        assertTrue(drainNanos >= TimeUnit.MILLISECONDS.toNanos((long) ((burst - 1) * 1000 / permitsPerSecond)));
+        assertTrue(admitNanos < drainNanos / 2, "admitting the burst must not wait for the rate limiter");
+    }
+
+    private IGDBReactiveClientService client(ExchangeFunction exchange, double permitsPerSecond, int maxInFlight) {
+        return client(exchange, new IGDBRateLimiter(permitsPerSecond, new SimpleMeterRegistry()), maxInFlight);
+    }
+
+    private IGDBReactiveClientService client(ExchangeFunction exchange, IGDBRateLimiter rateLimiter, int maxInFlight) {
+        return client(exchange, rateLimiter, maxInFlight, CircuitBreakerRegistry.ofDefaults(), new SimpleMeterRegistry());
+    }
+
+    private IGDBReactiveClientService client(ExchangeFunction exchange, IGDBRateLimiter rateLimiter, int maxInFlight,
+            CircuitBreakerRegistry circuitBreakerRegistry, SimpleMeterRegistry meterRegistry) {
+        return new IGDBReactiveClientService(
+            WebClient.builder().exchangeFunction(exchange),
+            new ReactorClientHttpConnector(),
+            "clientId",
+            "accessToken",
+            rateLimiter,
+            maxInFlight,
+            Duration.ofMillis(1),
+            false,
+            circuitBreakerRegistry,
+            meterRegistry);
+    }
+
+    private static ClientResponse ok(String json) {
+        return ClientResponse.create(HttpStatus.OK)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .body(json)
+            .build();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+} 
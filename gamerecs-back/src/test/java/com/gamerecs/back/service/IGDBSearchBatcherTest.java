@@ -0,0 +1,123 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.IGDBGameDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IGDBSearchBatcherTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Mock
+    private IGDBReactiveClientService reactiveClient;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testSearchesWithinWindowShareOneMultiquery() {
+        IGDBSearchBatcher batcher = new IGDBSearchBatcher(reactiveClient, meterRegistry, Duration.ofMillis(50), 10);
+        when(reactiveClient.multiSearchGames(List.of("zelda", "mario", "metroid"), IGDBRateLimiter.Priority.INTERACTIVE))
+            .thenReturn(Mono.just(Map.of(
+                "zelda", List.of(game("Zelda")),
+                "mario", List.of(game("Mario")),
+                "metroid", List.of())));
+
+        Mono<List<IGDBGameDTO>> zelda = batcher.search("zelda").cache();
+        Mono<List<IGDBGameDTO>> mario = batcher.search("mario").cache();
+        Mono<List<IGDBGameDTO>> metroid = batcher.search("metroid").cache();
+        zelda.subscribe();
+        mario.subscribe();
+        metroid.subscribe();
+
+        assertEquals("Zelda", zelda.block(TIMEOUT).get(0).getTitle());
+        assertEquals("Mario", mario.block(TIMEOUT).get(0).getTitle());
+        assertEquals(List.of(), metroid.block(TIMEOUT));
+        verify(reactiveClient, times(1)).multiSearchGames(anyList(), any());
+        verify(reactiveClient, never()).searchGames(anyString());
+        assertEquals(1, meterRegistry.get("gamerecs.igdb.search.batch.size").summary().count());
+        assertEquals(3.0, meterRegistry.get("gamerecs.igdb.search.batch.size").summary().totalAmount());
+        assertEquals(3, meterRegistry.get("gamerecs.igdb.search.batch.queued").timer().count());
+    }
+
+    @Test
+    void testFullBatchIsSentWithoutWaitingForWindow() {
+        IGDBSearchBatcher batcher = new IGDBSearchBatcher(reactiveClient, meterRegistry, Duration.ofMinutes(1), 2);
+        when(reactiveClient.multiSearchGames(List.of("zelda", "mario"), IGDBRateLimiter.Priority.INTERACTIVE))
+            .thenReturn(Mono.just(Map.of("zelda", List.of(game("Zelda")), "mario", List.of(game("Mario")))));
+
+        Mono<List<IGDBGameDTO>> zelda = batcher.search("zelda").cache();
+        zelda.subscribe();
+        List<IGDBGameDTO> mario = batcher.search("mario").block(TIMEOUT);
+
+        assertEquals("Mario", mario.get(0).getTitle());
+        assertEquals("Zelda", zelda.block(TIMEOUT).get(0).getTitle());
+    }
+
+    @Test
+    void testSingleSearchIsSentAsPlainSearch() {
+        IGDBSearchBatcher batcher = new IGDBSearchBatcher(reactiveClient, meterRegistry, Duration.ZERO, 10);
+        when(reactiveClient.searchGames("zelda")).thenReturn(Mono.just(List.of(game("Zelda"))));
+
+        assertEquals("Zelda", batcher.search("zelda").block(TIMEOUT).get(0).getTitle());
+        verify(reactiveClient, never()).multiSearchGames(anyList(), any());
+    }
+
+    @Test
+    void testDuplicateQueryInBatchIsSentOnce() {
+        IGDBSearchBatcher batcher = new IGDBSearchBatcher(reactiveClient, meterRegistry, Duration.ofMillis(50), 10);
+        when(reactiveClient.searchGames("zelda")).thenReturn(Mono.just(List.of(game("Zelda"))));
+
+        Mono<List<IGDBGameDTO>> first = batcher.search("zelda").cache();
+        Mono<List<IGDBGameDTO>> second = batcher.search("zelda").cache();
+        first.subscribe();
+        second.subscribe();
+
+        assertEquals(first.block(TIMEOUT), second.block(TIMEOUT));
+        verify(reactiveClient, times(1)).searchGames("zelda");
+    }
+
+    @Test
+    void testBatchFailureReachesEveryCaller() {
+        IGDBSearchBatcher batcher = new IGDBSearchBatcher(reactiveClient, meterRegistry, Duration.ofMinutes(1), 2);
+        when(reactiveClient.multiSearchGames(anyList(), any()))
+            .thenReturn(Mono.error(new IllegalStateException("IGDB down")));
+
+        List<Throwable> failures = new ArrayList<>();
+        batcher.search("zelda").subscribe(games -> { }, failures::add);
+        batcher.search("mario").subscribe(games -> { }, failures::add);
+
+        assertEquals(2, failures.size());
+        assertTrue(failures.stream().allMatch(IllegalStateException.class::isInstance));
+    }
+
+    @Test
+    void testRejectsBatchLargerThanMultiquery() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new IGDBSearchBatcher(reactiveClient, meterRegistry, Duration.ZERO, 11));
+    }
+
+    private IGDBGameDTO game(String title) {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setTitle(title);
+        return game;
+    }
+} 
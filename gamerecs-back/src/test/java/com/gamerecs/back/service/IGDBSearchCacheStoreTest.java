@@ -0,0 +1,158 @@
+package com.gamerecs.back.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gamerecs.back.config.CacheConfig;
+import com.gamerecs.back.dto.IGDBCompanyDTO;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.model.IGDBSearchCacheEntry;
+import com.gamerecs.back.repository.IGDBSearchCacheRepository;
+import com.gamerecs.back.util.BaseIntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IGDBSearchCacheStoreTest extends BaseIntegrationTest {
+
+    @Autowired
+    private IGDBSearchCacheStore store;
+
+    @Autowired
+    private IGDBSearchCacheRepository repository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        store.clear();
+        cacheManager.getCache(CacheConfig.IGDB_GAME_SEARCH_CACHE).clear();
+    }
+
+    @Test
+    @DisplayName("Should store a compressed result and read it back")
+    void shouldRoundTripResult() {
+        store.save("zelda", List.of(game(1L, "The Legend of Zelda")));
+
+        Optional<List<IGDBGameDTO>> found = store.find("zelda");
+
+        assertTrue(found.isPresent());
+        IGDBGameDTO game = found.get().get(0);
+        assertEquals("The Legend of Zelda", game.getTitle());
+        assertEquals(LocalDate.of(1986, 2, 21), game.getReleaseDate());
+        assertEquals("https://images.igdb.com/cover.png", game.getCoverImageUrl());
+        assertEquals("Nintendo", game.getDevelopers().get(0).getName());
+
+        IGDBSearchCacheEntry entry = repository.findById("zelda").orElseThrow();
+        assertEquals(1, entry.getResultCount());
+        assertTrue(entry.getExpiresAt().isAfter(entry.getFetchedAt()));
+    }
+
+    @Test
+    @DisplayName("Should count hits and treat expired entries as misses")
+    void shouldCountHitsAndSkipExpiredEntries() {
+        double hitsBefore = tierCount("hit");
+        double missesBefore = tierCount("miss");
+        store.save("zelda", List.of(game(1L, "Zelda")));
+        store.save("mario", List.of(game(2L, "Mario")));
+        IGDBSearchCacheEntry expired = repository.findById("mario").orElseThrow();
+        expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        repository.saveAndFlush(expired);
+
+        assertTrue(store.find("zelda").isPresent());
+        assertTrue(store.find("zelda").isPresent());
+        assertTrue(store.find("mario").isEmpty());
+        assertTrue(store.find("unknown").isEmpty());
+
+        entityManager.clear();
+        assertEquals(0L, repository.findById("zelda").orElseThrow().getHitCount(), "hits are written on flush");
+        store.flushHits();
+        entityManager.clear();
+        assertEquals(2L, repository.findById("zelda").orElseThrow().getHitCount());
+        assertEquals(2.0, tierCount("hit") - hitsBefore);
+        assertEquals(2.0, tierCount("miss") - missesBefore);
+    }
+
+    @Test
+    @DisplayName("Should keep the hit count when a result is refreshed")
+    void shouldKeepHitCountOnRefresh() {
+        store.save("zelda", List.of(game(1L, "Zelda")));
+        store.find("zelda");
+        store.flushHits();
+        entityManager.clear();
+
+        store.save("zelda", List.of(game(1L, "Zelda"), game(2L, "Zelda II")));
+
+        entityManager.flush();
+        entityManager.clear();
+        IGDBSearchCacheEntry entry = repository.findById("zelda").orElseThrow();
+        assertEquals(2, entry.getResultCount());
+        assertEquals(1L, entry.getHitCount());
+    }
+
+    @Test
+    @DisplayName("Should pre-load unexpired entries into the memory tier and drop expired ones")
+    void shouldPreloadMemoryTier() {
+        store.save("zelda", List.of(game(1L, "Zelda")));
+        store.save("mario", List.of(game(2L, "Mario")));
+        IGDBSearchCacheEntry expired = repository.findById("mario").orElseThrow();
+        expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        repository.saveAndFlush(expired);
+
+        store.preload();
+
+        Object cached = cacheManager.getCache(CacheConfig.IGDB_GAME_SEARCH_CACHE).get("zelda").get();
+        assertEquals("Zelda", ((IGDBGameDTO) ((List<?>) cached).get(0)).getTitle());
+        assertNull(cacheManager.getCache(CacheConfig.IGDB_GAME_SEARCH_CACHE).get("mario"));
+        assertFalse(repository.existsById("mario"));
+    }
+
+    @Test
+    @DisplayName("Should not fail when the database tier cannot be cleared")
+    void shouldLogFailureToClear() {
+        IGDBSearchCacheRepository failingRepository = mock(IGDBSearchCacheRepository.class);
+        doThrow(new DataAccessResourceFailureException("database down")).when(failingRepository).deleteAllInBatch();
+        IGDBSearchCacheStore failingStore = new IGDBSearchCacheStore(failingRepository, new ObjectMapper(),
+            cacheManager, new SimpleMeterRegistry(), Duration.ofHours(24), 200);
+
+        assertDoesNotThrow(failingStore::clear);
+    }
+
+    private double tierCount(String result) {
+        return meterRegistry.get("gamerecs.igdb.search.cache")
+            .tags("tier", "database", "result", result).counter().count();
+    }
+
+    private IGDBGameDTO game(Long id, String title) {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setIgdbId(id);
+        game.setTitle(title);
+        game.setReleaseDate(LocalDate.of(1986, 2, 21));
+        game.setCoverImageUrl("https://images.igdb.com/cover.png");
+        IGDBCompanyDTO developer = new IGDBCompanyDTO();
+        developer.setIgdbCompanyId(70L);
+        developer.setName("Nintendo");
+        game.getDevelopers().add(developer);
+        return game;
+    }
+} 
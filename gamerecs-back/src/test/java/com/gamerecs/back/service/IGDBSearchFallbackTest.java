@@ -0,0 +1,83 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.gamerecs.back.dto.IGDBSearchResult;
+import com.gamerecs.back.model.Game;
+import com.gamerecs.back.repository.GameRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IGDBSearchFallbackTest {
+
+    @Mock
+    private IGDBSearchCacheStore searchCacheStore;
+
+    @Mock
+    private GameRepository gameRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IGDBSearchFallback fallback;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        fallback = new IGDBSearchFallback(searchCacheStore, gameRepository, meterRegistry, 25);
+    }
+
+    @Test
+    void testStaleCachedResultIsPreferred() {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setTitle("Halo");
+        when(searchCacheStore.findStale("halo")).thenReturn(Optional.of(List.of(game)));
+
+        IGDBSearchResult result = fallback.search("halo", IGDBSearchFallback.Reason.TIMEOUT);
+
+        assertEquals(IGDBSearchResult.Source.STALE_CACHE, result.source());
+        assertTrue(result.degraded());
+        assertEquals(List.of(game), result.games());
+        verifyNoInteractions(gameRepository);
+    }
+
+    @Test
+    void testLocalCatalogIsSearchedWithoutStaleResult() {
+        Game stored = new Game();
+        stored.setIgdbId(740L);
+        stored.setTitle("Halo: Combat Evolved");
+        when(gameRepository.findByTitleContainingIgnoreCase("halo", PageRequest.of(0, 25))).thenReturn(List.of(stored));
+
+        IGDBSearchResult result = fallback.search("halo", IGDBSearchFallback.Reason.CIRCUIT_OPEN);
+
+        assertEquals(IGDBSearchResult.Source.LOCAL_CATALOG, result.source());
+        assertEquals(740L, result.games().get(0).getIgdbId());
+        assertEquals("Halo: Combat Evolved", result.games().get(0).getTitle());
+        assertEquals(1.0, meterRegistry.get("gamerecs.igdb.search.fallback")
+            .tag("source", "local_catalog").tag("reason", "circuit_open").counter().count());
+    }
+
+    @Test
+    void testEmptyResultWhenNoFallbackHasGames() {
+        when(gameRepository.findByTitleContainingIgnoreCase(anyString(), any()))
+            .thenThrow(new DataAccessResourceFailureException("database down"));
+
+        IGDBSearchResult result = fallback.search("halo", IGDBSearchFallback.Reason.ERROR);
+
+        assertEquals(IGDBSearchResult.Source.NONE, result.source());
+        assertTrue(result.degraded());
+        assertTrue(result.games().isEmpty());
+    }
+} 
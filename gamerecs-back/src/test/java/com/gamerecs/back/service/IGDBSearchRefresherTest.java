@@ -0,0 +1,174 @@
+package com.gamerecs.back.service;
+
+import com.gamerecs.back.config.CacheConfig;
+import com.gamerecs.back.dto.IGDBGameDTO;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IGDBSearchRefresherTest {
+
+    @Mock
+    private IGDBReactiveClientService reactiveClient;
+
+    @Mock
+    private IGDBSearchCacheStore searchCacheStore;
+
+    @Mock
+    private IGDBRateLimiter rateLimiter;
+
+    /**
+     * Cache clock, moved forward by the tests
+     */
+    private final AtomicLong nanos = new AtomicLong();
+
+    private SimpleMeterRegistry meterRegistry;
+    private AsyncCache<Object, Object> searchCache;
+    private IGDBSearchRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.IGDB_GAME_SEARCH_CACHE);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+            .expireAfterWrite(60, TimeUnit.MINUTES)
+            .ticker(nanos::get));
+        cacheManager.setAsyncCacheMode(true);
+        searchCache = ((CaffeineCache) cacheManager.getCache(CacheConfig.IGDB_GAME_SEARCH_CACHE)).getAsyncCache();
+        refresher = new IGDBSearchRefresher(cacheManager, reactiveClient, searchCacheStore, rateLimiter,
+            meterRegistry, 0.8, 1);
+        lenient().when(rateLimiter.backlogNanos()).thenReturn(0L);
+    }
+
+    @Test
+    @DisplayName("Should not refresh an entry younger than the TTL fraction")
+    void shouldNotRefreshFreshEntry() {
+        cache("zelda", game("Zelda"));
+        advanceMinutes(30);
+
+        refresher.onHit("zelda");
+
+        verifyNoInteractions(reactiveClient);
+        assertEquals(1, meterRegistry.get("gamerecs.igdb.search.staleness").summary().count());
+        assertEquals(1800.0, meterRegistry.get("gamerecs.igdb.search.staleness").summary().max());
+    }
+
+    @Test
+    @DisplayName("Should reload a hot entry past the TTL fraction and keep serving it")
+    void shouldRefreshAgingEntry() {
+        cache("zelda", game("Zelda"));
+        IGDBGameDTO fresh = game("Zelda (refreshed)");
+        when(reactiveClient.searchGames("zelda", IGDBRateLimiter.Priority.BACKGROUND)).thenReturn(Mono.just(List.of(fresh)));
+        advanceMinutes(50);
+
+        refresher.onHit("zelda");
+
+        awaitRefreshCount("success", 1.0);
+        verify(searchCacheStore).save("zelda", List.of(fresh));
+        assertEquals(List.of(fresh), searchCache.getIfPresent("zelda").join());
+        assertEquals(1.0, refreshCount("success"));
+
+        // The reloaded entry starts a new TTL
+        advanceMinutes(50);
+        assertNotNull(searchCache.getIfPresent("zelda"));
+    }
+
+    @Test
+    @DisplayName("Should keep the cached result when a refresh fails")
+    void shouldKeepEntryOnRefreshFailure() {
+        IGDBGameDTO cached = game("Zelda");
+        cache("zelda", cached);
+        when(reactiveClient.searchGames("zelda", IGDBRateLimiter.Priority.BACKGROUND)).thenReturn(Mono.error(new IllegalStateException("IGDB down")));
+        advanceMinutes(50);
+
+        refresher.onHit("zelda");
+
+        awaitRefreshCount("failure", 1.0);
+        assertEquals(1.0, refreshCount("failure"));
+        assertEquals(List.of(cached), searchCache.getIfPresent("zelda").join());
+        verifyNoInteractions(searchCacheStore);
+    }
+
+    @Test
+    @DisplayName("Should let an entry nobody reads expire without refreshing it")
+    void shouldLetUnreadEntryExpire() {
+        cache("zelda", game("Zelda"));
+        advanceMinutes(61);
+
+        assertNull(searchCache.getIfPresent("zelda"));
+        verifyNoInteractions(reactiveClient);
+    }
+
+    @Test
+    @DisplayName("Should cap concurrent refreshes")
+    void shouldCapConcurrentRefreshes() {
+        cache("zelda", game("Zelda"));
+        cache("mario", game("Mario"));
+        when(reactiveClient.searchGames("zelda", IGDBRateLimiter.Priority.BACKGROUND)).thenReturn(Mono.never());
+        advanceMinutes(50);
+
+        refresher.onHit("zelda");
+        refresher.onHit("zelda");
+        refresher.onHit("mario");
+
+        verify(reactiveClient, times(1)).searchGames(anyString(), any());
+        assertEquals(1.0, refreshCount("skipped"));
+    }
+
+    @Test
+    @DisplayName("Should skip refreshing while the IGDB rate budget is in use")
+    void shouldSkipRefreshWhenRateLimiterIsBusy() {
+        cache("zelda", game("Zelda"));
+        when(rateLimiter.backlogNanos()).thenReturn(TimeUnit.MILLISECONDS.toNanos(250));
+        advanceMinutes(50);
+
+        refresher.onHit("zelda");
+
+        verifyNoInteractions(reactiveClient);
+        assertEquals(1.0, refreshCount("skipped"));
+    }
+
+    private void cache(String query, IGDBGameDTO game) {
+        searchCache.put(query, CompletableFuture.completedFuture(List.of(game)));
+    }
+
+    private void advanceMinutes(long minutes) {
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(minutes));
+    }
+
+    private double refreshCount(String result) {
+        return meterRegistry.get("gamerecs.igdb.search.refresh").tags("result", result).counter().count();
+    }
+
+    private void awaitRefreshCount(String result, double expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (refreshCount(result) < expected && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private IGDBGameDTO game(String title) {
+        IGDBGameDTO game = new IGDBGameDTO();
+        game.setTitle(title);
+        return game;
+    }
+} 
@@ -0,0 +1,56 @@
+package com.gamerecs.back.util;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Scratch Postgres database for tests of SQL the embedded test database cannot run, such as
+ * ON CONFLICT, COPY, full text search and array functions.
+ * Point GAMERECS_TEST_POSTGRES_URL (and _USER, _PASSWORD) at a scratch database to run them;
+ * the backend CI job starts a Postgres service for this. Tests using it are annotated with
+ * {@code @EnabledIfEnvironmentVariable(named = PostgresTestDatabase.URL_VARIABLE, matches = ".+")}.
+ */
+public final class PostgresTestDatabase {
+
+    public static final String URL_VARIABLE = "GAMERECS_TEST_POSTGRES_URL";
+
+    private static DataSource dataSource;
+
+    private PostgresTestDatabase() {
+    }
+
+    /**
+     * The scratch database, migrated with Flyway on first use
+     *
+     * @return a data source for the database named by GAMERECS_TEST_POSTGRES_URL
+     */
+    public static synchronized DataSource dataSource() {
+        if (dataSource == null) {
+            DriverManagerDataSource created = new DriverManagerDataSource(
+                System.getenv(URL_VARIABLE),
+                System.getenv().getOrDefault("GAMERECS_TEST_POSTGRES_USER", "postgres"),
+                System.getenv().getOrDefault("GAMERECS_TEST_POSTGRES_PASSWORD", ""));
+            Flyway.configure().dataSource(created).load().migrate();
+            dataSource = created;
+        }
+        return dataSource;
+    }
+
+    /**
+     * Removes test games by IGDB id range, with the join rows that do not cascade
+     *
+     * @param jdbcTemplate a template over dataSource()
+     * @param fromIgdbId the first IGDB id to remove
+     * @param toIgdbId the IGDB id after the last one to remove
+     */
+    public static void deleteGames(JdbcTemplate jdbcTemplate, long fromIgdbId, long toIgdbId) {
+        String games = "SELECT game_id FROM games WHERE igdb_id >= ? AND igdb_id < ?";
+        jdbcTemplate.update("DELETE FROM library_games WHERE game_id IN (" + games + ")", fromIgdbId, toIgdbId);
+        jdbcTemplate.update("DELETE FROM game_genres WHERE game_id IN (" + games + ")", fromIgdbId, toIgdbId);
+        jdbcTemplate.update("DELETE FROM game_platforms WHERE game_id IN (" + games + ")", fromIgdbId, toIgdbId);
+        jdbcTemplate.update("DELETE FROM games WHERE igdb_id >= ? AND igdb_id < ?", fromIgdbId, toIgdbId);
+    }
+} 
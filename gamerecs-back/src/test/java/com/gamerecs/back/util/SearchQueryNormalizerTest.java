@@ -0,0 +1,94 @@
+package com.gamerecs.back.util;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchQueryNormalizerTest {
+    private static final Logger logger = LoggerFactory.getLogger(SearchQueryNormalizerTest.class);
+
+    @Test
+    void normalize_WithCaseAndSpacingVariants_ReturnsSameQuery() {
+        assertEquals("zelda", SearchQueryNormalizer.normalize("Zelda"));
+        assertEquals("zelda", SearchQueryNormalizer.normalize("zelda "));
+        assertEquals("zelda", SearchQueryNormalizer.normalize("ZELDA"));
+        assertEquals("mario kart 8", SearchQueryNormalizer.normalize("  Mario\t Kart \n8 "));
+    }
+
+    @Test
+    void normalize_WithUnicodeVariants_ReturnsComposedForm() {
+        assertEquals("pokémon", SearchQueryNormalizer.normalize("Pokémon"));
+        assertEquals("pokémon", SearchQueryNormalizer.normalize("Poke\u0301mon"));
+        assertEquals("fifa", SearchQueryNormalizer.normalize("ＦＩＦＡ"));
+    }
+
+    @Test
+    void normalize_WithQuotes_RemovesThem() {
+        assertEquals("zelda", SearchQueryNormalizer.normalize("\"zelda\""));
+        assertEquals("a b", SearchQueryNormalizer.normalize("a\\b"));
+    }
+
+    @Test
+    void normalize_WithNullInput_ReturnsNull() {
+        assertNull(SearchQueryNormalizer.normalize(null));
+    }
+
+    @Test
+    void wordPrefixes_ReturnsLeadingWordsLongestFirst() {
+        assertEquals(List.of("zelda breath", "zelda"), SearchQueryNormalizer.wordPrefixes("zelda breath wild"));
+        assertTrue(SearchQueryNormalizer.wordPrefixes("zelda").isEmpty());
+    }
+
+    @Test
+    void matchesAllWords_RequiresEveryWord() {
+        assertTrue(SearchQueryNormalizer.matchesAllWords("The Legend of Zelda: Breath of the Wild", "zelda breath"));
+        assertFalse(SearchQueryNormalizer.matchesAllWords("Zelda II: The Adventure of Link", "zelda breath"));
+        assertFalse(SearchQueryNormalizer.matchesAllWords(null, "zelda"));
+    }
+
+    /**
+     * Replays the sample query log through an unbounded cache keyed by the raw query
+     * and one keyed by the canonical query, and compares their hit ratios
+     */
+    @Test
+    void normalize_OnRecordedQueryLog_RaisesHitRatio() throws IOException {
+        List<String> queries = loadQueries();
+
+        double rawHitRatio = hitRatio(queries, UnaryOperator.identity());
+        double canonicalHitRatio = hitRatio(queries, SearchQueryNormalizer::normalize);
+
+        logger.info("Search cache hit ratio on {} logged queries: raw keys {}, canonical keys {}",
+            queries.size(), String.format("%.2f", rawHitRatio), String.format("%.2f", canonicalHitRatio));
+        assertTrue(canonicalHitRatio > rawHitRatio);
+    }
+
+    private static double hitRatio(List<String> queries, UnaryOperator<String> key) {
+        Set<String> cached = new HashSet<>();
+        int hits = 0;
+        for (String query : queries) {
+            if (!cached.add(key.apply(query))) {
+                hits++;
+            }
+        }
+        return hits / (double) queries.size();
+    }
+
+    private static List<String> loadQueries() throws IOException {
+        try (InputStream input = SearchQueryNormalizerTest.class.getResourceAsStream("/search-queries.txt")) {
+            assertNotNull(input, "search-queries.txt missing from test resources");
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8).lines()
+                .filter(line -> !line.startsWith("#") && !line.isBlank())
+                .toList();
+        }
+    }
+} 